@@ -79,6 +79,12 @@ import gov.nasa.pds.tools.constants.Constants.ProblemType;
 
     private Label label = null;
 
+    @Override
+    public void reset() {
+        super.reset();
+        this.label = null;
+    }
+
     @Override
     public void displayRecognitionError(String[] tokenNames,
                                         RecognitionException e) {
@@ -175,6 +181,14 @@ import gov.nasa.pds.tools.constants.Constants.ProblemType;
 	public void setLabel(Label label) {
 		this.label = label;
 	}
+
+	@Override
+	public void reset() {
+		super.reset();
+		this.foundEND = false;
+		this.pastEndLine = false;
+		this.paraphrase.clear();
+	}
 }
 
 dictionary returns [List<Label> labels = new ArrayList<Label>()]
@@ -39,6 +39,8 @@ import java.util.Map;
 import java.util.MissingResourceException;
 import java.util.ResourceBundle;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -82,6 +84,19 @@ public class LocaleUtils {
 
 	public static final Map<Set<Object>, ResourceBundle> BUNDLE_CACHE = new HashMap<Set<Object>, ResourceBundle>();
 
+	// upper bound on cached formats since formatText accepts any pattern
+	public static final int MAX_CACHED_FORMATS = 4096;
+
+	// stands in for keys missing from the bundle in the message cache
+	private static final String MISSING = new String();
+
+	// messages by key for the current bundle, MISSING when not in the bundle
+	private final ConcurrentMap<String, String> messages = new ConcurrentHashMap<String, String>();
+
+	// compiled formats by pattern for the current locale. MessageFormat is
+	// not thread safe so each is locked while formatting
+	private final ConcurrentMap<String, MessageFormat> formats = new ConcurrentHashMap<String, MessageFormat>();
+
 	public LocaleUtils() {
 		this(null, null, DEFAULT_BUNDLE_ROOT);
 	}
@@ -133,6 +148,7 @@ public class LocaleUtils {
 
 	protected void setLocale(final Locale locale) {
 		this.locale = (locale == null) ? DEFAULT_LOCALE : locale;
+		this.formats.clear();
 	}
 
 	public Locale getLocale() {
@@ -152,6 +168,7 @@ public class LocaleUtils {
 	// override bundle
 	protected void setBundle(final ResourceBundle bundle) {
 		this.bundle = bundle;
+		this.messages.clear();
 	}
 
 	// get the resource bundle
@@ -161,7 +178,7 @@ public class LocaleUtils {
 
 	// override bundle by name
 	protected void setBundleName(String bundleName) {
-		this.bundle = ResourceBundle.getBundle(bundleName, this.locale);
+		setBundle(ResourceBundle.getBundle(bundleName, this.locale));
 	}
 
 	// since you can instantiate invalid locales, the best check is to see if
@@ -230,23 +247,13 @@ public class LocaleUtils {
 	 * @throws KeyNotFoundException
 	 */
 	public String getText(final String key, final Object... arguments) {
-		return getText(key, getBundle(), arguments);
-	}
-
-	// translation retrieval
-	// TODO: throw exception on failure to find?
-	private String getText(final String key, final ResourceBundle bundle,
-			Object... arguments) {
 		// some resources may be null rather than a key with empty value, short
 		// circuit here
 		if (key == null) {
 			return null;
 		}
-		String message = null;
-		try {
-			// TODO: try to find in overriding bundle first then look in default
-			message = bundle.getString(key);
-		} catch (MissingResourceException e) {
+		final String message = getMessage(key);
+		if (message == null) {
 			if (this.devMode) {
 				throw new RuntimeException("Unable to find message for key \""
 						+ key + "\".");
@@ -258,6 +265,33 @@ public class LocaleUtils {
 		return formatText(message, arguments);
 	}
 
+	/**
+	 * Checks for a message without formatting it or, in dev mode, failing
+	 * when it is missing.
+	 * 
+	 * @param key
+	 *            - properties key used to look up message
+	 * @return whether the bundle has a message for the key
+	 */
+	public boolean hasText(final String key) {
+		return key != null && getMessage(key) != null;
+	}
+
+	// unformatted message for the key, null if missing. Lookups are cached,
+	// including misses, so a missing key only costs an exception once
+	private String getMessage(final String key) {
+		String message = this.messages.get(key);
+		if (message == null) {
+			try {
+				message = getBundle().getString(key);
+			} catch (MissingResourceException e) {
+				message = MISSING;
+			}
+			this.messages.put(key, message);
+		}
+		return message == MISSING ? null : message;
+	}
+
 	public String formatText(final String message, Object... arguments) {
 		Object[] args = null;
 		// allow use of List to reduce legacy issues and increase
@@ -269,9 +303,25 @@ public class LocaleUtils {
 			args = arguments;
 		}
 
-		MessageFormat format = new MessageFormat(message, this.locale);
+		final MessageFormat format = getFormat(message);
+		synchronized (format) {
+			return format.format(args);
+		}
+	}
 
-		return format.format(args);
+	private MessageFormat getFormat(final String pattern) {
+		MessageFormat format = this.formats.get(pattern);
+		if (format == null) {
+			format = new MessageFormat(pattern, this.locale);
+			if (this.formats.size() < MAX_CACHED_FORMATS) {
+				final MessageFormat existing = this.formats.putIfAbsent(pattern,
+						format);
+				if (existing != null) {
+					format = existing;
+				}
+			}
+		}
+		return format;
 	}
 
 	// helper method returns locale specific formatting for a single number
@@ -0,0 +1,108 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// • Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// • Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// • Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.arc.pds.tools.util;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * A helper class for spreading tasks over an executor while the calling
+ * thread helps out. Tasks are handed to the executor with
+ * {@link #execute(Executor, FutureTask)} and then, in order, given to
+ * {@link #runAndAwait(FutureTask)}, which runs any task the executor has not
+ * started yet on the calling thread. Tasks waiting in a busy or saturated
+ * pool therefore can't stall the caller.
+ * 
+ * @version $Revision$
+ * 
+ */
+public class TaskUtils {
+
+	/**
+	 * Hands a task to an executor.
+	 * 
+	 * @param executor
+	 *            to run the task on, may be null
+	 * @return false if there was no executor or it rejected the task, it is
+	 *         then left to {@link #runAndAwait(FutureTask)}
+	 */
+	public static boolean execute(final Executor executor,
+			final FutureTask<?> task) {
+		if (executor == null) {
+			return false;
+		}
+		try {
+			executor.execute(task);
+			return true;
+		} catch (RejectedExecutionException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Runs the task on the calling thread unless it has already been started,
+	 * then waits for it to finish. An interrupt while waiting doesn't abandon
+	 * the task, the interrupt status is restored once it is done. Unchecked
+	 * exceptions and errors of the task are rethrown as they are.
+	 * 
+	 * @return the result of the task
+	 * @throws ExecutionException
+	 *             if the task threw a checked exception, which is its cause
+	 */
+	public static <T> T runAndAwait(final FutureTask<T> task)
+			throws ExecutionException {
+		task.run();
+		boolean interrupted = false;
+		try {
+			while (true) {
+				try {
+					return task.get();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				} catch (ExecutionException e) {
+					final Throwable cause = e.getCause();
+					if (cause instanceof RuntimeException) {
+						throw (RuntimeException) cause;
+					} else if (cause instanceof Error) {
+						throw (Error) cause;
+					}
+					throw e;
+				}
+			}
+		} finally {
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
@@ -0,0 +1,256 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// • Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// • Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// • Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.arc.pds.tools.util;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers whether URLs exist so that the same remote file is not checked
+ * with a new request each time a pointer to it is resolved. Answers are kept
+ * for a time to live, and a URL found missing is remembered for its own,
+ * usually shorter, time. Install a cache with
+ * {@link URLUtils#setExistenceCache(URLExistenceCache)} for
+ * {@link URLUtils#exists(URL)} to use it. File URLs are never cached.
+ * 
+ * @version $Revision$
+ */
+public class URLExistenceCache {
+
+	public static final long DEFAULT_TTL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+	public static final long DEFAULT_NEGATIVE_TTL_MILLIS = TimeUnit.SECONDS
+			.toMillis(30);
+
+	public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+	// threads used by existsAll(Collection) when not given an executor
+	private static final int MAX_CHECK_THREADS = 8;
+
+	private final long ttl;
+
+	private final long negativeTtl;
+
+	private final int maxEntries;
+
+	// keyed by external form as URL.equals() resolves host names, least
+	// recently used first
+	private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(
+			16, 0.75f, true);
+
+	private long hits;
+
+	private long misses;
+
+	public URLExistenceCache() {
+		this(DEFAULT_TTL_MILLIS, DEFAULT_NEGATIVE_TTL_MILLIS,
+				DEFAULT_MAX_ENTRIES);
+	}
+
+	/**
+	 * @param ttlMillis
+	 *            how long to remember that a URL exists
+	 * @param negativeTtlMillis
+	 *            how long to remember that a URL is missing
+	 * @param maxEntries
+	 *            number of URLs to remember before dropping the least
+	 *            recently used
+	 */
+	public URLExistenceCache(final long ttlMillis,
+			final long negativeTtlMillis, final int maxEntries) {
+		this.ttl = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+		this.negativeTtl = TimeUnit.MILLISECONDS.toNanos(negativeTtlMillis);
+		this.maxEntries = maxEntries;
+	}
+
+	public boolean exists(final URL url) {
+		if (URLUtils.isFile(url)) {
+			return URLUtils.checkExists(url);
+		}
+		final String key = url.toExternalForm();
+		final Boolean known = lookup(key);
+		if (known != null) {
+			return known.booleanValue();
+		}
+		final boolean exists = URLUtils.checkExists(url);
+		store(key, exists);
+		return exists;
+	}
+
+	/**
+	 * Checks the URLs concurrently, on up to eight threads started for the
+	 * call.
+	 * 
+	 * @return whether each URL exists, keyed by its external form in the
+	 *         order of the URLs
+	 */
+	public Map<String, Boolean> existsAll(final Collection<URL> urls) {
+		final int threads = Math.min(MAX_CHECK_THREADS, urls.size());
+		if (threads < 2) {
+			return existsAll(urls, null);
+		}
+		final ExecutorService executor = Executors.newFixedThreadPool(
+				threads, new ThreadFactory() {
+					public Thread newThread(final Runnable runnable) {
+						final Thread thread = new Thread(runnable,
+								"url-exists"); //$NON-NLS-1$
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		try {
+			return existsAll(urls, executor);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Checks the URLs not already known on the executor, or on the calling
+	 * thread when the executor is null. Each URL is checked once however
+	 * often it appears.
+	 * 
+	 * @return whether each URL exists, keyed by its external form in the
+	 *         order of the URLs
+	 */
+	public Map<String, Boolean> existsAll(final Collection<URL> urls,
+			final Executor executor) {
+		final Map<String, Boolean> results = new LinkedHashMap<String, Boolean>();
+		final Map<String, FutureTask<Boolean>> pending = new LinkedHashMap<String, FutureTask<Boolean>>();
+		for (final URL url : urls) {
+			final String key = url.toExternalForm();
+			if (results.containsKey(key) || pending.containsKey(key)) {
+				continue;
+			}
+			final Boolean known = URLUtils.isFile(url) ? null : lookup(key);
+			if (known != null) {
+				results.put(key, known);
+				continue;
+			}
+			// placeholder keeps the order of the URLs
+			results.put(key, null);
+			final FutureTask<Boolean> task = new FutureTask<Boolean>(
+					new Callable<Boolean>() {
+						public Boolean call() {
+							return Boolean.valueOf(URLUtils.isFile(url) ? URLUtils
+									.checkExists(url) : check(key, url));
+						}
+					});
+			pending.put(key, task);
+			TaskUtils.execute(executor, task);
+		}
+		for (final Map.Entry<String, FutureTask<Boolean>> entry : pending
+				.entrySet()) {
+			try {
+				results.put(entry.getKey(), TaskUtils.runAndAwait(entry
+						.getValue()));
+			} catch (ExecutionException e) {
+				// checks throw no checked exceptions
+				throw new IllegalStateException(e.getCause());
+			}
+		}
+		return results;
+	}
+
+	private boolean check(final String key, final URL url) {
+		final boolean exists = URLUtils.checkExists(url);
+		store(key, exists);
+		return exists;
+	}
+
+	private synchronized Boolean lookup(final String key) {
+		final Entry entry = this.entries.get(key);
+		if (entry != null) {
+			if (System.nanoTime() - entry.expires < 0) {
+				this.hits++;
+				return Boolean.valueOf(entry.exists);
+			}
+			this.entries.remove(key);
+		}
+		this.misses++;
+		return null;
+	}
+
+	private synchronized void store(final String key, final boolean exists) {
+		this.entries.put(key, new Entry(exists, System.nanoTime()
+				+ (exists ? this.ttl : this.negativeTtl)));
+		if (this.entries.size() > this.maxEntries) {
+			this.entries.remove(this.entries.keySet().iterator().next());
+		}
+	}
+
+	/**
+	 * Forgets what is known about the URL, for instance after creating it.
+	 */
+	public synchronized void invalidate(final URL url) {
+		this.entries.remove(url.toExternalForm());
+	}
+
+	public synchronized void clear() {
+		this.entries.clear();
+	}
+
+	public synchronized int size() {
+		return this.entries.size();
+	}
+
+	public synchronized long getHits() {
+		return this.hits;
+	}
+
+	public synchronized long getMisses() {
+		return this.misses;
+	}
+
+	private static final class Entry {
+
+		final boolean exists;
+
+		final long expires;
+
+		Entry(final boolean exists, final long expires) {
+			this.exists = exists;
+			this.expires = expires;
+		}
+	}
+}
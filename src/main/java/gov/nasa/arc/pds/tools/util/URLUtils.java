@@ -69,17 +69,43 @@ public class URLUtils {
 		}
 	}
 
+	// shared by all lookups, see setExistenceCache()
+	private static volatile URLExistenceCache existenceCache;
+
+	/**
+	 * Sets the cache that {@link #exists(URL)} answers from, or null to check
+	 * every time.
+	 */
+	public static void setExistenceCache(final URLExistenceCache cache) {
+		existenceCache = cache;
+	}
+
+	public static URLExistenceCache getExistenceCache() {
+		return existenceCache;
+	}
+
 	public static boolean exists(final URL url) {
-		HttpURLConnection.setFollowRedirects(false);
+		final URLExistenceCache cache = existenceCache;
+		if (cache != null) {
+			return cache.exists(url);
+		}
+		return checkExists(url);
+	}
+
+	static boolean isFile(final URL url) {
+		return "file".equalsIgnoreCase(url.getProtocol()); //$NON-NLS-1$
+	}
 
+	static boolean checkExists(final URL url) {
 		try {
 			HttpURLConnection connection = (HttpURLConnection) url
 					.openConnection();
+			// per connection, following redirects is a JVM wide default
+			connection.setInstanceFollowRedirects(false);
 			connection.setRequestMethod("HEAD"); //$NON-NLS-1$
-			boolean exists = (connection.getResponseCode() == HttpURLConnection.HTTP_OK);
-			connection.disconnect();
-			return exists;
-
+			final int code = connection.getResponseCode();
+			release(connection, code);
+			return code == HttpURLConnection.HTTP_OK;
 		} catch (IOException e) {
 			// noop
 		} catch (final ClassCastException e) {
@@ -96,6 +122,22 @@ public class URLUtils {
 		return false;
 	}
 
+	// closing the response rather than disconnecting leaves a kept alive
+	// connection for the next check against the same host
+	private static void release(final HttpURLConnection connection,
+			final int code) {
+		try {
+			final InputStream is = code < HttpURLConnection.HTTP_BAD_REQUEST ? connection
+					.getInputStream()
+					: connection.getErrorStream();
+			if (is != null) {
+				is.close();
+			}
+		} catch (IOException e) {
+			connection.disconnect();
+		}
+	}
+
 	public static URL getAlternateCaseURL(final URL url) {
 		try {
 			final String filename = getFileName(url);
@@ -262,6 +262,20 @@ public class LabelParserException extends Exception {
     this.statement = null;
   }
 
+  // exception view of a recorded problem, see Problem.toException(). Nothing
+  // was thrown so there is no stack worth capturing.
+  LabelParserException(final Problem problem) {
+    super(problem.getKey(), null, false, false);
+    this.sourceFile = problem.getSourceFile();
+    this.sourceURI = problem.getSourceURI();
+    this.lineNumber = problem.getLineNumber();
+    this.column = problem.getColumn();
+    this.type = problem.getType();
+    this.key = problem.getKey();
+    this.arguments = problem.getArguments();
+    this.statement = problem.getStatement();
+  }
+
   /**
    * 
    * @return URI of the file in which the exception occurred
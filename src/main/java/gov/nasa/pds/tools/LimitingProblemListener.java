@@ -0,0 +1,159 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// • Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// • Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// • Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.tools;
+
+import gov.nasa.pds.tools.constants.Constants.ProblemType;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Passes problems on to another listener until a limit is reached, so that a
+ * label with a systematic error does not flood the report or the heap. A limit
+ * may be set for each {@link ProblemType} as well as on the total. Problems
+ * over a limit are counted and dropped.
+ * 
+ * @version $Revision$
+ * 
+ */
+public class LimitingProblemListener implements ProblemListener {
+
+  private final ProblemListener listener;
+
+  private final int maxProblems;
+
+  private final Map<ProblemType, Integer> limits = new EnumMap<ProblemType, Integer>(
+      ProblemType.class);
+
+  private final Map<ProblemType, int[]> counts = new EnumMap<ProblemType, int[]>(
+      ProblemType.class);
+
+  private final Map<ProblemType, int[]> dropCounts = new EnumMap<ProblemType, int[]>(
+      ProblemType.class);
+
+  private int accepted;
+
+  private int dropped;
+
+  /**
+   * @param listener
+   *          listener to pass accepted problems to
+   * @param maxProblems
+   *          number of problems to pass on in total
+   */
+  public LimitingProblemListener(final ProblemListener listener,
+      final int maxProblems) {
+    this.listener = listener;
+    this.maxProblems = maxProblems;
+  }
+
+  /**
+   * Limits the number of problems of a type that are passed on.
+   * 
+   * @param type
+   *          type of problem to limit
+   * @param max
+   *          number of problems of the type to pass on
+   */
+  public synchronized void setLimit(final ProblemType type, final int max) {
+    this.limits.put(type, Integer.valueOf(max));
+  }
+
+  public void problemFound(final Problem problem) {
+    if (accept(problem.getType())) {
+      // not while holding the lock, the listener may block
+      this.listener.problemFound(problem);
+    }
+  }
+
+  private synchronized boolean accept(final ProblemType type) {
+    if (this.accepted < this.maxProblems) {
+      if (type == null) {
+        this.accepted++;
+        return true;
+      }
+      final Integer limit = this.limits.get(type);
+      final int[] count = count(this.counts, type);
+      if (limit == null || count[0] < limit.intValue()) {
+        count[0]++;
+        this.accepted++;
+        return true;
+      }
+    }
+    this.dropped++;
+    if (type != null) {
+      count(this.dropCounts, type)[0]++;
+    }
+    return false;
+  }
+
+  private static int[] count(final Map<ProblemType, int[]> counts,
+      final ProblemType type) {
+    int[] count = counts.get(type);
+    if (count == null) {
+      count = new int[1];
+      counts.put(type, count);
+    }
+    return count;
+  }
+
+  /**
+   * @return number of problems passed on
+   */
+  public synchronized int getAccepted() {
+    return this.accepted;
+  }
+
+  /**
+   * @return number of problems dropped because a limit was reached
+   */
+  public synchronized int getDropped() {
+    return this.dropped;
+  }
+
+  /**
+   * @param type
+   *          type of problem
+   * @return number of problems of the type that were dropped
+   */
+  public synchronized int getDropped(final ProblemType type) {
+    final int[] count = this.dropCounts.get(type);
+    return count == null ? 0 : count[0];
+  }
+
+  /**
+   * @return whether the total limit has been reached, after which every
+   *         problem is dropped
+   */
+  public synchronized boolean isFull() {
+    return this.accepted >= this.maxProblems;
+  }
+}
@@ -0,0 +1,284 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// • Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// • Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// • Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.tools;
+
+import gov.nasa.arc.pds.tools.util.StrUtils;
+import gov.nasa.pds.tools.constants.Constants.ProblemType;
+import gov.nasa.pds.tools.label.Label;
+import gov.nasa.pds.tools.label.Statement;
+import gov.nasa.pds.tools.util.MessageUtils;
+
+import java.io.File;
+import java.net.URI;
+
+/**
+ * A problem recorded against a label. Unlike {@link LabelParserException} a
+ * problem does not capture a stack trace when it is created, so recording one
+ * costs little more than the object itself. Use {@link #toException()} where
+ * an exception is still expected.
+ * 
+ * @version $Revision$
+ * 
+ */
+public final class Problem {
+
+  private final Integer lineNumber;
+
+  private final Integer column;
+
+  private final ProblemType type;
+
+  private final Object[] arguments;
+
+  private final String key;
+
+  private final Statement statement;
+
+  private final URI sourceURI;
+
+  private final File sourceFile;
+
+  // exception view of this problem, created on first request
+  private LabelParserException exception;
+
+  private Problem(final File sourceFile, final URI sourceURI,
+      final Integer lineNumber, final Integer column, final Statement statement,
+      final String key, final ProblemType type, final Object[] arguments,
+      final LabelParserException exception) {
+    this.sourceFile = sourceFile;
+    this.sourceURI = sourceURI;
+    this.lineNumber = lineNumber;
+    this.column = column;
+    this.statement = statement;
+    this.key = key;
+    this.type = type;
+    this.arguments = arguments;
+    this.exception = exception;
+  }
+
+  /**
+   * Creates a problem found within a statement.
+   * 
+   * @param statement
+   *          in which the problem occurred
+   * @param column
+   *          within the file where the problem started
+   * @param key
+   *          used to quickly associate lookup or filter this type of problem
+   * @param type
+   *          classification of the problem
+   * @param arguments
+   *          to be used in generating problem messages
+   */
+  public Problem(final Statement statement, final Integer column,
+      final String key, final ProblemType type, final Object... arguments) {
+    this(statement.getSourceFile(), statement.getSourceURI(), Integer
+        .valueOf(statement.getLineNumber()), column, statement, key, type,
+        arguments, null);
+  }
+
+  /**
+   * Creates a problem found within a label but not within a statement.
+   * 
+   * @param label
+   *          within which the problem occurred
+   * @param lineNumber
+   *          within the file where the problem started
+   * @param column
+   *          within the file where the problem started
+   * @param key
+   *          used to quickly associate lookup or filter this type of problem
+   * @param type
+   *          classification of the problem
+   * @param arguments
+   *          to be used in generating problem messages
+   */
+  public Problem(final Label label, final Integer lineNumber,
+      final Integer column, final String key, final ProblemType type,
+      final Object... arguments) {
+    this(label.getLabelFile(), label.getLabelURI(), lineNumber, column, null,
+        key, type, arguments, null);
+  }
+
+  /**
+   * Creates a problem found within a file.
+   * 
+   * @param sourceFile
+   *          within which the problem occurred
+   * @param lineNumber
+   *          within the file where the problem started
+   * @param column
+   *          within the file where the problem started
+   * @param key
+   *          used to quickly associate lookup or filter this type of problem
+   * @param type
+   *          classification of the problem
+   * @param arguments
+   *          to be used in generating problem messages
+   */
+  public Problem(final File sourceFile, final Integer lineNumber,
+      final Integer column, final String key, final ProblemType type,
+      final Object... arguments) {
+    this(sourceFile, null, lineNumber, column, null, key, type, arguments,
+        null);
+  }
+
+  /**
+   * Creates a problem found within a URI.
+   * 
+   * @param sourceURI
+   *          within which the problem occurred
+   * @param lineNumber
+   *          within the file where the problem started
+   * @param column
+   *          within the file where the problem started
+   * @param key
+   *          used to quickly associate lookup or filter this type of problem
+   * @param type
+   *          classification of the problem
+   * @param arguments
+   *          to be used in generating problem messages
+   */
+  public Problem(final URI sourceURI, final Integer lineNumber,
+      final Integer column, final String key, final ProblemType type,
+      final Object... arguments) {
+    this(null, sourceURI, lineNumber, column, null, key, type, arguments, null);
+  }
+
+  /**
+   * Wraps an existing exception. The exception is kept so that
+   * {@link #toException()} hands back the same instance.
+   * 
+   * @param e
+   *          exception to describe
+   * @return problem carrying the context of the exception
+   */
+  public static Problem of(final LabelParserException e) {
+    return new Problem(e.getSourceFile(), e.getSourceURI(), e.getLineNumber(),
+        e.getColumn(), e.getStatement(), e.getKey(), e.getType(), e
+            .getArguments(), e);
+  }
+
+  /**
+   * Adapter for callers that work with exceptions. The exception is created
+   * without a stack trace on first use and reused afterwards.
+   * 
+   * @return exception view of this problem
+   */
+  public synchronized LabelParserException toException() {
+    if (this.exception == null) {
+      this.exception = new LabelParserException(this);
+    }
+    return this.exception;
+  }
+
+  /**
+   * Renders the message for this problem. Nothing is rendered when a problem
+   * is recorded, only when its text is asked for, and the text is not kept.
+   * 
+   * @return message in the default locale
+   */
+  public String getMessage() {
+    return MessageUtils.getProblemMessage(this);
+  }
+
+  /**
+   * 
+   * @return URI of the file in which the problem occurred
+   */
+  public URI getSourceURI() {
+    return this.sourceURI;
+  }
+
+  /**
+   * 
+   * @return File in which the problem occurred
+   */
+  public File getSourceFile() {
+    return this.sourceFile;
+  }
+
+  /**
+   * 
+   * @return Line number of the problem if applicable
+   */
+  public Integer getLineNumber() {
+    return this.lineNumber;
+  }
+
+  /**
+   * 
+   * @return Column number of the problem if applicable
+   */
+  public Integer getColumn() {
+    return this.column;
+  }
+
+  /**
+   * 
+   * @return classification of the problem
+   */
+  public ProblemType getType() {
+    return this.type;
+  }
+
+  /**
+   * 
+   * @return arguments to be used in producing a message about this problem
+   */
+  public Object[] getArguments() {
+    return this.arguments;
+  }
+
+  /**
+   * 
+   * @return key of this problem which is useful for filtering
+   */
+  public String getKey() {
+    return this.key;
+  }
+
+  /**
+   * 
+   * @return statement in which the problem occurred.
+   */
+  public Statement getStatement() {
+    return this.statement;
+  }
+
+  @SuppressWarnings("nls")
+  @Override
+  public String toString() {
+    return "[" + this.type + " - \"" + this.key + "\" on line "
+        + this.lineNumber + "] (" + StrUtils.toSeparatedString(this.arguments)
+        + ")";
+  }
+}
@@ -0,0 +1,114 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// • Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// • Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// • Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.tools;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * Writes each problem as a line of text as soon as it is found, so a report
+ * for any number of problems can be produced without holding them. Lines read
+ * <code>Line 12, 5: message</code>, optionally preceded by the file or URI the
+ * problem was found in.
+ * 
+ * @version $Revision$
+ * 
+ */
+public class ProblemReportWriter implements ProblemListener, Flushable,
+    Closeable {
+
+  private final Writer writer;
+
+  private final boolean showSource;
+
+  private long count;
+
+  /**
+   * @param writer
+   *          where to write problems
+   * @param showSource
+   *          whether to start each line with the source of the problem, for
+   *          reports covering more than one label
+   */
+  public ProblemReportWriter(final Writer writer, final boolean showSource) {
+    this.writer = writer;
+    this.showSource = showSource;
+  }
+
+  /**
+   * @throws UncheckedIOException
+   *           if the problem could not be written
+   */
+  @SuppressWarnings("nls")
+  public synchronized void problemFound(final Problem problem) {
+    final StringBuilder line = new StringBuilder();
+    if (this.showSource) {
+      if (problem.getSourceFile() != null) {
+        line.append(problem.getSourceFile()).append(": ");
+      } else if (problem.getSourceURI() != null) {
+        line.append(problem.getSourceURI()).append(": ");
+      }
+    }
+    if (problem.getLineNumber() != null) {
+      line.append("Line ").append(problem.getLineNumber());
+      if (problem.getColumn() != null) {
+        line.append(", ").append(problem.getColumn());
+      }
+      line.append(": ");
+    }
+    line.append(problem.getMessage());
+    line.append(System.getProperty("line.separator"));
+    try {
+      this.writer.write(line.toString());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    this.count++;
+  }
+
+  /**
+   * @return number of problems written
+   */
+  public synchronized long getCount() {
+    return this.count;
+  }
+
+  public synchronized void flush() throws IOException {
+    this.writer.flush();
+  }
+
+  public synchronized void close() throws IOException {
+    this.writer.close();
+  }
+}
@@ -0,0 +1,158 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// • Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// • Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// • Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.tools;
+
+import java.io.Closeable;
+import java.io.File;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Hands problems to another listener on a thread of its own, so that a slow
+ * listener, such as one writing a report to disk, does not hold up parsing
+ * until it falls behind. Problems wait in a bounded queue and once the queue
+ * is full {@link #problemFound(Problem)} blocks until there is room, which
+ * keeps memory use bounded however fast problems are produced. Problems are
+ * delivered in the order they were queued.
+ * 
+ * {@link #close()} must be called to deliver the problems still queued and
+ * stop the thread.
+ * 
+ * @version $Revision$
+ * 
+ */
+public class QueuedProblemListener implements ProblemListener, Closeable {
+
+  // marks the end of the queue
+  private static final Problem END = new Problem((File) null, null, null,
+      null, null);
+
+  private final ProblemListener listener;
+
+  private final BlockingQueue<Problem> queue;
+
+  private final Thread thread;
+
+  private volatile boolean closed;
+
+  // first failure of the listener, reported to producers
+  private volatile RuntimeException failure;
+
+  /**
+   * @param listener
+   *          listener to deliver problems to
+   * @param capacity
+   *          number of problems that may wait before producers block
+   */
+  public QueuedProblemListener(final ProblemListener listener,
+      final int capacity) {
+    this.listener = listener;
+    this.queue = new ArrayBlockingQueue<Problem>(capacity);
+    this.thread = new Thread(new Runnable() {
+      public void run() {
+        deliver();
+      }
+    }, "problem-listener"); //$NON-NLS-1$
+    this.thread.setDaemon(true);
+    this.thread.start();
+  }
+
+  /**
+   * Queues the problem, waiting for room if the queue is full.
+   * 
+   * @throws IllegalStateException
+   *           if the listener has been closed
+   * @throws RuntimeException
+   *           the failure of the listener, if it failed on an earlier problem
+   */
+  public void problemFound(final Problem problem) {
+    if (this.closed) {
+      throw new IllegalStateException("Listener is closed"); //$NON-NLS-1$
+    }
+    checkFailure();
+    try {
+      this.queue.put(problem);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * @return number of problems waiting to be delivered
+   */
+  public int getPending() {
+    return this.queue.size();
+  }
+
+  /**
+   * Delivers the problems still queued and stops the delivery thread.
+   * 
+   * @throws RuntimeException
+   *           the failure of the listener, if it failed
+   */
+  public void close() {
+    if (!this.closed) {
+      this.closed = true;
+      try {
+        this.queue.put(END);
+        this.thread.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    checkFailure();
+  }
+
+  private void checkFailure() {
+    final RuntimeException e = this.failure;
+    if (e != null) {
+      throw e;
+    }
+  }
+
+  private void deliver() {
+    try {
+      for (Problem problem = this.queue.take(); problem != END; problem = this.queue
+          .take()) {
+        // after a failure keep draining so producers are not left blocked
+        if (this.failure == null) {
+          try {
+            this.listener.problemFound(problem);
+          } catch (RuntimeException e) {
+            this.failure = e;
+          }
+        }
+      }
+    } catch (InterruptedException e) {
+      // stop delivering
+    }
+  }
+}
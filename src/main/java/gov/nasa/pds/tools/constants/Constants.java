@@ -156,6 +156,8 @@ public class Constants {
 
 		// file problems
 		MISSING_RESOURCE(Severity.ERROR), // missing file from pointer
+		POINTER_PAST_END(Severity.ERROR), // pointer starts after end of file
+		UNREADABLE_RESOURCE(Severity.ERROR), // file from pointer can't be read
 		MISSING_INDEX_RESOURCE(Severity.ERROR), // missing file from index
 		MISSING_REQUIRED_RESOURCE(Severity.ERROR), // missing file or folder
 		UNKNOWN_FILE(Severity.WARNING), // unexpected file without label
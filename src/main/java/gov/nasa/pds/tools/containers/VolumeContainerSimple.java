@@ -33,6 +33,7 @@ package gov.nasa.pds.tools.containers;
 import gov.nasa.arc.pds.tools.util.FileUtils;
 import gov.nasa.arc.pds.tools.util.URLUtils;
 import gov.nasa.pds.tools.constants.Constants;
+import gov.nasa.pds.tools.label.DirectoryCache;
 
 import java.io.File;
 import java.net.URI;
@@ -96,17 +97,36 @@ public class VolumeContainerSimple implements BaseContainerInterface {
     final URI catalogURI;
 
     public VolumeContainerSimple(final File baseFolder) {
+        this(baseFolder, null);
+    }
+
+    /**
+     * Finds the standard folders of the volume from the listings held by the
+     * cache, if one is given, rather than by checking each folder name.
+     */
+    public VolumeContainerSimple(final File baseFolder,
+            final DirectoryCache directoryCache) {
         this.baseFolder = baseFolder;
-        this.documentFolder = getFile(Constants.DOCUMENT_FOLDER_NAME);
-        this.labelFolder = getFile(Constants.LABEL_FOLDER_NAME);
-        this.softwareFolder = getFile(Constants.SOFTWARE_FOLDER_NAME);
-        this.calibFolder = getFile(Constants.CALIB_FOLDER_NAME);
-        this.geometryFolder = getFile(Constants.GEOMETRY_FOLDER_NAME);
-        this.indexFolder = getFile(Constants.INDEX_FOLDER_NAME);
-        this.dataFolder = getFile(Constants.DATA_FOLDER_NAME);
-        this.extrasFolder = getFile(Constants.EXTRAS_FOLDER_NAME);
-        this.gazetteerFolder = getFile(Constants.GAZETTEER_FOLDER_NAME);
-        this.catalogFolder = getFile(Constants.CATALOG_FOLDER_NAME);
+        this.documentFolder = getFile(Constants.DOCUMENT_FOLDER_NAME,
+                directoryCache);
+        this.labelFolder = getFile(Constants.LABEL_FOLDER_NAME,
+                directoryCache);
+        this.softwareFolder = getFile(Constants.SOFTWARE_FOLDER_NAME,
+                directoryCache);
+        this.calibFolder = getFile(Constants.CALIB_FOLDER_NAME,
+                directoryCache);
+        this.geometryFolder = getFile(Constants.GEOMETRY_FOLDER_NAME,
+                directoryCache);
+        this.indexFolder = getFile(Constants.INDEX_FOLDER_NAME,
+                directoryCache);
+        this.dataFolder = getFile(Constants.DATA_FOLDER_NAME,
+                directoryCache);
+        this.extrasFolder = getFile(Constants.EXTRAS_FOLDER_NAME,
+                directoryCache);
+        this.gazetteerFolder = getFile(Constants.GAZETTEER_FOLDER_NAME,
+                directoryCache);
+        this.catalogFolder = getFile(Constants.CATALOG_FOLDER_NAME,
+                directoryCache);
         this.baseURI = null;
         this.documentURI = null;
         this.labelURI = null;
@@ -145,7 +165,11 @@ public class VolumeContainerSimple implements BaseContainerInterface {
         this.catalogURI = getURI(Constants.CATALOG_FOLDER_NAME);
     }
 
-    private File getFile(final String path) {
+    private File getFile(final String path,
+            final DirectoryCache directoryCache) {
+        if (directoryCache != null) {
+            return directoryCache.getCaseUnknownFile(this.baseFolder, path);
+        }
         return FileUtils.getCaseUnknownFile(this.baseFolder, path);
     }
 
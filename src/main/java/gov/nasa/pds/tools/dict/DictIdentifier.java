@@ -30,12 +30,17 @@
 
 package gov.nasa.pds.tools.dict;
 
+import gov.nasa.pds.tools.dict.parser.DictIDFactory;
+
 import java.io.Serializable;
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
 
+/**
+ * Identifier of a dictionary definition or label statement. Instances are
+ * immutable and should be obtained from {@link DictIDFactory}, which hands
+ * out one shared instance per id and type so that map lookups usually succeed
+ * on reference equality.
+ */
 public class DictIdentifier implements Serializable {
-  private static final Logger log = LogManager.getLogger(DictIdentifier.class.getName());
 
   private static final long serialVersionUID = 5818359213098660993L;
 
@@ -43,6 +48,9 @@ public class DictIdentifier implements Serializable {
 
   private final Class<? extends Definition> clazz;
 
+  // computed once, identifiers key every statement and definition map
+  private final transient int hash;
+
   public DictIdentifier(final Alias alias, final Class<? extends Definition> clazz) {
     this(alias.toString(), clazz);
   }
@@ -50,6 +58,7 @@ public class DictIdentifier implements Serializable {
   public DictIdentifier(final String id, final Class<? extends Definition> clazz) {
     this.id = id == null ? "" : id; //$NON-NLS-1$
     this.clazz = clazz;
+    this.hash = (this.id + clazz.getSimpleName()).hashCode();
   }
 
   public Class<? extends Definition> getType() {
@@ -62,23 +71,20 @@ public class DictIdentifier implements Serializable {
 
   @Override
   public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
     if (!(o instanceof DictIdentifier)) {
-      log.info(o.toString() + " is not an instance of DictIdentifier"); //$NON-NLS-1$
       return false;
     }
     DictIdentifier oId = (DictIdentifier) o;
-    if (!this.clazz.equals(oId.getType())) {
-      return false;
-    } else if (!this.id.equals(oId.getId())) {
-      return false;
-    }
-    return true;
+    return this.hash == oId.hash && this.clazz.equals(oId.clazz)
+        && this.id.equals(oId.id);
   }
 
   @Override
   public int hashCode() {
-    String name = this.id + this.clazz.getSimpleName();
-    return name.hashCode();
+    return this.hash;
   }
 
   @Override
@@ -86,4 +92,9 @@ public class DictIdentifier implements Serializable {
     return this.id;
   }
 
+  // the shared instance rather than a copy with no hash
+  private Object readResolve() {
+    return DictIDFactory.createDefId(this.id, this.clazz);
+  }
+
 }
@@ -45,6 +45,8 @@ import java.util.regex.Pattern;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import gov.nasa.pds.tools.LabelParserException;
+import gov.nasa.pds.tools.Problem;
+import gov.nasa.pds.tools.ProblemListener;
 import gov.nasa.pds.tools.constants.Constants.DictionaryType;
 import gov.nasa.pds.tools.containers.SimpleDictionaryChange;
 import gov.nasa.pds.tools.dict.parser.DictIDFactory;
@@ -80,6 +82,8 @@ public class Dictionary implements Serializable {
 
   private final List<LabelParserException> problems = new ArrayList<LabelParserException>();
 
+  private ProblemListener problemListener;
+
   public Dictionary() {
     this.dictionaryURI = null;
     this.dictionaryFile = null;
@@ -516,7 +520,8 @@ public class Dictionary implements Serializable {
       this.definitions.put(id, definition);
       for (Iterator<Alias> i = definition.getAliases().iterator(); i.hasNext();) {
         Alias alias = i.next();
-        final DictIdentifier aliasId = new DictIdentifier(alias, definition.getClass());
+        final DictIdentifier aliasId = DictIDFactory.createDefId(alias.toString(),
+            definition.getClass());
         this.definitions.put(aliasId, definition);
       }
     } else {
@@ -633,11 +638,40 @@ public class Dictionary implements Serializable {
   }
 
   public void addProblem(LabelParserException exception) {
-    this.problems.add(exception);
+    if (this.problemListener != null) {
+      this.problemListener.problemFound(Problem.of(exception));
+    } else {
+      this.problems.add(exception);
+    }
+  }
+
+  public void addProblem(final Problem problem) {
+    if (this.problemListener != null) {
+      this.problemListener.problemFound(problem);
+    } else {
+      this.problems.add(problem.toException());
+    }
   }
 
   public void addProblems(final List<LabelParserException> exceptions) {
-    this.problems.addAll(exceptions);
+    for (final LabelParserException exception : exceptions) {
+      addProblem(exception);
+    }
+  }
+
+  /**
+   * Sends problems found in this dictionary to a listener instead of keeping
+   * them for {@link #getProblems()}.
+   * 
+   * @param problemListener
+   *          listener for problems, null to keep problems
+   */
+  public void setProblemListener(final ProblemListener problemListener) {
+    this.problemListener = problemListener;
+  }
+
+  public ProblemListener getProblemListener() {
+    return this.problemListener;
   }
 
   public List<LabelParserException> getProblems() {
@@ -0,0 +1,557 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// • Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// • Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// • Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.tools.dict;
+
+import gov.nasa.pds.tools.LabelParserException;
+import gov.nasa.pds.tools.constants.Constants.DictionaryType;
+import gov.nasa.pds.tools.dict.parser.DictIDFactory;
+import gov.nasa.pds.tools.dict.parser.DictionaryParser;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.zip.CRC32;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Binary image of a parsed {@link Dictionary}: its definitions, aliases,
+ * units and value lists. Reading one back is much quicker than parsing the
+ * dictionary text with ANTLR. A snapshot records the length and checksum of
+ * the dictionary it was made from and is only read back against that same
+ * dictionary, so callers can fall back to parsing when it is missing or
+ * stale.
+ * 
+ * The build writes a snapshot of the default dictionary with
+ * {@link #main(String[])}.
+ * 
+ * @version $Revision$
+ * 
+ */
+@SuppressWarnings("nls")
+public class DictionarySnapshot {
+
+    public static final String DEFAULT_SNAPSHOT = "pdsdd.snapshot";
+
+    private static final int MAGIC = 0x50445344; // "PDSD"
+
+    // bump whenever the layout below changes
+    private static final int FORMAT_VERSION = 1;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final byte ELEMENT = 0;
+
+    private static final byte OBJECT = 1;
+
+    private static final byte GROUP = 2;
+
+    private static final byte CONTAINER = 3;
+
+    private static final byte NULL = 4;
+
+    private static final byte NO_NUMBER = 0;
+
+    private static final byte LONG = 1;
+
+    private static final byte DOUBLE = 2;
+
+    private static final byte DECIMAL = 3;
+
+    /**
+     * Parses a dictionary and writes its snapshot.
+     * 
+     * @param args
+     *          the dictionary to read and the snapshot file to write
+     */
+    public static void main(final String[] args) throws IOException,
+            LabelParserException, URISyntaxException {
+        if (args.length != 2) {
+            System.err.println("Usage: DictionarySnapshot <dictionary> <snapshot>");
+            System.exit(1);
+        }
+        final File source = new File(args[0]);
+        final InputStream in = source.toURI().toURL().openStream();
+        final Dictionary dictionary;
+        try {
+            dictionary = DictionaryParser.parse(in, new Dictionary(source
+                    .toURI()), false, false);
+        } finally {
+            in.close();
+        }
+        write(dictionary, source.toURI().toURL(), new File(args[1]));
+    }
+
+    /**
+     * Writes a snapshot of a dictionary.
+     * 
+     * @param dictionary
+     *          parsed from source
+     * @param source
+     *          the text the dictionary was parsed from, the snapshot is only
+     *          good for as long as this doesn't change
+     * @param snapshot
+     *          file to write
+     */
+    public static void write(final Dictionary dictionary, final URL source,
+            final File snapshot) throws IOException {
+        final Encoder encoder = new Encoder();
+        final byte[] body = encoder.write(dictionary);
+        final DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(snapshot)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            final long[] stamp = stamp(source);
+            out.writeLong(stamp[0]);
+            out.writeLong(stamp[1]);
+            encoder.writeStrings(out);
+            out.write(body);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Reads a snapshot back. Snapshots on the file system are mapped rather
+     * than copied onto the heap.
+     * 
+     * @param snapshot
+     *          to read
+     * @param source
+     *          dictionary text the snapshot should have been made from
+     * @return the dictionary or null if the snapshot was made from a
+     *         different version of source or by a different version of this
+     *         class
+     */
+    public static Dictionary read(final URL snapshot, final URL source)
+            throws IOException {
+        final ByteBuffer buffer = map(snapshot);
+        try {
+            if (buffer.getInt() != MAGIC
+                    || buffer.getInt() != FORMAT_VERSION) {
+                return null;
+            }
+            final long[] stamp = stamp(source);
+            if (buffer.getLong() != stamp[0] || buffer.getLong() != stamp[1]) {
+                return null;
+            }
+            return new Decoder(buffer).read(new Dictionary(source.toURI()));
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated dictionary snapshot " + snapshot);
+        } catch (URISyntaxException e) {
+            throw new IOException(e);
+        }
+    }
+
+    // length and checksum of the source text
+    private static long[] stamp(final URL source) throws IOException {
+        final CRC32 crc = new CRC32();
+        long length = 0;
+        final InputStream in = source.openStream();
+        try {
+            final byte[] bytes = new byte[65536];
+            int read;
+            while ((read = in.read(bytes)) != -1) {
+                crc.update(bytes, 0, read);
+                length += read;
+            }
+        } finally {
+            in.close();
+        }
+        return new long[] { length, crc.getValue() };
+    }
+
+    private static ByteBuffer map(final URL url) throws IOException {
+        if ("file".equals(url.getProtocol())) {
+            final FileChannel channel;
+            try {
+                channel = FileChannel.open(Paths.get(url.toURI()),
+                        StandardOpenOption.READ);
+            } catch (URISyntaxException e) {
+                throw new IOException(e);
+            }
+            try {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel
+                        .size());
+            } finally {
+                channel.close();
+            }
+        }
+        // entries of a jar can't be mapped
+        final InputStream in = url.openStream();
+        try {
+            return ByteBuffer.wrap(IOUtils.toByteArray(in));
+        } finally {
+            in.close();
+        }
+    }
+
+    private static byte getTag(final Class<?> clazz) throws IOException {
+        if (clazz == ElementDefinition.class) {
+            return ELEMENT;
+        } else if (clazz == ObjectDefinition.class) {
+            return OBJECT;
+        } else if (clazz == GroupDefinition.class) {
+            return GROUP;
+        } else if (clazz == ContainerDefinition.class) {
+            return CONTAINER;
+        } else if (clazz == NullDefinition.class) {
+            return NULL;
+        }
+        throw new IOException("Can't write definitions of type " + clazz);
+    }
+
+    private static Class<? extends Definition> getType(final byte tag)
+            throws IOException {
+        switch (tag) {
+        case ELEMENT:
+            return ElementDefinition.class;
+        case OBJECT:
+            return ObjectDefinition.class;
+        case GROUP:
+            return GroupDefinition.class;
+        case CONTAINER:
+            return ContainerDefinition.class;
+        case NULL:
+            return NullDefinition.class;
+        default:
+            throw new IOException("Unknown definition type " + tag);
+        }
+    }
+
+    // strings are written once to a table at the front and referred to by
+    // index since identifiers, units and values repeat throughout
+    private static class Encoder {
+
+        private final Map<String, Integer> strings = new LinkedHashMap<String, Integer>();
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        private final DataOutputStream out = new DataOutputStream(this.bytes);
+
+        byte[] write(final Dictionary dictionary) throws IOException {
+            writeString(dictionary.getInformation());
+            this.out.writeInt(dictionary.getUnits().size());
+            for (final Entry<String, String> unit : dictionary.getUnits()
+                    .entrySet()) {
+                writeString(unit.getKey());
+                writeString(unit.getValue());
+            }
+
+            // aliases map several identifiers to the same definition
+            final Map<Definition, Integer> indexes = new IdentityHashMap<Definition, Integer>();
+            final List<Definition> definitions = new ArrayList<Definition>();
+            for (final Definition definition : dictionary.getDefinitions()
+                    .values()) {
+                if (!indexes.containsKey(definition)) {
+                    indexes.put(definition, definitions.size());
+                    definitions.add(definition);
+                }
+            }
+            this.out.writeInt(definitions.size());
+            for (final Definition definition : definitions) {
+                writeDefinition(definition);
+            }
+            this.out.writeInt(dictionary.getDefinitions().size());
+            for (final Entry<DictIdentifier, Definition> entry : dictionary
+                    .getDefinitions().entrySet()) {
+                writeIdentifier(entry.getKey());
+                this.out.writeInt(indexes.get(entry.getValue()));
+            }
+            this.out.flush();
+            return this.bytes.toByteArray();
+        }
+
+        void writeStrings(final DataOutputStream target) throws IOException {
+            target.writeInt(this.strings.size());
+            for (final String string : this.strings.keySet()) {
+                final byte[] encoded = string.getBytes(UTF8);
+                target.writeInt(encoded.length);
+                target.write(encoded);
+            }
+        }
+
+        private void writeDefinition(final Definition definition)
+                throws IOException {
+            this.out.writeByte(getTag(definition.getClass()));
+            this.out.writeInt(definition.getLineNumber());
+            writeString(definition.getIdentifier().getId());
+            writeString(definition.hasStatusType() ? definition
+                    .getStatusType() : null);
+            writeString(definition.hasDescription() ? definition
+                    .getDescription() : null);
+            writeString(definition.getObjectType());
+            this.out.writeInt(definition.getAliases().size());
+            for (final Alias alias : definition.getAliases()) {
+                writeString(alias.getContext());
+                writeString(alias.getIdentifier().toString());
+            }
+            if (definition instanceof ContainerDefinition) {
+                final ContainerDefinition container = (ContainerDefinition) definition;
+                writeIdentifiers(container.getRequired());
+                writeIdentifiers(container.getOptional());
+            } else if (definition instanceof ElementDefinition) {
+                final ElementDefinition element = (ElementDefinition) definition;
+                writeString(element.getDataType() == null ? null : element
+                        .getDataType().name());
+                writeString(element.getUnits());
+                writeString(element.getValueType());
+                this.out.writeInt(element.hasMinLength() ? element
+                        .getMinLength() : -1);
+                this.out.writeInt(element.hasMaxLength() ? element
+                        .getMaxLength() : -1);
+                writeNumber(element.getMinimum());
+                writeNumber(element.getMaximum());
+                final Collection<String> values = element.getValues();
+                this.out.writeInt(values.size());
+                for (final String value : values) {
+                    writeString(value);
+                }
+            }
+        }
+
+        private void writeIdentifiers(final List<DictIdentifier> identifiers)
+                throws IOException {
+            this.out.writeInt(identifiers.size());
+            for (final DictIdentifier identifier : identifiers) {
+                writeIdentifier(identifier);
+            }
+        }
+
+        private void writeIdentifier(final DictIdentifier identifier)
+                throws IOException {
+            this.out.writeByte(getTag(identifier.getType()));
+            writeString(identifier.getId());
+        }
+
+        private void writeNumber(final Number number) throws IOException {
+            if (number == null) {
+                this.out.writeByte(NO_NUMBER);
+            } else if (number instanceof Long) {
+                this.out.writeByte(LONG);
+                this.out.writeLong(number.longValue());
+            } else if (number instanceof Double) {
+                this.out.writeByte(DOUBLE);
+                this.out.writeDouble(number.doubleValue());
+            } else {
+                this.out.writeByte(DECIMAL);
+                writeString(number.toString());
+            }
+        }
+
+        private void writeString(final String string) throws IOException {
+            if (string == null) {
+                this.out.writeInt(-1);
+                return;
+            }
+            Integer index = this.strings.get(string);
+            if (index == null) {
+                index = this.strings.size();
+                this.strings.put(string, index);
+            }
+            this.out.writeInt(index);
+        }
+    }
+
+    private static class Decoder {
+
+        private final ByteBuffer buffer;
+
+        private final String[] strings;
+
+        Decoder(final ByteBuffer buffer) {
+            this.buffer = buffer;
+            this.strings = new String[buffer.getInt()];
+            byte[] bytes = new byte[256];
+            for (int i = 0; i < this.strings.length; i++) {
+                final int length = buffer.getInt();
+                if (length > bytes.length) {
+                    bytes = new byte[length];
+                }
+                buffer.get(bytes, 0, length);
+                this.strings[i] = new String(bytes, 0, length, UTF8);
+            }
+        }
+
+        Dictionary read(final Dictionary dictionary) throws IOException {
+            dictionary.setInformation(readString());
+            final int unitCount = this.buffer.getInt();
+            final Map<String, String> units = new HashMap<String, String>();
+            for (int i = 0; i < unitCount; i++) {
+                units.put(readString(), readString());
+            }
+            dictionary.setUnits(units);
+
+            final Definition[] definitions = new Definition[this.buffer
+                    .getInt()];
+            for (int i = 0; i < definitions.length; i++) {
+                definitions[i] = readDefinition(dictionary);
+            }
+            final int keyCount = this.buffer.getInt();
+            final Map<DictIdentifier, Definition> map = dictionary
+                    .getDefinitions();
+            for (int i = 0; i < keyCount; i++) {
+                final DictIdentifier key = readIdentifier();
+                map.put(key, definitions[this.buffer.getInt()]);
+            }
+            return dictionary;
+        }
+
+        private Definition readDefinition(final Dictionary dictionary)
+                throws IOException {
+            final Class<? extends Definition> type = getType(this.buffer
+                    .get());
+            final int lineNumber = this.buffer.getInt();
+            final DictIdentifier identifier = DictIDFactory.createDefId(
+                    readString(), type);
+            final Definition definition;
+            if (type == ElementDefinition.class) {
+                definition = new ElementDefinition(dictionary, lineNumber,
+                        identifier);
+            } else if (type == ObjectDefinition.class) {
+                definition = new ObjectDefinition(dictionary, lineNumber,
+                        identifier);
+            } else if (type == GroupDefinition.class) {
+                definition = new GroupDefinition(dictionary, lineNumber,
+                        identifier);
+            } else if (type == ContainerDefinition.class) {
+                definition = new ContainerDefinition(dictionary, lineNumber,
+                        identifier);
+            } else {
+                definition = new NullDefinition(dictionary, lineNumber,
+                        identifier);
+            }
+            definition.setStatusType(readString());
+            definition.setDescription(readString());
+            definition.setObjectType(readString());
+            final int aliasCount = this.buffer.getInt();
+            for (int i = 0; i < aliasCount; i++) {
+                definition.addAliasSimple(new Alias(readString(),
+                        readString()));
+            }
+            if (definition instanceof ContainerDefinition) {
+                final ContainerDefinition container = (ContainerDefinition) definition;
+                container.getRequired().addAll(readIdentifiers());
+                container.getOptional().addAll(readIdentifiers());
+            } else if (definition instanceof ElementDefinition) {
+                final ElementDefinition element = (ElementDefinition) definition;
+                final String dataType = readString();
+                if (dataType != null) {
+                    element.setDataType(DictionaryType.valueOf(dataType));
+                }
+                element.setUnits(readString());
+                element.setValueType(readString());
+                final int minLength = this.buffer.getInt();
+                if (minLength != -1) {
+                    element.setMinLength(minLength);
+                }
+                final int maxLength = this.buffer.getInt();
+                if (maxLength != -1) {
+                    element.setMaxLength(maxLength);
+                }
+                element.setMinimum(readNumber());
+                element.setMaximum(readNumber());
+                final int valueCount = this.buffer.getInt();
+                final List<String> values = new ArrayList<String>(valueCount);
+                for (int i = 0; i < valueCount; i++) {
+                    values.add(readString());
+                }
+                element.setValues(values);
+            }
+            return definition;
+        }
+
+        private List<DictIdentifier> readIdentifiers() throws IOException {
+            final int count = this.buffer.getInt();
+            final List<DictIdentifier> identifiers = new ArrayList<DictIdentifier>(
+                    count);
+            for (int i = 0; i < count; i++) {
+                identifiers.add(readIdentifier());
+            }
+            return identifiers;
+        }
+
+        private DictIdentifier readIdentifier() throws IOException {
+            final Class<? extends Definition> type = getType(this.buffer
+                    .get());
+            return DictIDFactory.createDefId(readString(), type);
+        }
+
+        private Number readNumber() throws IOException {
+            final byte tag = this.buffer.get();
+            switch (tag) {
+            case NO_NUMBER:
+                return null;
+            case LONG:
+                return this.buffer.getLong();
+            case DOUBLE:
+                return this.buffer.getDouble();
+            case DECIMAL:
+                return new BigDecimal(readString());
+            default:
+                throw new IOException("Unknown number type " + tag);
+            }
+        }
+
+        private String readString() throws IOException {
+            final int index = this.buffer.getInt();
+            if (index == -1) {
+                return null;
+            }
+            if (index < 0 || index >= this.strings.length) {
+                throw new IOException("Bad string index " + index);
+            }
+            return this.strings[index];
+        }
+    }
+}
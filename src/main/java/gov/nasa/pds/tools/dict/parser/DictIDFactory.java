@@ -30,13 +30,22 @@
 
 package gov.nasa.pds.tools.dict.parser;
 
+import gov.nasa.pds.tools.dict.Definition;
 import gov.nasa.pds.tools.dict.DictIdentifier;
 import gov.nasa.pds.tools.dict.ElementDefinition;
 import gov.nasa.pds.tools.dict.GroupDefinition;
 import gov.nasa.pds.tools.dict.NullDefinition;
 import gov.nasa.pds.tools.dict.ObjectDefinition;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 /**
+ * Creates identifiers, returning the same instance each time an id and type
+ * are asked for. Once {@link #MAX_INTERNED} identifiers of a type are held,
+ * new ones are returned without being kept so that labels full of unusual
+ * identifiers cannot grow the tables without bound.
+ * 
  * @author pramirez
  * @author jagander
  * @version $Revision$
@@ -44,26 +53,74 @@ import gov.nasa.pds.tools.dict.ObjectDefinition;
  */
 public class DictIDFactory {
 
+    public static final int MAX_INTERNED = 100000;
+
+    private static final ConcurrentMap<String, DictIdentifier> OBJECT_IDS = new ConcurrentHashMap<String, DictIdentifier>();
+
+    private static final ConcurrentMap<String, DictIdentifier> GROUP_IDS = new ConcurrentHashMap<String, DictIdentifier>();
+
+    private static final ConcurrentMap<String, DictIdentifier> ELEMENT_IDS = new ConcurrentHashMap<String, DictIdentifier>();
+
+    private static final ConcurrentMap<String, DictIdentifier> NULL_IDS = new ConcurrentHashMap<String, DictIdentifier>();
+
+    private static final ConcurrentMap<Class<? extends Definition>, ConcurrentMap<String, DictIdentifier>> OTHER_IDS = new ConcurrentHashMap<Class<? extends Definition>, ConcurrentMap<String, DictIdentifier>>();
+
     public static DictIdentifier createObjectDefId(final String identifier) {
-        return new DictIdentifier(identifier, ObjectDefinition.class);
+        return intern(OBJECT_IDS, identifier, ObjectDefinition.class);
     }
 
     public static DictIdentifier createGroupDefId(final String identifier) {
-        return new DictIdentifier(identifier, GroupDefinition.class);
+        return intern(GROUP_IDS, identifier, GroupDefinition.class);
     }
 
     // NOTE: ties to an attribute statement
     public static DictIdentifier createElementDefId(final String identifier) {
-        return new DictIdentifier(identifier, ElementDefinition.class);
+        return intern(ELEMENT_IDS, identifier, ElementDefinition.class);
     }
 
     // not a dictionary id but provides context
     public static DictIdentifier createCommentDefId(final String identifier) {
-        return new DictIdentifier(identifier, NullDefinition.class);
+        return intern(NULL_IDS, identifier, NullDefinition.class);
     }
 
     // not a dictionary id but provides context
     public static DictIdentifier createPointerDefId(final String identifier) {
-        return new DictIdentifier(identifier, NullDefinition.class);
+        return intern(NULL_IDS, identifier, NullDefinition.class);
+    }
+
+    public static DictIdentifier createDefId(final String identifier,
+            final Class<? extends Definition> clazz) {
+        if (clazz == ObjectDefinition.class) {
+            return createObjectDefId(identifier);
+        } else if (clazz == GroupDefinition.class) {
+            return createGroupDefId(identifier);
+        } else if (clazz == ElementDefinition.class) {
+            return createElementDefId(identifier);
+        } else if (clazz == NullDefinition.class) {
+            return createCommentDefId(identifier);
+        }
+        ConcurrentMap<String, DictIdentifier> ids = OTHER_IDS.get(clazz);
+        if (ids == null) {
+            OTHER_IDS.putIfAbsent(clazz,
+                    new ConcurrentHashMap<String, DictIdentifier>());
+            ids = OTHER_IDS.get(clazz);
+        }
+        return intern(ids, identifier, clazz);
+    }
+
+    private static DictIdentifier intern(
+            final ConcurrentMap<String, DictIdentifier> ids,
+            final String identifier, final Class<? extends Definition> clazz) {
+        final String key = identifier == null ? "" : identifier; //$NON-NLS-1$
+        final DictIdentifier existing = ids.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        final DictIdentifier id = new DictIdentifier(key, clazz);
+        if (ids.size() >= MAX_INTERNED) {
+            return id;
+        }
+        final DictIdentifier raced = ids.putIfAbsent(key, id);
+        return raced == null ? id : raced;
     }
 }
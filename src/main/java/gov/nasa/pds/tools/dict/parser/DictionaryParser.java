@@ -80,6 +80,8 @@ import org.apache.logging.log4j.core.config.builder.api.ConfigurationBuilder;
 import org.apache.logging.log4j.core.config.builder.api.ConfigurationBuilderFactory;
 import org.apache.logging.log4j.core.config.builder.impl.BuiltConfiguration;
 import gov.nasa.pds.tools.LabelParserException;
+import gov.nasa.pds.tools.Problem;
+import gov.nasa.pds.tools.ProblemListener;
 import gov.nasa.pds.tools.constants.Constants.ProblemType;
 import gov.nasa.pds.tools.dict.Alias;
 import gov.nasa.pds.tools.dict.Definition;
@@ -234,6 +236,25 @@ public class DictionaryParser {
     return parse(is, dictionary, aliasing, storeProblems);
   }
 
+  /**
+   * Parses a dictionary file, sending the problems found to a listener rather than keeping them in
+   * the dictionary.
+   * 
+   * @param file dictionary file
+   * @param aliasing indicates if aliases should be read in
+   * @param listener listener for problems found in the dictionary
+   * @return a data dictionary with element, group, and object definitions
+   * @throws LabelParserException thrown when dictionary can not be parsed correctly
+   * @throws IOException thrown when dictionary can not be accessed
+   */
+  public static Dictionary parse(final File file, final boolean aliasing,
+      final ProblemListener listener) throws LabelParserException, IOException {
+    Dictionary dictionary = new Dictionary(file);
+    dictionary.setProblemListener(listener);
+    InputStream is = new FileInputStream(file);
+    return parse(is, dictionary, aliasing, true);
+  }
+
   /**
    * Parses a {@link URL} that is compliant with the PDS Data Dictionary document and formulates a
    * {@link Dictionary} with a flag to indicated whether aliases should be read in.
@@ -286,7 +307,9 @@ public class DictionaryParser {
         for (Label label : labels) {
           // pass through problems if flag is set
           if (storeProblems) {
-            dictionary.addProblems(label.getProblems());
+            for (final Problem problem : label.getProblemRecords()) {
+              dictionary.addProblem(problem);
+            }
           }
 
           for (Statement statement : label.getStatements()) {
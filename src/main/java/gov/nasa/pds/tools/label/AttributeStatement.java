@@ -161,7 +161,7 @@ public class AttributeStatement extends Statement {
     public String toString() {
         return StrUtils.toString(this.identifier) + " = "
                 + StrUtils.toString(this.value) + "("
-                + StrUtils.getNonNull(this.sourceFile, this.sourceURI) + ")";
+                + StrUtils.getNonNull(getSourceFile(), getSourceURI()) + ")";
     }
 
     public boolean equals(Object object) {
@@ -80,6 +80,12 @@ public class DateTime extends Scalar {
     this.date = date;
   }
 
+  // for values already parsed, such as those read back by LabelCodec
+  public DateTime(final String value, final Date date) {
+    super(value);
+    this.date = date;
+  }
+
   public Date getDate() {
     return this.date;
   }
@@ -0,0 +1,177 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// • Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// • Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// • Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.tools.label;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Answers existence checks from a single listing of each directory rather
+ * than a stat of every candidate path. Pointer resolution probes several
+ * spellings of each file in several folders, so with a cache set on the
+ * resolver a volume costs one listing per directory. Names are matched
+ * exactly, as {@link gov.nasa.arc.pds.tools.util.FileUtils#exists(File)}
+ * does, with a case-folded index to find the names a file goes by in other
+ * cases.
+ * 
+ * Listings are not refreshed on their own. Call {@link #invalidate(File)} or
+ * {@link #clear()} once the files of a directory have changed.
+ * 
+ * @version $Revision$
+ * 
+ */
+public class DirectoryCache {
+
+  private static final String[] NONE = new String[0];
+
+  private final ConcurrentMap<File, Listing> listings = new ConcurrentHashMap<File, Listing>();
+
+  /**
+   * @return true if the file exists with its name in exactly the given case
+   */
+  public boolean exists(final File file) {
+    final File parent = file.getAbsoluteFile().getParentFile();
+    return parent != null && getListing(parent).contains(file.getName());
+  }
+
+  /**
+   * Same as {@link gov.nasa.arc.pds.tools.util.FileUtils#getCaseUnknownFile}:
+   * the named file if it exists in the given case, otherwise the file with
+   * the name in upper or lower case, whether or not that exists.
+   */
+  public File getCaseUnknownFile(final File rootFile, final String searchName) {
+    final File file = new File(rootFile, searchName);
+    if (exists(file)) {
+      return file;
+    }
+    final Character character = searchName.charAt(0);
+    if (Character.isLowerCase(character)) {
+      return new File(rootFile, searchName.toUpperCase());
+    }
+    return new File(rootFile, searchName.toLowerCase());
+  }
+
+  /**
+   * @return the names of the entries of the directory that match the name
+   *         ignoring case, an empty array if there are none
+   */
+  public String[] getNamesIgnoreCase(final File directory, final String name) {
+    final String[] names = getListing(directory.getAbsoluteFile()).folded
+        .get(fold(name));
+    return names == null ? NONE : names.clone();
+  }
+
+  /**
+   * Drops the listing of a directory so that it is read again when next
+   * needed.
+   */
+  public void invalidate(final File directory) {
+    this.listings.remove(normalize(directory.getAbsoluteFile()));
+  }
+
+  public void clear() {
+    this.listings.clear();
+  }
+
+  /**
+   * @return number of directories listed
+   */
+  public int size() {
+    return this.listings.size();
+  }
+
+  private Listing getListing(final File directory) {
+    final File key = normalize(directory);
+    Listing listing = this.listings.get(key);
+    if (listing == null) {
+      final Listing created = new Listing(key.list());
+      listing = this.listings.putIfAbsent(key, created);
+      if (listing == null) {
+        listing = created;
+      }
+    }
+    return listing;
+  }
+
+  private static File normalize(final File directory) {
+    return directory.toPath().normalize().toFile();
+  }
+
+  private static String fold(final String name) {
+    return name.toLowerCase(Locale.ROOT);
+  }
+
+  private static final class Listing {
+
+    // case-folded name to the names in the directory
+    final Map<String, String[]> folded;
+
+    Listing(final String[] names) {
+      if (names == null) {
+        // missing or not a directory
+        this.folded = Collections.emptyMap();
+        return;
+      }
+      final Map<String, String[]> index = new HashMap<String, String[]>(
+          names.length * 2);
+      for (final String name : names) {
+        final String key = fold(name);
+        final String[] existing = index.get(key);
+        if (existing == null) {
+          index.put(key, new String[] { name });
+        } else {
+          final String[] grown = new String[existing.length + 1];
+          System.arraycopy(existing, 0, grown, 0, existing.length);
+          grown[existing.length] = name;
+          index.put(key, grown);
+        }
+      }
+      this.folded = index;
+    }
+
+    boolean contains(final String name) {
+      final String[] names = this.folded.get(fold(name));
+      if (names != null) {
+        for (final String candidate : names) {
+          if (candidate.equals(name)) {
+            return true;
+          }
+        }
+      }
+      return false;
+    }
+  }
+}
@@ -0,0 +1,291 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// • Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// • Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// • Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.tools.label;
+
+import gov.nasa.pds.tools.Problem;
+import gov.nasa.pds.tools.constants.Constants.ProblemType;
+
+import java.io.File;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the statements parsed from include fragments, such as the format
+ * files of <code>^STRUCTURE</code> pointers, so that a fragment referenced by
+ * many labels is parsed once. Set it on the {@link PointerResolver} used to
+ * load includes. A fragment is parsed again once it, or a fragment it
+ * includes, has a different size or modification time.
+ * 
+ * The statements of a fragment are shared by every label including it and
+ * must not be modified. Problems found in a fragment are kept with it and
+ * passed to each label including it, which applies its own filtering as it
+ * would for a fresh parse. Fragments involved in a circular reference are
+ * not kept, and a kept fragment is not used where one of the files it
+ * includes is an ancestor of the including label, so circular references are
+ * reported as before. Only fragments that are local files, or file URIs, are
+ * kept.
+ * 
+ * @version $Revision$
+ * 
+ */
+public class FragmentCache {
+
+  public static final int DEFAULT_MAX_FRAGMENTS = 1000;
+
+  private final int maxFragments;
+
+  // least recently used first
+  private final Map<String, Fragment> fragments = new LinkedHashMap<String, Fragment>(
+      16, 0.75f, true);
+
+  private long hits;
+
+  private long misses;
+
+  public FragmentCache() {
+    this(DEFAULT_MAX_FRAGMENTS);
+  }
+
+  /**
+   * @param maxFragments
+   *          number of fragments to keep before removing the least recently
+   *          used
+   */
+  public FragmentCache(final int maxFragments) {
+    this.maxFragments = maxFragments;
+  }
+
+  /**
+   * @return the fragment parsed from the file if it is still current and may
+   *         be used for the parent, otherwise null
+   */
+  Fragment get(final File file, final Label parent) {
+    return get(key(file.getAbsolutePath(), parent), parent);
+  }
+
+  /**
+   * @return the fragment parsed from the URI if it is still current and may
+   *         be used for the parent, otherwise null
+   */
+  Fragment get(final URI uri, final Label parent) {
+    if (!isFile(uri)) {
+      return null;
+    }
+    return get(key(uri.toString(), parent), parent);
+  }
+
+  private Fragment get(final String key, final Label parent) {
+    final Fragment fragment;
+    synchronized (this) {
+      fragment = this.fragments.get(key);
+    }
+    if (fragment != null && fragment.isCurrent()
+        && !fragment.includesAncestorOf(parent)) {
+      synchronized (this) {
+        this.hits++;
+      }
+      return fragment;
+    }
+    synchronized (this) {
+      this.misses++;
+    }
+    return null;
+  }
+
+  /**
+   * Keeps a fragment parsed from a file.
+   */
+  void put(final File file, final Label parent, final Label partial) {
+    final Fragment fragment = create(file, partial);
+    if (fragment != null) {
+      put(key(file.getAbsolutePath(), parent), fragment);
+    }
+  }
+
+  /**
+   * Keeps a fragment parsed from a URI.
+   */
+  void put(final URI uri, final Label parent, final Label partial) {
+    if (isFile(uri)) {
+      final Fragment fragment = create(new File(uri), partial);
+      if (fragment != null) {
+        put(key(uri.toString(), parent), fragment);
+      }
+    }
+  }
+
+  private synchronized void put(final String key, final Fragment fragment) {
+    this.fragments.put(key, fragment);
+    if (this.fragments.size() > this.maxFragments) {
+      this.fragments.remove(this.fragments.keySet().iterator().next());
+    }
+  }
+
+  public synchronized long getHits() {
+    return this.hits;
+  }
+
+  public synchronized long getMisses() {
+    return this.misses;
+  }
+
+  public synchronized int size() {
+    return this.fragments.size();
+  }
+
+  public synchronized void clear() {
+    this.fragments.clear();
+  }
+
+  private static boolean isFile(final URI uri) {
+    return "file".equalsIgnoreCase(uri.getScheme()); //$NON-NLS-1$
+  }
+
+  // problems captured by the partial parse depend on the parent's settings
+  private static String key(final String path, final Label parent) {
+    return (parent.getAllowExternalProblems() ? "E" : "-") //$NON-NLS-1$ //$NON-NLS-2$
+        + (parent.getCaptureProblems() ? "C" : "-") + path; //$NON-NLS-1$ //$NON-NLS-2$
+  }
+
+  private static Fragment create(final File file, final Label partial) {
+    for (final Problem problem : partial.getProblemRecords()) {
+      if (ProblemType.CIRCULAR_POINTER_REF.equals(problem.getType())) {
+        return null;
+      }
+    }
+    final List<Object> targets = new ArrayList<Object>();
+    final List<File> files = new ArrayList<File>();
+    files.add(file);
+    collectTargets(partial.getStatements(),
+        new IdentityHashMap<Statement, Boolean>(), targets);
+    for (final Object target : targets) {
+      if (target instanceof File) {
+        files.add((File) target);
+      } else if (isFile((URI) target)) {
+        files.add(new File((URI) target));
+      } else {
+        return null;
+      }
+    }
+    return new Fragment(partial, targets, files);
+  }
+
+  // files loaded by include pointers within the fragment, at any depth
+  private static void collectTargets(final List<Statement> statements,
+      final Map<Statement, Boolean> seen, final List<Object> targets) {
+    for (final Statement statement : statements) {
+      if (seen.put(statement, Boolean.TRUE) != null) {
+        continue;
+      }
+      if (statement instanceof IncludePointer) {
+        targets.addAll(((IncludePointer) statement).getTargets());
+      } else if (statement instanceof ObjectStatement) {
+        collectTargets(((ObjectStatement) statement).getStatements(), seen,
+            targets);
+      } else if (statement instanceof GroupStatement) {
+        collectTargets(((GroupStatement) statement).getStatements(), seen,
+            targets);
+      }
+    }
+  }
+
+  /**
+   * Statements and problems of a parsed fragment along with the state of the
+   * files it was parsed from.
+   */
+  static final class Fragment {
+
+    private final List<Statement> statements;
+
+    private final List<Problem> problems;
+
+    // files or URIs included from within the fragment
+    private final List<Object> targets;
+
+    private final File[] files;
+
+    private final long[] lengths;
+
+    private final long[] modified;
+
+    Fragment(final Label partial, final List<Object> targets,
+        final List<File> files) {
+      this.statements = Collections.unmodifiableList(new ArrayList<Statement>(
+          partial.getStatements()));
+      this.problems = Collections.unmodifiableList(new ArrayList<Problem>(
+          partial.getProblemRecords()));
+      this.targets = targets;
+      this.files = files.toArray(new File[files.size()]);
+      this.lengths = new long[this.files.length];
+      this.modified = new long[this.files.length];
+      for (int i = 0; i < this.files.length; i++) {
+        this.lengths[i] = this.files[i].length();
+        this.modified[i] = this.files[i].lastModified();
+      }
+    }
+
+    List<Statement> getStatements() {
+      return this.statements;
+    }
+
+    List<Problem> getProblems() {
+      return this.problems;
+    }
+
+    boolean isCurrent() {
+      for (int i = 0; i < this.files.length; i++) {
+        // lastModified is 0 once a file is removed
+        final long modified = this.files[i].lastModified();
+        if (modified == 0L || modified != this.modified[i]
+            || this.files[i].length() != this.lengths[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    // a fresh parse would report a circular reference for this parent
+    boolean includesAncestorOf(final Label parent) {
+      for (final Object target : this.targets) {
+        if (target instanceof File ? parent.hasAncestor((File) target)
+            : parent.hasAncestor((URI) target)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+}
@@ -31,8 +31,10 @@
 package gov.nasa.pds.tools.label;
 
 import gov.nasa.arc.pds.tools.util.FileUtils;
+import gov.nasa.arc.pds.tools.util.TaskUtils;
 import gov.nasa.arc.pds.tools.util.URLUtils;
 import gov.nasa.pds.tools.LabelParserException;
+import gov.nasa.pds.tools.Problem;
 import gov.nasa.pds.tools.constants.Constants.ProblemType;
 import gov.nasa.pds.tools.dict.DictIdentifier;
 import gov.nasa.pds.tools.label.parser.DefaultLabelParser;
@@ -42,10 +44,11 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URI;
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 
 /**
  * @author pramirez
@@ -58,6 +61,9 @@ public abstract class IncludePointer extends SpecialPointer {
 
     private final List<Statement> statements = new ArrayList<Statement>();
 
+    // files or URIs the statements were loaded from
+    private final List<Object> targets = new ArrayList<Object>();
+
     private boolean loaded = false;
 
     public IncludePointer(final Label sourceLabel, final int lineNumber,
@@ -69,7 +75,7 @@ public abstract class IncludePointer extends SpecialPointer {
             final PointerResolver resolver) throws LabelParserException,
             IOException {
         if (!this.loaded) {
-            if (this.sourceFile != null) {
+            if (getSourceFile() != null) {
                 loadByFiles(parentLabel, resolver);
             } else {
                 loadByURLs(parentLabel, resolver);
@@ -81,103 +87,210 @@ public abstract class IncludePointer extends SpecialPointer {
     private void loadByFiles(final Label parentLabel,
             final PointerResolver resolver) throws LabelParserException,
             IOException {
-        Map<Numeric, File> files = resolver.resolveFileMap(this);
-        final Iterator<Entry<Numeric, File>> it = files.entrySet().iterator();
-        while (it.hasNext()) {
-            final Entry<Numeric, File> entry = it.next();
-            final File foundFile = entry.getValue();
-            // don't attempt to parse missing files, errors handled elsewhere
-            if (!foundFile.exists()) {
-                // System.out.println(foundFile.toString() +
-                // " not found for include");
-                continue;
-            }
-            // final Numeric start = entry.getKey();
-            // TODO: make sure file is not in the stack of files pointed
-            // from check if in labels list
-            if (!parentLabel.hasAncestor(foundFile)) {
-                LabelParser parser = null;
-                if (parentLabel.getAllowExternalProblems()) {
-                    parser = new DefaultLabelParser(true, parentLabel
-                            .getCaptureProblems(), true, resolver);
-                } else {
-                    parser = new DefaultLabelParser(true, false, false,
-                            resolver);
-                }
-                // pass label into parsePartial
-                Label partial = parser.parsePartial(foundFile, parentLabel);
-                synchLabels(partial, parentLabel);
-            } else {
-                final String targetPath = FileUtils.getRelativePath(resolver
-                        .getBaseFile(), foundFile);
-                final String currentPath = FileUtils.getRelativePath(resolver
-                        .getBaseFile(), this.sourceFile);
-                parentLabel.addProblem(this, "parser.error.circularReference",
-                        ProblemType.CIRCULAR_POINTER_REF, currentPath,
-                        targetPath);
-            }
+        // the lists hold every file of a set in declaration order
+        List<File> files = resolver.resolveFiles(this);
+        final List<Target> found = new ArrayList<Target>(files.size());
+        for (final File foundFile : files) {
+            found.add(new Target(foundFile, null, parentLabel, resolver));
         }
+        load(found, parentLabel, resolver);
     }
 
     private void loadByURLs(final Label parentLabel,
             final PointerResolver resolver) throws LabelParserException,
             IOException {
         // init files
-        Map<Numeric, URI> uris = resolver.resolveURIMap(this);
+        List<URI> uris = resolver.resolveURIs(this);
 
         // try to load by uris
-        if (uris.size() > 0) {
-            final Iterator<Entry<Numeric, URI>> it = uris.entrySet().iterator();
-            while (it.hasNext()) {
-                final Entry<Numeric, URI> entry = it.next();
-                final URI foundFile = entry.getValue();
-                // don't attempt to parse missing files, errors handled
-                // elsewhere
-                if (!URLUtils.exists(foundFile)) {
-                    continue;
-                }
-                // final Numeric start = entry.getKey();
-                // TODO: make sure file is not in the stack of files pointed
-                // from check if in labels list
-                if (!parentLabel.hasAncestor(foundFile)) {
-                    LabelParser parser = null;
-                    if (parentLabel.getAllowExternalProblems()) {
-                        parser = new DefaultLabelParser(true, parentLabel
-                                .getCaptureProblems(), true, resolver);
-                    } else {
-                        parser = new DefaultLabelParser(true, false, false,
-                                resolver);
-                    }
-                    // pass label into parsePartial
-                    Label partial = parser.parsePartial(foundFile.toURL(),
-                            parentLabel);
-                    synchLabels(partial, parentLabel);
-                } else {
-                    final String targetPath = FileUtils.getRelativePath(
-                            resolver.getBaseURI().toURL(), foundFile.toURL());
-                    final String currentPath = FileUtils.getRelativePath(
-                            resolver.getBaseURI().toURL(), this.sourceURI
-                                    .toURL());
-                    parentLabel.addProblem(this,
-                            "parser.error.circularReference",
-                            ProblemType.CIRCULAR_POINTER_REF, currentPath,
-                            targetPath);
-                }
+        final List<Target> found = new ArrayList<Target>(uris.size());
+        for (final URI foundFile : uris) {
+            found.add(new Target(null, foundFile, parentLabel, resolver));
+        }
+        load(found, parentLabel, resolver);
+    }
+
+    /*
+     * Checks and parses each target, concurrently when the resolver has an
+     * include executor and there is more than one, then adds the statements
+     * and problems to the label in the order the targets were declared.
+     */
+    private void load(final List<Target> found, final Label parentLabel,
+            final PointerResolver resolver) throws LabelParserException,
+            IOException {
+        final List<FutureTask<Void>> tasks = new ArrayList<FutureTask<Void>>(
+                found.size());
+        for (final Target target : found) {
+            tasks.add(new FutureTask<Void>(target));
+        }
+        final Executor executor = resolver.getIncludeExecutor();
+        if (executor != null && tasks.size() > 1) {
+            // the first target is run here straight away
+            for (final FutureTask<Void> task : tasks.subList(1, tasks.size())) {
+                TaskUtils.execute(executor, task);
             }
         }
+        try {
+            for (int i = 0; i < tasks.size(); i++) {
+                await(tasks.get(i));
+                synchTarget(found.get(i), parentLabel, resolver);
+            }
+        } finally {
+            for (final FutureTask<Void> task : tasks) {
+                task.cancel(false);
+            }
+        }
+    }
+
+    private static void await(final FutureTask<Void> task)
+            throws LabelParserException, IOException {
+        try {
+            TaskUtils.runAndAwait(task);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof LabelParserException) {
+                throw (LabelParserException) cause;
+            } else if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private void synchTarget(final Target target, final Label parentLabel,
+            final PointerResolver resolver) throws IOException {
+        // don't attempt to parse missing files, errors handled elsewhere
+        if (!target.exists) {
+            return;
+        }
+        if (target.circular) {
+            final String targetPath;
+            final String currentPath;
+            if (target.file != null) {
+                targetPath = FileUtils.getRelativePath(resolver.getBaseFile(),
+                        target.file);
+                currentPath = FileUtils.getRelativePath(resolver
+                        .getBaseFile(), getSourceFile());
+            } else {
+                targetPath = FileUtils.getRelativePath(resolver.getBaseURI()
+                        .toURL(), target.uri.toURL());
+                currentPath = FileUtils.getRelativePath(resolver.getBaseURI()
+                        .toURL(), getSourceURI().toURL());
+            }
+            parentLabel.addProblem(this, "parser.error.circularReference",
+                    ProblemType.CIRCULAR_POINTER_REF, currentPath, targetPath);
+            return;
+        }
+        this.targets.add(target.file != null ? target.file : target.uri);
+        if (target.fragment != null) {
+            synchFragment(target.fragment, parentLabel);
+        } else {
+            synchLabels(target.partial, parentLabel);
+        }
     }
 
     private void synchLabels(final Label partial, final Label parent) {
         this.statements.addAll(partial.getStatements());
         // include exempted problems - currently only circular ref
         if (parent != null) {
-            for (final LabelParserException e : partial.getProblems()) {
-                parent.addProblem(e);
+            for (final Problem problem : partial.getProblemRecords()) {
+                parent.addProblem(problem);
             }
         }
     }
 
+    private void synchFragment(final FragmentCache.Fragment fragment,
+            final Label parent) {
+        this.statements.addAll(fragment.getStatements());
+        for (final Problem problem : fragment.getProblems()) {
+            parent.addProblem(problem);
+        }
+    }
+
     public List<Statement> getStatements() {
         return this.statements;
     }
+
+    List<Object> getTargets() {
+        return this.targets;
+    }
+
+    /*
+     * A file or URI to include, checked and parsed by call() without touching
+     * the pointer or the label so that targets can be handled concurrently.
+     */
+    private static final class Target implements Callable<Void> {
+
+        final File file;
+
+        final URI uri;
+
+        private final Label parentLabel;
+
+        private final PointerResolver resolver;
+
+        boolean exists;
+
+        boolean circular;
+
+        FragmentCache.Fragment fragment;
+
+        Label partial;
+
+        Target(final File file, final URI uri, final Label parentLabel,
+                final PointerResolver resolver) {
+            this.file = file;
+            this.uri = uri;
+            this.parentLabel = parentLabel;
+            this.resolver = resolver;
+        }
+
+        public Void call() throws LabelParserException, IOException {
+            this.exists = this.file != null ? this.file.exists() : URLUtils
+                    .exists(this.uri);
+            if (!this.exists) {
+                return null;
+            }
+            // TODO: make sure file is not in the stack of files pointed
+            // from check if in labels list
+            this.circular = this.file != null ? this.parentLabel
+                    .hasAncestor(this.file) : this.parentLabel
+                    .hasAncestor(this.uri);
+            if (this.circular) {
+                return null;
+            }
+            final FragmentCache cache = this.resolver.getFragmentCache();
+            if (cache != null) {
+                this.fragment = this.file != null ? cache.get(this.file,
+                        this.parentLabel) : cache.get(this.uri,
+                        this.parentLabel);
+                if (this.fragment != null) {
+                    return null;
+                }
+            }
+            LabelParser parser = null;
+            if (this.parentLabel.getAllowExternalProblems()) {
+                parser = new DefaultLabelParser(true, this.parentLabel
+                        .getCaptureProblems(), true, this.resolver);
+            } else {
+                parser = new DefaultLabelParser(true, false, false,
+                        this.resolver);
+            }
+            // pass label into parsePartial
+            if (this.file != null) {
+                this.partial = parser.parsePartial(this.file,
+                        this.parentLabel);
+                if (cache != null) {
+                    cache.put(this.file, this.parentLabel, this.partial);
+                }
+            } else {
+                this.partial = parser.parsePartial(this.uri.toURL(),
+                        this.parentLabel);
+                if (cache != null) {
+                    cache.put(this.uri, this.parentLabel, this.partial);
+                }
+            }
+            return null;
+        }
+    }
 }
@@ -32,6 +32,7 @@ package gov.nasa.pds.tools.label;
 
 import java.io.File;
 import java.net.URI;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -43,6 +44,8 @@ import java.util.Map.Entry;
 import gov.nasa.arc.pds.tools.util.StrUtils;
 import gov.nasa.arc.pds.tools.util.URLUtils;
 import gov.nasa.pds.tools.LabelParserException;
+import gov.nasa.pds.tools.Problem;
+import gov.nasa.pds.tools.ProblemListener;
 import gov.nasa.pds.tools.constants.Constants.ProblemType;
 import gov.nasa.pds.tools.dict.DictIdentifier;
 import gov.nasa.pds.tools.dict.parser.DictIDFactory;
@@ -60,7 +63,9 @@ public class Label {
   // able to be parsed as label
   private boolean valid = true;
 
-  private LinkedHashMap<DictIdentifier, List<Statement>> statements;
+  private final LinkedHashMap<DictIdentifier, List<Statement>> statements;
+
+  private final StatementIndex index;
 
   // may have source URL or file but not both
   private final URI labelURI;
@@ -69,6 +74,8 @@ public class Label {
 
   private String labelPath;
 
+  private final LabelSource source;
+
   // used to determine if problems should be captured. This is turned off for
   // included files since they are evaluated separately. However, since
   // circular pointer problems will always be swallowed, that type is
@@ -95,7 +102,12 @@ public class Label {
   // lengths are.
   private boolean hasBlankFill = false;
 
-  private final List<LabelParserException> problems = new ArrayList<LabelParserException>();
+  private final List<Problem> problems = new ArrayList<Problem>();
+
+  private final List<LabelParserException> problemExceptions = new ProblemExceptionList();
+
+  // when set, captured problems are passed here rather than kept
+  private ProblemListener problemListener;
 
   private final List<String> ancestorPaths = new ArrayList<String>();
 
@@ -144,26 +156,34 @@ public class Label {
     this.hasBlankFill = hasBlankFill;
   }
 
+  public boolean hasBlankFill() {
+    return this.hasBlankFill;
+  }
+
   /**
    * Constructs an object representation of a PDS label.
    * 
    */
   public Label(final URI labelURI) {
     this.statements = new LinkedHashMap<DictIdentifier, List<Statement>>();
+    this.index = new StatementIndex(this.statements);
     this.labelURI = labelURI;
     if (labelURI != null) {
       this.labelPath = labelURI.toString();
     }
     this.labelFile = null;
+    this.source = new LabelSource(this, labelURI, null);
   }
 
   public Label(final File labelFile) {
     this.statements = new LinkedHashMap<DictIdentifier, List<Statement>>();
+    this.index = new StatementIndex(this.statements);
     this.labelURI = null;
     this.labelFile = labelFile;
     if (labelFile != null) {
       this.labelPath = labelFile.toString();
     }
+    this.source = new LabelSource(this, null, labelFile);
   }
 
   public boolean isValid() {
@@ -186,6 +206,13 @@ public class Label {
     return this.attachedStartByte != null;
   }
 
+  /**
+   * @return the source shared by the statements of this label
+   */
+  public LabelSource getSource() {
+    return this.source;
+  }
+
   public String getLabelPath() {
     return this.labelPath;
   }
@@ -211,25 +238,19 @@ public class Label {
   public void addProblem(final Statement statement, final Integer column,
       final String key, final ProblemType type, final Object... arguments) {
     if (statement.getSourceFile() != null) {
-      final LabelParserException e = new LabelParserException(statement, column,
-          key, type, arguments);
       if (((this.allowExternalProblems
           || this.labelFile.equals(statement.getSourceFile()))
           && this.captureProblems)
-          || e.getType().equals(ProblemType.CIRCULAR_POINTER_REF)) {
-        addProblemLocal(e);
+          || ProblemType.CIRCULAR_POINTER_REF.equals(type)) {
+        addProblemLocal(new Problem(statement, column, key, type, arguments));
       }
     } else {
       if (this.captureProblems) {
         if (this.labelURI == null
-            || this.labelURI.equals(statement.getSourceURI())) {
-          final LabelParserException e = new LabelParserException(statement,
-              column, key, type, arguments);
-          addProblemLocal(e);
-        } else if (this.allowExternalProblems) {
-          final LabelParserException e = new LabelParserException(statement,
-              column, key, type, arguments);
-          addProblemLocal(e);
+            || this.labelURI.equals(statement.getSourceURI())
+            || this.allowExternalProblems) {
+          addProblemLocal(new Problem(statement, column, key, type,
+              arguments));
         }
       }
 
@@ -241,13 +262,11 @@ public class Label {
       final Object... arguments) {
     if (this.captureProblems) {
       if (this.labelURI == null || this.labelURI.equals(sourceURI)) {
-        final LabelParserException e = new LabelParserException(this,
-            lineNumber, column, key, type, arguments);
-        addProblemLocal(e);
+        addProblemLocal(new Problem(this, Integer.valueOf(lineNumber), column,
+            key, type, arguments));
       } else if (this.allowExternalProblems) {
-        final LabelParserException e = new LabelParserException(sourceURI,
-            lineNumber, column, key, type, arguments);
-        addProblemLocal(e);
+        addProblemLocal(new Problem(sourceURI, Integer.valueOf(lineNumber),
+            column, key, type, arguments));
       }
     }
   }
@@ -255,57 +274,77 @@ public class Label {
   public void addProblem(final File sourceFile, final int lineNumber,
       final Integer column, final String key, final ProblemType type,
       final Object... arguments) {
-    final LabelParserException e = new LabelParserException(this, lineNumber,
-        column, key, type, arguments);
-    addProblem(sourceFile, e);
+    addProblem(sourceFile, new Problem(this, Integer.valueOf(lineNumber),
+        column, key, type, arguments));
   }
 
-  // for internal use so you can skip the test against the lpe source file or
-  // url
-  private void addProblemLocal(final LabelParserException e) {
-    this.problems.add(e);
+  // for internal use so you can skip the test against the problem source file
+  // or url
+  private void addProblemLocal(final Problem problem) {
+    final ProblemListener listener = this.problemListener;
+    if (listener != null) {
+      listener.problemFound(problem);
+    } else {
+      this.problems.add(problem);
+    }
   }
 
-  // try to only use when exception has context
-  public void addProblem(final LabelParserException e) {
+  // try to only use when problem has context
+  public void addProblem(final Problem problem) {
     // if capture problems and (same context add or allowing external
     // problems) else, if non-suppresable error, pass through anyway
     if (this.captureProblems
         && ((this.labelFile != null && (this.allowExternalProblems
-            || this.labelFile.equals(e.getSourceFile())))
+            || this.labelFile.equals(problem.getSourceFile())))
             || (this.labelURI != null && (this.allowExternalProblems
-                || this.labelURI.equals(e.getSourceURI()))))) {
-      this.problems.add(e);
-    } else if (e.getType().equals(ProblemType.CIRCULAR_POINTER_REF)) {
-      this.problems.add(e);
+                || this.labelURI.equals(problem.getSourceURI()))))) {
+      addProblemLocal(problem);
+    } else if (ProblemType.CIRCULAR_POINTER_REF.equals(problem.getType())) {
+      addProblemLocal(problem);
     }
   }
 
-  public void addProblem(final URI sourceURI, final LabelParserException e) {
+  public void addProblem(final URI sourceURI, final Problem problem) {
     if (((this.allowExternalProblems || this.labelURI.equals(sourceURI))
         && this.captureProblems)
-        || e.getType().equals(ProblemType.CIRCULAR_POINTER_REF)) {
-      addProblemLocal(e);
+        || ProblemType.CIRCULAR_POINTER_REF.equals(problem.getType())) {
+      addProblemLocal(problem);
     }
   }
 
-  public void addProblem(final File sourceFile, final LabelParserException e) {
+  public void addProblem(final File sourceFile, final Problem problem) {
     if (((this.allowExternalProblems || this.labelFile.equals(sourceFile))
         && this.captureProblems)
-        || e.getType().equals(ProblemType.CIRCULAR_POINTER_REF)) {
-      addProblemLocal(e);
+        || ProblemType.CIRCULAR_POINTER_REF.equals(problem.getType())) {
+      addProblemLocal(problem);
     }
   }
 
-  public void addProblem(final Statement statement,
-      final LabelParserException e) {
+  public void addProblem(final Statement statement, final Problem problem) {
     if (statement.getSourceURI() != null) {
-      addProblem(statement.getSourceURI(), e);
+      addProblem(statement.getSourceURI(), problem);
     } else {
-      addProblem(statement.getSourceFile(), e);
+      addProblem(statement.getSourceFile(), problem);
     }
   }
 
+  public void addProblem(final LabelParserException e) {
+    addProblem(Problem.of(e));
+  }
+
+  public void addProblem(final URI sourceURI, final LabelParserException e) {
+    addProblem(sourceURI, Problem.of(e));
+  }
+
+  public void addProblem(final File sourceFile, final LabelParserException e) {
+    addProblem(sourceFile, Problem.of(e));
+  }
+
+  public void addProblem(final Statement statement,
+      final LabelParserException e) {
+    addProblem(statement, Problem.of(e));
+  }
+
   /**
    * Retrieves a statement with the identifier
    * 
@@ -335,18 +374,6 @@ public class Label {
     return foundStatements;
   }
 
-  private List<? extends Statement> getElements(final Class<?> classType) {
-    final List<Statement> returnStatements = new ArrayList<Statement>();
-    for (List<Statement> stmts : this.statements.values()) {
-      for (Statement statement : stmts) {
-        if (statement.getClass().equals(classType)) {
-          returnStatements.add(statement);
-        }
-      }
-    }
-    return returnStatements;
-  }
-
   /**
    * Retrieves the attribute with the identifier or null if not found
    * 
@@ -388,61 +415,46 @@ public class Label {
   /**
    * Retrieves the statements associated with this label
    * 
-   * @return {@link List} of {@link Statement}
+   * @return read only {@link List} of {@link Statement}
    */
   public List<Statement> getStatements() {
-    List<Statement> results = new ArrayList<Statement>();
-    for (List<Statement> stmts : this.statements.values()) {
-      results.addAll(stmts);
-    }
-    return results;
+    return this.index.getStatements();
   }
 
   /**
    * Retrieves objects associated with this label
    * 
-   * @return List of {@link ObjectStatement}
+   * @return read only List of {@link ObjectStatement}
    */
-  @SuppressWarnings("unchecked")
   public List<ObjectStatement> getObjects() {
-    return (List<ObjectStatement>) getElements(ObjectStatement.class);
+    return this.index.getObjects();
   }
 
   /**
    * Retrieves groups associated with this label
    * 
-   * @return list of {@link GroupStatement}
+   * @return read only list of {@link GroupStatement}
    */
-  @SuppressWarnings("unchecked")
   public List<GroupStatement> getGroups() {
-    return (List<GroupStatement>) getElements(GroupStatement.class);
+    return this.index.getGroups();
   }
 
   /**
    * Retrieves attributes associated with this label
    * 
-   * @return list of {@link AttributeStatement}
+   * @return read only list of {@link AttributeStatement}
    */
-  @SuppressWarnings("unchecked")
   public List<AttributeStatement> getAttributes() {
-    return (List<AttributeStatement>) getElements(AttributeStatement.class);
+    return this.index.getAttributes();
   }
 
   /**
    * Retrieves pointers associated with this label
    * 
-   * @return list of {@link PointerStatement}
+   * @return read only list of {@link PointerStatement}
    */
   public List<PointerStatement> getPointers() {
-    List<PointerStatement> returnPointers = new ArrayList<PointerStatement>();
-    for (List<Statement> stmts : this.statements.values()) {
-      for (Statement statement : stmts) {
-        if (statement instanceof PointerStatement) {
-          returnPointers.add((PointerStatement) statement);
-        }
-      }
-    }
-    return returnPointers;
+    return this.index.getPointers();
   }
 
   /**
@@ -452,25 +464,58 @@ public class Label {
    *          to be added to label
    */
   public synchronized void addStatement(Statement statement) {
-    List<Statement> stmnts = this.statements.get(statement.getIdentifier());
-    if (stmnts == null) {
-      stmnts = new ArrayList<Statement>();
-      this.statements.put(statement.getIdentifier(), stmnts);
-    }
+    this.index.add(statement);
     if (statement instanceof IncludePointer) {
-      stmnts.add(statement);
       for (Statement stmt : ((IncludePointer) statement).getStatements()) {
         addStatement(stmt);
       }
-    } else {
-      stmnts.add(statement);
     }
   }
 
-  public List<LabelParserException> getProblems() {
+  /**
+   * Sends the problems of this label to a listener as they are captured
+   * instead of keeping them. Problems already kept are passed to the listener
+   * and removed.
+   * 
+   * @param problemListener
+   *          listener for problems, null to keep problems again
+   */
+  public void setProblemListener(final ProblemListener problemListener) {
+    this.problemListener = problemListener;
+    if (problemListener != null) {
+      for (final Problem problem : this.problems) {
+        problemListener.problemFound(problem);
+      }
+      this.problems.clear();
+    }
+  }
+
+  public ProblemListener getProblemListener() {
+    return this.problemListener;
+  }
+
+  /**
+   * Retrieves the problems recorded against this label. Additions made
+   * directly to the returned list are not filtered. Empty if problems are sent
+   * to a {@link ProblemListener}.
+   * 
+   * @return the live list of problems
+   */
+  public List<Problem> getProblemRecords() {
     return this.problems;
   }
 
+  /**
+   * Exception view of {@link #getProblemRecords()} for callers that still work
+   * with exceptions. Exceptions are created, without stack traces, as
+   * elements are read and changes write through to the problems of this label.
+   * 
+   * @return the live list of problems as exceptions
+   */
+  public List<LabelParserException> getProblems() {
+    return this.problemExceptions;
+  }
+
   public void addAncestor(final String path) {
     if (!this.ancestorPaths.contains(path)) {
       this.ancestorPaths.add(path);
@@ -768,4 +813,33 @@ public class Label {
         + " statements";
   }
 
+  private class ProblemExceptionList extends AbstractList<LabelParserException> {
+
+    @Override
+    public LabelParserException get(final int index) {
+      return Label.this.problems.get(index).toException();
+    }
+
+    @Override
+    public int size() {
+      return Label.this.problems.size();
+    }
+
+    @Override
+    public LabelParserException set(final int index,
+        final LabelParserException e) {
+      return Label.this.problems.set(index, Problem.of(e)).toException();
+    }
+
+    @Override
+    public void add(final int index, final LabelParserException e) {
+      Label.this.problems.add(index, Problem.of(e));
+    }
+
+    @Override
+    public LabelParserException remove(final int index) {
+      return Label.this.problems.remove(index).toException();
+    }
+  }
+
 }
@@ -0,0 +1,693 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.tools.label;
+
+import gov.nasa.pds.tools.Problem;
+import gov.nasa.pds.tools.constants.Constants.ProblemType;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary form of a parsed {@link Label} so that it can be stored or passed to
+ * another process and read back without parsing the ODL again. Everything the
+ * parser records is kept: statements with their comments, the statements of
+ * included files, problems, line lengths and attached content. Problems read
+ * back do not refer to a statement.
+ * <p>
+ * Each distinct string is written once and referred to by its index in a
+ * table built up as the label is written, so repeated identifiers, units and
+ * values cost a byte or two. Numbers such as line numbers and counts are
+ * written as variable length integers and values carry a tag for their type.
+ * Streams passed in should be buffered as the format is read a byte at a time.
+ * 
+ * @version $Revision$
+ * 
+ */
+public class LabelCodec {
+
+  // "PDS3"
+  private static final int MAGIC = 0x50445333;
+
+  /** Version of the format written, others are rejected when read. */
+  public static final int VERSION = 2;
+
+  private static final int COMMENT = 0;
+
+  private static final int ATTRIBUTE = 1;
+
+  private static final int POINTER = 2;
+
+  private static final int OBJECT = 3;
+
+  private static final int GROUP = 4;
+
+  // set on the statement kind when a comment precedes the statement
+  private static final int HAS_COMMENT = 0x80;
+
+  private static final int NULL = 0;
+
+  private static final int NUMERIC = 1;
+
+  private static final int TEXT_STRING = 2;
+
+  private static final int SYMBOL = 3;
+
+  private static final int DATE_TIME = 4;
+
+  private static final int SEQUENCE = 5;
+
+  private static final int SET = 6;
+
+  private static final int STRING_ARGUMENT = 1;
+
+  private static final int INTEGER_ARGUMENT = 2;
+
+  private static final int LONG_ARGUMENT = 3;
+
+  private static final int DOUBLE_ARGUMENT = 4;
+
+  // references to strings, sources and statements: 0 is null (or for
+  // statements a new definition), 1 introduces a new entry and larger values
+  // refer to an earlier entry
+  private static final int NEW = 1;
+
+  private static final int FIRST_REFERENCE = 2;
+
+  private LabelCodec() {
+    // static methods only
+  }
+
+  public static void encode(final Label label, final OutputStream out)
+      throws IOException {
+    final DataOutputStream data = new DataOutputStream(out);
+    data.writeInt(MAGIC);
+    data.writeInt(VERSION);
+    new Encoder(data).label(label);
+    data.flush();
+  }
+
+  /**
+   * @throws IOException
+   *           if the stream is not in the current format
+   */
+  public static Label decode(final InputStream in) throws IOException {
+    final DataInputStream data = new DataInputStream(in);
+    if (data.readInt() != MAGIC) {
+      throw new IOException("Not an encoded label"); //$NON-NLS-1$
+    }
+    final int version = data.readInt();
+    if (version != VERSION) {
+      throw new IOException("Unsupported label encoding version " + version); //$NON-NLS-1$
+    }
+    return new Decoder(data).label();
+  }
+
+  private static class Encoder {
+
+    private final DataOutputStream out;
+
+    private final Map<String, Integer> strings = new HashMap<String, Integer>();
+
+    // source files and URIs in order of first use
+    private final Map<Object, Integer> sources = new HashMap<Object, Integer>();
+
+    private final Map<Statement, Integer> statements = new IdentityHashMap<Statement, Integer>();
+
+    Encoder(final DataOutputStream out) {
+      this.out = out;
+    }
+
+    void label(final Label label) throws IOException {
+      source(label.getLabelFile(), label.getLabelURI());
+      int flags = 0;
+      flags |= label.isValid() ? 1 : 0;
+      flags |= label.getCaptureProblems() ? 2 : 0;
+      flags |= label.getAllowExternalProblems() ? 4 : 0;
+      flags |= label.hasBlankFill() ? 8 : 0;
+      flags |= label.hasEndStatement() ? 16 : 0;
+      flags |= label.hasAttachedContent() ? 32 : 0;
+      this.out.writeByte(flags);
+      if (label.hasAttachedContent()) {
+        varlong(label.getAttachedStartByte());
+      }
+      varint(label.getAncestors().size());
+      for (final String ancestor : label.getAncestors()) {
+        string(ancestor);
+      }
+      // lines are ascending so only the step from the previous is written
+      varint(label.getLineLengths().size());
+      int previous = 0;
+      for (final Label.LineLength length : label.getLineLengths()) {
+        signed(length.getLine() - previous);
+        varint(length.getLength());
+        previous = length.getLine();
+      }
+      statements(label.getStatements());
+      varint(label.getProblemRecords().size());
+      for (final Problem problem : label.getProblemRecords()) {
+        problem(problem);
+      }
+    }
+
+    private void statements(final List<Statement> statements)
+        throws IOException {
+      varint(statements.size());
+      for (final Statement statement : statements) {
+        statement(statement);
+      }
+    }
+
+    // a reference to a statement already written, or the statement itself
+    // since included statements may appear more than once
+    private void statement(final Statement statement) throws IOException {
+      final Integer id = this.statements.get(statement);
+      if (id != null) {
+        varint(id.intValue() + 1);
+        return;
+      }
+      varint(0);
+      this.statements.put(statement, Integer.valueOf(this.statements.size()));
+
+      final int kind;
+      if (statement instanceof CommentStatement) {
+        kind = COMMENT;
+      } else if (statement instanceof AttributeStatement) {
+        kind = ATTRIBUTE;
+      } else if (statement instanceof PointerStatement) {
+        kind = POINTER;
+      } else if (statement instanceof ObjectStatement) {
+        kind = OBJECT;
+      } else if (statement instanceof GroupStatement) {
+        kind = GROUP;
+      } else {
+        throw new IOException("Unsupported statement " //$NON-NLS-1$
+            + statement.getClass().getName());
+      }
+      final CommentStatement comment = statement.getComment();
+      this.out.writeByte(comment == null ? kind : kind | HAS_COMMENT);
+      source(statement.getSourceFile(), statement.getSourceURI());
+      signed(statement.getLineNumber());
+      string(statement.getIdentifier().getId());
+      if (comment != null) {
+        signed(comment.getLineNumber());
+        string(comment.getIdentifier().getId());
+        string(comment.getText());
+      }
+
+      if (statement instanceof CommentStatement) {
+        string(((CommentStatement) statement).getText());
+      } else if (statement instanceof AttributeStatement) {
+        value(((AttributeStatement) statement).getValue());
+      } else if (statement instanceof PointerStatement) {
+        value(((PointerStatement) statement).getValue());
+        if (statement instanceof IncludePointer) {
+          statements(((IncludePointer) statement).getStatements());
+        }
+      } else if (statement instanceof ObjectStatement) {
+        statements(((ObjectStatement) statement).getStatements());
+      } else {
+        statements(((GroupStatement) statement).getStatements());
+      }
+    }
+
+    private void value(final Value value) throws IOException {
+      if (value == null) {
+        this.out.writeByte(NULL);
+      } else if (value instanceof Numeric) {
+        final Numeric numeric = (Numeric) value;
+        this.out.writeByte(NUMERIC);
+        string(numeric.getValue());
+        string(numeric.getUnits());
+        varint(numeric.getRadix());
+      } else if (value instanceof TextString) {
+        this.out.writeByte(TEXT_STRING);
+        scalar((Scalar) value);
+      } else if (value instanceof Symbol) {
+        this.out.writeByte(SYMBOL);
+        scalar((Scalar) value);
+      } else if (value instanceof DateTime) {
+        final DateTime dateTime = (DateTime) value;
+        this.out.writeByte(DATE_TIME);
+        string(dateTime.getValue());
+        this.out.writeBoolean(dateTime.getDate() != null);
+        if (dateTime.getDate() != null) {
+          this.out.writeLong(dateTime.getDate().getTime());
+        }
+      } else if (value instanceof Sequence) {
+        final Sequence sequence = (Sequence) value;
+        this.out.writeByte(SEQUENCE);
+        varint(sequence.size());
+        for (final Value element : sequence) {
+          value(element);
+        }
+      } else if (value instanceof Set) {
+        final Set set = (Set) value;
+        this.out.writeByte(SET);
+        varint(set.size());
+        for (final Scalar element : set) {
+          value(element);
+        }
+      } else {
+        throw new IOException("Unsupported value " //$NON-NLS-1$
+            + value.getClass().getName());
+      }
+    }
+
+    private void scalar(final Scalar scalar) throws IOException {
+      string(scalar.getValue());
+      final ValueType type = scalar.getValueType();
+      this.out.writeByte(type == null ? -1 : type.ordinal());
+    }
+
+    private void problem(final Problem problem)
+        throws IOException {
+      string(problem.getKey());
+      string(problem.getType() == null ? null : problem.getType().name());
+      integer(problem.getLineNumber());
+      integer(problem.getColumn());
+      source(problem.getSourceFile(), problem.getSourceURI());
+      final Object[] arguments = problem.getArguments();
+      varint(arguments == null ? 0 : arguments.length + 1);
+      if (arguments != null) {
+        for (final Object argument : arguments) {
+          argument(argument);
+        }
+      }
+    }
+
+    // numbers keep their type for message formats, anything else is text
+    private void argument(final Object argument) throws IOException {
+      if (argument == null) {
+        this.out.writeByte(NULL);
+      } else if (argument instanceof Integer) {
+        this.out.writeByte(INTEGER_ARGUMENT);
+        signed(((Integer) argument).intValue());
+      } else if (argument instanceof Long) {
+        this.out.writeByte(LONG_ARGUMENT);
+        final long value = ((Long) argument).longValue();
+        varlong((value << 1) ^ (value >> 63));
+      } else if (argument instanceof Double) {
+        this.out.writeByte(DOUBLE_ARGUMENT);
+        this.out.writeDouble(((Double) argument).doubleValue());
+      } else {
+        this.out.writeByte(STRING_ARGUMENT);
+        string(argument.toString());
+      }
+    }
+
+    private void source(final File file, final URI uri) throws IOException {
+      final Object source = file != null ? file : uri;
+      if (source == null) {
+        varint(NULL);
+        return;
+      }
+      final Integer index = this.sources.get(source);
+      if (index != null) {
+        varint(index.intValue() + FIRST_REFERENCE);
+        return;
+      }
+      varint(NEW);
+      this.sources.put(source, Integer.valueOf(this.sources.size()));
+      this.out.writeBoolean(file != null);
+      string(source.toString());
+    }
+
+    private void integer(final Integer value) throws IOException {
+      this.out.writeBoolean(value != null);
+      if (value != null) {
+        signed(value.intValue());
+      }
+    }
+
+    private void string(final String value) throws IOException {
+      if (value == null) {
+        varint(NULL);
+        return;
+      }
+      final Integer index = this.strings.get(value);
+      if (index != null) {
+        varint(index.intValue() + FIRST_REFERENCE);
+        return;
+      }
+      varint(NEW);
+      this.strings.put(value, Integer.valueOf(this.strings.size()));
+      final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      varint(bytes.length);
+      this.out.write(bytes);
+    }
+
+    // zig-zag so that small negative numbers stay short
+    private void signed(final int value) throws IOException {
+      varint((value << 1) ^ (value >> 31));
+    }
+
+    // seven bits a byte, low bits first, high bit set on all but the last
+    private void varint(final int value) throws IOException {
+      int remaining = value;
+      while ((remaining & ~0x7F) != 0) {
+        this.out.writeByte((remaining & 0x7F) | 0x80);
+        remaining >>>= 7;
+      }
+      this.out.writeByte(remaining);
+    }
+
+    private void varlong(final long value) throws IOException {
+      long remaining = value;
+      while ((remaining & ~0x7FL) != 0) {
+        this.out.writeByte((int) (remaining & 0x7F) | 0x80);
+        remaining >>>= 7;
+      }
+      this.out.writeByte((int) remaining);
+    }
+  }
+
+  private static class Decoder {
+
+    private final DataInputStream in;
+
+    private final List<String> strings = new ArrayList<String>();
+
+    // a label for each source so statements report the file they came from
+    private final List<Label> sources = new ArrayList<Label>();
+
+    private final List<Statement> statements = new ArrayList<Statement>();
+
+    private final List<IncludePointer> includes = new ArrayList<IncludePointer>();
+
+    private final List<List<Statement>> includeStatements = new ArrayList<List<Statement>>();
+
+    Decoder(final DataInputStream in) {
+      this.in = in;
+    }
+
+    Label label() throws IOException {
+      final Label label = source();
+      if (label == null) {
+        throw new IOException("Encoded label has no source"); //$NON-NLS-1$
+      }
+      final int flags = this.in.readUnsignedByte();
+      if ((flags & 1) == 0) {
+        label.setInvalid();
+      }
+      label.setCaptureProblems((flags & 2) != 0);
+      label.setAllowExternalProblems((flags & 4) != 0);
+      label.setHasBlankFill((flags & 8) != 0);
+      if ((flags & 16) != 0) {
+        label.setHasEndStatement();
+      }
+      if ((flags & 32) != 0) {
+        label.setAttachedStartByte(Integer.valueOf((int) varlong()));
+      }
+      for (int i = varint(); i > 0; i--) {
+        label.addAncestor(string());
+      }
+      int line = 0;
+      for (int i = varint(); i > 0; i--) {
+        line += signed();
+        label.addLineLength(line, varint());
+      }
+      for (final Statement statement : statements()) {
+        label.addStatement(statement);
+      }
+      // only now so that adding include pointers did not add their
+      // statements a second time
+      for (int i = 0; i < this.includes.size(); i++) {
+        this.includes.get(i).getStatements().addAll(this.includeStatements.get(i));
+      }
+      for (int i = varint(); i > 0; i--) {
+        label.getProblemRecords().add(problem());
+      }
+      return label;
+    }
+
+    private List<Statement> statements() throws IOException {
+      final int size = varint();
+      final List<Statement> statements = new ArrayList<Statement>(Math.min(
+          size, 1024));
+      for (int i = 0; i < size; i++) {
+        statements.add(statement());
+      }
+      return statements;
+    }
+
+    private Statement statement() throws IOException {
+      final int reference = varint();
+      if (reference != 0) {
+        return lookup(this.statements, reference - 1, "statement"); //$NON-NLS-1$
+      }
+      final int header = this.in.readUnsignedByte();
+      final Label label = source();
+      final int line = signed();
+      final String identifier = string();
+      CommentStatement comment = null;
+      if ((header & HAS_COMMENT) != 0) {
+        final int commentLine = signed();
+        final String commentId = string();
+        comment = new CommentStatement(label, commentLine, commentId, string());
+      }
+      final int kind = header & ~HAS_COMMENT;
+      final Statement statement;
+      switch (kind) {
+      case COMMENT:
+        statement = new CommentStatement(label, line, identifier, string());
+        break;
+      case ATTRIBUTE:
+        statement = new AttributeStatement(label, line, identifier, value());
+        break;
+      case POINTER:
+        statement = PointerStatementFactory.newInstance(label, line,
+            identifier, value());
+        break;
+      case OBJECT:
+        statement = new ObjectStatement(label, line, identifier);
+        break;
+      case GROUP:
+        statement = new GroupStatement(label, line, identifier);
+        break;
+      default:
+        throw new IOException("Unknown statement kind " + kind); //$NON-NLS-1$
+      }
+      statement.comment = comment;
+      // registered before any children as included statements may refer back
+      this.statements.add(statement);
+
+      if (statement instanceof IncludePointer) {
+        final List<Statement> included = statements();
+        this.includes.add((IncludePointer) statement);
+        this.includeStatements.add(included);
+      } else if (statement instanceof ObjectStatement) {
+        for (final Statement child : statements()) {
+          ((ObjectStatement) statement).addStatement(child);
+        }
+      } else if (statement instanceof GroupStatement) {
+        for (final Statement child : statements()) {
+          ((GroupStatement) statement).addStatement(child);
+        }
+      }
+      return statement;
+    }
+
+    private Value value() throws IOException {
+      final int kind = this.in.readUnsignedByte();
+      switch (kind) {
+      case NULL:
+        return null;
+      case NUMERIC:
+        final String number = string();
+        final String units = string();
+        return new Numeric(number, units, varint());
+      case TEXT_STRING:
+        final String text = string();
+        return new TextString(text, valueType());
+      case SYMBOL:
+        final String symbol = string();
+        return new Symbol(symbol, valueType());
+      case DATE_TIME:
+        final String dateTime = string();
+        final Date date = this.in.readBoolean() ? new Date(this.in.readLong())
+            : null;
+        return new DateTime(dateTime, date);
+      case SEQUENCE:
+        final Sequence sequence = new Sequence();
+        for (int i = varint(); i > 0; i--) {
+          sequence.add(value());
+        }
+        return sequence;
+      case SET:
+        final Set set = new Set();
+        for (int i = varint(); i > 0; i--) {
+          set.add((Scalar) value());
+        }
+        return set;
+      default:
+        throw new IOException("Unknown value kind " + kind); //$NON-NLS-1$
+      }
+    }
+
+    private ValueType valueType() throws IOException {
+      final int ordinal = this.in.readByte();
+      return ordinal < 0 ? null : ValueType.values()[ordinal];
+    }
+
+    private Problem problem() throws IOException {
+      final String key = string();
+      final String typeName = string();
+      final ProblemType type = typeName == null ? null : ProblemType
+          .valueOf(typeName);
+      final Integer line = integer();
+      final Integer column = integer();
+      final Label source = source();
+      final int size = varint() - 1;
+      Object[] arguments = null;
+      if (size >= 0) {
+        arguments = new Object[size];
+        for (int i = 0; i < size; i++) {
+          arguments[i] = argument();
+        }
+      }
+      if (source != null && source.getLabelURI() != null) {
+        return new Problem(source.getLabelURI(), line, column,
+            key, type, arguments);
+      }
+      return new Problem(source == null ? null : source
+          .getLabelFile(), line, column, key, type, arguments);
+    }
+
+    private Object argument() throws IOException {
+      final int kind = this.in.readUnsignedByte();
+      switch (kind) {
+      case NULL:
+        return null;
+      case STRING_ARGUMENT:
+        return string();
+      case INTEGER_ARGUMENT:
+        return Integer.valueOf(signed());
+      case LONG_ARGUMENT:
+        final long value = varlong();
+        return Long.valueOf((value >>> 1) ^ -(value & 1));
+      case DOUBLE_ARGUMENT:
+        return Double.valueOf(this.in.readDouble());
+      default:
+        throw new IOException("Unknown argument kind " + kind); //$NON-NLS-1$
+      }
+    }
+
+    private Label source() throws IOException {
+      final int reference = varint();
+      if (reference == NULL) {
+        return null;
+      }
+      if (reference != NEW) {
+        return lookup(this.sources, reference - FIRST_REFERENCE, "source"); //$NON-NLS-1$
+      }
+      final boolean isFile = this.in.readBoolean();
+      final String path = string();
+      final Label label;
+      try {
+        label = isFile ? new Label(new File(path)) : new Label(new URI(path));
+      } catch (URISyntaxException e) {
+        throw new IOException(e);
+      }
+      this.sources.add(label);
+      return label;
+    }
+
+    private Integer integer() throws IOException {
+      return this.in.readBoolean() ? Integer.valueOf(signed()) : null;
+    }
+
+    private String string() throws IOException {
+      final int reference = varint();
+      if (reference == NULL) {
+        return null;
+      }
+      if (reference != NEW) {
+        return lookup(this.strings, reference - FIRST_REFERENCE, "string"); //$NON-NLS-1$
+      }
+      final byte[] bytes = new byte[varint()];
+      this.in.readFully(bytes);
+      final String value = new String(bytes, StandardCharsets.UTF_8);
+      this.strings.add(value);
+      return value;
+    }
+
+    private static <T> T lookup(final List<T> entries, final int index,
+        final String kind) throws IOException {
+      if (index < 0 || index >= entries.size()) {
+        throw new IOException("Bad " + kind + " reference " + index); //$NON-NLS-1$ //$NON-NLS-2$
+      }
+      return entries.get(index);
+    }
+
+    private int signed() throws IOException {
+      final int value = varint();
+      return (value >>> 1) ^ -(value & 1);
+    }
+
+    private int varint() throws IOException {
+      int value = 0;
+      for (int shift = 0; shift < 32; shift += 7) {
+        final int b = this.in.readUnsignedByte();
+        value |= (b & 0x7F) << shift;
+        if ((b & 0x80) == 0) {
+          return value;
+        }
+      }
+      throw new IOException("Malformed variable length integer"); //$NON-NLS-1$
+    }
+
+    private long varlong() throws IOException {
+      long value = 0;
+      for (int shift = 0; shift < 64; shift += 7) {
+        final int b = this.in.readUnsignedByte();
+        value |= (long) (b & 0x7F) << shift;
+        if ((b & 0x80) == 0) {
+          return value;
+        }
+      }
+      throw new IOException("Malformed variable length integer"); //$NON-NLS-1$
+    }
+  }
+}
@@ -0,0 +1,620 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// • Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// • Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// • Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.tools.label;
+
+import gov.nasa.pds.tools.LabelParserException;
+import gov.nasa.pds.tools.label.parser.DefaultLabelParser;
+import gov.nasa.pds.tools.label.parser.LabelEventAdapter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.antlr.runtime.Token;
+
+/**
+ * Keeps the keyword values of many labels in columns rather than as label
+ * objects, for checks and statistics across a whole volume. Each label added
+ * becomes a row and each keyword a column, named by its path of object and
+ * group names separated by dots, such as <code>IMAGE.LINES</code>, with
+ * pointers written as <code>^IMAGE</code>. A keyword that appears more than
+ * once in a label, such as <code>TABLE.COLUMN.NAME</code>, has a cell for
+ * each occurrence.
+ * 
+ * Numeric values are held as doubles in primitive arrays and every other
+ * value as a code into a table of strings shared by all columns, so a
+ * repeated value such as a mission name is stored once. Values of sets and
+ * sequences are held as their text, or left out if the parser dropped one of
+ * their elements. Scans, min/max and group by run over these arrays without
+ * any label objects.
+ * 
+ * Labels may be added from several threads. Queries should be made once the
+ * labels have been added.
+ * 
+ * @version $Revision$
+ * 
+ */
+public class LabelColumnStore {
+
+  // code of numeric cells
+  private static final int NUMBER = -1;
+
+  private final List<String> sources = new ArrayList<String>();
+
+  private final Map<String, Column> columns = new LinkedHashMap<String, Column>();
+
+  private final Map<String, Integer> codes = new HashMap<String, Integer>();
+
+  private final List<String> strings = new ArrayList<String>();
+
+  /**
+   * Adds the statements of a parsed label as a row.
+   * 
+   * @param label
+   *          label to add
+   * @return row of the label
+   */
+  public int add(final Label label) {
+    final Row row = new Row();
+    row.add("", label.getStatements()); //$NON-NLS-1$
+    return add(label.getLabelPath(), row);
+  }
+
+  /**
+   * Adds a label as a row without building a {@link Label}, using the event
+   * parse of {@link DefaultLabelParser}. Include pointers are not followed.
+   * 
+   * @param path
+   *          label file
+   * @param parser
+   *          parser to read the label with
+   * @return row of the label
+   */
+  public int add(final Path path, final DefaultLabelParser parser)
+      throws LabelParserException, IOException {
+    final Row row = new Row();
+    parser.parseLabel(path, row, true);
+    return add(path.toString(), row);
+  }
+
+  private synchronized int add(final String source, final Row row) {
+    final int index = this.sources.size();
+    this.sources.add(source);
+    for (int i = 0; i < row.keywords.size(); i++) {
+      final Value value = row.values.get(i);
+      double number = Double.NaN;
+      String text = null;
+      if (value instanceof Numeric) {
+        number = toNumber((Numeric) value);
+      }
+      if (Double.isNaN(number)) {
+        text = toText(value);
+        if (text == null) {
+          continue;
+        }
+      }
+      final String keyword = row.keywords.get(i);
+      Column column = this.columns.get(keyword);
+      if (column == null) {
+        column = new Column(keyword);
+        this.columns.put(keyword, column);
+      }
+      if (text == null) {
+        column.add(index, NUMBER, number);
+      } else {
+        column.add(index, code(text), 0);
+      }
+    }
+    return index;
+  }
+
+  // text of a value, null if it is missing part of a set or sequence as the
+  // parser leaves for malformed elements
+  private static String toText(final Value value) {
+    if (value instanceof Scalar) {
+      return ((Scalar) value).getValue();
+    }
+    final StringBuilder text = new StringBuilder();
+    return append(text, value) ? text.toString() : null;
+  }
+
+  // same text as Sequence.toString() and Set.toString()
+  private static boolean append(final StringBuilder text, final Value value) {
+    if (value == null) {
+      return false;
+    }
+    final boolean isSequence = value instanceof Sequence;
+    if (!isSequence && !(value instanceof Set)) {
+      text.append(value.toString());
+      return true;
+    }
+    text.append(isSequence ? '(' : '{');
+    final Iterable<? extends Value> elements = isSequence ? (Sequence) value
+        : (Set) value;
+    boolean first = true;
+    for (final Value element : elements) {
+      if (!first) {
+        text.append(", "); //$NON-NLS-1$
+      }
+      first = false;
+      if (!append(text, element)) {
+        return false;
+      }
+    }
+    text.append(isSequence ? ')' : '}');
+    return true;
+  }
+
+  private int code(final String string) {
+    Integer code = this.codes.get(string);
+    if (code == null) {
+      code = Integer.valueOf(this.strings.size());
+      this.codes.put(string, code);
+      this.strings.add(string);
+    }
+    return code.intValue();
+  }
+
+  private static double toNumber(final Numeric numeric) {
+    try {
+      if (numeric.getRadix() == 10) {
+        return Double.parseDouble(numeric.getValue());
+      }
+      return Long.parseLong(numeric.getValue(), numeric.getRadix());
+    } catch (NumberFormatException e) {
+      // keep as text
+      return Double.NaN;
+    }
+  }
+
+  /**
+   * @return number of labels added
+   */
+  public synchronized int getRowCount() {
+    return this.sources.size();
+  }
+
+  /**
+   * @param row
+   *          row of a label
+   * @return path of the label in the row
+   */
+  public synchronized String getSource(final int row) {
+    return this.sources.get(row);
+  }
+
+  /**
+   * @return keywords seen in any label, in the order first seen
+   */
+  public synchronized List<String> getKeywords() {
+    return Collections.unmodifiableList(new ArrayList<String>(this.columns
+        .keySet()));
+  }
+
+  /**
+   * @param keyword
+   *          keyword path
+   * @return the column of the keyword, null if no label has it
+   */
+  public synchronized Column getColumn(final String keyword) {
+    return this.columns.get(keyword);
+  }
+
+  /**
+   * @return number of distinct text values held
+   */
+  public synchronized int getStringCount() {
+    return this.strings.size();
+  }
+
+  /**
+   * Summarizes the numeric values of one keyword grouped by the value of
+   * another, such as <code>IMAGE.LINES</code> by <code>INSTRUMENT_ID</code>.
+   * A row is grouped by the first value of the group keyword in it, rows
+   * without one are left out.
+   * 
+   * @param groupKeyword
+   *          keyword whose values form the groups
+   * @param valueKeyword
+   *          keyword whose numeric values are summarized
+   * @return summary for each group, by the text of the group value
+   */
+  public synchronized Map<String, Summary> summarize(
+      final String groupKeyword, final String valueKeyword) {
+    final Map<String, Summary> summaries = new LinkedHashMap<String, Summary>();
+    final Column groups = this.columns.get(groupKeyword);
+    final Column values = this.columns.get(valueKeyword);
+    if (groups == null || values == null) {
+      return summaries;
+    }
+    // group of each row, as the index of its summary
+    final int[] rowGroups = new int[this.sources.size()];
+    Arrays.fill(rowGroups, -1);
+    final Map<String, Integer> groupIndexes = new HashMap<String, Integer>();
+    final List<Summary> groupSummaries = new ArrayList<Summary>();
+    for (int i = 0; i < groups.size; i++) {
+      final int row = groups.rows[i];
+      if (rowGroups[row] == -1) {
+        final String group = groups.getString(i);
+        Integer index = groupIndexes.get(group);
+        if (index == null) {
+          index = Integer.valueOf(groupSummaries.size());
+          groupIndexes.put(group, index);
+          final Summary summary = new Summary();
+          groupSummaries.add(summary);
+          summaries.put(group, summary);
+        }
+        rowGroups[row] = index.intValue();
+      }
+    }
+    for (int i = 0; i < values.size; i++) {
+      final int group = rowGroups[values.rows[i]];
+      if (group != -1 && values.codes[i] == NUMBER) {
+        groupSummaries.get(group).add(values.numbers[i]);
+      }
+    }
+    return summaries;
+  }
+
+  /**
+   * Values of one keyword across all rows, in the order the rows were added.
+   */
+  public final class Column {
+
+    private final String keyword;
+
+    private int size;
+
+    private int[] rows = new int[16];
+
+    private int[] codes = new int[16];
+
+    // only allocated once a numeric value is added
+    private double[] numbers;
+
+    Column(final String keyword) {
+      this.keyword = keyword;
+    }
+
+    void add(final int row, final int code, final double number) {
+      if (this.size == this.rows.length) {
+        final int capacity = this.size * 2;
+        this.rows = Arrays.copyOf(this.rows, capacity);
+        this.codes = Arrays.copyOf(this.codes, capacity);
+        if (this.numbers != null) {
+          this.numbers = Arrays.copyOf(this.numbers, capacity);
+        }
+      }
+      if (code == NUMBER && this.numbers == null) {
+        this.numbers = new double[this.rows.length];
+      }
+      this.rows[this.size] = row;
+      this.codes[this.size] = code;
+      if (code == NUMBER) {
+        this.numbers[this.size] = number;
+      }
+      this.size++;
+    }
+
+    public String getKeyword() {
+      return this.keyword;
+    }
+
+    /**
+     * @return number of cells, more than the number of rows with the keyword
+     *         if it is repeated within labels
+     */
+    public int size() {
+      return this.size;
+    }
+
+    /**
+     * @return row of the cell
+     */
+    public int getRow(final int cell) {
+      return this.rows[cell];
+    }
+
+    /**
+     * @return whether the cell holds a number
+     */
+    public boolean isNumber(final int cell) {
+      return this.codes[cell] == NUMBER;
+    }
+
+    /**
+     * @return number in the cell, NaN if it holds text
+     */
+    public double getNumber(final int cell) {
+      return isNumber(cell) ? this.numbers[cell] : Double.NaN;
+    }
+
+    /**
+     * @return text in the cell, or the number formatted as text
+     */
+    public String getString(final int cell) {
+      if (isNumber(cell)) {
+        final double number = this.numbers[cell];
+        if (number == Math.rint(number) && Math.abs(number) < 1e15) {
+          return Long.toString((long) number);
+        }
+        return Double.toString(number);
+      }
+      synchronized (LabelColumnStore.this) {
+        return LabelColumnStore.this.strings.get(this.codes[cell]);
+      }
+    }
+
+    /**
+     * @return rows with a cell holding the text
+     */
+    public int[] rowsEqualTo(final String value) {
+      final Integer code;
+      synchronized (LabelColumnStore.this) {
+        code = LabelColumnStore.this.codes.get(value);
+      }
+      if (code == null) {
+        return new int[0];
+      }
+      final int target = code.intValue();
+      final int[] matches = new int[this.size];
+      int count = 0;
+      int last = -1;
+      for (int i = 0; i < this.size; i++) {
+        if (this.codes[i] == target && this.rows[i] != last) {
+          last = this.rows[i];
+          matches[count++] = last;
+        }
+      }
+      return Arrays.copyOf(matches, count);
+    }
+
+    /**
+     * @return rows with a cell holding a number from low to high inclusive
+     */
+    public int[] rowsBetween(final double low, final double high) {
+      final int[] matches = new int[this.size];
+      int count = 0;
+      int last = -1;
+      for (int i = 0; i < this.size; i++) {
+        if (this.codes[i] == NUMBER && this.rows[i] != last
+            && this.numbers[i] >= low && this.numbers[i] <= high) {
+          last = this.rows[i];
+          matches[count++] = last;
+        }
+      }
+      return Arrays.copyOf(matches, count);
+    }
+
+    /**
+     * @return count, min, max and sum of the numbers in this column
+     */
+    public Summary summarize() {
+      final Summary summary = new Summary();
+      for (int i = 0; i < this.size; i++) {
+        if (this.codes[i] == NUMBER) {
+          summary.add(this.numbers[i]);
+        }
+      }
+      return summary;
+    }
+
+    public double min() {
+      return summarize().getMin();
+    }
+
+    public double max() {
+      return summarize().getMax();
+    }
+
+    /**
+     * Counts the cells holding each text value, most frequent first. Numbers
+     * are not counted.
+     * 
+     * @return number of cells by value
+     */
+    public Map<String, Integer> countByValue() {
+      final int[] counts;
+      synchronized (LabelColumnStore.this) {
+        counts = new int[LabelColumnStore.this.strings.size()];
+      }
+      for (int i = 0; i < this.size; i++) {
+        if (this.codes[i] != NUMBER) {
+          counts[this.codes[i]]++;
+        }
+      }
+      final List<Integer> found = new ArrayList<Integer>();
+      for (int code = 0; code < counts.length; code++) {
+        if (counts[code] > 0) {
+          found.add(Integer.valueOf(code));
+        }
+      }
+      Collections.sort(found, new Comparator<Integer>() {
+        public int compare(final Integer a, final Integer b) {
+          return counts[b.intValue()] - counts[a.intValue()];
+        }
+      });
+      final Map<String, Integer> result = new LinkedHashMap<String, Integer>();
+      synchronized (LabelColumnStore.this) {
+        for (final Integer code : found) {
+          result.put(LabelColumnStore.this.strings.get(code.intValue()),
+              Integer.valueOf(counts[code.intValue()]));
+        }
+      }
+      return result;
+    }
+  }
+
+  /**
+   * Count, min, max and sum of a set of numbers.
+   */
+  public static final class Summary {
+
+    private long count;
+
+    private double min = Double.NaN;
+
+    private double max = Double.NaN;
+
+    private double sum;
+
+    void add(final double value) {
+      if (this.count == 0 || value < this.min) {
+        this.min = value;
+      }
+      if (this.count == 0 || value > this.max) {
+        this.max = value;
+      }
+      this.sum += value;
+      this.count++;
+    }
+
+    public long getCount() {
+      return this.count;
+    }
+
+    /**
+     * @return smallest number, NaN if there were none
+     */
+    public double getMin() {
+      return this.min;
+    }
+
+    /**
+     * @return largest number, NaN if there were none
+     */
+    public double getMax() {
+      return this.max;
+    }
+
+    public double getSum() {
+      return this.sum;
+    }
+
+    /**
+     * @return mean of the numbers, NaN if there were none
+     */
+    public double getMean() {
+      return this.count == 0 ? Double.NaN : this.sum / this.count;
+    }
+
+    @SuppressWarnings("nls")
+    @Override
+    public String toString() {
+      return "count=" + this.count + " min=" + this.min + " max=" + this.max
+          + " mean=" + getMean();
+    }
+  }
+
+  // keyword values of one label, gathered before taking the lock
+  private static class Row extends LabelEventAdapter {
+
+    private final List<String> keywords = new ArrayList<String>();
+
+    private final List<Value> values = new ArrayList<Value>();
+
+    private final List<String> prefixes = new ArrayList<String>();
+
+    private String prefix = ""; //$NON-NLS-1$
+
+    void add(final String path, final List<Statement> statements) {
+      for (final Statement statement : statements) {
+        final String id = statement.getIdentifier().getId();
+        if (statement instanceof AttributeStatement) {
+          add(path + id, ((AttributeStatement) statement).getValue());
+        } else if (statement instanceof PointerStatement) {
+          add(path + '^' + id, ((PointerStatement) statement).getValue());
+        } else if (statement instanceof ObjectStatement) {
+          add(path + id + '.', ((ObjectStatement) statement).getStatements());
+        } else if (statement instanceof GroupStatement) {
+          add(path + id + '.', ((GroupStatement) statement).getStatements());
+        }
+      }
+    }
+
+    private void add(final String keyword, final Value value) {
+      if (value != null) {
+        this.keywords.add(keyword);
+        this.values.add(value);
+      }
+    }
+
+    @Override
+    public void startObject(final int line, final String identifier,
+        final Token comment) {
+      push(identifier);
+    }
+
+    @Override
+    public void endObject(final String identifier, final Token comment) {
+      pop();
+    }
+
+    @Override
+    public void startGroup(final int line, final String identifier,
+        final Token comment) {
+      push(identifier);
+    }
+
+    @Override
+    public void endGroup(final String identifier, final Token comment) {
+      pop();
+    }
+
+    @Override
+    public void attribute(final int line, final String identifier,
+        final Value value, final Token comment) {
+      add(this.prefix + identifier, value);
+    }
+
+    @Override
+    public void pointer(final int line, final String identifier,
+        final Value value, final Token comment) {
+      add(this.prefix + '^' + identifier, value);
+    }
+
+    private void push(final String identifier) {
+      this.prefixes.add(this.prefix);
+      this.prefix = this.prefix + identifier + '.';
+    }
+
+    private void pop() {
+      this.prefix = this.prefixes.remove(this.prefixes.size() - 1);
+    }
+  }
+}
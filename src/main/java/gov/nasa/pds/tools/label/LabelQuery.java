@@ -0,0 +1,441 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.tools.label;
+
+import gov.nasa.pds.tools.dict.DictIdentifier;
+import gov.nasa.pds.tools.dict.parser.DictIDFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A path through a label compiled once and evaluated against any number of
+ * labels, objects or groups. Steps are separated by dots, each naming an
+ * object or group to descend into, except the last which names the
+ * attribute, pointer, object or group to return. A pointer is written with
+ * its caret. Each step may be followed by predicates in brackets:
+ * <ul>
+ * <li><code>[*]</code> every match, the same as no predicate</li>
+ * <li><code>[2]</code> the match at that zero based position within its
+ * parent</li>
+ * <li><code>[NAME='X']</code> objects or groups whose NAME attribute has the
+ * value X, quotes being optional for values without spaces</li>
+ * </ul>
+ * For example <code>IMAGE.LINE_SAMPLES</code>, <code>^IMAGE</code> or
+ * <code>TABLE[*].COLUMN[NAME='X'].START_BYTE</code>. Lookups go through the
+ * identifier maps of each label and object so only the matching branches of
+ * the label are visited. Compiled queries are immutable and may be shared
+ * between threads.
+ * 
+ * @version $Revision$
+ * 
+ */
+public class LabelQuery {
+
+  private final String query;
+
+  private final Step[] steps;
+
+  private LabelQuery(final String query, final Step[] steps) {
+    this.query = query;
+    this.steps = steps;
+  }
+
+  /**
+   * @throws IllegalArgumentException
+   *           if the query is not well formed
+   */
+  public static LabelQuery compile(final String query) {
+    return new LabelQuery(query, new Compiler(query).steps());
+  }
+
+  public List<Statement> evaluate(final Label label) {
+    return run(label);
+  }
+
+  public List<Statement> evaluate(final ObjectStatement object) {
+    return run(object);
+  }
+
+  public List<Statement> evaluate(final GroupStatement group) {
+    return run(group);
+  }
+
+  /**
+   * Evaluates the query against each label in turn.
+   * 
+   * @return the matches for each label, in the order of the labels given
+   */
+  public List<List<Statement>> evaluateAll(final Collection<Label> labels) {
+    final List<List<Statement>> results = new ArrayList<List<Statement>>(
+        labels.size());
+    for (final Label label : labels) {
+      results.add(run(label));
+    }
+    return results;
+  }
+
+  /**
+   * @return the values of the attributes and pointers among the statements
+   */
+  public static List<Value> values(final List<Statement> statements) {
+    final List<Value> values = new ArrayList<Value>(statements.size());
+    for (final Statement statement : statements) {
+      if (statement instanceof AttributeStatement) {
+        values.add(((AttributeStatement) statement).getValue());
+      } else if (statement instanceof PointerStatement) {
+        values.add(((PointerStatement) statement).getValue());
+      }
+    }
+    return values;
+  }
+
+  @Override
+  public String toString() {
+    return this.query;
+  }
+
+  private List<Statement> run(final Object root) {
+    List<Object> containers = Collections.singletonList(root);
+    for (int i = 0; i < this.steps.length - 1; i++) {
+      final List<Object> next = new ArrayList<Object>();
+      for (final Object container : containers) {
+        next.addAll(this.steps[i].containers(container));
+      }
+      if (next.isEmpty()) {
+        return Collections.emptyList();
+      }
+      containers = next;
+    }
+    final Step last = this.steps[this.steps.length - 1];
+    final List<Statement> results = new ArrayList<Statement>();
+    for (final Object container : containers) {
+      results.addAll(last.matches(container));
+    }
+    return results;
+  }
+
+  // statements with the identifier directly within a label, object or group
+  private static List<Statement> lookup(final Object container,
+      final DictIdentifier id) {
+    List<Statement> statements = null;
+    if (container instanceof Label) {
+      statements = ((Label) container).getStatement(id);
+    } else if (container instanceof ObjectStatement) {
+      statements = ((ObjectStatement) container).getStatement(id);
+    } else if (container instanceof GroupStatement) {
+      // groups only hold a handful of attributes
+      for (final Statement statement : ((GroupStatement) container)
+          .getStatements()) {
+        if (statement.getIdentifier().equals(id)) {
+          if (statements == null) {
+            statements = new ArrayList<Statement>();
+          }
+          statements.add(statement);
+        }
+      }
+    }
+    if (statements == null) {
+      return Collections.emptyList();
+    }
+    return statements;
+  }
+
+  private static class Step {
+
+    private final DictIdentifier objectId;
+
+    private final DictIdentifier groupId;
+
+    // attribute or pointer
+    private final DictIdentifier valueId;
+
+    private final boolean pointer;
+
+    private final List<Predicate> predicates;
+
+    Step(final String name, final boolean pointer,
+        final List<Predicate> predicates) {
+      this.pointer = pointer;
+      this.predicates = predicates;
+      if (pointer) {
+        this.objectId = null;
+        this.groupId = null;
+        this.valueId = DictIDFactory.createPointerDefId(name);
+      } else {
+        this.objectId = DictIDFactory.createObjectDefId(name);
+        this.groupId = DictIDFactory.createGroupDefId(name);
+        this.valueId = DictIDFactory.createElementDefId(name);
+      }
+    }
+
+    List<Statement> containers(final Object container) {
+      if (this.pointer) {
+        return Collections.emptyList();
+      }
+      final List<Statement> objects = lookup(container, this.objectId);
+      final List<Statement> groups = lookup(container, this.groupId);
+      final List<Statement> found;
+      if (groups.isEmpty()) {
+        found = objects;
+      } else if (objects.isEmpty()) {
+        found = groups;
+      } else {
+        // both share the name, merge them into the order they were written
+        found = new ArrayList<Statement>(objects.size() + groups.size());
+        int o = 0;
+        int g = 0;
+        while (o < objects.size() || g < groups.size()) {
+          if (g == groups.size() || o < objects.size()
+              && objects.get(o).getLineNumber() <= groups.get(g).getLineNumber()) {
+            found.add(objects.get(o++));
+          } else {
+            found.add(groups.get(g++));
+          }
+        }
+      }
+      return filter(found);
+    }
+
+    List<Statement> matches(final Object container) {
+      final List<Statement> values = new ArrayList<Statement>();
+      for (final Statement statement : lookup(container, this.valueId)) {
+        if (this.pointer ? statement instanceof PointerStatement
+            : statement instanceof AttributeStatement) {
+          values.add(statement);
+        }
+      }
+      if (values.isEmpty()) {
+        return containers(container);
+      }
+      return filter(values);
+    }
+
+    private List<Statement> filter(final List<Statement> statements) {
+      List<Statement> result = statements;
+      for (final Predicate predicate : this.predicates) {
+        if (result.isEmpty()) {
+          break;
+        }
+        result = predicate.apply(result);
+      }
+      return result;
+    }
+  }
+
+  private static abstract class Predicate {
+    abstract List<Statement> apply(List<Statement> statements);
+  }
+
+  private static class Position extends Predicate {
+
+    private final int index;
+
+    Position(final int index) {
+      this.index = index;
+    }
+
+    @Override
+    List<Statement> apply(final List<Statement> statements) {
+      if (this.index < statements.size()) {
+        return Collections.singletonList(statements.get(this.index));
+      }
+      return Collections.emptyList();
+    }
+  }
+
+  private static class AttributeEquals extends Predicate {
+
+    private final DictIdentifier id;
+
+    private final String value;
+
+    AttributeEquals(final String name, final String value) {
+      this.id = DictIDFactory.createElementDefId(name);
+      this.value = value;
+    }
+
+    @Override
+    List<Statement> apply(final List<Statement> statements) {
+      final List<Statement> result = new ArrayList<Statement>();
+      for (final Statement statement : statements) {
+        for (final Statement attribute : lookup(statement, this.id)) {
+          if (!(attribute instanceof AttributeStatement)) {
+            continue;
+          }
+          final Value actual = ((AttributeStatement) attribute).getValue();
+          if (actual != null && this.value.equals(actual.toString())) {
+            result.add(statement);
+            break;
+          }
+        }
+      }
+      return result;
+    }
+  }
+
+  private static class Compiler {
+
+    private final String query;
+
+    private int position;
+
+    Compiler(final String query) {
+      if (query == null) {
+        throw new IllegalArgumentException("No query given"); //$NON-NLS-1$
+      }
+      this.query = query.trim();
+    }
+
+    Step[] steps() {
+      final List<Step> steps = new ArrayList<Step>();
+      do {
+        final boolean pointer = accept('^');
+        final String name = name();
+        final List<Predicate> predicates = new ArrayList<Predicate>();
+        while (accept('[')) {
+          final Predicate predicate = predicate();
+          if (predicate != null) {
+            predicates.add(predicate);
+          }
+          expect(']');
+        }
+        steps.add(new Step(name, pointer, predicates));
+        if (pointer && !atEnd()) {
+          throw error("A pointer must be the last step"); //$NON-NLS-1$
+        }
+      } while (accept('.'));
+      if (!atEnd()) {
+        throw error("Unexpected character"); //$NON-NLS-1$
+      }
+      return steps.toArray(new Step[steps.size()]);
+    }
+
+    // null for [*]
+    private Predicate predicate() {
+      if (accept('*')) {
+        return null;
+      }
+      if (this.position < this.query.length()
+          && Character.isDigit(this.query.charAt(this.position))) {
+        final int start = this.position;
+        while (this.position < this.query.length()
+            && Character.isDigit(this.query.charAt(this.position))) {
+          this.position++;
+        }
+        try {
+          return new Position(Integer.parseInt(this.query.substring(start,
+              this.position)));
+        } catch (NumberFormatException e) {
+          throw error("Position out of range"); //$NON-NLS-1$
+        }
+      }
+      final String name = name();
+      skipSpaces();
+      expect('=');
+      skipSpaces();
+      final String value;
+      if (accept('\'')) {
+        value = until('\'');
+      } else if (accept('"')) {
+        value = until('"');
+      } else {
+        final int start = this.position;
+        while (this.position < this.query.length()
+            && this.query.charAt(this.position) != ']') {
+          this.position++;
+        }
+        value = this.query.substring(start, this.position).trim();
+      }
+      skipSpaces();
+      return new AttributeEquals(name, value);
+    }
+
+    private String name() {
+      final int start = this.position;
+      while (this.position < this.query.length()
+          && isNameChar(this.query.charAt(this.position))) {
+        this.position++;
+      }
+      if (start == this.position) {
+        throw error("Expected an identifier"); //$NON-NLS-1$
+      }
+      return this.query.substring(start, this.position);
+    }
+
+    private static boolean isNameChar(final char c) {
+      return Character.isLetterOrDigit(c) || c == '_' || c == ':';
+    }
+
+    private String until(final char quote) {
+      final int end = this.query.indexOf(quote, this.position);
+      if (end < 0) {
+        throw error("Unterminated value"); //$NON-NLS-1$
+      }
+      final String value = this.query.substring(this.position, end);
+      this.position = end + 1;
+      return value;
+    }
+
+    private void skipSpaces() {
+      while (this.position < this.query.length()
+          && this.query.charAt(this.position) == ' ') {
+        this.position++;
+      }
+    }
+
+    private boolean accept(final char c) {
+      if (this.position < this.query.length()
+          && this.query.charAt(this.position) == c) {
+        this.position++;
+        return true;
+      }
+      return false;
+    }
+
+    private void expect(final char c) {
+      if (!accept(c)) {
+        throw error("Expected '" + c + "'"); //$NON-NLS-1$ //$NON-NLS-2$
+      }
+    }
+
+    private boolean atEnd() {
+      return this.position == this.query.length();
+    }
+
+    private IllegalArgumentException error(final String message) {
+      return new IllegalArgumentException(message + " at position " //$NON-NLS-1$
+          + this.position + " of query " + this.query); //$NON-NLS-1$
+    }
+  }
+}
@@ -0,0 +1,96 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// • Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// • Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// • Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.tools.label;
+
+import java.io.File;
+import java.net.URI;
+
+/**
+ * Where a statement came from: the label it was parsed as part of and that
+ * label's file or URI. Each label has one, shared by all of its statements,
+ * with the source string worked out once.
+ * 
+ * @version $Revision$
+ * 
+ */
+public final class LabelSource {
+
+  /**
+   * Source of statements not read from a label
+   */
+  public static final LabelSource NONE = new LabelSource(null, null, null);
+
+  private final Label label;
+
+  private final URI uri;
+
+  private final File file;
+
+  private final String sourceString;
+
+  LabelSource(final Label label, final URI uri, final File file) {
+    this.label = label;
+    // a URI takes precedence, a source has one or the other
+    this.uri = uri;
+    this.file = uri == null ? file : null;
+    if (this.file != null) {
+      this.sourceString = this.file.toString();
+    } else if (this.uri != null) {
+      this.sourceString = this.uri.toString();
+    } else {
+      this.sourceString = null;
+    }
+  }
+
+  public Label getLabel() {
+    return this.label;
+  }
+
+  public URI getURI() {
+    return this.uri;
+  }
+
+  public File getFile() {
+    return this.file;
+  }
+
+  /**
+   * @return the file or URI as a string, null if there is neither
+   */
+  public String getSourceString() {
+    return this.sourceString;
+  }
+
+  @Override
+  public String toString() {
+    return String.valueOf(this.sourceString);
+  }
+}
@@ -32,18 +32,25 @@ package gov.nasa.pds.tools.label;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.net.URLConnection;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import gov.nasa.pds.tools.LabelParserException;
+import gov.nasa.pds.tools.Problem;
 import gov.nasa.pds.tools.constants.Constants.ProblemType;
 import gov.nasa.pds.tools.containers.FileReference;
 
@@ -58,8 +65,22 @@ import gov.nasa.pds.tools.containers.FileReference;
 public class ManualPathResolver implements PointerResolver {
   private static Logger log = LogManager.getLogger(ManualPathResolver.class.getName());
 
-  private List<URL> includePaths = new ArrayList<URL>();
-  private URI baseURI = null;
+  // read by concurrent parses while searching for pointed files
+  private final List<URL> includePaths = new CopyOnWriteArrayList<URL>();
+  private volatile URI baseURI = null;
+  private volatile FragmentCache fragmentCache;
+  private volatile Executor includeExecutor;
+  private volatile DirectoryCache directoryCache;
+
+  public static final long DEFAULT_MISS_TTL_MILLIS = TimeUnit.SECONDS.toMillis(30);
+  public static final int DEFAULT_MAX_RESOLVED_PATHS = 10000;
+
+  private volatile long missTtl = TimeUnit.MILLISECONDS.toNanos(DEFAULT_MISS_TTL_MILLIS);
+  private volatile int maxResolvedPaths = DEFAULT_MAX_RESOLVED_PATHS;
+
+  // directory and path to where the file was found, see find(), least
+  // recently used first
+  private final Map<String, Found> resolved = new LinkedHashMap<String, Found>(16, 0.75f, true);
 
   public void setIncludePaths(final List<URL> paths) {
     this.includePaths.addAll(paths);
@@ -86,7 +107,7 @@ public class ManualPathResolver implements PointerResolver {
     // resolver
     URI pointerLabelBaseURI = null;
     try {
-      pointerLabelBaseURI = ManualPathResolver.getBaseURI(pointer.label.getLabelURI());
+      pointerLabelBaseURI = ManualPathResolver.getBaseURI(pointer.getLabel().getLabelURI());
       if (!pointerLabelBaseURI.equals(this.baseURI)) {
         searchPaths.add(0, pointerLabelBaseURI.toURL());
       }
@@ -103,48 +124,151 @@ public class ManualPathResolver implements PointerResolver {
       if (!url.endsWith("/")) //$NON-NLS-1$
         url += "/"; //$NON-NLS-1$
 
-      URL fileURL = null;
-      // Check to see if this is the right URL for the file.
-      // Depending on the OS and/or protocol this may never get called as
-      // the underlying OS may be case insensitive
-      try {
-        fileURL = new URL(url + path);
-        fileURL.openStream().close();
-        return new URI(fileURL.toString());
-      } catch (IOException ioEx) {
-        // Ignore this must not be the path to the pointed file
+      final Found found = find(url, path);
+      if (found.uri != null) {
+        if (found.caseChanged) {
+          // Found the file by changing the case of the name so report it
+          pointer.getLabel().addProblem(new Problem(pointer, null,
+              "parser.error.mismatchedPointerReference", ProblemType.POTENTIAL_POINTER_PROBLEM));
+        }
+        return found.uri;
       }
+    }
 
-      // Check to see if we can find the file as upper case.
-      try {
-        fileURL = new URL(url + path.toUpperCase());
-        fileURL.openStream().close();
-        // Found the file by upper casing the name so report it
-        pointer.label.addProblem(new LabelParserException(pointer, null,
-            "parser.error.mismatchedPointerReference", ProblemType.POTENTIAL_POINTER_PROBLEM));
-        return new URI(fileURL.toString());
-      } catch (IOException ioEx) {
-        // Ignore this must not be the path to the pointed file
-      }
+    // The file just can not be found so now report it
+    pointer.getLabel().addProblem(new Problem(pointer, null, "parser.error.missingRefFile",
+        ProblemType.MISSING_RESOURCE, path));
+    return null;
+  }
 
-      // Check to see if we can find the file as lower case
-      try {
-        fileURL = new URL(url + path.toLowerCase());
-        fileURL.openStream().close();
-        // Found the file by lower casing the name so report it
-        pointer.label.addProblem(new LabelParserException(pointer, null,
-            "parser.error.mismatchedPointerReference", ProblemType.POTENTIAL_POINTER_PROBLEM));
-        return new URI(fileURL.toString());
-      } catch (IOException ioEx) {
-        // Ignore this must not be the path to the pointed file
+  /*
+   * Looks for the path in the directory as given, upper case and lower case,
+   * remembering the answer so each distinct path is only probed once per
+   * directory however many pointers name it. Files that were not found are
+   * probed again once the miss has expired.
+   */
+  private Found find(final String directory, final String path) throws URISyntaxException {
+    final String key = directory + '\u0000' + path;
+    Found found = lookup(key);
+    if (found == null) {
+      found = new Found(null, false, System.nanoTime() + this.missTtl);
+      // Check to see if this is the right URL for the file.
+      // Depending on the OS and/or protocol the other cases may never get
+      // tried as the underlying OS may be case insensitive
+      final String upper = path.toUpperCase();
+      final String lower = path.toLowerCase();
+      if (probe(directory + path)) {
+        found = new Found(new URI(directory + path), false, 0);
+      } else if (!upper.equals(path) && probe(directory + upper)) {
+        found = new Found(new URI(directory + upper), true, 0);
+      } else if (!lower.equals(path) && probe(directory + lower)) {
+        found = new Found(new URI(directory + lower), true, 0);
       }
+      store(key, found);
+    }
+    return found;
+  }
 
+  private synchronized Found lookup(final String key) {
+    final Found found = this.resolved.get(key);
+    if (found != null && found.uri == null && System.nanoTime() - found.expires >= 0) {
+      this.resolved.remove(key);
+      return null;
     }
+    return found;
+  }
 
-    // The file just can not be found so now report it
-    pointer.label.addProblem(new LabelParserException(pointer, null, "parser.error.missingRefFile",
-        ProblemType.MISSING_RESOURCE, path));
-    return null;
+  private synchronized void store(final String key, final Found found) {
+    this.resolved.put(key, found);
+    while (this.resolved.size() > this.maxResolvedPaths) {
+      this.resolved.remove(this.resolved.keySet().iterator().next());
+    }
+  }
+
+  /*
+   * Checks that the URL exists without reading it: local files are looked up
+   * in the directory cache, if set, or checked directly and HTTP URLs are
+   * sent a HEAD request. Anything else, or a server refusing HEAD, falls back
+   * to opening the stream.
+   */
+  private boolean probe(final String location) {
+    try {
+      final URL url = new URL(location);
+      if ("file".equalsIgnoreCase(url.getProtocol())) { //$NON-NLS-1$
+        File file;
+        try {
+          file = new File(url.toURI());
+        } catch (URISyntaxException e) {
+          file = new File(url.getPath());
+        } catch (IllegalArgumentException e) {
+          file = new File(url.getPath());
+        }
+        final DirectoryCache cache = this.directoryCache;
+        return cache != null ? cache.exists(file) : file.exists();
+      }
+      final URLConnection connection = url.openConnection();
+      if (connection instanceof HttpURLConnection) {
+        final HttpURLConnection http = (HttpURLConnection) connection;
+        http.setRequestMethod("HEAD"); //$NON-NLS-1$
+        final int code = http.getResponseCode();
+        if (code != HttpURLConnection.HTTP_BAD_METHOD
+            && code != HttpURLConnection.HTTP_NOT_IMPLEMENTED) {
+          final InputStream is = code < HttpURLConnection.HTTP_BAD_REQUEST ? http
+              .getInputStream() : http.getErrorStream();
+          if (is != null) {
+            is.close();
+          }
+          return code / 100 == 2;
+        }
+        http.disconnect();
+      }
+      url.openStream().close();
+      return true;
+    } catch (IOException ioEx) {
+      // Ignore this must not be the path to the pointed file
+      return false;
+    }
+  }
+
+  /**
+   * Sets the cache that local files are looked up in, so each directory
+   * searched is listed once. Names are then matched in their exact case,
+   * even on file systems that ignore case.
+   */
+  public void setDirectoryCache(final DirectoryCache directoryCache) {
+    this.directoryCache = directoryCache;
+  }
+
+  public DirectoryCache getDirectoryCache() {
+    return this.directoryCache;
+  }
+
+  /**
+   * Forgets where pointed files were found, for instance after files have
+   * been added or renamed.
+   */
+  public synchronized void clearResolvedPaths() {
+    this.resolved.clear();
+  }
+
+  /**
+   * Sets how long a pointed file that could not be found is remembered as
+   * missing before it is looked for again.
+   */
+  public void setMissTtl(final long millis) {
+    this.missTtl = TimeUnit.MILLISECONDS.toNanos(millis);
+  }
+
+  /**
+   * Sets how many resolved paths are remembered before the least recently
+   * used is forgotten.
+   */
+  public void setMaxResolvedPaths(final int maxResolvedPaths) {
+    this.maxResolvedPaths = maxResolvedPaths;
+  }
+
+  synchronized int getResolvedPathCount() {
+    return this.resolved.size();
   }
 
   public List<URI> resolveURIs(PointerStatement pointer) throws IOException {
@@ -169,7 +293,8 @@ public class ManualPathResolver implements PointerResolver {
   }
 
   public Map<Numeric, URI> resolveURIMap(PointerStatement pointer) throws IOException {
-    Map<Numeric, URI> resolvedURIs = new HashMap<Numeric, URI>();
+    // keep the order the files were declared in
+    Map<Numeric, URI> resolvedURIs = new LinkedHashMap<Numeric, URI>();
 
     List<FileReference> fileRefs = pointer.getFileRefs();
 
@@ -210,6 +335,22 @@ public class ManualPathResolver implements PointerResolver {
     this.baseURI = baseURI;
   }
 
+  public void setFragmentCache(final FragmentCache fragmentCache) {
+    this.fragmentCache = fragmentCache;
+  }
+
+  public FragmentCache getFragmentCache() {
+    return this.fragmentCache;
+  }
+
+  public void setIncludeExecutor(final Executor includeExecutor) {
+    this.includeExecutor = includeExecutor;
+  }
+
+  public Executor getIncludeExecutor() {
+    return this.includeExecutor;
+  }
+
   public static URI getBaseURI(URI uri) {
     if (uri == null) {
       return null;
@@ -228,4 +369,18 @@ public class ManualPathResolver implements PointerResolver {
   public List<File> resolveFiles(PointerStatement pointer) {
     return new ArrayList<File>();
   }
+
+  private static final class Found {
+    final URI uri;
+    // found under the name upper or lower cased
+    final boolean caseChanged;
+    // when a miss, with no uri, is to be probed again
+    final long expires;
+
+    Found(final URI uri, final boolean caseChanged, final long expires) {
+      this.uri = uri;
+      this.caseChanged = caseChanged;
+      this.expires = expires;
+    }
+  }
 }
@@ -47,6 +47,8 @@ public class ObjectStatement extends Statement {
 
   private LinkedHashMap<DictIdentifier, List<Statement>> statements;
 
+  private final StatementIndex index;
+
   /**
    * Constructs a new object statement with no attributes or nested objects
    * 
@@ -86,6 +88,7 @@ public class ObjectStatement extends Statement {
       LinkedHashMap<DictIdentifier, List<Statement>> statements) {
     super(sourceLabel, lineNumber, DictIDFactory.createObjectDefId(identifier));
     this.statements = statements;
+    this.index = new StatementIndex(statements);
   }
 
   private List<? extends Statement> getElements(final DictIdentifier key) {
@@ -96,53 +99,31 @@ public class ObjectStatement extends Statement {
     return returnStatements;
   }
 
-  private List<? extends Statement> getElements(final Class<?> classType) {
-    final List<Statement> returnStatements = new ArrayList<Statement>();
-    for (List<Statement> stmts : this.statements.values()) {
-      for (Statement statement : stmts) {
-        if (statement.getClass().equals(classType)) {
-          returnStatements.add(statement);
-        }
-      }
-    }
-    return returnStatements;
-  }
-
   /**
    * Retrieves the list of attributes associated with the ObjectStatement
    * 
-   * @return The list of AttributeStatement
+   * @return The read only list of AttributeStatement
    */
-  @SuppressWarnings("unchecked")
   public List<AttributeStatement> getAttributes() {
-    return (List<AttributeStatement>) getElements(AttributeStatement.class);
+    return this.index.getAttributes();
   }
 
   /**
    * Retrieves pointers associated with this object
    * 
-   * @return list of {@link PointerStatement}
+   * @return read only list of {@link PointerStatement}
    */
   public List<PointerStatement> getPointers() {
-    List<PointerStatement> returnPointers = new ArrayList<PointerStatement>();
-    for (List<Statement> stmts : this.statements.values()) {
-      for (Statement statement : stmts) {
-        if (statement instanceof PointerStatement) {
-          returnPointers.add((PointerStatement) statement);
-        }
-      }
-    }
-    return returnPointers;
+    return this.index.getPointers();
   }
 
   /**
    * Retrieves groups associated with this object
    * 
-   * @return list of {@link GroupStatement}
+   * @return read only list of {@link GroupStatement}
    */
-  @SuppressWarnings("unchecked")
   public List<GroupStatement> getGroups() {
-    return (List<GroupStatement>) getElements(GroupStatement.class);
+    return this.index.getGroups();
   }
 
   /**
@@ -198,11 +179,21 @@ public class ObjectStatement extends Statement {
   /**
    * Retrieves the list of objects associated with this object
    * 
-   * @return The list of ObjectStatement
+   * @return The read only list of ObjectStatement
    */
-  @SuppressWarnings("unchecked")
   public List<ObjectStatement> getObjects() {
-    return (List<ObjectStatement>) getElements(ObjectStatement.class);
+    return this.index.getObjects();
+  }
+
+  /**
+   * Retrieves the statements with the identifier
+   * 
+   * @param identifier
+   *          Identifies the statement(s) to retrieve
+   * @return The named statements or null if not found
+   */
+  public List<Statement> getStatement(final DictIdentifier identifier) {
+    return this.statements.get(identifier);
   }
 
   /**
@@ -251,19 +242,11 @@ public class ObjectStatement extends Statement {
    *          to be added to object
    */
   public void addStatement(Statement statement) {
-    DictIdentifier id = statement.getIdentifier();
-    List<Statement> stmnts = this.statements.get(id);
-    if (stmnts == null) {
-      stmnts = new ArrayList<Statement>();
-      this.statements.put(id, stmnts);
-    }
+    this.index.add(statement);
     if (statement instanceof IncludePointer) {
-      stmnts.add(statement);
       for (Statement stmt : ((IncludePointer) statement).getStatements()) {
         addStatement(stmt);
       }
-    } else {
-      stmnts.add(statement);
     }
   }
 
@@ -282,12 +265,11 @@ public class ObjectStatement extends Statement {
     return (getGroups(id).size() == 0) ? false : true;
   }
 
+  /**
+   * @return read only list of the statements of this object
+   */
   public List<Statement> getStatements() {
-    List<Statement> results = new ArrayList<Statement>();
-    for (List<Statement> stmts : this.statements.values()) {
-      results.addAll(stmts);
-    }
-    return results;
+    return this.index.getStatements();
   }
 
   public boolean equals(Object object) {
@@ -298,7 +280,8 @@ public class ObjectStatement extends Statement {
       return false;
     }
     ObjectStatement thatObject = (ObjectStatement) object;
-    List<AttributeStatement> thoseAttributes = thatObject.getAttributes();
+    List<AttributeStatement> thoseAttributes = new ArrayList<AttributeStatement>(
+        thatObject.getAttributes());
     for (AttributeStatement thisAttribute : getAttributes()) {
       AttributeStatement thatAttribute = thatObject
           .getAttribute(thisAttribute.getIdentifier());
@@ -315,7 +298,8 @@ public class ObjectStatement extends Statement {
     if (!thoseAttributes.isEmpty()) {
       return false;
     }
-    List<PointerStatement> thosePointers = thatObject.getPointers();
+    List<PointerStatement> thosePointers = new ArrayList<PointerStatement>(
+        thatObject.getPointers());
     for (PointerStatement thisPointer : getPointers()) {
       boolean foundMatch = false;
       for (PointerStatement thatPointer : thosePointers) {
@@ -332,7 +316,8 @@ public class ObjectStatement extends Statement {
     if (!thosePointers.isEmpty()) {
       return false;
     }
-    List<ObjectStatement> thoseObjects = thatObject.getObjects();
+    List<ObjectStatement> thoseObjects = new ArrayList<ObjectStatement>(
+        thatObject.getObjects());
     for (ObjectStatement thisObject : getObjects()) {
       boolean foundMatch = false;
       for (ObjectStatement o : thoseObjects) {
@@ -348,7 +333,8 @@ public class ObjectStatement extends Statement {
     if (!thoseObjects.isEmpty()) {
       return false;
     }
-    List<GroupStatement> thoseGroups = thatObject.getGroups();
+    List<GroupStatement> thoseGroups = new ArrayList<GroupStatement>(
+        thatObject.getGroups());
     for (GroupStatement thisGroup : getGroups()) {
       boolean foundMatch = false;
       for (GroupStatement thatGroup : thoseGroups) {
@@ -35,11 +35,13 @@ import java.io.IOException;
 import java.net.URI;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 /**
  * Defines an interface for defining how to resolve a pointer. This was
  * abstracted to an interface as there are different contexts which may
- * determine how to resolve a pointer. .
+ * determine how to resolve a pointer. Implementations should be safe for
+ * concurrent use as one resolver is shared by labels parsed in parallel.
  * 
  * @author pramirez
  * @author jagander
@@ -62,4 +64,17 @@ public interface PointerResolver {
     public URI getBaseURI();
 
     public String getBaseString();
+
+    /**
+     * @return cache of parsed include fragments to use when loading the
+     *         statements of include pointers, or null to parse each time
+     */
+    public FragmentCache getFragmentCache();
+
+    /**
+     * @return executor on which the files of an include pointer with several
+     *         targets are checked and parsed concurrently, or null to handle
+     *         them one after another
+     */
+    public Executor getIncludeExecutor();
 }
@@ -141,13 +141,13 @@ public class PointerStatement extends Statement {
                 this.fileRefs.add(fileRef);
             } else if (this.value instanceof Numeric) {
                 FileReference fileRef = null;
-                if (this.sourceFile != null) {
-                    fileRef = new FileReference(this.sourceFile.getName(),
+                if (getSourceFile() != null) {
+                    fileRef = new FileReference(getSourceFile().getName(),
                             getLineNumber(), getIdentifier(),
                             (Numeric) this.value);
                 } else {
                     fileRef = new FileReference(
-                            StrUtils.getURIFilename(this.sourceURI),
+                            StrUtils.getURIFilename(getSourceURI()),
                             getLineNumber(), getIdentifier(),
                             (Numeric) this.value);
                 }
@@ -70,6 +70,13 @@ public abstract class Scalar implements Value {
     return this.value;
   }
 
+  /**
+   * @return how the value was quoted, null if it was not
+   */
+  public ValueType getValueType() {
+    return this.type;
+  }
+
   @Override
   public String toString() {
     return this.value;
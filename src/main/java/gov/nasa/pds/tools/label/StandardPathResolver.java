@@ -41,11 +41,10 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.concurrent.Executor;
 
 /**
  * @author pramirez
@@ -55,12 +54,55 @@ import java.util.Map.Entry;
  */
 public class StandardPathResolver implements PointerResolver {
 
-    private VolumeContainerSimple volume;
+    private volatile VolumeContainerSimple volume;
+
+    private volatile FragmentCache fragmentCache;
+
+    private volatile Executor includeExecutor;
+
+    private volatile DirectoryCache directoryCache;
 
     public void setVolumeContext(VolumeContainerSimple volume) {
         this.volume = volume;
     }
 
+    public void setFragmentCache(final FragmentCache fragmentCache) {
+        this.fragmentCache = fragmentCache;
+    }
+
+    public FragmentCache getFragmentCache() {
+        return this.fragmentCache;
+    }
+
+    public void setIncludeExecutor(final Executor includeExecutor) {
+        this.includeExecutor = includeExecutor;
+    }
+
+    public Executor getIncludeExecutor() {
+        return this.includeExecutor;
+    }
+
+    /**
+     * Sets the cache that files are looked up in while resolving pointers,
+     * so each directory is listed once instead of every candidate file being
+     * checked. Invalidate it when files of the volume change.
+     */
+    public void setDirectoryCache(final DirectoryCache directoryCache) {
+        this.directoryCache = directoryCache;
+    }
+
+    public DirectoryCache getDirectoryCache() {
+        return this.directoryCache;
+    }
+
+    private boolean exists(final File file) {
+        final DirectoryCache cache = this.directoryCache;
+        if (cache != null) {
+            return cache.exists(file);
+        }
+        return FileUtils.exists(file);
+    }
+
     private File getBaseForPointer(final PointerStatement pointer) {
         if (pointer instanceof CatalogPointer) {
             return this.volume.getCatalogFolder();
@@ -88,95 +130,113 @@ public class StandardPathResolver implements PointerResolver {
     }
 
     public Map<Numeric, URI> resolveURIMap(PointerStatement pointer) {
-        HashMap<Numeric, URI> files = new HashMap<Numeric, URI>();
+        // keep the order the files were declared in
+        Map<Numeric, URI> files = new LinkedHashMap<Numeric, URI>();
         URL sourceDirectory = URLUtils.getParentURL(pointer.getSourceURI());
-        // get refs from pointer
-        List<FileReference> fileRefs = pointer.getFileRefs();
-        URI altDirectory = null;
-        if (this.volume != null && pointer instanceof SpecialPointer) {
-            altDirectory = getBaseURIForPointer(pointer);
-        }
-        for (FileReference fileRef : fileRefs) {
-            try {
-                final String definedPath = fileRef.getPath();
-                URL testFile = URLUtils.newURL(sourceDirectory, definedPath);
-                // file not found, try alternate case
-                if (!URLUtils.exists(testFile)) {
-                    URL testFile2 = URLUtils.getAlternateCaseURL(testFile);
-                    if (URLUtils.exists(testFile2)) {
-                        // found but we want to complain about case of file?
-                        testFile = testFile2;
-                    } else if (altDirectory != null) {
-                        testFile = URLUtils.newURL(altDirectory.toURL(),
-                                definedPath);
-                        // file not found, try alternate case
-                        if (!URLUtils.exists(testFile)) {
-                            URL testFile3 = URLUtils
-                                    .getAlternateCaseURL(testFile);
-                            if (URLUtils.exists(testFile3)) {
-                                // found but we want to complain about case of
-                                // file?
-                                testFile = testFile3;
-                            }
-                        }
-
-                    }
-                }
-                final Numeric startPosition = fileRef.getStartPosition();
-                URI testURI = testFile.toURI();
-                files.put(startPosition, testURI);
-            } catch (MalformedURLException e) {
-                e.printStackTrace();
-            } catch (URISyntaxException e) {
-                e.printStackTrace();
+        URI altDirectory = getAltURI(pointer);
+        for (FileReference fileRef : pointer.getFileRefs()) {
+            final URI testURI = resolveURI(fileRef, sourceDirectory,
+                    altDirectory);
+            if (testURI != null) {
+                files.put(fileRef.getStartPosition(), testURI);
             }
-
         }
 
         return files;
     }
 
-    public Map<Numeric, File> resolveFileMap(PointerStatement pointer) {
-        HashMap<Numeric, File> files = new HashMap<Numeric, File>();
-        File sourceDirectory = FileUtils.getBaseFile(pointer.getSourceFile());
-        // get refs from pointer
-        List<FileReference> fileRefs = pointer.getFileRefs();
-        File altDirectory = null;
+    private URI getAltURI(final PointerStatement pointer) {
         if (this.volume != null && pointer instanceof SpecialPointer) {
-            altDirectory = getBaseForPointer(pointer);
+            return getBaseURIForPointer(pointer);
         }
-        for (FileReference fileRef : fileRefs) {
+        return null;
+    }
+
+    private URI resolveURI(final FileReference fileRef,
+            final URL sourceDirectory, final URI altDirectory) {
+        try {
             final String definedPath = fileRef.getPath();
-            File testFile = new File(sourceDirectory, definedPath);
+            URL testFile = URLUtils.newURL(sourceDirectory, definedPath);
             // file not found, try alternate case
-            if (!FileUtils.exists(testFile)) {
-                File testFile2 = FileUtils.getAlternateCaseFile(
-                        sourceDirectory, definedPath);
-                if (FileUtils.exists(testFile2)) {
+            if (!URLUtils.exists(testFile)) {
+                URL testFile2 = URLUtils.getAlternateCaseURL(testFile);
+                if (URLUtils.exists(testFile2)) {
                     // found but we want to complain about case of file?
                     testFile = testFile2;
-                }
-            }
-            // file doesn't exist with found case, try alternate
-            if (!testFile.exists() && altDirectory != null) {
-                testFile = new File(altDirectory, definedPath);
-                // file not found, try alternate case
-                if (!FileUtils.exists(testFile)) {
-                    File testFile3 = FileUtils.getAlternateCaseFile(
-                            altDirectory, definedPath);
-                    if (FileUtils.exists(testFile3)) {
-                        // found but we want to complain about case of file?
-                        testFile = testFile3;
+                } else if (altDirectory != null) {
+                    testFile = URLUtils.newURL(altDirectory.toURL(),
+                            definedPath);
+                    // file not found, try alternate case
+                    if (!URLUtils.exists(testFile)) {
+                        URL testFile3 = URLUtils
+                                .getAlternateCaseURL(testFile);
+                        if (URLUtils.exists(testFile3)) {
+                            // found but we want to complain about case of
+                            // file?
+                            testFile = testFile3;
+                        }
                     }
+
                 }
             }
-            final Numeric startPosition = fileRef.getStartPosition();
-            files.put(startPosition, testFile);
+            return testFile.toURI();
+        } catch (MalformedURLException e) {
+            e.printStackTrace();
+        } catch (URISyntaxException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    public Map<Numeric, File> resolveFileMap(PointerStatement pointer) {
+        // keep the order the files were declared in
+        Map<Numeric, File> files = new LinkedHashMap<Numeric, File>();
+        File sourceDirectory = FileUtils.getBaseFile(pointer.getSourceFile());
+        File altDirectory = getAltFile(pointer);
+        for (FileReference fileRef : pointer.getFileRefs()) {
+            files.put(fileRef.getStartPosition(), resolveFile(fileRef,
+                    sourceDirectory, altDirectory));
         }
 
         return files;
     }
 
+    private File getAltFile(final PointerStatement pointer) {
+        if (this.volume != null && pointer instanceof SpecialPointer) {
+            return getBaseForPointer(pointer);
+        }
+        return null;
+    }
+
+    private File resolveFile(final FileReference fileRef,
+            final File sourceDirectory, final File altDirectory) {
+        final String definedPath = fileRef.getPath();
+        File testFile = new File(sourceDirectory, definedPath);
+        // file not found, try alternate case
+        if (!exists(testFile)) {
+            File testFile2 = FileUtils.getAlternateCaseFile(sourceDirectory,
+                    definedPath);
+            if (exists(testFile2)) {
+                // found but we want to complain about case of file?
+                testFile = testFile2;
+            }
+        }
+        // file doesn't exist with found case, try alternate
+        if (!testFile.exists() && altDirectory != null) {
+            testFile = new File(altDirectory, definedPath);
+            // file not found, try alternate case
+            if (!exists(testFile)) {
+                File testFile3 = FileUtils.getAlternateCaseFile(altDirectory,
+                        definedPath);
+                if (exists(testFile3)) {
+                    // found but we want to complain about case of file?
+                    testFile = testFile3;
+                }
+            }
+        }
+        return testFile;
+    }
+
     public File getBaseFile() {
         if (this.volume == null) {
             return null;
@@ -201,20 +261,29 @@ public class StandardPathResolver implements PointerResolver {
         return this.getBaseURI().toString();
     }
 
+    // unlike the maps, files of a set all share the same (missing) start
+    // position so only the lists hold every file of a set
     public List<File> resolveFiles(PointerStatement pointer) {
-        final Map<Numeric, File> fileMap = resolveFileMap(pointer);
-        Iterator<Entry<Numeric, File>> it = fileMap.entrySet().iterator();
+        File sourceDirectory = FileUtils.getBaseFile(pointer.getSourceFile());
+        File altDirectory = getAltFile(pointer);
         List<File> fileList = new ArrayList<File>();
-        while (it.hasNext()) {
-            Entry<Numeric, File> entry = it.next();
-            final File file = entry.getValue();
-            fileList.add(file);
+        for (FileReference fileRef : pointer.getFileRefs()) {
+            fileList.add(resolveFile(fileRef, sourceDirectory, altDirectory));
         }
         return fileList;
     }
 
     public List<URI> resolveURIs(PointerStatement pointer) {
-        return new ArrayList<URI>();
+        URL sourceDirectory = URLUtils.getParentURL(pointer.getSourceURI());
+        URI altDirectory = getAltURI(pointer);
+        List<URI> uriList = new ArrayList<URI>();
+        for (FileReference fileRef : pointer.getFileRefs()) {
+            final URI testURI = resolveURI(fileRef, sourceDirectory,
+                    altDirectory);
+            if (testURI != null) {
+                uriList.add(testURI);
+            }
+        }
+        return uriList;
     }
-
 }
@@ -112,6 +112,14 @@ public abstract class Statement implements Comparable<Object> {
     return this.identifier;
   }
 
+  /**
+   * @return where this statement was read from, the same instance for every
+   *         statement of a label
+   */
+  public LabelSource getSource() {
+    return this.label == null ? LabelSource.NONE : this.label.getSource();
+  }
+
   public URI getSourceURI() {
     return this.sourceURI;
   }
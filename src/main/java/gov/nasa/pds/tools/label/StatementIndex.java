@@ -0,0 +1,183 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.tools.label;
+
+import gov.nasa.pds.tools.dict.DictIdentifier;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Statements of a label or object keyed by identifier, along with a list of
+ * each kind of statement so that asking for the attributes, pointers, objects
+ * or groups costs the size of the answer rather than a walk over every
+ * statement. The lists keep the order of the identifier map, statements
+ * grouped under the first appearance of their identifier. Adding to the
+ * group of an earlier identifier cannot be done by appending, so the list of
+ * that kind is rebuilt the next time it is asked for.
+ * 
+ * @version $Revision$
+ * 
+ */
+class StatementIndex {
+
+  private final LinkedHashMap<DictIdentifier, List<Statement>> statements;
+
+  private final Kind<Statement> all = new Kind<Statement>(Statement.class,
+      false);
+
+  private final Kind<AttributeStatement> attributes = new Kind<AttributeStatement>(
+      AttributeStatement.class, true);
+
+  private final Kind<PointerStatement> pointers = new Kind<PointerStatement>(
+      PointerStatement.class, false);
+
+  private final Kind<ObjectStatement> objects = new Kind<ObjectStatement>(
+      ObjectStatement.class, true);
+
+  private final Kind<GroupStatement> groups = new Kind<GroupStatement>(
+      GroupStatement.class, true);
+
+  StatementIndex(final LinkedHashMap<DictIdentifier, List<Statement>> statements) {
+    this.statements = statements;
+    if (!statements.isEmpty()) {
+      this.all.stale = true;
+      this.attributes.stale = true;
+      this.pointers.stale = true;
+      this.objects.stale = true;
+      this.groups.stale = true;
+    }
+  }
+
+  LinkedHashMap<DictIdentifier, List<Statement>> getMap() {
+    return this.statements;
+  }
+
+  synchronized void add(final Statement statement) {
+    final DictIdentifier id = statement.getIdentifier();
+    List<Statement> group = this.statements.get(id);
+    final boolean newId = group == null;
+    if (newId) {
+      group = new ArrayList<Statement>();
+      this.statements.put(id, group);
+    }
+    group.add(statement);
+    this.all.add(id, statement, newId);
+    this.attributes.add(id, statement, newId);
+    this.pointers.add(id, statement, newId);
+    this.objects.add(id, statement, newId);
+    this.groups.add(id, statement, newId);
+  }
+
+  synchronized List<Statement> getStatements() {
+    return this.all.get(this.statements);
+  }
+
+  synchronized List<AttributeStatement> getAttributes() {
+    return this.attributes.get(this.statements);
+  }
+
+  synchronized List<PointerStatement> getPointers() {
+    return this.pointers.get(this.statements);
+  }
+
+  synchronized List<ObjectStatement> getObjects() {
+    return this.objects.get(this.statements);
+  }
+
+  synchronized List<GroupStatement> getGroups() {
+    return this.groups.get(this.statements);
+  }
+
+  synchronized int size() {
+    return this.all.get(this.statements).size();
+  }
+
+  private static class Kind<T extends Statement> {
+
+    private final Class<T> type;
+
+    // whether subclasses are excluded, matching the lookups this replaces
+    private final boolean exact;
+
+    private final List<T> statements = new ArrayList<T>();
+
+    private final List<T> view = Collections.unmodifiableList(this.statements);
+
+    // identifier of the last statement in the list
+    private DictIdentifier tail;
+
+    private boolean stale;
+
+    Kind(final Class<T> type, final boolean exact) {
+      this.type = type;
+      this.exact = exact;
+    }
+
+    private boolean accepts(final Statement statement) {
+      return this.exact ? statement.getClass() == this.type : this.type
+          .isInstance(statement);
+    }
+
+    // a new identifier sorts after everything already present
+    void add(final DictIdentifier id, final Statement statement,
+        final boolean newId) {
+      if (this.stale || !accepts(statement)) {
+        return;
+      }
+      if (newId || id.equals(this.tail)) {
+        this.statements.add(this.type.cast(statement));
+        this.tail = id;
+      } else {
+        this.stale = true;
+      }
+    }
+
+    List<T> get(final LinkedHashMap<DictIdentifier, List<Statement>> map) {
+      if (this.stale) {
+        this.statements.clear();
+        this.tail = null;
+        for (final List<Statement> group : map.values()) {
+          for (final Statement statement : group) {
+            if (accepts(statement)) {
+              this.statements.add(this.type.cast(statement));
+              this.tail = statement.getIdentifier();
+            }
+          }
+        }
+        this.stale = false;
+      }
+      return this.view;
+    }
+  }
+}
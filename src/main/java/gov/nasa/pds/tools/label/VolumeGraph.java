@@ -0,0 +1,497 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// • Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// • Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// • Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.tools.label;
+
+import gov.nasa.pds.tools.LabelParserException;
+import gov.nasa.pds.tools.containers.VolumeContainerSimple;
+import gov.nasa.pds.tools.label.parser.DefaultLabelParser;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The pointers of every label in a volume, resolved once. Each file is a node
+ * and each resolved pointer an edge from the file it is in to the file it
+ * names, so relationships that parsing finds again for every label that
+ * includes a fragment can be looked up for the whole volume: which files
+ * include each other in a cycle, an order in which files come after
+ * everything they include, and which files are affected when one changes.
+ * 
+ * Labels are parsed without loading includes and the targets of include
+ * pointers, such as format and catalog files, are parsed in turn as
+ * fragments. Targets of other pointers are recorded but not read.
+ * 
+ * @version $Revision$
+ * 
+ */
+public class VolumeGraph {
+
+  /**
+   * Kind of file a pointer names, from the type of the pointer.
+   */
+  public enum EdgeType {
+    FRAGMENT(true), CATALOG(true), INDEX(false), DESCRIPTION(false), DATA(false);
+
+    private final boolean include;
+
+    private EdgeType(final boolean include) {
+      this.include = include;
+    }
+
+    /**
+     * @return true if the target is parsed as part of the label
+     */
+    public boolean isInclude() {
+      return this.include;
+    }
+
+    static EdgeType of(final PointerStatement pointer) {
+      if (pointer instanceof StructurePointer) {
+        return FRAGMENT;
+      } else if (pointer instanceof CatalogPointer) {
+        return CATALOG;
+      } else if (pointer instanceof IndexPointer) {
+        return INDEX;
+      } else if (pointer instanceof DescriptionPointer) {
+        return DESCRIPTION;
+      }
+      return DATA;
+    }
+  }
+
+  /**
+   * A resolved pointer.
+   */
+  public static final class Edge {
+
+    private final File from;
+
+    private final File to;
+
+    private final EdgeType type;
+
+    private final String identifier;
+
+    private final int lineNumber;
+
+    Edge(final File from, final File to, final EdgeType type,
+        final String identifier, final int lineNumber) {
+      this.from = from;
+      this.to = to;
+      this.type = type;
+      this.identifier = identifier;
+      this.lineNumber = lineNumber;
+    }
+
+    public File getFrom() {
+      return this.from;
+    }
+
+    public File getTo() {
+      return this.to;
+    }
+
+    public EdgeType getType() {
+      return this.type;
+    }
+
+    /**
+     * @return identifier of the pointer, without the leading '^'
+     */
+    public String getIdentifier() {
+      return this.identifier;
+    }
+
+    public int getLineNumber() {
+      return this.lineNumber;
+    }
+
+    @SuppressWarnings("nls")
+    @Override
+    public String toString() {
+      return this.from + ":" + this.lineNumber + " ^" + this.identifier
+          + " -> " + this.to;
+    }
+  }
+
+  private static final class Node {
+
+    final File file;
+
+    // order the file was found in, to keep results stable
+    final int order;
+
+    final List<Edge> edges = new ArrayList<Edge>();
+
+    final List<Edge> referrers = new ArrayList<Edge>();
+
+    boolean parsed;
+
+    // Tarjan state
+    int index = -1;
+
+    int lowLink;
+
+    int next;
+
+    boolean onStack;
+
+    Node(final File file, final int order) {
+      this.file = file;
+      this.order = order;
+    }
+  }
+
+  private static final Comparator<Node> IN_ORDER = new Comparator<Node>() {
+    public int compare(final Node left, final Node right) {
+      return left.order < right.order ? -1 : left.order == right.order ? 0 : 1;
+    }
+  };
+
+  private final Map<File, Node> nodes = new LinkedHashMap<File, Node>();
+
+  // strongly connected components over include edges, included files first
+  private final List<List<File>> components = new ArrayList<List<File>>();
+
+  private final List<List<File>> cycles = new ArrayList<List<File>>();
+
+  private VolumeGraph() {
+    // see build()
+  }
+
+  /**
+   * Builds the graph of the labels, files named LBL in any case, found under
+   * the volume root. Pointers are resolved as in
+   * {@link StandardPathResolver} with the volume as context.
+   */
+  public static VolumeGraph build(final File volumeRoot) throws IOException {
+    final DirectoryCache directoryCache = new DirectoryCache();
+    final StandardPathResolver resolver = new StandardPathResolver();
+    resolver.setVolumeContext(new VolumeContainerSimple(volumeRoot,
+        directoryCache));
+    resolver.setDirectoryCache(directoryCache);
+    final List<File> labels = new ArrayList<File>();
+    Files.walkFileTree(volumeRoot.toPath(), new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult visitFile(final Path file,
+          final BasicFileAttributes attributes) {
+        if (file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(
+            ".lbl")) { //$NON-NLS-1$
+          labels.add(file.toFile());
+        }
+        return FileVisitResult.CONTINUE;
+      }
+    });
+    Collections.sort(labels);
+    return build(labels, resolver);
+  }
+
+  /**
+   * Builds the graph of the labels and the files they point to, directly or
+   * through included fragments.
+   */
+  public static VolumeGraph build(final Collection<File> labels,
+      final PointerResolver resolver) {
+    final VolumeGraph graph = new VolumeGraph();
+    final DefaultLabelParser parser = new DefaultLabelParser(false, false,
+        resolver);
+    final Deque<Node> fragments = new ArrayDeque<Node>();
+    final List<Node> labelNodes = new ArrayList<Node>();
+    for (final File file : labels) {
+      final Node node = graph.node(file);
+      if (!node.parsed) {
+        // parsed as a label even if another label includes it
+        node.parsed = true;
+        labelNodes.add(node);
+      }
+    }
+    for (final Node node : labelNodes) {
+      Label label = null;
+      try {
+        label = parser.parseLabel(node.file);
+      } catch (LabelParserException e) {
+        // not a label, nothing points from it
+      } catch (IOException e) {
+        // unreadable, nothing points from it
+      }
+      graph.addEdges(node, label, resolver, fragments);
+    }
+    while (!fragments.isEmpty()) {
+      final Node node = fragments.removeFirst();
+      Label label = null;
+      try {
+        label = parser.parsePartial(node.file, null);
+      } catch (LabelParserException e) {
+        // not a fragment, nothing points from it
+      } catch (IOException e) {
+        // unreadable, nothing points from it
+      }
+      graph.addEdges(node, label, resolver, fragments);
+    }
+    graph.findComponents();
+    return graph;
+  }
+
+  private Node node(final File file) {
+    final File key = file.getAbsoluteFile().toPath().normalize().toFile();
+    Node node = this.nodes.get(key);
+    if (node == null) {
+      node = new Node(key, this.nodes.size());
+      this.nodes.put(key, node);
+    }
+    return node;
+  }
+
+  private void addEdges(final Node node, final Label label,
+      final PointerResolver resolver, final Deque<Node> fragments) {
+    if (label == null) {
+      return;
+    }
+    final List<PointerStatement> pointers = new ArrayList<PointerStatement>();
+    collectPointers(label.getStatements(), pointers);
+    for (final PointerStatement pointer : pointers) {
+      final EdgeType type = EdgeType.of(pointer);
+      for (final File target : resolver.resolveFiles(pointer)) {
+        final Node to = node(target);
+        final Edge edge = new Edge(node.file, to.file, type, pointer
+            .getIdentifier().getId(), pointer.getLineNumber());
+        node.edges.add(edge);
+        to.referrers.add(edge);
+        if (type.isInclude() && !to.parsed && to.file.isFile()) {
+          to.parsed = true;
+          fragments.addLast(to);
+        }
+      }
+    }
+  }
+
+  private static void collectPointers(final List<Statement> statements,
+      final List<PointerStatement> pointers) {
+    for (final Statement statement : statements) {
+      if (statement instanceof PointerStatement) {
+        pointers.add((PointerStatement) statement);
+      } else if (statement instanceof ObjectStatement) {
+        collectPointers(((ObjectStatement) statement).getStatements(),
+            pointers);
+      } else if (statement instanceof GroupStatement) {
+        collectPointers(((GroupStatement) statement).getStatements(), pointers);
+      }
+    }
+  }
+
+  /*
+   * Tarjan's algorithm over the include edges, iterative so deep include
+   * chains can't overflow the stack. Components come out with every file
+   * they include ahead of them.
+   */
+  private void findComponents() {
+    int counter = 0;
+    final Deque<Node> stack = new ArrayDeque<Node>();
+    final Deque<Node> path = new ArrayDeque<Node>();
+    for (final Node root : this.nodes.values()) {
+      if (root.index >= 0) {
+        continue;
+      }
+      counter = visit(root, counter, stack, path);
+      while (!path.isEmpty()) {
+        final Node node = path.peek();
+        if (node.next < node.edges.size()) {
+          final Edge edge = node.edges.get(node.next++);
+          if (!edge.type.isInclude()) {
+            continue;
+          }
+          final Node to = this.nodes.get(edge.to);
+          if (to.index < 0) {
+            counter = visit(to, counter, stack, path);
+          } else if (to.onStack) {
+            node.lowLink = Math.min(node.lowLink, to.index);
+          }
+          continue;
+        }
+        path.pop();
+        if (!path.isEmpty()) {
+          final Node caller = path.peek();
+          caller.lowLink = Math.min(caller.lowLink, node.lowLink);
+        }
+        if (node.lowLink == node.index) {
+          final List<Node> component = new ArrayList<Node>();
+          Node member;
+          do {
+            member = stack.pop();
+            member.onStack = false;
+            component.add(member);
+          } while (member != node);
+          addComponent(component);
+        }
+      }
+    }
+  }
+
+  private static int visit(final Node node, final int counter,
+      final Deque<Node> stack, final Deque<Node> path) {
+    node.index = counter;
+    node.lowLink = counter;
+    node.next = 0;
+    node.onStack = true;
+    stack.push(node);
+    path.push(node);
+    return counter + 1;
+  }
+
+  private void addComponent(final List<Node> component) {
+    Collections.sort(component, IN_ORDER);
+    final List<File> files = new ArrayList<File>(component.size());
+    for (final Node member : component) {
+      files.add(member.file);
+    }
+    final List<File> readOnly = Collections.unmodifiableList(files);
+    this.components.add(readOnly);
+    if (component.size() > 1 || includesItself(component.get(0))) {
+      this.cycles.add(readOnly);
+    }
+  }
+
+  private static boolean includesItself(final Node node) {
+    for (final Edge edge : node.edges) {
+      if (edge.type.isInclude() && edge.to.equals(node.file)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return every file in the graph, labels first in the order given
+   */
+  public List<File> getFiles() {
+    return Collections.unmodifiableList(new ArrayList<File>(this.nodes
+        .keySet()));
+  }
+
+  public boolean contains(final File file) {
+    return find(file) != null;
+  }
+
+  /**
+   * @return pointers in the file, in the order they appear
+   */
+  public List<Edge> getEdges(final File file) {
+    final Node node = find(file);
+    return node == null ? Collections.<Edge> emptyList() : Collections
+        .unmodifiableList(node.edges);
+  }
+
+  /**
+   * @return pointers naming the file
+   */
+  public List<Edge> getReferrers(final File file) {
+    final Node node = find(file);
+    return node == null ? Collections.<Edge> emptyList() : Collections
+        .unmodifiableList(node.referrers);
+  }
+
+  /**
+   * @return files pointing to the file directly or through other files, so
+   *         those to parse or validate again once the file changes
+   */
+  public Set<File> getDependents(final File file) {
+    final Set<File> dependents = new LinkedHashSet<File>();
+    final Node start = find(file);
+    if (start == null) {
+      return dependents;
+    }
+    final Deque<Node> pending = new ArrayDeque<Node>();
+    pending.add(start);
+    while (!pending.isEmpty()) {
+      for (final Edge edge : pending.removeFirst().referrers) {
+        if (!edge.from.equals(start.file) && dependents.add(edge.from)) {
+          pending.add(this.nodes.get(edge.from));
+        }
+      }
+    }
+    return dependents;
+  }
+
+  /**
+   * @return files pointed to that don't exist
+   */
+  public List<File> getMissing() {
+    final List<File> missing = new ArrayList<File>();
+    for (final Node node : this.nodes.values()) {
+      if (!node.referrers.isEmpty() && !node.file.exists()) {
+        missing.add(node.file);
+      }
+    }
+    return missing;
+  }
+
+  /**
+   * @return groups of files that include each other, directly or through
+   *         other files, including files that include themselves
+   */
+  public List<List<File>> getCycles() {
+    return Collections.unmodifiableList(this.cycles);
+  }
+
+  /**
+   * @return every file, each after all files it includes. Files of a cycle
+   *         are next to each other in the order they were found.
+   */
+  public List<File> getTopologicalOrder() {
+    final List<File> order = new ArrayList<File>(this.nodes.size());
+    for (final List<File> component : this.components) {
+      order.addAll(component);
+    }
+    return order;
+  }
+
+  private Node find(final File file) {
+    return this.nodes.get(file.getAbsoluteFile().toPath().normalize()
+        .toFile());
+  }
+}
@@ -112,6 +112,14 @@ public class ODLLexer extends Lexer {
     		this.label = label;
     	}
 
+    	@Override
+    	public void reset() {
+    		super.reset();
+    		this.foundEND = false;
+    		this.pastEndLine = false;
+    		this.paraphrase.clear();
+    	}
+
 
     // delegates
     // delegators
@@ -126,6 +126,12 @@ public class ODLParser extends Parser {
 
   private Label label = null;
 
+  @Override
+  public void reset() {
+    super.reset();
+    this.label = null;
+  }
+
   @Override
   public void displayRecognitionError(String[] tokenNames, RecognitionException e) {
     if (label != null) {
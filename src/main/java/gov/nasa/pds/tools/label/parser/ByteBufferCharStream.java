@@ -0,0 +1,210 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// • Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// • Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// • Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.tools.label.parser;
+
+import java.nio.ByteBuffer;
+
+import org.antlr.runtime.CharStream;
+
+/**
+ * A {@link CharStream} that reads single byte characters straight out of a
+ * {@link ByteBuffer}, typically a memory mapped label. Unlike
+ * {@link org.antlr.runtime.ANTLRInputStream} nothing is decoded or copied up
+ * front so it should only be used for content known to be ASCII. Behavior
+ * otherwise mirrors {@link org.antlr.runtime.ANTLRStringStream}.
+ * 
+ * @version $Revision$
+ * 
+ */
+public class ByteBufferCharStream implements CharStream {
+
+  private final ByteBuffer data;
+
+  // offset of the first char within the buffer
+  private final int offset;
+
+  // number of chars in the stream
+  private final int n;
+
+  // index of the next char to consume
+  private int p = 0;
+
+  private int line = 1;
+
+  private int charPositionInLine = 0;
+
+  // saved p, line and charPositionInLine for each mark depth
+  private int[] markers = new int[3 * 4];
+
+  private int markDepth = 0;
+
+  private int lastMarker;
+
+  private String name;
+
+  /**
+   * @param data
+   *          buffer to read from, its position and limit are not used or
+   *          changed
+   * @param offset
+   *          absolute index of the first char within data
+   * @param length
+   *          number of chars to read from data
+   */
+  public ByteBufferCharStream(final ByteBuffer data, final int offset, final int length) {
+    this.data = data;
+    this.offset = offset;
+    this.n = length;
+  }
+
+  public void setSourceName(final String name) {
+    this.name = name;
+  }
+
+  public void consume() {
+    if (this.p < this.n) {
+      this.charPositionInLine++;
+      if (this.data.get(this.offset + this.p) == '\n') {
+        this.line++;
+        this.charPositionInLine = 0;
+      }
+      this.p++;
+    }
+  }
+
+  public int LA(int i) {
+    if (i == 0) {
+      return 0; // undefined
+    }
+    if (i < 0) {
+      i++; // e.g., translate LA(-1) to use offset i=0; then data[p+0-1]
+      if ((this.p + i - 1) < 0) {
+        return CharStream.EOF; // invalid; no char before first char
+      }
+    }
+    if ((this.p + i - 1) >= this.n) {
+      return CharStream.EOF;
+    }
+    return this.data.get(this.offset + this.p + i - 1) & 0xFF;
+  }
+
+  public int LT(int i) {
+    return LA(i);
+  }
+
+  public int index() {
+    return this.p;
+  }
+
+  public int size() {
+    return this.n;
+  }
+
+  public int mark() {
+    this.markDepth++;
+    final int slot = 3 * this.markDepth;
+    if (slot + 3 > this.markers.length) {
+      final int[] grown = new int[this.markers.length * 2];
+      System.arraycopy(this.markers, 0, grown, 0, this.markers.length);
+      this.markers = grown;
+    }
+    this.markers[slot] = this.p;
+    this.markers[slot + 1] = this.line;
+    this.markers[slot + 2] = this.charPositionInLine;
+    this.lastMarker = this.markDepth;
+    return this.markDepth;
+  }
+
+  public void rewind(int m) {
+    final int slot = 3 * m;
+    seek(this.markers[slot]);
+    this.line = this.markers[slot + 1];
+    this.charPositionInLine = this.markers[slot + 2];
+    release(m);
+  }
+
+  public void rewind() {
+    rewind(this.lastMarker);
+  }
+
+  public void release(int marker) {
+    // unwind any other markers made after m and release m
+    this.markDepth = marker;
+    // release this marker
+    this.markDepth--;
+  }
+
+  // consume() ahead until p==index; can't just set p=index as we must update
+  // line and charPositionInLine.
+  public void seek(int index) {
+    if (index <= this.p) {
+      this.p = index; // just jump; don't update stream state (line, ...)
+      return;
+    }
+    // seek forward, consume until p hits index
+    while (this.p < index) {
+      consume();
+    }
+  }
+
+  public String substring(int start, int stop) {
+    final char[] chars = new char[stop - start + 1];
+    for (int i = 0; i < chars.length; i++) {
+      chars[i] = (char) (this.data.get(this.offset + start + i) & 0xFF);
+    }
+    return new String(chars);
+  }
+
+  public int getLine() {
+    return this.line;
+  }
+
+  public int getCharPositionInLine() {
+    return this.charPositionInLine;
+  }
+
+  public void setLine(int line) {
+    this.line = line;
+  }
+
+  public void setCharPositionInLine(int pos) {
+    this.charPositionInLine = pos;
+  }
+
+  public String getSourceName() {
+    return this.name;
+  }
+
+  @Override
+  public String toString() {
+    return substring(0, this.n - 1);
+  }
+}
@@ -38,14 +38,27 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
-import org.antlr.runtime.ANTLRInputStream;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import org.antlr.runtime.ANTLRReaderStream;
+import org.antlr.runtime.ANTLRStringStream;
 import org.antlr.runtime.CharStream;
-import org.antlr.runtime.CommonTokenStream;
 import org.antlr.runtime.RecognitionException;
 import org.apache.commons.io.IOUtils;
 import org.apache.logging.log4j.Level;
@@ -58,6 +71,9 @@ import org.apache.logging.log4j.core.config.builder.api.ConfigurationBuilderFact
 import org.apache.logging.log4j.core.config.builder.impl.BuiltConfiguration;
 import gov.nasa.arc.pds.tools.util.FileUtils;
 import gov.nasa.pds.tools.LabelParserException;
+import gov.nasa.pds.tools.Problem;
+import gov.nasa.pds.tools.ProblemListener;
+import gov.nasa.pds.tools.ProblemReportWriter;
 import gov.nasa.pds.tools.constants.Constants.ProblemType;
 import gov.nasa.pds.tools.label.CommentStatement;
 import gov.nasa.pds.tools.label.Label;
@@ -65,10 +81,9 @@ import gov.nasa.pds.tools.label.MalformedSFDULabel;
 import gov.nasa.pds.tools.label.ManualPathResolver;
 import gov.nasa.pds.tools.label.PointerResolver;
 import gov.nasa.pds.tools.label.SFDULabel;
-import gov.nasa.pds.tools.label.antlr.ODLLexer;
+import gov.nasa.pds.tools.label.Value;
 import gov.nasa.pds.tools.label.antlr.ODLParser;
 import gov.nasa.pds.tools.label.validate.Validator;
-import gov.nasa.pds.tools.util.MessageUtils;
 import gov.nasa.pds.tools.util.VersionInfo;
 
 /**
@@ -92,6 +107,11 @@ public class DefaultLabelParser implements LabelParser {
 
   private final int MARK_LIMIT = 100;
 
+  // files larger than this are mapped rather than read, see read(Path)
+  private static final int MAX_READ_BYTES = 1024 * 1024;
+
+  private volatile ProblemListener problemListener;
+
   // default constructor, assumes you want to load included statements and
   // capture parse errors
   public DefaultLabelParser(final PointerResolver resolver) {
@@ -148,6 +168,7 @@ public class DefaultLabelParser implements LabelParser {
       final Label label = new Label(labelURI);
       label.setCaptureProblems(this.captureProblems);
       label.setAllowExternalProblems(this.allowExternalProblems);
+      label.setProblemListener(this.problemListener);
       return parseLabel(inputStream, label, forceParse);
     } finally {
       IOUtils.closeQuietly(inputStream);
@@ -172,15 +193,314 @@ public class DefaultLabelParser implements LabelParser {
       final Label label = new Label(file);
       label.setCaptureProblems(this.captureProblems);
       label.setAllowExternalProblems(this.allowExternalProblems);
+      label.setProblemListener(this.problemListener);
       return parseLabel(inputStream, label, forceParse);
     } finally {
       IOUtils.closeQuietly(inputStream);
     }
   }
 
+  public Label parseLabel(final Path path) throws LabelParserException, IOException {
+    return parseLabel(path, false);
+  }
+
+  /**
+   * Parse a label by buffering the file rather than streaming it, small files
+   * are read onto the heap and larger ones memory mapped. ASCII labels are lexed straight out of the buffered
+   * bytes, anything else falls back to decoding the label portion of the file
+   * as the stream path does. Files too large to buffer are streamed.
+   */
+  public Label parseLabel(final Path path, final boolean forceParse)
+      throws LabelParserException, IOException {
+    final ByteBuffer buffer = read(path);
+    if (buffer == null) {
+      return parseLabel(path.toFile(), forceParse);
+    }
+    final Label label = new Label(path.toFile());
+    label.setCaptureProblems(this.captureProblems);
+    label.setAllowExternalProblems(this.allowExternalProblems);
+    label.setProblemListener(this.problemListener);
+    final LabelEndScanner scanner = new LabelEndScanner();
+    parseLabel(openLabel(buffer, label, forceParse, scanner), label);
+    label.setAttachedStartByte(scanner.getAttachedContentStartByte());
+    label.setHasBlankFill(scanner.hasBlankFill());
+
+    // this is a label so it should end in END
+    if (!label.hasEndStatement()) {
+      label.addProblem(new CommentStatement(label, 1), "parser.error.missingEndStatement", //$NON-NLS-1$
+          ProblemType.PARSE_ERROR);
+    }
+    return label;
+  }
+
+  /**
+   * Parse labels concurrently, one task per path on the given executor. Each
+   * task has its own lexer and parser state while the resolver is shared, so
+   * it must be safe for concurrent use as the standard resolvers are. The
+   * futures are in the order of the paths and each completes as soon as its
+   * label is parsed, exceptionally with whatever {@link #parseLabel(Path)}
+   * would have thrown.
+   */
+  public List<CompletableFuture<Label>> parseAll(final Collection<Path> paths,
+      final Executor executor) {
+    final List<CompletableFuture<Label>> results =
+        new ArrayList<CompletableFuture<Label>>(paths.size());
+    for (final Path path : paths) {
+      final CompletableFuture<Label> result = new CompletableFuture<Label>();
+      try {
+        executor.execute(new Runnable() {
+          public void run() {
+            try {
+              result.complete(parseLabel(path));
+            } catch (Throwable e) {
+              result.completeExceptionally(e);
+            }
+          }
+        });
+      } catch (RejectedExecutionException e) {
+        result.completeExceptionally(e);
+      }
+      results.add(result);
+    }
+    return results;
+  }
+
+  public void parseLabel(final File file, final LabelEventHandler handler)
+      throws LabelParserException, IOException {
+    parseLabel(file.toPath(), handler, false);
+  }
+
+  public void parseLabel(final Path path, final LabelEventHandler handler)
+      throws LabelParserException, IOException {
+    parseLabel(path, handler, false);
+  }
+
+  /**
+   * Parse a label without building a {@link Label}, passing statements and
+   * problems to the handler as they are found. Include pointers are reported
+   * as pointers but the referenced files are not parsed.
+   */
+  public void parseLabel(final Path path, final LabelEventHandler handler,
+      final boolean forceParse) throws LabelParserException, IOException {
+    final EventLabel label = new EventLabel(path.toFile(), handler);
+    label.setCaptureProblems(this.captureProblems);
+    final CharStream antlrInput = openLabel(path, label, forceParse);
+    final ODLEventParser parser = new ODLEventParser(new ODLTokenizer(antlrInput, label), label,
+        handler);
+    parser.label();
+
+    // this is a label so it should end in END
+    if (!parser.hasEndStatement()) {
+      label.addProblem(new CommentStatement(label, 1), "parser.error.missingEndStatement", //$NON-NLS-1$
+          ProblemType.PARSE_ERROR);
+    }
+  }
+
+  public Map<String, Value> parseKeywords(final File file, final Collection<String> keywords)
+      throws LabelParserException, IOException {
+    return parseKeywords(file.toPath(), keywords);
+  }
+
+  /**
+   * Read the values of a few keywords from a label. Keywords are paths of
+   * object and group names separated by dots, such as <code>IMAGE.LINES</code>,
+   * with pointers written as <code>^IMAGE</code>. Other statements are passed
+   * over without building their values, parsing stops once every keyword has
+   * been seen and neither includes nor problems are processed.
+   *
+   * @return the value of each keyword found, keyed by path in label order
+   */
+  public Map<String, Value> parseKeywords(final Path path, final Collection<String> keywords)
+      throws LabelParserException, IOException {
+    final KeywordProjection projection = new KeywordProjection(keywords);
+    if (projection.isComplete()) {
+      return projection.getValues();
+    }
+    final EventLabel label = new EventLabel(path.toFile(), projection);
+    label.setCaptureProblems(false);
+    final CharStream antlrInput = openLabel(path, label, false);
+    new ODLEventParser(new ODLTokenizer(antlrInput, label), label, projection).label();
+    return projection.getValues();
+  }
+
+  /**
+   * Sets the listener that labels parsed from here on send their problems to,
+   * see {@link Label#setProblemListener(ProblemListener)}. Problems found
+   * when validating such a label go to the same listener.
+   * 
+   * @param problemListener
+   *          listener for problems, null to keep problems in each label
+   */
+  public void setProblemListener(final ProblemListener problemListener) {
+    this.problemListener = problemListener;
+  }
+
+  public ProblemListener getProblemListener() {
+    return this.problemListener;
+  }
+
+  /**
+   * @return the resolver for include pointers, null if includes are not
+   *         loaded
+   */
+  protected PointerResolver getIncludeResolver() {
+    return this.loadIncludes ? this.resolver : null;
+  }
+
+  /**
+   * @return the settings that change the labels produced, so that labels
+   *         cached by one configuration are not served to another
+   */
+  String getOptions() {
+    return getClass().getName() + " loadIncludes=" + this.loadIncludes //$NON-NLS-1$
+        + " captureProblems=" + this.captureProblems //$NON-NLS-1$
+        + " allowExternalProblems=" + this.allowExternalProblems; //$NON-NLS-1$
+  }
+
+  /*
+   * Returns the contents of the file, or null if it is too large for a buffer
+   * and has to be streamed. Files up to MAX_READ_BYTES are read onto the heap.
+   * Larger ones, usually labels attached to their data, are mapped so only the
+   * label portion is paged in. A mapping is only released once it is garbage
+   * collected and until then Windows will not delete or replace the file.
+   */
+  private ByteBuffer read(final Path path) throws LabelParserException, IOException {
+    final File file = path.toFile();
+    FileChannel channel = null;
+    try {
+      try {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+      } catch (IOException e) {
+        if (file.exists()) {
+          throw new LabelParserException(file, null, null, "parser.error.unableToRead", //$NON-NLS-1$
+              ProblemType.INVALID_LABEL, file.toString());
+        }
+        throw new LabelParserException(file, null, null, "parser.error.missingFile", //$NON-NLS-1$
+            ProblemType.INVALID_LABEL, file.getName());
+      }
+      final long size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        return null;
+      }
+      if (size > MAX_READ_BYTES) {
+        // the mapping stays valid after the channel is closed
+        return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      }
+      final ByteBuffer buffer = ByteBuffer.allocate((int) size);
+      while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+        // read until full, the file may have shrunk
+      }
+      buffer.flip();
+      return buffer;
+    } finally {
+      IOUtils.closeQuietly(channel);
+    }
+  }
+
+  // checks the version line and returns a stream over the label portion of the file
+  private CharStream openLabel(final Path path, final Label label, final boolean forceParse)
+      throws LabelParserException, IOException {
+    final ByteBuffer buffer = read(path);
+    if (buffer != null) {
+      return openLabel(buffer, label, forceParse, new LabelEndScanner());
+    }
+    final BufferedInputStream inputStream = new BufferedInputStream(Files.newInputStream(path));
+    try {
+      inputStream.mark(MARK_LIMIT);
+      checkVersion(inputStream, label, forceParse);
+      return new ANTLRReaderStream(new InputStreamReader(new CustomAntlrInputStream(inputStream)));
+    } finally {
+      IOUtils.closeQuietly(inputStream);
+    }
+  }
+
+  // checks the version line and returns a stream over the label portion of the buffer
+  private CharStream openLabel(final ByteBuffer buffer, final Label label,
+      final boolean forceParse, final LabelEndScanner scanner) throws LabelParserException {
+    final int start = consumeSFDUHeader(buffer);
+    final int limit = buffer.limit();
+
+    // same line semantics as BufferedReader.readLine()
+    String versionLine = null;
+    boolean hasExtraNewLines = false;
+    int pos = start;
+    while (pos < limit) {
+      int eol = pos;
+      while (eol < limit && buffer.get(eol) != '\n' && buffer.get(eol) != '\r') {
+        eol++;
+      }
+      final String line = substring(buffer, pos, eol);
+      pos = eol + 1;
+      if (eol < limit && buffer.get(eol) == '\r' && pos < limit && buffer.get(pos) == '\n') {
+        pos++;
+      }
+      if (line.trim().length() != 0) {
+        versionLine = line;
+        break;
+      }
+      hasExtraNewLines = true;
+    }
+    checkVersion(label, versionLine, hasExtraNewLines, forceParse);
+
+    // find the end of the label the same way CustomAntlrInputStream does
+    final ByteBuffer chunks = buffer.duplicate();
+    chunks.position(start);
+    final ParseContext context = ParseContext.acquire();
+    final byte[] chunk = context.getChunk();
+    int length = 0;
+    int highBits = 0;
+    try {
+      while (!scanner.isFinished()) {
+        if (!chunks.hasRemaining()) {
+          scanner.endOfStream();
+          break;
+        }
+        final int count = Math.min(chunk.length, chunks.remaining());
+        chunks.get(chunk, 0, count);
+        final int used = scanner.scan(chunk, 0, count);
+        for (int i = 0; i < used; i++) {
+          highBits |= chunk[i];
+        }
+        length += used;
+      }
+    } finally {
+      context.release();
+    }
+
+    if ((highBits & 0x80) == 0) {
+      return new ByteBufferCharStream(buffer, start, length);
+    }
+    // not plain ASCII, decode with the platform charset like the stream path
+    final ByteBuffer content = buffer.duplicate();
+    content.limit(start + length).position(start);
+    final CharBuffer chars = Charset.defaultCharset().decode(content);
+    return new ANTLRStringStream(chars.array(), chars.limit());
+  }
+
+  private static String substring(final ByteBuffer buffer, final int start, final int end) {
+    final char[] chars = new char[end - start];
+    for (int i = 0; i < chars.length; i++) {
+      chars[i] = (char) (buffer.get(start + i) & 0xFF);
+    }
+    return new String(chars);
+  }
+
   private Label parseLabel(final BufferedInputStream inputStream, final Label label,
       final boolean forceParse) throws LabelParserException, IOException {
+    checkVersion(inputStream, label, forceParse);
+    parseLabel(inputStream, label);
 
+    // this is a label so it should end in END
+    if (!label.hasEndStatement()) {
+      label.addProblem(new CommentStatement(label, 1), "parser.error.missingEndStatement", //$NON-NLS-1$
+          ProblemType.PARSE_ERROR);
+    }
+    return label;
+  }
+
+  // checks the version line, leaving the stream at the start of the label
+  private void checkVersion(final BufferedInputStream inputStream, final Label label,
+      final boolean forceParse) throws LabelParserException, IOException {
     consumeSFDUHeader(inputStream);
 
     // Now look for PDS_VERSION_ID to ensure that this is a file we want to
@@ -201,6 +521,13 @@ public class DefaultLabelParser implements LabelParser {
       }
     } while (versionLine != null && versionLine.trim().length() == 0);
 
+    checkVersion(label, versionLine, hasExtraNewLines, forceParse);
+
+    inputStream.reset();
+  }
+
+  private void checkVersion(final Label label, final String versionLine,
+      final boolean hasExtraNewLines, final boolean forceParse) throws LabelParserException {
     if (hasExtraNewLines) {
       label.addProblem(new CommentStatement(label, 1), "parser.error.mislocatedVersion", //$NON-NLS-1$
           ProblemType.PARSE_ERROR);
@@ -235,44 +562,15 @@ public class DefaultLabelParser implements LabelParser {
         label.addProblem(lpe);
       }
     }
-
-    inputStream.reset();
-
-    parseLabel(inputStream, label);
-
-    // this is a label so it should end in END
-    if (!label.hasEndStatement()) {
-      label.addProblem(new CommentStatement(label, 1), "parser.error.missingEndStatement", //$NON-NLS-1$
-          ProblemType.PARSE_ERROR);
-    }
-    return label;
   }
 
   private Label parseLabel(final BufferedInputStream inputStream, final Label label)
       throws LabelParserException, IOException {
+    final ParseContext context = ParseContext.acquire();
     CustomAntlrInputStream customIs = null;
     try {
       customIs = new CustomAntlrInputStream(inputStream);
-      CharStream antlrInput = new ANTLRInputStream(customIs);
-
-      ODLLexer lexer = new ODLLexer(antlrInput);
-      lexer.setLabel(label);
-      CommonTokenStream tokens = new CommonTokenStream(lexer);
-      ODLParser parser = new ODLParser(tokens);
-
-      parser.setLoadIncludes(this.loadIncludes);
-
-      if (this.loadIncludes) {
-        parser.setPointerResolver(this.resolver);
-      }
-
-      try {
-        parser.label(label);
-      } catch (RecognitionException ex) {
-        label.setInvalid();
-        throw new LabelParserException(ex, ex.line, ex.charPositionInLine,
-            ProblemType.INVALID_LABEL);
-      }
+      parseLabel(context.load(new InputStreamReader(customIs)), label);
       label.setAttachedStartByte(customIs.getAttachedContentStartByte());
       label.setHasBlankFill(customIs.hasBlankFill());
 
@@ -280,6 +578,29 @@ public class DefaultLabelParser implements LabelParser {
     } finally {
       IOUtils.closeQuietly(inputStream);
       IOUtils.closeQuietly(customIs);
+      context.release();
+    }
+  }
+
+  /**
+   * Parse the statements of a label once the version line has been checked.
+   * Subclasses may replace the grammar used, the stream ends after the END
+   * statement or at the start of any attached content.
+   */
+  protected void parseLabel(final CharStream antlrInput, final Label label)
+      throws LabelParserException {
+    final ParseContext context = ParseContext.acquire();
+    try {
+      final ODLParser parser = context.parser(antlrInput, label);
+      parser.setLoadIncludes(this.loadIncludes);
+      parser.setPointerResolver(getIncludeResolver());
+      parser.label(label);
+    } catch (RecognitionException ex) {
+      label.setInvalid();
+      throw new LabelParserException(ex, ex.line, ex.charPositionInLine,
+          ProblemType.INVALID_LABEL);
+    } finally {
+      context.release();
     }
   }
 
@@ -314,6 +635,37 @@ public class DefaultLabelParser implements LabelParser {
     return sfdus;
   }
 
+  // returns the offset of the first byte following any SFDU header
+  private int consumeSFDUHeader(final ByteBuffer buffer) {
+    final int limit = buffer.limit();
+    if (limit < 40) {
+      return 0;
+    }
+    final byte[] sfduLabel = new byte[20];
+    try {
+      buffer.duplicate().get(sfduLabel);
+      SFDULabel sfdu = new SFDULabel(sfduLabel);
+      if (!"CCSD".equals(sfdu.getControlAuthorityId())) { //$NON-NLS-1$
+        return 0;
+      }
+      final ByteBuffer second = buffer.duplicate();
+      second.position(20);
+      second.get(sfduLabel);
+      new SFDULabel(sfduLabel);
+    } catch (MalformedSFDULabel e) {
+      return 0;
+    }
+    // consume up to 2 newline type characters to conform to the PDS newline
+    int pos = 40;
+    for (int i = 0; i < 2 && pos < limit; i++) {
+      final byte b = buffer.get(pos);
+      if (b == '\n' || b == '\r') {
+        pos++;
+      }
+    }
+    return pos;
+  }
+
   // consume up to 2 newline type characters to conform to the PDS newline
   // NOTE: will consume CR || LF || CRLF || LFCR... etc
   private void consumePDSNewline(final InputStream input) throws IOException {
@@ -456,7 +808,7 @@ public class DefaultLabelParser implements LabelParser {
       // Label fragments should not have PDS_VERSION_ID
       if ("PDS_VERSION_ID".equals(name)) { //$NON-NLS-1$
         label
-            .addProblem(new LabelParserException(label, null, null, "parser.warning.versionPresent", //$NON-NLS-1$
+            .addProblem(new Problem(label, null, null, "parser.warning.versionPresent", //$NON-NLS-1$
                 ProblemType.FRAGMENT_HAS_VERSION, getDisplayPath(label)));
       }
     }
@@ -466,7 +818,7 @@ public class DefaultLabelParser implements LabelParser {
     if (numConsumed != 0) {
       // TODO: when pds utils library updated, use getRelativePath(String,
       // String)
-      label.addProblem(new LabelParserException(label, null, null, "parser.warning.sfduPresent", //$NON-NLS-1$
+      label.addProblem(new Problem(label, null, null, "parser.warning.sfduPresent", //$NON-NLS-1$
           ProblemType.FRAGMENT_HAS_SFDU, getDisplayPath(label)));
     }
 
@@ -520,20 +872,14 @@ public class DefaultLabelParser implements LabelParser {
     URL labelURL = new URL(args[0]);
     resolver.setBaseURI(ManualPathResolver.getBaseURI(labelURL.toURI()));
     DefaultLabelParser parser = new DefaultLabelParser(true, true, true, resolver);
+    // print problems as they are found rather than holding them to the end
+    ProblemReportWriter report = new ProblemReportWriter(new OutputStreamWriter(System.out), false);
+    parser.setProblemListener(report);
     Label label = parser.parseLabel(labelURL, true);
     Validator validator = new Validator();
     validator.validate(label);
-    System.out.println("Found " + label.getProblems().size() //$NON-NLS-1$
-        + " problem(s):"); //$NON-NLS-1$
-    for (LabelParserException problem : label.getProblems()) {
-      if (problem.getLineNumber() != null) {
-        System.out.print("Line " + problem.getLineNumber()); //$NON-NLS-1$
-        if (problem.getColumn() != null) {
-          System.out.print(", " + problem.getColumn()); //$NON-NLS-1$
-        }
-        System.out.print(": "); //$NON-NLS-1$
-      }
-      System.out.println(MessageUtils.getProblemMessage(problem));
-    }
+    report.flush();
+    System.out.println("Found " + report.getCount() //$NON-NLS-1$
+        + " problem(s)"); //$NON-NLS-1$
   }
 }
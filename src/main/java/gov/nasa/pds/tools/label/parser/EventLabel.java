@@ -0,0 +1,88 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// • Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// • Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// • Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.tools.label.parser;
+
+import gov.nasa.pds.tools.LabelParserException;
+import gov.nasa.pds.tools.constants.Constants.ProblemType;
+import gov.nasa.pds.tools.label.Label;
+import gov.nasa.pds.tools.label.Statement;
+
+import java.io.File;
+import java.net.URI;
+
+/**
+ * Label used as the parse context when streaming events. Problems are passed
+ * on to the {@link LabelEventHandler} instead of being collected and nothing
+ * else is retained.
+ * 
+ * @version $Revision$
+ * 
+ */
+class EventLabel extends Label {
+
+  private final LabelEventHandler handler;
+
+  public EventLabel(final File labelFile, final LabelEventHandler handler) {
+    super(labelFile);
+    this.handler = handler;
+  }
+
+  @Override
+  public void addProblem(final URI sourceURI, final int lineNumber,
+      final Integer column, final String key, final ProblemType type,
+      final Object... arguments) {
+    if (getCaptureProblems()) {
+      this.handler.problem(lineNumber, column, key, type, arguments);
+    }
+  }
+
+  @Override
+  public void addProblem(final Statement statement, final Integer column,
+      final String key, final ProblemType type, final Object... arguments) {
+    if (getCaptureProblems()) {
+      this.handler.problem(statement.getLineNumber(), column, key, type,
+          arguments);
+    }
+  }
+
+  @Override
+  public void addProblem(final LabelParserException e) {
+    if (getCaptureProblems()) {
+      this.handler.problem(e.getLineNumber(), e.getColumn(), e.getKey(),
+          e.getType(), e.getArguments());
+    }
+  }
+
+  @Override
+  public void addLineLength(final int line, final int length) {
+    // line lengths are only kept for label trees
+  }
+}
@@ -0,0 +1,153 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// • Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// • Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// • Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+
+package gov.nasa.pds.tools.label.parser;
+
+import gov.nasa.pds.tools.label.Value;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.antlr.runtime.Token;
+
+/**
+ * Collects the values of a fixed set of keywords during an event parse.
+ * Keywords are given as paths of object and group names separated by dots,
+ * such as <code>IMAGE.LINES</code>, with pointers written as
+ * <code>^IMAGE</code>. The first occurrence of each path is kept.
+ * 
+ * @version $Revision$
+ * 
+ */
+class KeywordProjection extends LabelEventAdapter {
+
+  private final Map<String, Value> values = new LinkedHashMap<String, Value>();
+
+  // paths not seen yet
+  private final Set<String> pending;
+
+  // last element of every path, checked before building the full path
+  private final Set<String> names = new HashSet<String>();
+
+  private final List<String> prefixes = new ArrayList<String>();
+
+  private String prefix = ""; //$NON-NLS-1$
+
+  public KeywordProjection(final Collection<String> keywords) {
+    this.pending = new HashSet<String>(keywords);
+    for (final String keyword : keywords) {
+      final String name = keyword.substring(keyword.lastIndexOf('.') + 1);
+      this.names.add(name.startsWith("^") ? name.substring(1) : name); //$NON-NLS-1$
+    }
+  }
+
+  /**
+   * @return true if the value of the identifier at the current position is
+   *         still needed
+   */
+  public boolean wants(final boolean pointer, final String identifier) {
+    return this.names.contains(identifier)
+        && this.pending.contains(path(pointer, identifier));
+  }
+
+  /**
+   * @return true once every keyword has been seen
+   */
+  public boolean isComplete() {
+    return this.pending.isEmpty();
+  }
+
+  /**
+   * @return values found, by keyword path, in the order they appeared
+   */
+  public Map<String, Value> getValues() {
+    return Collections.unmodifiableMap(this.values);
+  }
+
+  @Override
+  public void startObject(final int line, final String identifier,
+      final Token comment) {
+    push(identifier);
+  }
+
+  @Override
+  public void endObject(final String identifier, final Token comment) {
+    pop();
+  }
+
+  @Override
+  public void startGroup(final int line, final String identifier,
+      final Token comment) {
+    push(identifier);
+  }
+
+  @Override
+  public void endGroup(final String identifier, final Token comment) {
+    pop();
+  }
+
+  @Override
+  public void attribute(final int line, final String identifier,
+      final Value value, final Token comment) {
+    add(path(false, identifier), value);
+  }
+
+  @Override
+  public void pointer(final int line, final String identifier,
+      final Value value, final Token comment) {
+    add(path(true, identifier), value);
+  }
+
+  private void add(final String path, final Value value) {
+    if (this.pending.remove(path)) {
+      this.values.put(path, value);
+    }
+  }
+
+  private String path(final boolean pointer, final String identifier) {
+    return pointer ? this.prefix + '^' + identifier : this.prefix + identifier;
+  }
+
+  private void push(final String identifier) {
+    this.prefixes.add(this.prefix);
+    this.prefix = this.prefix + identifier + '.';
+  }
+
+  private void pop() {
+    this.prefix = this.prefixes.remove(this.prefixes.size() - 1);
+  }
+}
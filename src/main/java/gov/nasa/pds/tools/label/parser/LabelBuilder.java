@@ -0,0 +1,154 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// • Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// • Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// • Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+
+package gov.nasa.pds.tools.label.parser;
+
+import gov.nasa.pds.tools.LabelParserException;
+import gov.nasa.pds.tools.constants.Constants.ProblemType;
+import gov.nasa.pds.tools.label.AttributeStatement;
+import gov.nasa.pds.tools.label.CommentStatement;
+import gov.nasa.pds.tools.label.GroupStatement;
+import gov.nasa.pds.tools.label.IncludePointer;
+import gov.nasa.pds.tools.label.Label;
+import gov.nasa.pds.tools.label.ObjectStatement;
+import gov.nasa.pds.tools.label.PointerResolver;
+import gov.nasa.pds.tools.label.PointerStatement;
+import gov.nasa.pds.tools.label.PointerStatementFactory;
+import gov.nasa.pds.tools.label.Statement;
+import gov.nasa.pds.tools.label.Value;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.antlr.runtime.Token;
+
+/**
+ * Builds the statements of a {@link Label} from parse events, the same way
+ * the actions in ODL.g do.
+ * 
+ * @version $Revision$
+ * 
+ */
+class LabelBuilder implements LabelEventHandler {
+
+  private final Label label;
+
+  private final PointerResolver resolver;
+
+  // open objects and groups, innermost last
+  private final List<Statement> blocks = new ArrayList<Statement>();
+
+  /**
+   * @param resolver
+   *          used to load the statements of include pointers, null to leave
+   *          them unloaded
+   */
+  public LabelBuilder(final Label label, final PointerResolver resolver) {
+    this.label = label;
+    this.resolver = resolver;
+  }
+
+  public void startObject(final int line, final String identifier,
+      final Token comment) {
+    final ObjectStatement object = new ObjectStatement(this.label, line,
+        identifier);
+    object.attachComment(comment);
+    this.blocks.add(object);
+  }
+
+  public void endObject(final String identifier, final Token comment) {
+    final Statement object = this.blocks.remove(this.blocks.size() - 1);
+    object.attachComment(comment);
+    add(object);
+  }
+
+  public void startGroup(final int line, final String identifier,
+      final Token comment) {
+    final GroupStatement group = new GroupStatement(this.label, line,
+        identifier);
+    group.attachComment(comment);
+    this.blocks.add(group);
+  }
+
+  public void endGroup(final String identifier, final Token comment) {
+    // comments on END_GROUP are dropped
+    add(this.blocks.remove(this.blocks.size() - 1));
+  }
+
+  public void attribute(final int line, final String identifier,
+      final Value value, final Token comment) {
+    final AttributeStatement attribute = new AttributeStatement(this.label,
+        line, identifier, value);
+    attribute.attachComment(comment);
+    add(attribute);
+  }
+
+  public void pointer(final int line, final String identifier,
+      final Value value, final Token comment) {
+    final PointerStatement pointer = PointerStatementFactory.newInstance(
+        this.label, line, identifier, value);
+    if (this.resolver != null && pointer instanceof IncludePointer) {
+      try {
+        // problems in the included file belong to that file
+        ((IncludePointer) pointer).loadReferencedStatements(this.label,
+            this.resolver);
+      } catch (LabelParserException e) {
+        // ignored as in ODL.g
+      } catch (IOException e) {
+        // missing files are tested elsewhere
+      }
+    }
+    add(pointer);
+  }
+
+  public void comment(final Token comment) {
+    add(new CommentStatement(this.label, comment, null));
+  }
+
+  public void problem(final Integer line, final Integer column,
+      final String key, final ProblemType type, final Object... arguments) {
+    // the parser adds problems to the label directly
+  }
+
+  private void add(final Statement statement) {
+    if (this.blocks.isEmpty()) {
+      this.label.addStatement(statement);
+      return;
+    }
+    final Statement block = this.blocks.get(this.blocks.size() - 1);
+    if (block instanceof ObjectStatement) {
+      ((ObjectStatement) block).addStatement(statement);
+    } else {
+      ((GroupStatement) block).addStatement(statement);
+    }
+  }
+}
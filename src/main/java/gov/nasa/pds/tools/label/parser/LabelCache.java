@@ -0,0 +1,442 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.tools.label.parser;
+
+import gov.nasa.pds.tools.LabelParserException;
+import gov.nasa.pds.tools.ProblemListener;
+import gov.nasa.pds.tools.label.GroupStatement;
+import gov.nasa.pds.tools.label.IncludePointer;
+import gov.nasa.pds.tools.label.Label;
+import gov.nasa.pds.tools.label.LabelCodec;
+import gov.nasa.pds.tools.label.ObjectStatement;
+import gov.nasa.pds.tools.label.PointerResolver;
+import gov.nasa.pds.tools.label.Statement;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Cache of parsed labels kept on disk in front of a {@link DefaultLabelParser}
+ * so that unchanged labels are not parsed again by later runs. Each entry
+ * records the size and modification time, and optionally a checksum of the
+ * contents, of the label and of every file its include pointers resolve to.
+ * An entry is only used while all of those still match, so editing a format
+ * file invalidates each label that includes it. Once the entries exceed the
+ * size budget the least recently used are removed.
+ * 
+ * @version $Revision$
+ * 
+ */
+public class LabelCache {
+
+  // "LBLC"
+  private static final int MAGIC = 0x4C424C43;
+
+  private static final int VERSION = 1;
+
+  private static final String SUFFIX = ".lbc"; //$NON-NLS-1$
+
+  private final DefaultLabelParser parser;
+
+  private final File directory;
+
+  private final long maxBytes;
+
+  private final boolean checksumContents;
+
+  private final AtomicLong hits = new AtomicLong();
+
+  private final AtomicLong misses = new AtomicLong();
+
+  // total size of the entries, guarded by this
+  private long size;
+
+  public LabelCache(final DefaultLabelParser parser, final File directory,
+      final long maxBytes) throws IOException {
+    this(parser, directory, maxBytes, false);
+  }
+
+  /**
+   * @param checksumContents
+   *          whether to also compare a checksum of each file, for trees where
+   *          contents may change without the modification time changing
+   */
+  public LabelCache(final DefaultLabelParser parser, final File directory,
+      final long maxBytes, final boolean checksumContents) throws IOException {
+    this.parser = parser;
+    this.directory = directory;
+    this.maxBytes = maxBytes;
+    this.checksumContents = checksumContents;
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IOException("Unable to create cache directory " + directory); //$NON-NLS-1$
+    }
+    for (final File entry : entries()) {
+      this.size += entry.length();
+    }
+  }
+
+  /**
+   * Return the label from the cache if neither it nor any file it includes
+   * has changed, otherwise parse it and store the result. Labels are parsed
+   * and stored by their absolute path. If the parser sends problems to a
+   * {@link ProblemListener}, problems of cached labels are sent there too but
+   * newly parsed labels are not stored.
+   */
+  public Label parseLabel(final Path path) throws LabelParserException,
+      IOException {
+    final Path file = path.toAbsolutePath().normalize();
+    final File entry = new File(this.directory, entryName(file));
+    final Label cached = read(entry, file);
+    final ProblemListener listener = this.parser.getProblemListener();
+    if (cached != null) {
+      this.hits.incrementAndGet();
+      entry.setLastModified(System.currentTimeMillis());
+      cached.setProblemListener(listener);
+      return cached;
+    }
+    this.misses.incrementAndGet();
+    // stamped before parsing so an edit during the parse leaves the entry
+    // stale instead of storing the old result as current
+    final FileState labelState = state(file);
+    final Label label = this.parser.parseLabel(file);
+    // problems sent to a listener are not in the label to be stored
+    if (listener == null) {
+      write(entry, file, labelState, label);
+    }
+    return label;
+  }
+
+  public long getHits() {
+    return this.hits.get();
+  }
+
+  public long getMisses() {
+    return this.misses.get();
+  }
+
+  /**
+   * @return total size in bytes of the entries currently stored
+   */
+  public synchronized long getSize() {
+    return this.size;
+  }
+
+  private Label read(final File entry, final Path file) throws IOException {
+    if (!entry.isFile()) {
+      return null;
+    }
+    DataInputStream in = null;
+    try {
+      in = new DataInputStream(new BufferedInputStream(new FileInputStream(
+          entry)));
+      if (in.readInt() != MAGIC || in.readInt() != VERSION
+          || in.readInt() != LabelCodec.VERSION
+          || !in.readUTF().equals(this.parser.getOptions())
+          || !in.readUTF().equals(file.toString())) {
+        return null;
+      }
+      for (int i = in.readInt(); i > 0; i--) {
+        final FileState recorded = new FileState(in);
+        if (!recorded.equals(state(recorded.path))) {
+          return null;
+        }
+      }
+      return LabelCodec.decode(in);
+    } catch (IOException e) {
+      // unreadable or truncated, it will be replaced
+      return null;
+    } finally {
+      IOUtils.closeQuietly(in);
+    }
+  }
+
+  private void write(final File entry, final Path file,
+      final FileState labelState, final Label label) throws IOException {
+    final File temp = File.createTempFile("entry", ".tmp", this.directory); //$NON-NLS-1$ //$NON-NLS-2$
+    DataOutputStream out = null;
+    try {
+      out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(
+          temp)));
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(LabelCodec.VERSION);
+      out.writeUTF(this.parser.getOptions());
+      out.writeUTF(file.toString());
+      // includes are only known once parsed, so they are stamped now and
+      // checked again once the entry is in place
+      final List<FileState> states = new ArrayList<FileState>();
+      states.add(labelState);
+      for (final Path dependency : dependencies(file, label)) {
+        if (!dependency.equals(file)) {
+          states.add(state(dependency));
+        }
+      }
+      out.writeInt(states.size());
+      for (final FileState state : states) {
+        state.write(out);
+      }
+      LabelCodec.encode(label, out);
+      out.close();
+      synchronized (this) {
+        final long replaced = entry.length();
+        Files.move(temp.toPath(), entry.toPath(),
+            StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+        this.size += entry.length() - replaced;
+        if (!isCurrent(states)) {
+          final long length = entry.length();
+          if (entry.delete()) {
+            this.size -= length;
+          }
+          return;
+        }
+        evict(entry);
+      }
+    } finally {
+      IOUtils.closeQuietly(out);
+      temp.delete();
+    }
+  }
+
+  // least recently used first, never the entry just written
+  private void evict(final File keep) {
+    if (this.size <= this.maxBytes) {
+      return;
+    }
+    final List<File> entries = entries();
+    // read once so the order cannot change while sorting
+    final Map<File, Long> lastUsed = new IdentityHashMap<File, Long>();
+    for (final File entry : entries) {
+      lastUsed.put(entry, Long.valueOf(entry.lastModified()));
+    }
+    Collections.sort(entries, new Comparator<File>() {
+      public int compare(final File a, final File b) {
+        return lastUsed.get(a).compareTo(lastUsed.get(b));
+      }
+    });
+    for (final File entry : entries) {
+      if (this.size <= this.maxBytes) {
+        break;
+      }
+      if (entry.equals(keep)) {
+        continue;
+      }
+      final long length = entry.length();
+      if (entry.delete()) {
+        this.size -= length;
+      }
+    }
+  }
+
+  private List<File> entries() {
+    final File[] files = this.directory.listFiles();
+    final List<File> entries = new ArrayList<File>();
+    if (files != null) {
+      for (final File file : files) {
+        if (file.getName().endsWith(SUFFIX)) {
+          entries.add(file);
+        }
+      }
+    }
+    return entries;
+  }
+
+  // the label and every file its include pointers resolve to, including ones
+  // that are missing now so that adding them invalidates the entry
+  private List<Path> dependencies(final Path file, final Label label) {
+    final Set<Path> dependencies = new LinkedHashSet<Path>();
+    dependencies.add(file);
+    final PointerResolver resolver = this.parser.getIncludeResolver();
+    if (resolver != null) {
+      final Map<Statement, Boolean> seen = new IdentityHashMap<Statement, Boolean>();
+      addIncludes(label.getStatements(), resolver, dependencies, seen);
+    }
+    return new ArrayList<Path>(dependencies);
+  }
+
+  private void addIncludes(final List<Statement> statements,
+      final PointerResolver resolver, final Set<Path> dependencies,
+      final Map<Statement, Boolean> seen) {
+    for (final Statement statement : statements) {
+      if (seen.put(statement, Boolean.TRUE) != null) {
+        continue;
+      }
+      if (statement instanceof IncludePointer) {
+        final IncludePointer pointer = (IncludePointer) statement;
+        if (pointer.getSourceFile() != null) {
+          for (final File included : resolver.resolveFiles(pointer)) {
+            dependencies.add(included.toPath().toAbsolutePath().normalize());
+          }
+        }
+        addIncludes(pointer.getStatements(), resolver, dependencies, seen);
+      } else if (statement instanceof ObjectStatement) {
+        addIncludes(((ObjectStatement) statement).getStatements(), resolver,
+            dependencies, seen);
+      } else if (statement instanceof GroupStatement) {
+        addIncludes(((GroupStatement) statement).getStatements(), resolver,
+            dependencies, seen);
+      }
+    }
+  }
+
+  private boolean isCurrent(final List<FileState> states) throws IOException {
+    for (final FileState state : states) {
+      if (!state.equals(state(state.path))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private FileState state(final String path) throws IOException {
+    return state(new File(path).toPath());
+  }
+
+  private FileState state(final Path path) throws IOException {
+    try {
+      final BasicFileAttributes attributes = Files.readAttributes(path,
+          BasicFileAttributes.class);
+      long checksum = 0;
+      if (this.checksumContents) {
+        checksum = checksum(path);
+      }
+      return new FileState(path.toString(), attributes.size(), attributes
+          .lastModifiedTime().toMillis(), checksum);
+    } catch (NoSuchFileException e) {
+      return new FileState(path.toString(), -1, 0, 0);
+    }
+  }
+
+  private static long checksum(final Path path) throws IOException {
+    final CRC32 crc = new CRC32();
+    final byte[] buffer = new byte[8192];
+    final InputStream in = Files.newInputStream(path);
+    try {
+      int count;
+      while ((count = in.read(buffer)) != -1) {
+        crc.update(buffer, 0, count);
+      }
+    } finally {
+      in.close();
+    }
+    return crc.getValue();
+  }
+
+  private static String entryName(final Path file) {
+    try {
+      final byte[] digest = MessageDigest.getInstance("SHA-1").digest( //$NON-NLS-1$
+          file.toString().getBytes(StandardCharsets.UTF_8));
+      final StringBuilder name = new StringBuilder();
+      for (final byte b : digest) {
+        name.append(Character.forDigit((b >> 4) & 0xF, 16)).append(
+            Character.forDigit(b & 0xF, 16));
+      }
+      return name.append(SUFFIX).toString();
+    } catch (NoSuchAlgorithmException e) {
+      // every Java platform is required to support SHA-1
+      throw new RuntimeException(e);
+    }
+  }
+
+  // size is -1 for a missing file
+  private static class FileState {
+    final String path;
+
+    final long length;
+
+    final long modified;
+
+    final long checksum;
+
+    FileState(final String path, final long length, final long modified,
+        final long checksum) {
+      this.path = path;
+      this.length = length;
+      this.modified = modified;
+      this.checksum = checksum;
+    }
+
+    FileState(final DataInputStream in) throws IOException {
+      this(in.readUTF(), in.readLong(), in.readLong(), in.readLong());
+    }
+
+    void write(final DataOutputStream out) throws IOException {
+      out.writeUTF(this.path);
+      out.writeLong(this.length);
+      out.writeLong(this.modified);
+      out.writeLong(this.checksum);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if (!(o instanceof FileState)) {
+        return false;
+      }
+      final FileState that = (FileState) o;
+      return this.path.equals(that.path) && this.length == that.length
+          && this.modified == that.modified && this.checksum == that.checksum;
+    }
+
+    @Override
+    public int hashCode() {
+      return Arrays.hashCode(new long[] {this.length, this.modified,
+          this.checksum});
+    }
+  }
+}
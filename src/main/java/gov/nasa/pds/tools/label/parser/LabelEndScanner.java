@@ -0,0 +1,229 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// • Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// • Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// • Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.tools.label.parser;
+
+/**
+ * Tracks quotes, comments and the END statement over the bytes of a label in
+ * order to find where the label stops and attached content, if any, begins.
+ * Bytes are handed over in blocks so that runs of bytes that cannot change the
+ * state (quoted text, comment bodies, ordinary label text) are skipped without
+ * per byte bookkeeping.
+ * 
+ * Positions are 1 based counts of bytes consumed from the start of the scan.
+ * 
+ * @version $Revision$
+ * 
+ */
+final class LabelEndScanner {
+
+  enum State {
+    NORMAL, // in the label
+    IN_SINGLE_QUOTES, // in single quotes, ignore END until closed
+    IN_DOUBLE_QUOTES, // in double quotes, ignore END until closed
+    IN_COMMENTS, // in comments, ignore END until closed
+    FOUND_END, // found END, only whitespace valid now
+  }
+
+  // Character.isWhitespace() for every byte value
+  private static final boolean[] WHITESPACE = new boolean[256];
+
+  // bytes that may change state while in the NORMAL state
+  private static final boolean[] NORMAL_STOPS = new boolean[256];
+
+  static {
+    for (int i = 0; i < 256; i++) {
+      WHITESPACE[i] = Character.isWhitespace(i);
+      NORMAL_STOPS[i] = WHITESPACE[i];
+    }
+    NORMAL_STOPS['\''] = true;
+    NORMAL_STOPS['"'] = true;
+    NORMAL_STOPS['*'] = true;
+  }
+
+  private State state = State.NORMAL;
+
+  // last four bytes scanned, h0 being the most recent
+  private int h0 = ' ';
+
+  private int h1 = ' ';
+
+  private int h2 = ' ';
+
+  private int h3 = ' ';
+
+  // current position in stream
+  private int pos = 0;
+
+  // location of either EOF or first non-whitespace char after END statement
+  private int endOfLabel = -1;
+
+  private Integer attachedContentStartByte = null;
+
+  private boolean hasBlankFill = false;
+
+  public Integer getAttachedContentStartByte() {
+    return this.attachedContentStartByte;
+  }
+
+  public boolean hasBlankFill() {
+    return this.hasBlankFill;
+  }
+
+  /**
+   * @return true once the end of the label has been located, no further bytes
+   *         belong to the label
+   */
+  public boolean isFinished() {
+    return this.endOfLabel != -1;
+  }
+
+  /**
+   * Scans a block of bytes. Scanning stops at the first non-whitespace byte
+   * following END, which is still counted as part of the label so that the
+   * lexer can tell that attached content exists.
+   * 
+   * @param b
+   *          buffer holding the bytes
+   * @param off
+   *          offset of the first byte to scan
+   * @param len
+   *          number of bytes to scan
+   * @return number of bytes, starting at off, that belong to the label
+   */
+  public int scan(final byte[] b, final int off, final int len) {
+    State s = this.state;
+    int p = this.pos;
+    int c0 = this.h0;
+    int c1 = this.h1;
+    int c2 = this.h2;
+    int c3 = this.h3;
+    final int end = off + len;
+    int i = off;
+
+    while (i < end) {
+      // skip over runs of bytes that can't change state, only the last four
+      // need to be kept for history
+      final int start = i;
+      if (s == State.IN_DOUBLE_QUOTES) {
+        while (i < end && b[i] != '"') {
+          i++;
+        }
+      } else if (s == State.IN_SINGLE_QUOTES) {
+        while (i < end && b[i] != '\'') {
+          i++;
+        }
+      } else if (s == State.IN_COMMENTS) {
+        while (i < end && b[i] != '/') {
+          i++;
+        }
+      } else if (s == State.NORMAL) {
+        while (i < end && !NORMAL_STOPS[b[i] & 0xFF]) {
+          i++;
+        }
+      }
+      if (i != start) {
+        p += i - start;
+        for (int k = Math.max(start, i - 4); k < i; k++) {
+          c3 = c2;
+          c2 = c1;
+          c1 = c0;
+          c0 = b[k] & 0xFF;
+        }
+        if (i == end) {
+          break;
+        }
+      }
+
+      final int c = b[i++] & 0xFF;
+      p++;
+      if (s == State.IN_SINGLE_QUOTES && c == '\'') {
+        s = State.NORMAL;
+      } else if (s == State.IN_DOUBLE_QUOTES && c == '"') {
+        s = State.NORMAL;
+      } else if (s == State.IN_COMMENTS && c == '/' && c0 == '*') {
+        s = State.NORMAL;
+      } else if (s == State.NORMAL && c == '\'') {
+        s = State.IN_SINGLE_QUOTES;
+      } else if (s == State.NORMAL && c == '"') {
+        s = State.IN_DOUBLE_QUOTES;
+      } else if (s == State.NORMAL && c == '*' && c0 == '/') {
+        s = State.IN_COMMENTS;
+      } else if (s == State.NORMAL) {
+        // Check for END just prior.
+        if (WHITESPACE[c] && WHITESPACE[c3] && c2 == 'E' && c1 == 'N'
+            && c0 == 'D') {
+          s = State.FOUND_END;
+        }
+      } else if (s == State.FOUND_END) {
+        if (!WHITESPACE[c]) {
+          // not EOF so this is attached data start byte
+          this.endOfLabel = p;
+          this.attachedContentStartByte = p;
+        } else if (c == ' ') {
+          this.hasBlankFill = true;
+        }
+      }
+      c3 = c2;
+      c2 = c1;
+      c1 = c0;
+      c0 = c;
+
+      if (this.endOfLabel != -1) {
+        break;
+      }
+    }
+
+    this.state = s;
+    this.pos = p;
+    this.h0 = c0;
+    this.h1 = c1;
+    this.h2 = c2;
+    this.h3 = c3;
+    return i - off;
+  }
+
+  /**
+   * Records that the underlying content ran out before attached content was
+   * found.
+   */
+  public void endOfStream() {
+    if (this.endOfLabel != -1) {
+      return;
+    }
+    this.pos++;
+    if (this.state == State.FOUND_END) {
+      this.endOfLabel = this.pos;
+    } else {
+      // missing END back up one space
+      this.endOfLabel = this.pos - 1;
+    }
+  }
+}
@@ -0,0 +1,152 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// • Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// • Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// • Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.tools.label.parser;
+
+import gov.nasa.pds.tools.constants.Constants.ProblemType;
+import gov.nasa.pds.tools.label.Value;
+
+import org.antlr.runtime.Token;
+
+/**
+ * Receives the statements of a label as they are recognized, in document
+ * order. Used with the streaming parse methods of {@link DefaultLabelParser}
+ * which do not build a {@link gov.nasa.pds.tools.label.Label}, so memory use
+ * does not grow with the size of the label.
+ * 
+ * Every {@link #startObject} and {@link #startGroup} call is balanced by an
+ * {@link #endObject} or {@link #endGroup} call, including when the end
+ * statement is missing or the parser had to recover from an error.
+ * 
+ * @version $Revision$
+ * 
+ */
+public interface LabelEventHandler {
+
+  /**
+   * Called for an OBJECT statement.
+   * 
+   * @param line
+   *          line of the object identifier
+   * @param identifier
+   *          object identifier
+   * @param comment
+   *          trailing comment on the OBJECT line, may be null
+   */
+  public void startObject(int line, String identifier, Token comment);
+
+  /**
+   * Called when an object ends.
+   * 
+   * @param identifier
+   *          identifier given on the OBJECT line
+   * @param comment
+   *          trailing comment on the END_OBJECT line, null if there is none or
+   *          the END_OBJECT statement is missing
+   */
+  public void endObject(String identifier, Token comment);
+
+  /**
+   * Called for a GROUP statement.
+   * 
+   * @param line
+   *          line of the group identifier
+   * @param identifier
+   *          group identifier
+   * @param comment
+   *          trailing comment on the GROUP line, may be null
+   */
+  public void startGroup(int line, String identifier, Token comment);
+
+  /**
+   * Called when a group ends.
+   * 
+   * @param identifier
+   *          identifier given on the GROUP line
+   * @param comment
+   *          trailing comment on the END_GROUP line, may be null
+   */
+  public void endGroup(String identifier, Token comment);
+
+  /**
+   * Called for an attribute assignment.
+   * 
+   * @param line
+   *          line of the equals sign
+   * @param identifier
+   *          attribute identifier, empty if missing
+   * @param value
+   *          assigned value, null if missing
+   * @param comment
+   *          trailing comment, may be null
+   */
+  public void attribute(int line, String identifier, Value value,
+      Token comment);
+
+  /**
+   * Called for a pointer statement. Include pointers are reported like any
+   * other pointer, the referenced files are not parsed.
+   * 
+   * @param line
+   *          line of the equals sign
+   * @param identifier
+   *          pointer identifier without the leading caret
+   * @param value
+   *          pointer value, null if missing
+   * @param comment
+   *          trailing comment, may be null
+   */
+  public void pointer(int line, String identifier, Value value, Token comment);
+
+  /**
+   * Called for a comment on a line of its own.
+   * 
+   * @param comment
+   *          comment token
+   */
+  public void comment(Token comment);
+
+  /**
+   * Called for each problem found while parsing.
+   * 
+   * @param line
+   *          line of the problem, may be null
+   * @param column
+   *          column of the problem, may be null
+   * @param key
+   *          message key of the problem
+   * @param type
+   *          type of the problem
+   * @param arguments
+   *          message arguments
+   */
+  public void problem(Integer line, Integer column, String key,
+      ProblemType type, Object... arguments);
+}
@@ -0,0 +1,1216 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// • Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// • Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// • Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.tools.label.parser;
+
+import gov.nasa.pds.tools.LabelParserException;
+import gov.nasa.pds.tools.constants.Constants.ProblemType;
+import gov.nasa.pds.tools.label.DateTime;
+import gov.nasa.pds.tools.label.Label;
+import gov.nasa.pds.tools.label.Numeric;
+import gov.nasa.pds.tools.label.Scalar;
+import gov.nasa.pds.tools.label.Sequence;
+import gov.nasa.pds.tools.label.Set;
+import gov.nasa.pds.tools.label.Symbol;
+import gov.nasa.pds.tools.label.TextString;
+import gov.nasa.pds.tools.label.Value;
+import gov.nasa.pds.tools.label.ValueType;
+import gov.nasa.pds.tools.label.antlr.ODLParser;
+import gov.nasa.pds.tools.util.AntlrUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.antlr.runtime.CommonToken;
+import org.antlr.runtime.Token;
+import org.antlr.runtime.TokenSource;
+
+/**
+ * Recursive descent implementation of the label rule of ODL.g that reports
+ * statements to a {@link LabelEventHandler} as they are recognized instead of
+ * building a {@link Label}.
+ * 
+ * Decisions, problem keys and error recovery follow the generated
+ * {@link ODLParser} so that both report the same statements and problems for
+ * the same input. Syntactic predicates are evaluated by looking ahead in the
+ * token buffer; consumed tokens are discarded so memory use stays bounded by
+ * the longest statement rather than the label.
+ * 
+ * @version $Revision$
+ * 
+ */
+class ODLEventParser {
+
+  private static final int EOF = Token.EOF;
+
+  private static final int EOR = Token.EOR_TOKEN_TYPE;
+
+  private static final int END = ODLParser.END;
+
+  private static final int END_GROUP = ODLParser.END_GROUP;
+
+  private static final int END_OBJECT = ODLParser.END_OBJECT;
+
+  private static final int COMMENT = ODLParser.COMMENT;
+
+  private static final int EOL = ODLParser.EOL;
+
+  private static final int IDENTIFIER = ODLParser.IDENTIFIER;
+
+  private static final int UNITS = ODLParser.UNITS;
+
+  private static final int INTEGER = ODLParser.INTEGER;
+
+  private static final int BASED_INTEGER = ODLParser.BASED_INTEGER;
+
+  private static final int REAL = ODLParser.REAL;
+
+  private static final int QUOTED = ODLParser.QUOTED;
+
+  private static final int BAD_TOKEN = ODLParser.BAD_TOKEN;
+
+  private static final int QUOTED_UNTERMINATED = ODLParser.QUOTED_UNTERMINATED;
+
+  private static final int DATETIME = ODLParser.DATETIME;
+
+  private static final int SYMBOL = ODLParser.SYMBOL;
+
+  private static final int OBJECT = ODLParser.T__28;
+
+  private static final int EQUALS = ODLParser.T__29;
+
+  private static final int GROUP = ODLParser.T__30;
+
+  private static final int CARET = ODLParser.T__31;
+
+  private static final int LPAREN = ODLParser.T__32;
+
+  private static final int RPAREN = ODLParser.T__33;
+
+  private static final int COMMA = ODLParser.T__34;
+
+  private static final int LBRACE = ODLParser.T__35;
+
+  private static final int RBRACE = ODLParser.T__36;
+
+  // token type sets, one bit per token type
+
+  private static final long EMPTY = 0L;
+
+  private static final long ANY = range(END, RBRACE) | set(EOR);
+
+  private static final long SCALAR_START = set(IDENTIFIER, INTEGER,
+      BASED_INTEGER, REAL, QUOTED, DATETIME, SYMBOL);
+
+  private static final long VALUE_START = SCALAR_START | set(LPAREN, LBRACE);
+
+  private static final long STATEMENT_START = set(COMMENT, EOL, IDENTIFIER,
+      OBJECT, EQUALS, GROUP, CARET);
+
+  private static final long ASSIGNMENT_EXTRA = range(END, RBRACE)
+      & ~set(COMMENT, EOL, UNITS);
+
+  private static final long MULTILINE_EXTRA = ASSIGNMENT_EXTRA & ~set(EQUALS);
+
+  private static final long OBJECT_LINE_REST = range(END, RBRACE)
+      & ~set(EOL, END);
+
+  private static final long GROUP_LINE_REST = range(END, RBRACE) & ~set(EOL);
+
+  // follow sets of the generated parser, see ODLParser.FOLLOW_*
+
+  private static final long FOLLOW_STATEMENT_IN_LABEL = STATEMENT_START
+      | set(END);
+
+  private static final long FOLLOW_RULE = set(EOR);
+
+  private static final long FOLLOW_KEYWORD = set(EOL, EQUALS);
+
+  private static final long FOLLOW_NL_BEFORE_EQUALS = set(EQUALS);
+
+  private static final long FOLLOW_BLOCK_EQUALS = set(EOL, IDENTIFIER);
+
+  private static final long FOLLOW_NL_BEFORE_IDENTIFIER = set(IDENTIFIER);
+
+  private static final long FOLLOW_BLOCK_IDENTIFIER = set(COMMENT, EOL);
+
+  private static final long FOLLOW_COMMENT = set(EOL);
+
+  private static final long FOLLOW_END_BLOCK = set(COMMENT, EOL, EQUALS);
+
+  private static final long FOLLOW_END_EQUALS = set(IDENTIFIER);
+
+  private static final long FOLLOW_CARET = set(IDENTIFIER, EQUALS);
+
+  private static final long FOLLOW_IDENTIFIER = set(EQUALS);
+
+  private static final long FOLLOW_VALUE_EQUALS = VALUE_START | set(BAD_TOKEN);
+
+  private static final long FOLLOW_MULTILINE_EQUALS = set(EOL);
+
+  private static final long FOLLOW_MULTILINE_EOL = VALUE_START
+      | set(EOL, BAD_TOKEN);
+
+  private static final long FOLLOW_EMPTY_EQUALS = set(COMMENT, EOL);
+
+  private static final long FOLLOW_NL = set(EOR, EOL);
+
+  private static final String[] TOKEN_NAMES = ODLParser.tokenNames;
+
+  // kinds of recognition errors
+
+  private static final int NO_VIABLE_ALT = 0;
+
+  private static final int MISMATCHED_TOKEN = 1;
+
+  private static final int MISSING_TOKEN = 2;
+
+  private static final int UNWANTED_TOKEN = 3;
+
+  private final TokenSource source;
+
+  private final Label label;
+
+  private final LabelEventHandler handler;
+
+  // on channel tokens not yet discarded, the last one is EOF once reached
+  private final List<Token> tokens = new ArrayList<Token>();
+
+  // position of the next token in tokens
+  private int p = 0;
+
+  // absolute index of the first token in tokens
+  private int offset = 0;
+
+  private long[] following = new long[32];
+
+  private int followingSize = 0;
+
+  private boolean errorRecovery = false;
+
+  private int lastErrorIndex = -1;
+
+  private boolean hasEndStatement = false;
+
+  // comment of the last OBJECT or GROUP line, set by blockHeader()
+  private Token headerComment;
+
+  // keywords to report, all statements are reported when null
+  private final KeywordProjection projection;
+
+  public ODLEventParser(final TokenSource source, final Label label,
+      final LabelEventHandler handler) {
+    this(source, label, handler, null);
+  }
+
+  /**
+   * Creates a parser that only builds and reports the values of the
+   * projected keywords and stops once all of them have been seen.
+   */
+  public ODLEventParser(final TokenSource source, final Label label,
+      final KeywordProjection projection) {
+    this(source, label, projection, projection);
+  }
+
+  private ODLEventParser(final TokenSource source, final Label label,
+      final LabelEventHandler handler, final KeywordProjection projection) {
+    this.source = source;
+    this.label = label;
+    this.handler = handler;
+    this.projection = projection;
+  }
+
+  /**
+   * Parses the label, reporting statements and problems as they are found.
+   */
+  public void label() {
+    try {
+      while (inSet(LA(1), STATEMENT_START)) {
+        pushFollow(FOLLOW_STATEMENT_IN_LABEL);
+        statement();
+        popFollow();
+      }
+      if (LA(1) == END) {
+        match(END, FOLLOW_RULE);
+        this.hasEndStatement = true;
+      } else if (LA(1) == EOF) {
+        match(EOF, FOLLOW_RULE);
+      } else {
+        throw noViableAlt(LT(1));
+      }
+    } catch (RecognitionError e) {
+      reportError(e);
+      recover();
+    } catch (Complete e) {
+      // every projected keyword has been seen
+    }
+  }
+
+  /**
+   * @return true if the label ended with an END statement
+   */
+  public boolean hasEndStatement() {
+    return this.hasEndStatement;
+  }
+
+  private void statement() {
+    pushFollow(FOLLOW_RULE);
+    switch (LA(1)) {
+    case OBJECT:
+      objectStatement();
+      break;
+    case GROUP:
+      groupStatement();
+      break;
+    default:
+      simpleStatement();
+    }
+    popFollow();
+  }
+
+  private void simpleStatement() {
+    try {
+      switch (LA(1)) {
+      case COMMENT:
+      case EOL:
+        Token comment = null;
+        if (LA(1) == COMMENT) {
+          comment = match(COMMENT, FOLLOW_COMMENT);
+        }
+        match(EOL, FOLLOW_RULE);
+        if (comment != null) {
+          this.handler.comment(comment);
+        }
+        break;
+      case IDENTIFIER:
+      case EQUALS:
+        pushFollow(FOLLOW_RULE);
+        assignmentStatement(false);
+        popFollow();
+        break;
+      case CARET:
+        pushFollow(FOLLOW_RULE);
+        pointerStatement();
+        popFollow();
+        break;
+      default:
+        throw noViableAlt(LT(1));
+      }
+    } catch (RecognitionError e) {
+      reportError(e);
+      recover();
+    }
+  }
+
+  private void pointerStatement() {
+    try {
+      match(CARET, FOLLOW_CARET);
+      pushFollow(FOLLOW_RULE);
+      assignmentStatement(true);
+      popFollow();
+    } catch (RecognitionError e) {
+      reportError(e);
+      recover();
+    }
+  }
+
+  private void objectStatement() {
+    Token id = null;
+    boolean started = false;
+    try {
+      id = blockHeader(OBJECT);
+      this.handler.startObject(id.getLine(), id.getText(), this.headerComment);
+      started = true;
+      int alt;
+      while ((alt = predictObjectStatement()) != 0) {
+        if (alt == 1) {
+          pushFollow(ANY);
+          statement();
+          popFollow();
+        } else {
+          illegalLine(OBJECT_LINE_REST);
+        }
+      }
+      if (LA(1) == END_OBJECT) {
+        this.errorRecovery = false;
+        final Token comment = blockFooter(END_OBJECT);
+        this.handler.endObject(id.getText(), comment);
+      } else {
+        this.label.addProblem(id.getLine(), id.getCharPositionInLine(),
+            "parser.error.missingEndObject", ProblemType.PARSE_ERROR,
+            id.getText(), id.getLine());
+        this.handler.endObject(id.getText(), null);
+      }
+    } catch (RecognitionError e) {
+      reportError(e);
+      recover();
+      if (started) {
+        this.handler.endObject(id.getText(), null);
+      }
+    }
+  }
+
+  private void groupStatement() {
+    Token id = null;
+    boolean started = false;
+    try {
+      id = blockHeader(GROUP);
+      this.handler.startGroup(id.getLine(), id.getText(), this.headerComment);
+      started = true;
+      int alt;
+      while ((alt = predictGroupStatement()) != 0) {
+        if (alt == 1) {
+          pushFollow(ANY);
+          simpleStatement();
+          popFollow();
+        } else {
+          illegalLine(GROUP_LINE_REST);
+        }
+      }
+      if (LA(1) == END_GROUP) {
+        this.errorRecovery = false;
+        final Token comment = blockFooter(END_GROUP);
+        this.handler.endGroup(id.getText(), comment);
+      } else {
+        this.label.addProblem(id.getLine(), id.getCharPositionInLine(),
+            "parser.error.missingEndGroup", ProblemType.PARSE_ERROR,
+            id.getText(), id.getLine());
+        this.handler.endGroup(id.getText(), null);
+      }
+    } catch (RecognitionError e) {
+      reportError(e);
+      recover();
+      if (started) {
+        this.handler.endGroup(id.getText(), null);
+      }
+    }
+  }
+
+  // 'OBJECT' nl '=' nl IDENTIFIER COMMENT? EOL
+  private Token blockHeader(final int keyword) throws RecognitionError {
+    match(keyword, FOLLOW_KEYWORD);
+    pushFollow(FOLLOW_NL_BEFORE_EQUALS);
+    nl();
+    popFollow();
+    match(EQUALS, FOLLOW_BLOCK_EQUALS);
+    pushFollow(FOLLOW_NL_BEFORE_IDENTIFIER);
+    nl();
+    popFollow();
+    final Token id = match(IDENTIFIER, FOLLOW_BLOCK_IDENTIFIER);
+    Token comment = null;
+    if (LA(1) == COMMENT) {
+      comment = match(COMMENT, FOLLOW_COMMENT);
+    }
+    match(EOL, ANY);
+    this.headerComment = comment;
+    return id;
+  }
+
+  // END_OBJECT ('=' IDENTIFIER)? COMMENT? EOL
+  private Token blockFooter(final int keyword) throws RecognitionError {
+    match(keyword, FOLLOW_END_BLOCK);
+    if (LA(1) == EQUALS) {
+      match(EQUALS, FOLLOW_END_EQUALS);
+      match(IDENTIFIER, FOLLOW_BLOCK_IDENTIFIER);
+    }
+    Token comment = null;
+    if (LA(1) == COMMENT) {
+      comment = match(COMMENT, FOLLOW_COMMENT);
+    }
+    match(EOL, FOLLOW_RULE);
+    return comment;
+  }
+
+  // . (rest)* EOL, reported as an illegal statement start
+  private void illegalLine(final long rest) throws RecognitionError {
+    final Token start = LT(1);
+    matchAny();
+    while (inSet(LA(1), rest)) {
+      matchAny();
+    }
+    match(EOL, ANY);
+    this.label.addProblem(start.getLine(), start.getCharPositionInLine(),
+        "parser.error.illegalStatementStart", ProblemType.PARSE_ERROR,
+        start.getText());
+  }
+
+  private void nl() {
+    while (LA(1) == EOL) {
+      matchAny();
+    }
+  }
+
+  /*
+   * Decision for the body of an object: 1 for a statement, 2 for an illegal
+   * line, 0 to leave the loop. Each alternative is guarded by a syntactic
+   * predicate in ODL.g, which leaves the parser out of error recovery mode.
+   */
+  private int predictObjectStatement() throws RecognitionError {
+    final int type = LA(1);
+    this.errorRecovery = false;
+    if (inSet(type, STATEMENT_START)) {
+      return 1;
+    }
+    if (type == END_OBJECT || type == END || type == EOF) {
+      return 0;
+    }
+    int i = 2;
+    while (inSet(LA(i), OBJECT_LINE_REST)) {
+      i++;
+    }
+    if (LA(i) == EOL) {
+      return 2;
+    }
+    throw noViableAlt(LT(2));
+  }
+
+  /*
+   * Decision for the body of a group: 1 for a simple statement, 2 for an
+   * illegal line, 0 to leave the loop.
+   */
+  private int predictGroupStatement() throws RecognitionError {
+    final int type = LA(1);
+    if (type == END_GROUP || type == END || type == EOF) {
+      this.errorRecovery = false;
+      return 0;
+    }
+    if (type == EOL) {
+      // the generated parser treats a blank line as the start of an
+      // illegal line unless it is the last one
+      this.errorRecovery = false;
+      return LA(2) == EOF ? 1 : 2;
+    }
+    int i = 1;
+    boolean hasEnd = false;
+    while (inSet(LA(i), GROUP_LINE_REST)) {
+      hasEnd |= LA(i) == END;
+      i++;
+    }
+    if (LA(i) == EOF && !hasEnd) {
+      // only an unterminated quote may run into the end of input
+      final int start = type == CARET ? 2 : 1;
+      if (LA(start) != IDENTIFIER || LA(start + 1) != EQUALS
+          || LA(start + 2) != QUOTED_UNTERMINATED) {
+        throw noViableAlt(LT(i));
+      }
+    }
+    this.errorRecovery = false;
+    return isSimpleStatement() ? 1 : 2;
+  }
+
+  private boolean isSimpleStatement() {
+    switch (LA(1)) {
+    case COMMENT:
+      return LA(2) == EOL;
+    case EOL:
+      return true;
+    case IDENTIFIER:
+    case EQUALS:
+      return isAssignment(1);
+    case CARET:
+      return isAssignment(2);
+    default:
+      return false;
+    }
+  }
+
+  private boolean isAssignment(final int i) {
+    if (isSameLineAssignment(i) || isMultiLineAssignment(i)
+        || isUnterminatedAssignment(i)) {
+      return true;
+    }
+    int j = LA(i) == IDENTIFIER ? i + 1 : i;
+    if (LA(j) != EQUALS) {
+      return false;
+    }
+    j++;
+    if (LA(j) == COMMENT) {
+      j++;
+    }
+    return LA(j) == EOL;
+  }
+
+  private void assignmentStatement(final boolean pointer) {
+    final List<Token> extraTokens = new ArrayList<Token>();
+    try {
+      final int alt = predictAssignment();
+      Token id = null;
+      if (alt == 4 || LA(1) == IDENTIFIER) {
+        id = match(IDENTIFIER, FOLLOW_IDENTIFIER);
+      }
+      final String idText = id != null ? id.getText() : "";
+      final boolean wanted = this.projection == null
+          || this.projection.wants(pointer, idText);
+      Token eq;
+      Token comment = null;
+      switch (alt) {
+      case 1:
+      case 2:
+        // same line or multiline value
+        if (alt == 1) {
+          eq = match(EQUALS, FOLLOW_VALUE_EQUALS);
+        } else {
+          eq = match(EQUALS, FOLLOW_MULTILINE_EQUALS);
+          do {
+            match(EOL, FOLLOW_MULTILINE_EOL);
+          } while (LA(1) == EOL);
+        }
+        TextString bad = null;
+        Value value;
+        final int skip = wanted ? 0 : skipValue(1);
+        if (LA(1) == BAD_TOKEN) {
+          bad = new TextString(LT(1).getText());
+          matchAny();
+          value = bad;
+        } else if (skip > 0) {
+          // not projected, pass over the tokens without building a value
+          for (int i = 1; i < skip; i++) {
+            matchAny();
+          }
+          value = null;
+        } else {
+          value = value();
+        }
+        final long extra = alt == 1 ? ASSIGNMENT_EXTRA : MULTILINE_EXTRA;
+        while (inSet(LA(1), extra)) {
+          extraTokens.add(LT(1));
+          matchAny();
+        }
+        if (LA(1) == COMMENT) {
+          comment = match(COMMENT, FOLLOW_COMMENT);
+        }
+        match(EOL, FOLLOW_RULE);
+        reportExtraTokens(extraTokens, value, idText);
+        if (alt == 1 && bad != null) {
+          this.label.addProblem(eq.getLine(), null, "parser.error.badValue",
+              ProblemType.BAD_VALUE, idText, bad.getValue());
+        }
+        statement(pointer, eq.getLine(), idText, value, comment, wanted);
+        break;
+      case 3:
+        // missing value
+        eq = match(EQUALS, FOLLOW_EMPTY_EQUALS);
+        if (LA(1) == COMMENT) {
+          comment = match(COMMENT, FOLLOW_COMMENT);
+        }
+        match(EOL, FOLLOW_RULE);
+        statement(pointer, eq.getLine(), idText, null, comment, wanted);
+        break;
+      default:
+        // unterminated quoted string
+        eq = match(EQUALS, set(QUOTED_UNTERMINATED));
+        final TextString text = new TextString(LT(1).getText(),
+            ValueType.QUOTED_UNTERMINATED);
+        matchAny();
+        this.label.addProblem(eq.getLine(), null,
+            "parser.error.missingEndQuote", ProblemType.BAD_VALUE, idText);
+        statement(pointer, eq.getLine(), idText, text, null, wanted);
+      }
+    } catch (RecognitionError e) {
+      reportError(e);
+      recover();
+    }
+  }
+
+  private void statement(final boolean pointer, final int line,
+      final String identifier, final Value value, final Token comment,
+      final boolean wanted) {
+    if (!wanted) {
+      return;
+    }
+    if (pointer) {
+      this.handler.pointer(line, identifier, value, comment);
+    } else {
+      this.handler.attribute(line, identifier, value, comment);
+    }
+    if (this.projection != null && this.projection.isComplete()) {
+      throw COMPLETE;
+    }
+  }
+
+  private void reportExtraTokens(final List<Token> extraTokens,
+      final Value value, final String idText) {
+    if (extraTokens.size() > 0) {
+      final Token first = extraTokens.get(0);
+      String extraTokensString = String.valueOf(value) + ", ";
+      extraTokensString += AntlrUtils.toSeparatedString(extraTokens);
+      this.label.addProblem(first.getLine(), first.getCharPositionInLine(),
+          "parser.error.tooManyTokens", ProblemType.BAD_VALUE,
+          extraTokensString, idText);
+    }
+  }
+
+  /*
+   * Decision between the four assignment alternatives: 1 same line value, 2
+   * value on a following line, 3 missing value and 4 unterminated quote.
+   */
+  private int predictAssignment() throws RecognitionError {
+    final boolean hasId = LA(1) == IDENTIFIER;
+    int i = hasId ? 2 : 1;
+    if (LA(i) != EQUALS) {
+      throw noViableAlt(LT(i));
+    }
+    i++;
+    final int type = LA(i);
+    if (type == COMMENT) {
+      return 3;
+    }
+    if (type == EOL) {
+      return predictMultiLineAssignment(i);
+    }
+    if (inSet(type, VALUE_START) || type == BAD_TOKEN) {
+      this.errorRecovery = false;
+      if (isSameLineAssignment(1)) {
+        return 1;
+      }
+    } else if (type == QUOTED_UNTERMINATED && hasId) {
+      this.errorRecovery = false;
+      if (isUnterminatedAssignment(1)) {
+        return 4;
+      }
+    }
+    throw noViableAlt(LT(i));
+  }
+
+  /*
+   * Decision for an assignment with a new line after the equals sign at i,
+   * following the lookahead DFA of the generated parser: a line that does not
+   * have the multiline form is an assignment without a value, unless the
+   * input ends right after part of a value.
+   */
+  private int predictMultiLineAssignment(final int i) throws RecognitionError {
+    int j = skipValue(skipNewLines(i));
+    if (j > 0) {
+      while (inSet(LA(j), MULTILINE_EXTRA)) {
+        j++;
+      }
+      if (LA(j) == COMMENT) {
+        j++;
+      }
+      if (LA(j) == EOL) {
+        this.errorRecovery = false;
+        return 2;
+      }
+    } else {
+      j = -j;
+    }
+    if (LA(j) == EOF && LA(j - 1) != EOL) {
+      throw noViableAlt(LT(j));
+    }
+    return 3;
+  }
+
+  // IDENTIFIER? '=' (value|BAD_TOKEN) ~(COMMENT|EOL|UNITS)* COMMENT? EOL
+  private boolean isSameLineAssignment(final int start) {
+    int i = LA(start) == IDENTIFIER ? start + 1 : start;
+    if (LA(i) != EQUALS) {
+      return false;
+    }
+    i = skipValue(i + 1);
+    if (i < 0) {
+      return false;
+    }
+    while (inSet(LA(i), ASSIGNMENT_EXTRA)) {
+      i++;
+    }
+    return isLineEnd(i);
+  }
+
+  // IDENTIFIER? '=' COMMENT? EOL+ (value|BAD_TOKEN)
+  // ~(COMMENT|EOL|'='|UNITS)* COMMENT? EOL
+  private boolean isMultiLineAssignment(final int start) {
+    int i = LA(start) == IDENTIFIER ? start + 1 : start;
+    if (LA(i) != EQUALS) {
+      return false;
+    }
+    i++;
+    if (LA(i) == COMMENT) {
+      i++;
+    }
+    if (LA(i) != EOL) {
+      return false;
+    }
+    i = skipValue(skipNewLines(i));
+    if (i < 0) {
+      return false;
+    }
+    while (inSet(LA(i), MULTILINE_EXTRA)) {
+      i++;
+    }
+    return isLineEnd(i);
+  }
+
+  // IDENTIFIER '=' QUOTED_UNTERMINATED EOF
+  private boolean isUnterminatedAssignment(final int i) {
+    return LA(i) == IDENTIFIER && LA(i + 1) == EQUALS
+        && LA(i + 2) == QUOTED_UNTERMINATED && LA(i + 3) == EOF;
+  }
+
+  // COMMENT? EOL
+  private boolean isLineEnd(final int i) {
+    return LA(i) == EOL || (LA(i) == COMMENT && LA(i + 1) == EOL);
+  }
+
+  private int skipNewLines(int i) {
+    while (LA(i) == EOL) {
+      i++;
+    }
+    return i;
+  }
+
+  /*
+   * The skip methods return the lookahead position after the construct
+   * starting at i or, if it does not match, the negated position of the first
+   * token that does not fit.
+   */
+
+  private int skipValue(final int i) {
+    switch (LA(i)) {
+    case BAD_TOKEN:
+      return i + 1;
+    case LPAREN:
+      return skipSequence(i);
+    case LBRACE:
+      return skipList(skipNewLines(i + 1), RBRACE, false);
+    default:
+      return skipScalar(i);
+    }
+  }
+
+  private int skipScalar(final int i) {
+    switch (LA(i)) {
+    case INTEGER:
+    case BASED_INTEGER:
+    case REAL:
+      return LA(i + 1) == UNITS ? i + 2 : i + 1;
+    case IDENTIFIER:
+    case QUOTED:
+    case DATETIME:
+    case SYMBOL:
+      return i + 1;
+    default:
+      return -i;
+    }
+  }
+
+  private int skipSequence(final int i) {
+    final int j = skipNewLines(i + 1);
+    return skipList(j, RPAREN, LA(j) == LPAREN);
+  }
+
+  // (item nl ((',' nl)? item nl)*)? close
+  private int skipList(int i, final int close, final boolean sequences) {
+    if (LA(i) == close) {
+      return i + 1;
+    }
+    i = sequences ? skipSequence1d(i) : skipScalar(i);
+    if (i < 0) {
+      return i;
+    }
+    i = skipNewLines(i);
+    while (LA(i) == COMMA || isListItem(LA(i), sequences)) {
+      if (LA(i) == COMMA) {
+        i = skipNewLines(i + 1);
+      }
+      i = sequences ? skipSequence1d(i) : skipScalar(i);
+      if (i < 0) {
+        return i;
+      }
+      i = skipNewLines(i);
+    }
+    return LA(i) == close ? i + 1 : -i;
+  }
+
+  private int skipSequence1d(final int i) {
+    if (LA(i) != LPAREN) {
+      return -i;
+    }
+    return skipList(skipNewLines(i + 1), RPAREN, false);
+  }
+
+  private static boolean isListItem(final int type, final boolean sequences) {
+    return sequences ? type == LPAREN : inSet(type, SCALAR_START);
+  }
+
+  /*
+   * Value construction, only called once a predicate has matched the value.
+   */
+
+  private Value value() {
+    switch (LA(1)) {
+    case LPAREN:
+      matchAny();
+      nl();
+      if (LA(1) == LPAREN) {
+        final Sequence result = new Sequence();
+        result.add(sequence1d());
+        nl();
+        while (LA(1) == COMMA || LA(1) == LPAREN) {
+          if (LA(1) == COMMA) {
+            matchAny();
+            nl();
+          }
+          result.add(sequence1d());
+          nl();
+        }
+        matchAny();
+        return result;
+      }
+      return scalarList();
+    case LBRACE:
+      matchAny();
+      nl();
+      final Set result = new Set();
+      if (LA(1) != RBRACE) {
+        result.add(scalar());
+        nl();
+        while (LA(1) == COMMA || inSet(LA(1), SCALAR_START)) {
+          if (LA(1) == COMMA) {
+            matchAny();
+            nl();
+          }
+          result.add(scalar());
+          nl();
+        }
+      }
+      matchAny();
+      return result;
+    default:
+      return scalar();
+    }
+  }
+
+  private Sequence sequence1d() {
+    matchAny();
+    nl();
+    return scalarList();
+  }
+
+  // remainder of a one dimensional sequence after the '(' nl
+  private Sequence scalarList() {
+    final Sequence result = new Sequence();
+    if (LA(1) != RPAREN) {
+      result.add(scalar());
+      nl();
+      while (LA(1) == COMMA || inSet(LA(1), SCALAR_START)) {
+        if (LA(1) == COMMA) {
+          matchAny();
+          nl();
+        }
+        result.add(scalar());
+        nl();
+      }
+    }
+    matchAny();
+    return result;
+  }
+
+  private Scalar scalar() {
+    final Token token = LT(1);
+    matchAny();
+    switch (token.getType()) {
+    case INTEGER:
+    case BASED_INTEGER:
+    case REAL:
+      final Numeric numeric = new Numeric(token.getText());
+      if (LA(1) == UNITS) {
+        numeric.setUnits(LT(1).getText());
+        matchAny();
+      }
+      return numeric;
+    case DATETIME:
+      return dateTime(token);
+    case QUOTED:
+      return new TextString(token.getText(), ValueType.DOUBLE_QUOTED);
+    case SYMBOL:
+      return new Symbol(token.getText(), ValueType.SINGLE_QUOTED);
+    default:
+      return new Symbol(token.getText());
+    }
+  }
+
+  private DateTime dateTime(final Token token) {
+    try {
+      return new DateTime(this.label, token.getText(), token.getLine());
+    } catch (LabelParserException pe) {
+      this.label.addProblem(pe);
+      try {
+        return new DateTime(this.label, token.getText(), token.getLine(), true);
+      } catch (LabelParserException pe2) {
+        return null;
+      }
+    }
+  }
+
+  /*
+   * Error reporting and recovery, as done by BaseRecognizer.
+   */
+
+  private Token match(final int type, final long follow)
+      throws RecognitionError {
+    final Token token = LT(1);
+    if (token.getType() == type) {
+      consume();
+      this.errorRecovery = false;
+      return token;
+    }
+    if (LA(2) == type) {
+      // extra token before the expected one
+      consume();
+      reportError(new RecognitionError(UNWANTED_TOKEN, token, type));
+      final Token matched = LT(1);
+      consume();
+      return matched;
+    }
+    if (isMissingToken(follow)) {
+      // act as if the expected token was there
+      reportError(new RecognitionError(MISSING_TOKEN, token, type));
+      Token current = token;
+      if (current.getType() == EOF && LT(-1) != null) {
+        current = LT(-1);
+      }
+      final CommonToken missing = new CommonToken(type, "<missing "
+          + TOKEN_NAMES[type] + ">");
+      missing.setLine(current.getLine());
+      missing.setCharPositionInLine(current.getCharPositionInLine());
+      return missing;
+    }
+    throw new RecognitionError(MISMATCHED_TOKEN, token, type);
+  }
+
+  private void matchAny() {
+    this.errorRecovery = false;
+    consume();
+  }
+
+  private boolean isMissingToken(long follow) {
+    if (inSet(EOR, follow)) {
+      follow |= contextFollow();
+      if (this.followingSize > 0) {
+        follow &= ~set(EOR);
+      }
+    }
+    return inSet(LA(1), follow) || inSet(EOR, follow);
+  }
+
+  // follow sets of the enclosing rules up to the first one that can't end
+  private long contextFollow() {
+    long result = EMPTY;
+    for (int i = this.followingSize - 1; i >= 0; i--) {
+      final long local = this.following[i];
+      result |= local;
+      if (!inSet(EOR, local)) {
+        break;
+      }
+      if (i > 0) {
+        result &= ~set(EOR);
+      }
+    }
+    return result;
+  }
+
+  private RecognitionError noViableAlt(final Token token) {
+    return new RecognitionError(NO_VIABLE_ALT, token, 0);
+  }
+
+  private void reportError(final RecognitionError e) {
+    if (this.errorRecovery) {
+      return;
+    }
+    this.errorRecovery = true;
+    final Token token = e.token;
+    final int line = token.getLine();
+    final int column = token.getCharPositionInLine();
+    switch (e.kind) {
+    case NO_VIABLE_ALT:
+      this.label.addProblem(line, column, "parser.error.noViableAlternative",
+          ProblemType.PARSE_ERROR, token.getText());
+      break;
+    case MISSING_TOKEN:
+      this.label.addProblem(line, column, "parser.error.missingToken",
+          ProblemType.PARSE_ERROR, TOKEN_NAMES[e.expecting], token.getText());
+      break;
+    case UNWANTED_TOKEN:
+      this.label.addProblem(line, column, "parser.error.extraToken",
+          ProblemType.PARSE_ERROR, token.getText(), TOKEN_NAMES[e.expecting]);
+      break;
+    default:
+      final String expecting = e.expecting == EOF ? "EOF"
+          : TOKEN_NAMES[e.expecting];
+      this.label.addProblem(line, column, "parser.error.unhandledException",
+          ProblemType.PARSE_ERROR, "mismatched input "
+              + getTokenErrorDisplay(token) + " expecting " + expecting,
+          "org.antlr.runtime.MismatchedTokenException");
+    }
+  }
+
+  private static String getTokenErrorDisplay(final Token token) {
+    String text = token.getText();
+    if (text == null) {
+      text = token.getType() == EOF ? "<EOF>" : "<" + token.getType() + ">";
+    }
+    text = text.replaceAll("\n", "\\\\n");
+    text = text.replaceAll("\r", "\\\\r");
+    text = text.replaceAll("\t", "\\\\t");
+    return "'" + text + "'";
+  }
+
+  private void recover() {
+    if (this.lastErrorIndex == index()) {
+      consume();
+    }
+    this.lastErrorIndex = index();
+    long follow = EMPTY;
+    for (int i = 0; i < this.followingSize; i++) {
+      follow |= this.following[i];
+    }
+    while (LA(1) != EOF && !inSet(LA(1), follow)) {
+      consume();
+    }
+  }
+
+  private void pushFollow(final long follow) {
+    if (this.followingSize == this.following.length) {
+      final long[] grown = new long[this.following.length * 2];
+      System.arraycopy(this.following, 0, grown, 0, this.followingSize);
+      this.following = grown;
+    }
+    this.following[this.followingSize++] = follow;
+  }
+
+  private void popFollow() {
+    this.followingSize--;
+  }
+
+  /*
+   * Token buffer. Tokens off the default channel are dropped and consumed
+   * tokens are discarded in batches, keeping the one before the current
+   * position for error reporting at EOF.
+   */
+
+  private Token LT(final int i) {
+    if (i < 0) {
+      return this.p + i >= 0 ? this.tokens.get(this.p + i) : null;
+    }
+    final int index = this.p + i - 1;
+    while (this.tokens.size() <= index) {
+      if (!this.tokens.isEmpty()
+          && this.tokens.get(this.tokens.size() - 1).getType() == EOF) {
+        return this.tokens.get(this.tokens.size() - 1);
+      }
+      final Token token = this.source.nextToken();
+      if (token.getChannel() == Token.DEFAULT_CHANNEL) {
+        this.tokens.add(token);
+      }
+    }
+    return this.tokens.get(index);
+  }
+
+  private int LA(final int i) {
+    return LT(i).getType();
+  }
+
+  private void consume() {
+    if (LA(1) == EOF) {
+      return;
+    }
+    this.p++;
+    if (this.p > 256) {
+      this.tokens.subList(0, this.p - 1).clear();
+      this.offset += this.p - 1;
+      this.p = 1;
+    }
+    // fetch the next token like CommonTokenStream so the lexer reports
+    // problems at the same point
+    LT(1);
+  }
+
+  private int index() {
+    return this.offset + this.p;
+  }
+
+  private static long set(final int... types) {
+    long result = EMPTY;
+    for (final int type : types) {
+      result |= 1L << type;
+    }
+    return result;
+  }
+
+  private static long range(final int first, final int last) {
+    long result = EMPTY;
+    for (int type = first; type <= last; type++) {
+      result |= 1L << type;
+    }
+    return result;
+  }
+
+  private static boolean inSet(final int type, final long set) {
+    return type >= 0 && (set & (1L << type)) != 0;
+  }
+
+  /**
+   * Counterpart of the ANTLR recognition exceptions, without a stack trace.
+   */
+  private static final Complete COMPLETE = new Complete();
+
+  // unwinds the rules once a projection has everything it asked for
+  private static class Complete extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+      return this;
+    }
+  }
+
+  private static class RecognitionError extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    final int kind;
+
+    final Token token;
+
+    final int expecting;
+
+    RecognitionError(final int kind, final Token token, final int expecting) {
+      this.kind = kind;
+      this.token = token;
+      this.expecting = expecting;
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+      return this;
+    }
+  }
+}
@@ -0,0 +1,547 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// • Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// • Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// • Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+
+package gov.nasa.pds.tools.label.parser;
+
+import gov.nasa.pds.tools.constants.Constants.ProblemType;
+import gov.nasa.pds.tools.label.Label;
+import gov.nasa.pds.tools.label.antlr.ODLLexer;
+
+import org.antlr.runtime.CharStream;
+import org.antlr.runtime.CommonToken;
+import org.antlr.runtime.Token;
+import org.antlr.runtime.TokenSource;
+
+/**
+ * Hand written replacement for the generated {@link ODLLexer}. Produces the
+ * same tokens, line lengths and problems for a label but scans each token
+ * once without the generated prediction tables. Whitespace is dropped rather
+ * than returned on the hidden channel and, like {@link ODLLexer}, everything
+ * after the END statement other than comments and line endings is reported
+ * as end of file.
+ * 
+ * @version $Revision$
+ * 
+ */
+class ODLTokenizer implements TokenSource {
+
+  private static final int EOF = CharStream.EOF;
+
+  // a char the generated lexer treats like the end of input in quoted text
+  private static final int NOT_A_CHAR = 0xFFFF;
+
+  private static final int SKIPPED = Token.INVALID_TOKEN_TYPE;
+
+  private static final int END = ODLLexer.END;
+
+  private static final int END_GROUP = ODLLexer.END_GROUP;
+
+  private static final int END_OBJECT = ODLLexer.END_OBJECT;
+
+  private static final int COMMENT = ODLLexer.COMMENT;
+
+  private static final int EOL = ODLLexer.EOL;
+
+  private static final int IDENTIFIER = ODLLexer.IDENTIFIER;
+
+  private static final int UNITS = ODLLexer.UNITS;
+
+  private static final int INTEGER = ODLLexer.INTEGER;
+
+  private static final int BASED_INTEGER = ODLLexer.BASED_INTEGER;
+
+  private static final int REAL = ODLLexer.REAL;
+
+  private static final int QUOTED = ODLLexer.QUOTED;
+
+  private static final int BAD_TOKEN = ODLLexer.BAD_TOKEN;
+
+  private static final int QUOTED_UNTERMINATED = ODLLexer.QUOTED_UNTERMINATED;
+
+  private static final int DATETIME = ODLLexer.DATETIME;
+
+  private static final int SYMBOL = ODLLexer.SYMBOL;
+
+  private static final int WS = ODLLexer.WS;
+
+  // INTEGER_OR_TIME emits TIME for a bare time, which no parser rule accepts
+  private static final int TIME = ODLLexer.TIME;
+
+  private static final int OBJECT = ODLLexer.T__28;
+
+  private static final int EQUALS = ODLLexer.T__29;
+
+  private static final int GROUP = ODLLexer.T__30;
+
+  private static final int CARET = ODLLexer.T__31;
+
+  private static final int LPAREN = ODLLexer.T__32;
+
+  private static final int RPAREN = ODLLexer.T__33;
+
+  private static final int COMMA = ODLLexer.T__34;
+
+  private static final int LBRACE = ODLLexer.T__35;
+
+  private static final int RBRACE = ODLLexer.T__36;
+
+  private final CharStream input;
+
+  private final Label label;
+
+  private boolean foundEND = false;
+
+  private boolean pastEndLine = false;
+
+  // position of the first char of the current token
+  private int start;
+
+  private int startLine;
+
+  private int startColumn;
+
+  public ODLTokenizer(final CharStream input, final Label label) {
+    this.input = input;
+    this.label = label;
+  }
+
+  public Token nextToken() {
+    while (true) {
+      this.start = this.input.index();
+      this.startLine = this.input.getLine();
+      this.startColumn = this.input.getCharPositionInLine();
+      final int c = this.input.LA(1);
+      if (c == EOF) {
+        return emit(Token.EOF);
+      }
+      final int type = token(c);
+      if (type == SKIPPED) {
+        continue;
+      }
+      if (this.foundEND) {
+        if (type == EOL) {
+          this.pastEndLine = true;
+        } else if (type != COMMENT) {
+          return Token.EOF_TOKEN;
+        }
+      }
+      if (type == WS) {
+        continue;
+      }
+      if (type == END) {
+        this.foundEND = true;
+      }
+      return emit(type);
+    }
+  }
+
+  public String getSourceName() {
+    return this.input.getSourceName();
+  }
+
+  private Token emit(final int type) {
+    final int stop = type == Token.EOF ? this.start : this.input.index() - 1;
+    final CommonToken token = new CommonToken(this.input, type,
+        Token.DEFAULT_CHANNEL, this.start, stop);
+    token.setLine(this.startLine);
+    token.setCharPositionInLine(this.startColumn);
+    return token;
+  }
+
+  // consumes one token starting with c and returns its type
+  private int token(final int c) {
+    switch (c) {
+    case '=':
+      return single(EQUALS);
+    case '^':
+      return single(CARET);
+    case '(':
+      return single(LPAREN);
+    case ')':
+      return single(RPAREN);
+    case ',':
+      return single(COMMA);
+    case '{':
+      return single(LBRACE);
+    case '}':
+      return single(RBRACE);
+    case '/':
+      return comment();
+    case ' ':
+    case '\t':
+    case '\f':
+      do {
+        this.input.consume();
+      } while (isSpace(this.input.LA(1)));
+      return WS;
+    case '<':
+      return units();
+    case '"':
+      return quoted();
+    case '\'':
+      return symbol();
+    case '\r':
+    case '\n':
+      eol();
+      return EOL;
+    default:
+      if (isRunChar(c)) {
+        return run();
+      }
+      return illegalCharacter();
+    }
+  }
+
+  private int single(final int type) {
+    this.input.consume();
+    return type;
+  }
+
+  // '/*' (~('\r'|'\n') | EOL)* '*/'
+  private int comment() {
+    this.input.consume();
+    if (this.input.LA(1) != '*') {
+      return illegalCharacter();
+    }
+    this.input.consume();
+    while (true) {
+      final int c = this.input.LA(1);
+      if (c == EOF) {
+        return illegalCharacter();
+      } else if (c == '*') {
+        final int next = this.input.LA(2);
+        this.input.consume();
+        if (next == '/') {
+          this.input.consume();
+          return COMMENT;
+        } else if (next == EOF) {
+          return illegalCharacter();
+        }
+      } else if (c == '\r' || c == '\n') {
+        eol();
+      } else {
+        this.input.consume();
+      }
+    }
+  }
+
+  // '<' (LETTER | DIGIT | SPECIALCHAR | '(' | ')' | '/' | WS)* '>'
+  private int units() {
+    this.input.consume();
+    int c = this.input.LA(1);
+    while (isRunChar(c) || c == '(' || c == ')' || c == '/' || isSpace(c)) {
+      this.input.consume();
+      c = this.input.LA(1);
+    }
+    if (c != '>') {
+      return illegalCharacter();
+    }
+    this.input.consume();
+    return UNITS;
+  }
+
+  // '"' (EOL | ~('"' | NOT_A_CHAR))* '"', QUOTED_UNTERMINATED without the close
+  private int quoted() {
+    this.input.consume();
+    int c = this.input.LA(1);
+    while (c != '"' && c != EOF && c != NOT_A_CHAR) {
+      if (c == '\r' || c == '\n') {
+        eol();
+      } else {
+        this.input.consume();
+      }
+      c = this.input.LA(1);
+    }
+    if (c != '"') {
+      return QUOTED_UNTERMINATED;
+    }
+    this.input.consume();
+    return QUOTED;
+  }
+
+  // '\'' (~('\'' | '\\' | '\r' | '\n'))* '\''
+  private int symbol() {
+    this.input.consume();
+    int c = this.input.LA(1);
+    while (c != '\'' && c != '\\' && c != '\r' && c != '\n' && c != EOF) {
+      this.input.consume();
+      c = this.input.LA(1);
+    }
+    if (c != '\'') {
+      return illegalCharacter();
+    }
+    this.input.consume();
+    return SYMBOL;
+  }
+
+  /*
+   * Line endings also occur inside comments and quoted strings, where the
+   * length and any problem are recorded against the line the token started
+   * on.
+   */
+  private void eol() {
+    final int column = this.input.getCharPositionInLine();
+    final boolean crlf = this.input.LA(1) == '\r' && this.input.LA(2) == '\n';
+    this.input.consume();
+    if (crlf) {
+      this.input.consume();
+    }
+    if (!this.pastEndLine) {
+      this.label.addLineLength(this.startLine, column);
+    }
+    if (!crlf) {
+      this.label.addProblem(this.startLine, "parser.error.badLineEnding", //$NON-NLS-1$
+          ProblemType.ILLEGAL_LINE_ENDING);
+    }
+  }
+
+  /*
+   * Reports the char at the current position and skips it unless it ends a
+   * line. Whatever the failed token had consumed is dropped.
+   */
+  private int illegalCharacter() {
+    final int c = this.input.LA(1);
+    if (!this.foundEND) {
+      this.label.addProblem(this.input.getLine(), this.input.getCharPositionInLine(),
+          "parser.error.illegalCharacter", ProblemType.PARSE_ERROR, //$NON-NLS-1$
+          displayableString(c));
+    }
+    if (c != '\r' && c != '\n' && c != EOF) {
+      this.input.consume();
+    }
+    return SKIPPED;
+  }
+
+  private static String displayableString(final int c) {
+    if (' ' <= c && c <= '~') {
+      return String.valueOf((char) c);
+    }
+    return "\\x" + Integer.toHexString(c); //$NON-NLS-1$
+  }
+
+  /*
+   * Letters, digits and SPECIALCHAR never end a token, so identifiers, numbers
+   * and dates always take the whole run of them. When the run as a whole is
+   * not one of those it is a BAD_TOKEN.
+   */
+  private int run() {
+    int length = 1;
+    while (isRunChar(this.input.LA(length + 1))) {
+      length++;
+    }
+    final int type = isLetter(this.input.LA(1)) ? word(length) : number(length);
+    for (int i = 0; i < length; i++) {
+      this.input.consume();
+    }
+    return type;
+  }
+
+  // LETTER (LETTER|DIGIT|'_')* (':' LETTER (LETTER|DIGIT|'_')*)? or a keyword
+  private int word(final int length) {
+    int i = name(2, length);
+    if (i > length) {
+      return keyword(length);
+    }
+    if (this.input.LA(i) != ':' || !isLetter(this.input.LA(i + 1))) {
+      return BAD_TOKEN;
+    }
+    i = name(i + 2, length);
+    return i > length ? IDENTIFIER : BAD_TOKEN;
+  }
+
+  private int name(int i, final int length) {
+    while (i <= length && isNameChar(this.input.LA(i))) {
+      i++;
+    }
+    return i;
+  }
+
+  private int keyword(final int length) {
+    switch (length) {
+    case 3:
+      return is("END") ? END : IDENTIFIER; //$NON-NLS-1$
+    case 5:
+      return is("GROUP") ? GROUP : IDENTIFIER; //$NON-NLS-1$
+    case 6:
+      return is("OBJECT") ? OBJECT : IDENTIFIER; //$NON-NLS-1$
+    case 9:
+      return is("END_GROUP") ? END_GROUP : IDENTIFIER; //$NON-NLS-1$
+    case 10:
+      return is("END_OBJECT") ? END_OBJECT : IDENTIFIER; //$NON-NLS-1$
+    default:
+      return IDENTIFIER;
+    }
+  }
+
+  private boolean is(final String word) {
+    for (int i = 0; i < word.length(); i++) {
+      if (this.input.LA(i + 1) != word.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // INTEGER, REAL, TIME, DATETIME or BASED_INTEGER
+  private int number(final int length) {
+    final boolean signed = this.input.LA(1) == '+' || this.input.LA(1) == '-';
+    final int first = signed ? 2 : 1;
+    final int i = digits(first, length);
+    final boolean hasDigits = i > first;
+    if (i > length) {
+      return hasDigits ? INTEGER : BAD_TOKEN;
+    }
+    final int c = this.input.LA(i);
+    if (c == '.') {
+      int end = digits(i + 1, length);
+      if (!hasDigits && end == i + 1) {
+        return BAD_TOKEN;
+      }
+      if (end <= length && (this.input.LA(end) == 'E' || this.input.LA(end) == 'e')) {
+        end = requiredDigits(signed(end + 1, length), length);
+      }
+      return end == length + 1 ? REAL : BAD_TOKEN;
+    }
+    if (signed || !hasDigits) {
+      return BAD_TOKEN;
+    }
+    switch (c) {
+    case ':':
+      return time(i, length) == length + 1 ? TIME : BAD_TOKEN;
+    case '-':
+      return date(i, length) == length + 1 ? DATETIME : BAD_TOKEN;
+    case '#':
+      return isBased(i, length) ? BASED_INTEGER : BAD_TOKEN;
+    default:
+      return BAD_TOKEN;
+    }
+  }
+
+  /*
+   * The following return the position after the construct starting at i. A
+   * required part that is missing gives a position past any run.
+   */
+
+  private int digits(int i, final int length) {
+    while (i <= length && isDigit(this.input.LA(i))) {
+      i++;
+    }
+    return i;
+  }
+
+  private int requiredDigits(final int i, final int length) {
+    final int next = digits(i, length);
+    return next > i ? next : Integer.MAX_VALUE;
+  }
+
+  private int signed(final int i, final int length) {
+    if (i <= length && (this.input.LA(i) == '+' || this.input.LA(i) == '-')) {
+      return i + 1;
+    }
+    return i;
+  }
+
+  // ':' DIGITS (':' DIGITS ('.' DIGITS)?)? 'Z'?, i at the first ':'
+  private int time(final int i, final int length) {
+    int next = requiredDigits(i + 1, length);
+    if (next <= length && this.input.LA(next) == ':') {
+      next = requiredDigits(next + 1, length);
+      if (next <= length && this.input.LA(next) == '.') {
+        next = requiredDigits(next + 1, length);
+      }
+    }
+    if (next <= length && this.input.LA(next) == 'Z') {
+      next++;
+    }
+    return next;
+  }
+
+  // '-' DIGITS ('-' DIGITS)? ('T' DIGITS (time | 'Z'?))?, i at the first '-'
+  private int date(final int i, final int length) {
+    int next = requiredDigits(i + 1, length);
+    if (next <= length && this.input.LA(next) == '-') {
+      next = requiredDigits(next + 1, length);
+    }
+    if (next <= length && this.input.LA(next) == 'T') {
+      next = requiredDigits(next + 1, length);
+      if (next <= length && this.input.LA(next) == ':') {
+        return time(next, length);
+      }
+      if (next <= length && this.input.LA(next) == 'Z') {
+        next++;
+      }
+    }
+    return next;
+  }
+
+  // '#' SIGN? (LETTER | DIGIT)+ '#' ending the run, i at the first '#'
+  private boolean isBased(final int i, final int length) {
+    final int first = signed(i + 1, length);
+    int next = first;
+    while (next <= length && (isLetter(this.input.LA(next)) || isDigit(this.input.LA(next)))) {
+      next++;
+    }
+    return next > first && next == length && this.input.LA(next) == '#';
+  }
+
+  private static boolean isSpace(final int c) {
+    return c == ' ' || c == '\t' || c == '\f';
+  }
+
+  private static boolean isLetter(final int c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+  }
+
+  private static boolean isDigit(final int c) {
+    return c >= '0' && c <= '9';
+  }
+
+  private static boolean isNameChar(final int c) {
+    return isLetter(c) || isDigit(c) || c == '_';
+  }
+
+  // LETTER | DIGIT | SPECIALCHAR
+  private static boolean isRunChar(final int c) {
+    switch (c) {
+    case '_':
+    case '$':
+    case '#':
+    case '.':
+    case '-':
+    case ':':
+    case '+':
+    case '*':
+      return true;
+    default:
+      return isLetter(c) || isDigit(c);
+    }
+  }
+}
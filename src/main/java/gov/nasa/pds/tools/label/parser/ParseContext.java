@@ -0,0 +1,184 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.tools.label.parser;
+
+import gov.nasa.pds.tools.label.Label;
+import gov.nasa.pds.tools.label.antlr.ODLLexer;
+import gov.nasa.pds.tools.label.antlr.ODLParser;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import org.antlr.runtime.ANTLRStringStream;
+import org.antlr.runtime.CharStream;
+import org.antlr.runtime.CommonTokenStream;
+
+/**
+ * Lexer, parser and buffers kept per thread by {@link DefaultLabelParser} and
+ * reset between labels rather than created for each one. Contexts are acquired
+ * and released in stack order, a label holds one while its includes are parsed
+ * with the next, and each level is kept for reuse by later labels.
+ * 
+ * @version $Revision$
+ * 
+ */
+final class ParseContext {
+
+  // buffers grown past this are dropped on release rather than kept per thread
+  private static final int MAX_RETAINED_CHARS = 1024 * 1024;
+
+  private static final ThreadLocal<ParseContext> CONTEXTS = new ThreadLocal<ParseContext>() {
+    @Override
+    protected ParseContext initialValue() {
+      return new ParseContext();
+    }
+  };
+
+  // created on first use since not every level parses
+  private ODLLexer lexer;
+
+  private CommonTokenStream tokens;
+
+  private ODLParser parser;
+
+  private ReaderCharStream chars;
+
+  private final byte[] chunk = new byte[8192];
+
+  private boolean inUse;
+
+  // context for the next level down the stack
+  private ParseContext nested;
+
+  private ParseContext() {
+    // use acquire()
+  }
+
+  /**
+   * @return the first context of the current thread not already in use, must
+   *         be given back with {@link #release()}
+   */
+  static ParseContext acquire() {
+    ParseContext context = CONTEXTS.get();
+    while (context.inUse) {
+      if (context.nested == null) {
+        context.nested = new ParseContext();
+      }
+      context = context.nested;
+    }
+    context.inUse = true;
+    return context;
+  }
+
+  /**
+   * Detach the last label, input and resolver so they are not held by the
+   * thread.
+   */
+  void release() {
+    if (this.parser != null) {
+      this.tokens.setTokenSource(null);
+      this.parser.setTokenStream(this.tokens);
+      this.parser.setPointerResolver(null);
+      this.lexer.setCharStream(null);
+      this.lexer.setLabel(null);
+    }
+    if (this.chars != null) {
+      this.chars.clear();
+    }
+    this.inUse = false;
+  }
+
+  /**
+   * @return the parser reset to read tokens from the given input
+   */
+  ODLParser parser(final CharStream input, final Label label) {
+    if (this.parser == null) {
+      this.lexer = new ODLLexer();
+      this.tokens = new CommonTokenStream();
+      this.parser = new ODLParser(this.tokens);
+    }
+    this.lexer.setCharStream(input);
+    this.lexer.setLabel(label);
+    this.tokens.setTokenSource(this.lexer);
+    this.parser.setTokenStream(this.tokens);
+    return this.parser;
+  }
+
+  /**
+   * @return a stream over all characters of the reader, sharing the buffer of
+   *         this context
+   */
+  CharStream load(final Reader reader) throws IOException {
+    if (this.chars == null) {
+      this.chars = new ReaderCharStream();
+    }
+    this.chars.load(reader);
+    return this.chars;
+  }
+
+  /**
+   * @return scratch space for scanning the end of a label
+   */
+  byte[] getChunk() {
+    return this.chunk;
+  }
+
+  // ANTLRReaderStream allocates a new array for every load
+  private static class ReaderCharStream extends ANTLRStringStream {
+
+    ReaderCharStream() {
+      this.data = new char[8192];
+    }
+
+    void load(final Reader reader) throws IOException {
+      int count = 0;
+      int read;
+      while ((read = reader.read(this.data, count, this.data.length - count)) != -1) {
+        count += read;
+        if (count == this.data.length) {
+          final char[] grown = new char[this.data.length * 2];
+          System.arraycopy(this.data, 0, grown, 0, count);
+          this.data = grown;
+        }
+      }
+      this.n = count;
+      reset();
+    }
+
+    void clear() {
+      if (this.data.length > MAX_RETAINED_CHARS) {
+        this.data = new char[8192];
+      }
+      this.n = 0;
+      reset();
+    }
+  }
+}
@@ -0,0 +1,77 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// • Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// • Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// • Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+
+package gov.nasa.pds.tools.label.parser;
+
+import gov.nasa.pds.tools.LabelParserException;
+import gov.nasa.pds.tools.label.Label;
+import gov.nasa.pds.tools.label.PointerResolver;
+
+import org.antlr.runtime.CharStream;
+
+/**
+ * {@link LabelParser} that reads label statements with a hand written
+ * tokenizer and recursive descent parser instead of the generated ANTLR
+ * classes. Produces the same statements and problems as
+ * {@link DefaultLabelParser}, which is still used for included files.
+ * 
+ * @version $Revision$
+ * 
+ */
+public class RecursiveDescentLabelParser extends DefaultLabelParser {
+
+  public RecursiveDescentLabelParser(final PointerResolver resolver) {
+    super(resolver);
+  }
+
+  public RecursiveDescentLabelParser(final boolean loadIncludes,
+      final boolean captureProblems, final PointerResolver resolver) {
+    super(loadIncludes, captureProblems, resolver);
+  }
+
+  public RecursiveDescentLabelParser(final boolean loadIncludes,
+      final boolean captureProblems, final boolean allowExternalProblems,
+      final PointerResolver resolver) {
+    super(loadIncludes, captureProblems, allowExternalProblems, resolver);
+  }
+
+  @Override
+  protected void parseLabel(final CharStream antlrInput, final Label label)
+      throws LabelParserException {
+    final ODLEventParser parser = new ODLEventParser(new ODLTokenizer(
+        antlrInput, label), label, new LabelBuilder(label,
+        getIncludeResolver()));
+    parser.label();
+    if (parser.hasEndStatement()) {
+      label.setHasEndStatement();
+    }
+  }
+}
@@ -47,6 +47,7 @@ import gov.nasa.pds.tools.label.GroupStatement;
 import gov.nasa.pds.tools.label.Label;
 import gov.nasa.pds.tools.label.ObjectStatement;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -164,7 +165,8 @@ public class ObjectValidator {
         }
 
         // Run through nested objects and check them
-        List<ObjectStatement> objects = object.getObjects();
+        List<ObjectStatement> objects = new ArrayList<ObjectStatement>(
+                object.getObjects());
         Collections.sort(objects);
         for (Iterator<ObjectStatement> i = objects.iterator(); i.hasNext();) {
             ObjectStatement obj = i.next();
@@ -193,7 +195,8 @@ public class ObjectValidator {
             }
         }
 
-        List<GroupStatement> groups = object.getGroups();
+        List<GroupStatement> groups = new ArrayList<GroupStatement>(
+                object.getGroups());
         Collections.sort(groups);
         for (Iterator<GroupStatement> i = groups.iterator(); i.hasNext();) {
             GroupStatement group = i.next();
@@ -223,8 +226,6 @@ public class ObjectValidator {
         }
 
         // Run through and validate all attributes
-        List<AttributeStatement> attributes = object.getAttributes();
-        Collections.sort(attributes);
         for (Iterator<AttributeStatement> i = object.getAttributes().iterator(); i
                 .hasNext();) {
             AttributeStatement attribute = i.next();
@@ -0,0 +1,267 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// • Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// • Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// • Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.tools.label.validate;
+
+import gov.nasa.arc.pds.tools.util.StrUtils;
+import gov.nasa.arc.pds.tools.util.TaskUtils;
+import gov.nasa.pds.tools.Problem;
+import gov.nasa.pds.tools.constants.Constants.ProblemType;
+import gov.nasa.pds.tools.containers.FileReference;
+import gov.nasa.pds.tools.label.AttributeStatement;
+import gov.nasa.pds.tools.label.GroupStatement;
+import gov.nasa.pds.tools.label.IncludePointer;
+import gov.nasa.pds.tools.label.Label;
+import gov.nasa.pds.tools.label.Numeric;
+import gov.nasa.pds.tools.label.ObjectStatement;
+import gov.nasa.pds.tools.label.PointerResolver;
+import gov.nasa.pds.tools.label.PointerStatement;
+import gov.nasa.pds.tools.label.Statement;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Checks the files named by the data pointers of many labels at once, such
+ * as <code>^IMAGE</code>, <code>^TABLE</code> or <code>^HEADER</code>: that
+ * each file exists and that each start position falls inside it. Pointers
+ * from all the labels added are grouped by target so each file is looked at
+ * once, with a single read of its attributes, however many labels point to
+ * it. Include pointers are left to the parser.
+ * 
+ * @version $Revision$
+ * 
+ */
+public class PointerTargetValidator {
+
+  private final PointerResolver resolver;
+
+  // normalized target to the pointers naming it, in the order added
+  private final Map<File, List<Reference>> targets = new LinkedHashMap<File, List<Reference>>();
+
+  private int references;
+
+  /**
+   * @param resolver
+   *          used to find the files pointers name
+   */
+  public PointerTargetValidator(final PointerResolver resolver) {
+    this.resolver = resolver;
+  }
+
+  /**
+   * Collects the data pointers of the label.
+   */
+  public void add(final Label label) {
+    add(label, label.getStatements());
+  }
+
+  private void add(final Label label, final List<Statement> statements) {
+    for (final Statement statement : statements) {
+      if (statement instanceof IncludePointer) {
+        continue;
+      } else if (statement instanceof PointerStatement) {
+        add(label, (PointerStatement) statement);
+      } else if (statement instanceof ObjectStatement) {
+        add(label, ((ObjectStatement) statement).getStatements());
+      } else if (statement instanceof GroupStatement) {
+        add(label, ((GroupStatement) statement).getStatements());
+      }
+    }
+  }
+
+  private void add(final Label label, final PointerStatement pointer) {
+    final List<FileReference> fileRefs = pointer.getFileRefs();
+    final List<File> files = this.resolver.resolveFiles(pointer);
+    Map<Numeric, File> fileMap = null;
+    for (int i = 0; i < fileRefs.size(); i++) {
+      final FileReference fileRef = fileRefs.get(i);
+      File file;
+      if (files.size() == fileRefs.size()) {
+        file = files.get(i);
+      } else {
+        // resolver doesn't give one file per reference
+        if (fileMap == null) {
+          fileMap = this.resolver.resolveFileMap(pointer);
+        }
+        file = fileMap.get(fileRef.getStartPosition());
+      }
+      if (file == null) {
+        continue;
+      }
+      file = file.getAbsoluteFile().toPath().normalize().toFile();
+      List<Reference> named = this.targets.get(file);
+      if (named == null) {
+        named = new ArrayList<Reference>();
+        this.targets.put(file, named);
+      }
+      named.add(new Reference(this.references++, pointer, fileRef,
+          getSkipBytes(label, fileRef.getStartPosition())));
+    }
+  }
+
+  // Label.getSkipBytes() unless the start or the record size it needs isn't
+  // a number, as with RECORD_BYTES = "N/A" in stream labels. Those give 0 so
+  // only the existence of the file is checked.
+  private static long getSkipBytes(final Label label,
+      final Numeric startPosition) {
+    if (startPosition == null) {
+      return 0;
+    }
+    if (StrUtils.getNumberLoose(startPosition.getValue()) == null) {
+      return 0;
+    }
+    final String units = startPosition.getUnits();
+    if (!"bytes".equalsIgnoreCase(units) && !"<bytes>".equalsIgnoreCase(units)) { //$NON-NLS-1$ //$NON-NLS-2$
+      final AttributeStatement recordBytes = label
+          .getAttribute("RECORD_BYTES"); //$NON-NLS-1$
+      if (recordBytes != null
+          && StrUtils.getNumberLoose(recordBytes.getValue().toString()) == null) {
+        return 0;
+      }
+    }
+    return Label.getSkipBytes(label, startPosition);
+  }
+
+  /**
+   * @return number of distinct files the pointers added name
+   */
+  public int getTargetCount() {
+    return this.targets.size();
+  }
+
+  /**
+   * Checks every target on the calling thread.
+   */
+  public List<Problem> validate() {
+    return validate(null);
+  }
+
+  /**
+   * Checks the targets, one task per file on the executor if one is given.
+   * Tasks the executor has not started by the time their result is needed
+   * are run on the calling thread.
+   * 
+   * @return problems found, in the order the pointers were added. Each is
+   *         attributed to its pointer and so to the label it is in.
+   */
+  public List<Problem> validate(final Executor executor) {
+    final Problem[] found = new Problem[this.references];
+    final List<FutureTask<Void>> tasks = new ArrayList<FutureTask<Void>>(
+        this.targets.size());
+    for (final Map.Entry<File, List<Reference>> entry : this.targets
+        .entrySet()) {
+      final FutureTask<Void> task = new FutureTask<Void>(new Callable<Void>() {
+        public Void call() {
+          check(entry.getKey(), entry.getValue(), found);
+          return null;
+        }
+      });
+      tasks.add(task);
+      TaskUtils.execute(executor, task);
+    }
+    for (final FutureTask<Void> task : tasks) {
+      try {
+        TaskUtils.runAndAwait(task);
+      } catch (ExecutionException e) {
+        // checks throw no checked exceptions
+        throw new IllegalStateException(e.getCause());
+      }
+    }
+    final List<Problem> problems = new ArrayList<Problem>();
+    for (final Problem problem : found) {
+      if (problem != null) {
+        problems.add(problem);
+      }
+    }
+    return problems;
+  }
+
+  // each task writes only the slots of its own references
+  private static void check(final File file, final List<Reference> named,
+      final Problem[] found) {
+    long size = -1;
+    IOException unreadable = null;
+    try {
+      size = Files.readAttributes(file.toPath(), BasicFileAttributes.class)
+          .size();
+    } catch (NoSuchFileException e) {
+      // reported as missing below
+    } catch (IOException e) {
+      unreadable = e;
+    }
+    for (final Reference reference : named) {
+      if (unreadable != null) {
+        found[reference.order] = new Problem(reference.pointer, null,
+            "parser.error.unreadableRefFile", ProblemType.UNREADABLE_RESOURCE, //$NON-NLS-1$
+            reference.fileRef.getPath(), unreadable.toString());
+      } else if (size < 0) {
+        found[reference.order] = new Problem(reference.pointer, null,
+            "parser.error.missingRefFile", ProblemType.MISSING_RESOURCE, //$NON-NLS-1$
+            reference.fileRef.getPath());
+      } else if (reference.skipBytes > 0 && reference.skipBytes >= size) {
+        // skip bytes count from zero, report the one-based start byte
+        found[reference.order] = new Problem(reference.pointer, null,
+            "parser.error.startPastEnd", ProblemType.POINTER_PAST_END, //$NON-NLS-1$
+            reference.fileRef.getPath(), reference.skipBytes + 1, size);
+      }
+    }
+  }
+
+  private static final class Reference {
+
+    final int order;
+
+    final PointerStatement pointer;
+
+    final FileReference fileRef;
+
+    final long skipBytes;
+
+    Reference(final int order, final PointerStatement pointer,
+        final FileReference fileRef, final long skipBytes) {
+      this.order = order;
+      this.pointer = pointer;
+      this.fileRef = fileRef;
+      this.skipBytes = skipBytes;
+    }
+  }
+}
@@ -32,6 +32,7 @@ package gov.nasa.pds.tools.label.validate;
 
 import gov.nasa.pds.tools.LabelParserException;
 import gov.nasa.pds.tools.dict.Dictionary;
+import gov.nasa.pds.tools.dict.DictionarySnapshot;
 import gov.nasa.pds.tools.dict.parser.DictionaryParser;
 import gov.nasa.pds.tools.label.AttributeStatement;
 import gov.nasa.pds.tools.label.GroupStatement;
@@ -42,6 +43,7 @@ import gov.nasa.pds.tools.label.Statement;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URISyntaxException;
+import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -80,6 +82,21 @@ public class Validator {
   // encompassed by higher level things in the
 
   protected static synchronized void initDefaultDictionary() {
+    if (DEFAULT_DICTIONARY == null) {
+      // the snapshot written by the build reads back far quicker than
+      // parsing, parse only if it's missing or out of date
+      final ClassLoader loader = Validator.class.getClassLoader();
+      final URL snapshot = loader
+          .getResource(DictionarySnapshot.DEFAULT_SNAPSHOT);
+      if (snapshot != null) {
+        try {
+          DEFAULT_DICTIONARY = DictionarySnapshot.read(snapshot, loader
+              .getResource("pdsdd.full")); //$NON-NLS-1$
+        } catch (IOException e) {
+          e.printStackTrace();
+        }
+      }
+    }
     if (DEFAULT_DICTIONARY == null) {
       InputStream dictionaryStream = Validator.class.getClassLoader()
           .getResourceAsStream("pdsdd.full"); //$NON-NLS-1$
@@ -122,7 +139,8 @@ public class Validator {
     }
 
     if (performsDictionaryCheck()) {
-      List<Statement> statements = label.getStatements();
+      List<Statement> statements = new ArrayList<Statement>(label
+          .getStatements());
       Collections.sort(statements);
       for (Iterator<Statement> i = statements.iterator(); i.hasNext();) {
         Statement statement = i.next();
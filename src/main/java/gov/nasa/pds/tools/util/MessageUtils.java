@@ -32,6 +32,7 @@ package gov.nasa.pds.tools.util;
 
 import gov.nasa.arc.pds.tools.util.LocaleUtils;
 import gov.nasa.pds.tools.LabelParserException;
+import gov.nasa.pds.tools.Problem;
 import gov.nasa.pds.tools.constants.Constants;
 
 import java.util.ResourceBundle;
@@ -49,13 +50,14 @@ public class MessageUtils {
     }
 
     public static String getText(final String key, final Object... arguments) {
-        // has override, try there first
-        if (OVERRIDE_LOCALE_UTILS != null) {
+        // has override, try there first. Misses are remembered by the
+        // override so falling back costs no exception
+        final LocaleUtils override = OVERRIDE_LOCALE_UTILS;
+        if (override != null && override.hasText(key)) {
             try {
-                return OVERRIDE_LOCALE_UTILS.getText(key, arguments);
-            } catch (final Exception e) {
-                // not found in override, try default
-                return LOCALE_UTILS.getText(key, arguments);
+                return override.getText(key, arguments);
+            } catch (final IllegalArgumentException e) {
+                // malformed override message, use default
             }
         }
         return LOCALE_UTILS.getText(key, arguments);
@@ -73,4 +75,8 @@ public class MessageUtils {
         return getText(problem.getKey(), problem.getArguments());
     }
 
+    public static String getProblemMessage(final Problem problem) {
+        return getText(problem.getKey(), problem.getArguments());
+    }
+
 }
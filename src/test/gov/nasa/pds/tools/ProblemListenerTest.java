@@ -0,0 +1,186 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// • Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// • Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// • Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.tools;
+
+import gov.nasa.pds.tools.constants.Constants.ProblemType;
+import gov.nasa.pds.tools.label.Label;
+import gov.nasa.pds.tools.label.parser.DefaultLabelParser;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * @version $Revision$
+ * 
+ */
+@SuppressWarnings("nls")
+public class ProblemListenerTest extends BaseTestCase {
+
+    private final File labelFile = new File(LABEL_DIR, "attachedPadded.lbl");
+
+    public void testLabelSendsProblems() throws LabelParserException,
+            IOException {
+        final List<Problem> found = new ArrayList<Problem>();
+        final DefaultLabelParser parser = new DefaultLabelParser(RESOLVER);
+        parser.setProblemListener(new ProblemListener() {
+            public void problemFound(final Problem problem) {
+                found.add(problem);
+            }
+        });
+        final Label label = parser.parseLabel(this.labelFile);
+        validate(label);
+
+        assertTrue(label.getProblemRecords().isEmpty());
+        assertEquals(2, found.size());
+        assertEquals(Integer.valueOf(4), found.get(0).getLineNumber());
+        assertEquals(ProblemType.WRONG_LINE_LENGTH, found.get(0).getType());
+        assertEquals(Integer.valueOf(5), found.get(1).getLineNumber());
+    }
+
+    public void testListenerTakesKeptProblems() {
+        final Label label = new Label(this.labelFile);
+        label.addProblem(1, "parser.error.lineTooLong",
+                ProblemType.EXCESSIVE_LINE_LENGTH);
+        final List<Problem> found = new ArrayList<Problem>();
+        label.setProblemListener(new ProblemListener() {
+            public void problemFound(final Problem problem) {
+                found.add(problem);
+            }
+        });
+        assertEquals(1, found.size());
+        assertTrue(label.getProblems().isEmpty());
+    }
+
+    public void testLimits() {
+        final List<Problem> found = new ArrayList<Problem>();
+        final LimitingProblemListener limiter = new LimitingProblemListener(
+                new ProblemListener() {
+                    public void problemFound(final Problem problem) {
+                        found.add(problem);
+                    }
+                }, 5);
+        limiter.setLimit(ProblemType.EXCESSIVE_LINE_LENGTH, 2);
+        for (int i = 0; i < 4; i++) {
+            limiter.problemFound(problem(i, ProblemType.EXCESSIVE_LINE_LENGTH));
+        }
+        assertEquals(2, found.size());
+        assertEquals(2, limiter.getDropped(ProblemType.EXCESSIVE_LINE_LENGTH));
+        assertFalse(limiter.isFull());
+
+        for (int i = 0; i < 4; i++) {
+            limiter.problemFound(problem(i, ProblemType.UNKNOWN_VALUE));
+        }
+        assertEquals(5, found.size());
+        assertEquals(5, limiter.getAccepted());
+        assertEquals(3, limiter.getDropped());
+        assertEquals(1, limiter.getDropped(ProblemType.UNKNOWN_VALUE));
+        assertTrue(limiter.isFull());
+    }
+
+    public void testQueueBlocksWhenFull() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<Problem> found = Collections
+                .synchronizedList(new ArrayList<Problem>());
+        final QueuedProblemListener queue = new QueuedProblemListener(
+                new ProblemListener() {
+                    public void problemFound(final Problem problem) {
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            throw new RuntimeException(e);
+                        }
+                        found.add(problem);
+                    }
+                }, 2);
+        final Thread producer = new Thread() {
+            @Override
+            public void run() {
+                for (int i = 0; i < 10; i++) {
+                    queue.problemFound(problem(i,
+                            ProblemType.EXCESSIVE_LINE_LENGTH));
+                }
+            }
+        };
+        producer.start();
+        // one problem held by the blocked listener and two queued
+        producer.join(200);
+        assertTrue(producer.isAlive());
+        assertEquals(2, queue.getPending());
+
+        release.countDown();
+        producer.join();
+        queue.close();
+        assertEquals(10, found.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(Integer.valueOf(i), found.get(i).getLineNumber());
+        }
+    }
+
+    public void testQueueReportsFailure() {
+        final QueuedProblemListener queue = new QueuedProblemListener(
+                new ProblemListener() {
+                    public void problemFound(final Problem problem) {
+                        throw new IllegalStateException("full");
+                    }
+                }, 2);
+        queue.problemFound(problem(1, ProblemType.EXCESSIVE_LINE_LENGTH));
+        try {
+            queue.close();
+            fail("listener failure not reported");
+        } catch (IllegalStateException e) {
+            assertEquals("full", e.getMessage());
+        }
+    }
+
+    public void testReportWriter() throws IOException {
+        final StringWriter out = new StringWriter();
+        final ProblemReportWriter report = new ProblemReportWriter(out, true);
+        report.problemFound(new Problem(this.labelFile, Integer.valueOf(3),
+                Integer.valueOf(7), "parser.error.lineTooLong",
+                ProblemType.EXCESSIVE_LINE_LENGTH, "79"));
+        report.flush();
+        final String line = out.toString().trim();
+        assertTrue(line, line.startsWith(this.labelFile + ": Line 3, 7: "));
+        assertTrue(line, line.length() > (this.labelFile + ": Line 3, 7: ")
+                .length());
+        assertEquals(1, report.getCount());
+    }
+
+    private Problem problem(final int line, final ProblemType type) {
+        return new Problem(this.labelFile, Integer.valueOf(line), null,
+                "parser.error.lineTooLong", type);
+    }
+}
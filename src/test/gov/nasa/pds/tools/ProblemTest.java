@@ -0,0 +1,104 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// • Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// • Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// • Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.tools;
+
+import gov.nasa.pds.tools.constants.Constants.ProblemType;
+import gov.nasa.pds.tools.label.Label;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * @version $Revision$
+ * 
+ */
+@SuppressWarnings("nls")
+public class ProblemTest extends BaseTestCase {
+
+    private final File labelFile = new File(LABEL_DIR, "test.lbl");
+
+    public void testRecordedWithoutStackTrace() {
+        final Label label = new Label(this.labelFile);
+        label.addProblem(this.labelFile, 12, Integer.valueOf(3),
+                "parser.error.lineTooLong", ProblemType.EXCESSIVE_LINE_LENGTH,
+                Integer.valueOf(90));
+
+        final List<Problem> problems = label.getProblemRecords();
+        assertEquals(1, problems.size());
+        final Problem problem = problems.get(0);
+        assertEquals("parser.error.lineTooLong", problem.getKey());
+        assertEquals(ProblemType.EXCESSIVE_LINE_LENGTH, problem.getType());
+        assertEquals(Integer.valueOf(12), problem.getLineNumber());
+        assertEquals(Integer.valueOf(3), problem.getColumn());
+        assertEquals(this.labelFile, problem.getSourceFile());
+        assertEquals(Integer.valueOf(90), problem.getArguments()[0]);
+
+        final LabelParserException e = label.getProblems().get(0);
+        assertEquals(0, e.getStackTrace().length);
+        assertSame(e, label.getProblems().get(0));
+        assertEquals(problem.getKey(), e.getKey());
+        assertEquals(problem.getLineNumber(), e.getLineNumber());
+        assertEquals(problem.toString(), e.toString());
+    }
+
+    public void testExceptionAdapterWritesThrough() {
+        final Label label = new Label(this.labelFile);
+        final LabelParserException e = new LabelParserException(label, null,
+                null, "parser.warning.sfduPresent",
+                ProblemType.FRAGMENT_HAS_SFDU);
+
+        label.getProblems().add(e);
+        assertEquals(1, label.getProblemRecords().size());
+        assertSame(e, label.getProblemRecords().get(0).toException());
+        assertSame(e, label.getProblems().get(0));
+
+        label.getProblems().remove(0);
+        assertTrue(label.getProblemRecords().isEmpty());
+    }
+
+    public void testFiltersExternalProblems() {
+        final Label label = new Label(this.labelFile);
+        final File other = new File(LABEL_DIR, "other.lbl");
+        label.addProblem(other, new Problem(other, Integer.valueOf(1), null,
+                "parser.error.lineTooLong", ProblemType.EXCESSIVE_LINE_LENGTH));
+        assertTrue(label.getProblems().isEmpty());
+
+        label.addProblem(other, new Problem(other, Integer.valueOf(1), null,
+                "parser.error.circularReference",
+                ProblemType.CIRCULAR_POINTER_REF));
+        assertEquals(1, label.getProblems().size());
+
+        label.setAllowExternalProblems(true);
+        label.addProblem(other, new Problem(other, Integer.valueOf(1), null,
+                "parser.error.lineTooLong", ProblemType.EXCESSIVE_LINE_LENGTH));
+        assertEquals(2, label.getProblems().size());
+    }
+}
@@ -0,0 +1,150 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// • Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// • Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// • Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.tools.dict;
+
+import gov.nasa.pds.tools.BaseTestCase;
+import gov.nasa.pds.tools.LabelParserException;
+import gov.nasa.pds.tools.dict.parser.DictionaryParser;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Map.Entry;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * @version $Revision$
+ * 
+ */
+@SuppressWarnings("nls")
+public class DictionarySnapshotTest extends BaseTestCase {
+
+  private File dir;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    this.dir = Files.createTempDirectory("dictionarysnapshot").toFile();
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    FileUtils.deleteQuietly(this.dir);
+    super.tearDown();
+  }
+
+  private static Dictionary parse(final URL source) throws IOException,
+      LabelParserException, URISyntaxException {
+    final InputStream in = source.openStream();
+    try {
+      return DictionaryParser.parse(in, new Dictionary(source.toURI()),
+          false, false);
+    } finally {
+      in.close();
+    }
+  }
+
+  public void testRoundTrip() throws Exception {
+    final URL source = new File(TEST_DIR, "pdsdd.full").toURI().toURL();
+    final Dictionary parsed = parse(source);
+    final File snapshot = new File(this.dir, "pdsdd.snapshot");
+    DictionarySnapshot.write(parsed, source, snapshot);
+
+    final Dictionary read = DictionarySnapshot.read(snapshot.toURI()
+        .toURL(), source);
+    assertNotNull(read);
+    assertEquals(parsed.getDictionaryURI(), read.getDictionaryURI());
+    assertEquals(parsed.getInformation(), read.getInformation());
+    assertEquals(parsed.getVersion(), read.getVersion());
+    assertEquals(parsed.getUnits(), read.getUnits());
+    assertEquals(parsed.getDefinitions().keySet(), read.getDefinitions()
+        .keySet());
+    for (final Entry<DictIdentifier, Definition> entry : parsed
+        .getDefinitions().entrySet()) {
+      final Definition expected = entry.getValue();
+      final Definition actual = read.getDefinition(entry.getKey());
+      assertSame(expected.getClass(), actual.getClass());
+      assertEquals(expected.getIdentifier(), actual.getIdentifier());
+      assertEquals(expected.getLineNumber(), actual.getLineNumber());
+      assertEquals(expected.getStatusType(), actual.getStatusType());
+      assertEquals(expected.getDescription(), actual.getDescription());
+      assertEquals(expected.getObjectType(), actual.getObjectType());
+      assertEquals(expected.getAliases(), actual.getAliases());
+      assertEquals(expected.getSourceString(), actual.getSourceString());
+      assertSame(read, actual.getSourceDictionary());
+      if (expected instanceof ContainerDefinition) {
+        assertEquals(((ContainerDefinition) expected).getRequired(),
+            ((ContainerDefinition) actual).getRequired());
+        assertEquals(((ContainerDefinition) expected).getOptional(),
+            ((ContainerDefinition) actual).getOptional());
+      } else if (expected instanceof ElementDefinition) {
+        final ElementDefinition element = (ElementDefinition) expected;
+        final ElementDefinition copy = (ElementDefinition) actual;
+        assertEquals(element.getDataType(), copy.getDataType());
+        assertEquals(element.getUnits(), copy.getUnits());
+        assertEquals(element.getValueType(), copy.getValueType());
+        assertEquals(element.hasMinLength(), copy.hasMinLength());
+        assertEquals(element.getMinLength(), copy.getMinLength());
+        assertEquals(element.hasMaxLength(), copy.hasMaxLength());
+        assertEquals(element.getMaxLength(), copy.getMaxLength());
+        assertEquals(element.getMinimum(), copy.getMinimum());
+        assertEquals(element.getMaximum(), copy.getMaximum());
+        assertEquals(new ArrayList<String>(element.getValues()),
+            new ArrayList<String>(copy.getValues()));
+      }
+    }
+    // an alias still leads to the same definition as its identifier
+    final Definition definition = read.getElementDefinition(new DictIdentifier(
+        "RECORD_BYTES", ElementDefinition.class));
+    assertNotNull(definition);
+    for (final Alias alias : definition.getAliases()) {
+      assertSame(definition, read.getDefinition(new DictIdentifier(alias,
+          ElementDefinition.class)));
+    }
+  }
+
+  public void testStale() throws Exception {
+    final File sourceFile = new File(this.dir, "copy.full");
+    FileUtils.copyFile(new File(TEST_DIR, "pdsdd.full"), sourceFile);
+    final URL source = sourceFile.toURI().toURL();
+    final File snapshot = new File(this.dir, "pdsdd.snapshot");
+    DictionarySnapshot.write(parse(source), source, snapshot);
+    assertNotNull(DictionarySnapshot.read(snapshot.toURI().toURL(), source));
+
+    FileUtils.writeStringToFile(sourceFile, "\r\n", "US-ASCII", true);
+    assertNull(DictionarySnapshot.read(snapshot.toURI().toURL(), source));
+  }
+}
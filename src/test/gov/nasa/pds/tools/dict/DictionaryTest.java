@@ -36,8 +36,12 @@ import gov.nasa.pds.tools.constants.Constants.DictionaryType;
 import gov.nasa.pds.tools.dict.parser.DictIDFactory;
 import gov.nasa.pds.tools.dict.parser.DictionaryParser;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
@@ -182,4 +186,26 @@ public class DictionaryTest extends BaseTestCase {
     dictionary.merge(testDictionary);
     assertEquals("test unit", dictionary.getUnits().get("test-unit"));
   }
+
+  public void testIdentifiersShared() throws Exception {
+    final DictIdentifier id = DictIDFactory.createElementDefId("TARGET_NAME");
+    assertSame(id, DictIDFactory.createElementDefId("TARGET_NAME"));
+    assertSame(id, DictIDFactory.createDefId("TARGET_NAME",
+        ElementDefinition.class));
+    assertNotSame(id, DictIDFactory.createObjectDefId("TARGET_NAME"));
+    assertFalse(id.equals(DictIDFactory.createObjectDefId("TARGET_NAME")));
+    assertFalse(id.equals("TARGET_NAME"));
+    assertEquals(id, new DictIdentifier("TARGET_NAME", ElementDefinition.class));
+    assertEquals(id.hashCode(), new DictIdentifier("TARGET_NAME",
+        ElementDefinition.class).hashCode());
+
+    // deserialized identifiers resolve to the shared instance
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    final ObjectOutputStream out = new ObjectOutputStream(bytes);
+    out.writeObject(id);
+    out.close();
+    final ObjectInputStream in = new ObjectInputStream(
+        new ByteArrayInputStream(bytes.toByteArray()));
+    assertSame(id, in.readObject());
+  }
 }
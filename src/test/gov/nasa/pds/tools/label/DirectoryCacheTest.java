@@ -0,0 +1,124 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// • Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// • Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// • Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.tools.label;
+
+import gov.nasa.pds.tools.BaseTestCase;
+import gov.nasa.pds.tools.LabelParserException;
+import gov.nasa.pds.tools.containers.VolumeContainerSimple;
+import gov.nasa.pds.tools.label.parser.DefaultLabelParser;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * @version $Revision$
+ * 
+ */
+@SuppressWarnings("nls")
+public class DirectoryCacheTest extends BaseTestCase {
+
+    private File dir;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        this.dir = Files.createTempDirectory("directorycache").toFile();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        FileUtils.deleteQuietly(this.dir);
+        super.tearDown();
+    }
+
+    public void testExactCase() throws IOException {
+        new File(this.dir, "UPPER.FMT").createNewFile();
+        new File(this.dir, "lower.fmt").createNewFile();
+        final DirectoryCache cache = new DirectoryCache();
+
+        assertTrue(cache.exists(new File(this.dir, "UPPER.FMT")));
+        assertFalse(cache.exists(new File(this.dir, "upper.fmt")));
+        assertTrue(cache.exists(new File(this.dir, "lower.fmt")));
+        assertFalse(cache.exists(new File(this.dir, "missing.fmt")));
+        assertFalse(cache.exists(new File(new File(this.dir, "missing"),
+                "lower.fmt")));
+        assertEquals(new File(this.dir, "UPPER.FMT"), cache
+                .getCaseUnknownFile(this.dir, "upper.fmt"));
+        assertEquals("UPPER.FMT", cache.getNamesIgnoreCase(this.dir,
+                "Upper.Fmt")[0]);
+        assertEquals(0, cache.getNamesIgnoreCase(this.dir, "none").length);
+        assertEquals(2, cache.size());
+
+        // listings are kept until invalidated
+        new File(this.dir, "added.fmt").createNewFile();
+        assertFalse(cache.exists(new File(this.dir, "added.fmt")));
+        cache.invalidate(this.dir);
+        assertTrue(cache.exists(new File(this.dir, "added.fmt")));
+    }
+
+    public void testResolvesLikeUncached() throws LabelParserException,
+            IOException {
+        final File labelDir = new File(this.dir, "label");
+        labelDir.mkdir();
+        FileUtils.writeStringToFile(new File(labelDir, "COLUMN.FMT"),
+                "OBJECT = COLUMN\r\n  NAME = FIRST\r\nEND_OBJECT = COLUMN\r\n",
+                "US-ASCII");
+        final File dataDir = new File(this.dir, "DATA");
+        dataDir.mkdir();
+        final File labelFile = new File(dataDir, "table.lbl");
+        FileUtils.writeStringToFile(labelFile, "PDS_VERSION_ID = PDS3\r\n"
+                + "^STRUCTURE = \"column.fmt\"\r\nEND\r\n", "US-ASCII");
+
+        final DirectoryCache cache = new DirectoryCache();
+        final VolumeContainerSimple volume = new VolumeContainerSimple(
+                this.dir, cache);
+        assertEquals(labelDir, volume.getLabelFolder());
+        assertEquals(new VolumeContainerSimple(this.dir).getLabelFolder(),
+                volume.getLabelFolder());
+
+        final StandardPathResolver resolver = new StandardPathResolver();
+        resolver.setVolumeContext(volume);
+        resolver.setDirectoryCache(cache);
+        final Label label = new DefaultLabelParser(resolver)
+                .parseLabel(labelFile);
+        assertEquals(1, label.getObjects("COLUMN").size());
+
+        final StandardPathResolver uncached = new StandardPathResolver();
+        uncached.setVolumeContext(new VolumeContainerSimple(this.dir));
+        assertEquals(uncached.resolveFiles(label.getPointers().get(0)),
+                resolver.resolveFiles(label.getPointers().get(0)));
+        // volume root, data and label folders
+        assertEquals(3, cache.size());
+    }
+}
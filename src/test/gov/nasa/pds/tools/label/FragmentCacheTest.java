@@ -0,0 +1,149 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// • Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// • Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// • Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.tools.label;
+
+import gov.nasa.pds.tools.BaseTestCase;
+import gov.nasa.pds.tools.LabelParserException;
+import gov.nasa.pds.tools.constants.Constants.ProblemType;
+import gov.nasa.pds.tools.label.parser.DefaultLabelParser;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * @version $Revision$
+ * 
+ */
+@SuppressWarnings("nls")
+public class FragmentCacheTest extends BaseTestCase {
+
+    private File dir;
+
+    private FragmentCache cache;
+
+    private DefaultLabelParser parser;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        this.dir = Files.createTempDirectory("fragmentcache").toFile();
+        this.cache = new FragmentCache();
+        final StandardPathResolver resolver = new StandardPathResolver();
+        resolver.setFragmentCache(this.cache);
+        this.parser = new DefaultLabelParser(true, true, true, resolver);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        FileUtils.deleteQuietly(this.dir);
+        super.tearDown();
+    }
+
+    private File write(final String name, final String contents)
+            throws IOException {
+        final File file = new File(this.dir, name);
+        FileUtils.writeStringToFile(file, contents, "US-ASCII");
+        return file;
+    }
+
+    private File writeLabel(final String name) throws IOException {
+        return write(name, "PDS_VERSION_ID = PDS3\r\n"
+                + "^STRUCTURE = \"column.fmt\"\r\nEND\r\n");
+    }
+
+    public void testSharedBetweenLabels() throws LabelParserException,
+            IOException {
+        write("column.fmt", "PDS_VERSION_ID = PDS3\r\nOBJECT = COLUMN\r\n"
+                + "  NAME = FIRST\r\nEND_OBJECT = COLUMN\r\n");
+        final Label first = this.parser.parseLabel(writeLabel("first.lbl"));
+        final Label second = this.parser.parseLabel(writeLabel("second.lbl"));
+        assertEquals(1, this.cache.getHits());
+        assertEquals(1, this.cache.getMisses());
+
+        assertEquals(1, second.getObjects("COLUMN").size());
+        assertSame(first.getObjects("COLUMN").get(0), second.getObjects(
+                "COLUMN").get(0));
+        assertEquals("FIRST", second.getObjects("COLUMN").get(0).getAttribute(
+                "NAME").getValue().toString());
+
+        // each label is told about the fragment's problems
+        assertHasProblem(first, ProblemType.FRAGMENT_HAS_VERSION);
+        assertHasProblem(second, ProblemType.FRAGMENT_HAS_VERSION);
+        assertEquals(first.getProblems().size(), second.getProblems().size());
+
+        // labels that don't take external problems don't get them
+        final StandardPathResolver resolver = new StandardPathResolver();
+        resolver.setFragmentCache(this.cache);
+        final Label quiet = new DefaultLabelParser(resolver)
+                .parseLabel(writeLabel("quiet.lbl"));
+        assertDoesntHaveProblem(quiet, ProblemType.FRAGMENT_HAS_VERSION);
+        assertEquals(1, quiet.getObjects("COLUMN").size());
+    }
+
+    public void testChangedFragmentReparsed() throws LabelParserException,
+            IOException {
+        final File fragment = write("column.fmt", "OBJECT = COLUMN\r\n"
+                + "  NAME = FIRST\r\nEND_OBJECT = COLUMN\r\n");
+        final File label = writeLabel("first.lbl");
+        this.parser.parseLabel(label);
+
+        write("column.fmt", "OBJECT = COLUMN\r\n"
+                + "  NAME = SECOND\r\nEND_OBJECT = COLUMN\r\n");
+        fragment.setLastModified(fragment.lastModified() + 2000);
+        final Label changed = this.parser.parseLabel(label);
+        assertEquals(0, this.cache.getHits());
+        assertEquals("SECOND", changed.getObjects("COLUMN").get(0)
+                .getAttribute("NAME").getValue().toString());
+        assertEquals(1, this.cache.size());
+    }
+
+    public void testCircularReferences() throws LabelParserException,
+            IOException {
+        final StandardPathResolver resolver = new StandardPathResolver();
+        resolver.setFragmentCache(this.cache);
+        final DefaultLabelParser cached = new DefaultLabelParser(resolver);
+        for (int i = 0; i < 2; i++) {
+            final Label label = cached.parseLabel(new File(LABEL_DIR,
+                    "circular1.lbl"));
+            assertHasProblem(label, ProblemType.CIRCULAR_POINTER_REF);
+            assertEquals(1, label.getProblems().size());
+        }
+        for (int i = 0; i < 2; i++) {
+            final Label label = cached.parseLabel(new File(LABEL_DIR,
+                    "selfpointer.lbl"));
+            assertHasProblem(label, ProblemType.CIRCULAR_POINTER_REF);
+            assertEquals(1, label.getProblems().size());
+        }
+    }
+}
@@ -34,8 +34,17 @@ import gov.nasa.pds.tools.BaseTestCase;
 import gov.nasa.pds.tools.LabelParserException;
 import gov.nasa.pds.tools.constants.Constants.ProblemType;
 
+import gov.nasa.pds.tools.label.parser.DefaultLabelParser;
+
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.io.FileUtils;
 
 /**
  * @author pramirez
@@ -74,4 +83,51 @@ public class IncludePointerTest extends BaseTestCase {
         assertDoesntHaveProblem(label, ProblemType.EXCESSIVE_VALUE_LENGTH);
         assertEquals(0, label.getProblems().size());
     }
+
+    public void testParallelTargetsKeepOrder() throws LabelParserException,
+            IOException {
+        final File dir = Files.createTempDirectory("include").toFile();
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final String[] names = { "A", "B", "C", "D", "E" };
+            final StringBuilder set = new StringBuilder();
+            for (final String name : names) {
+                FileUtils.writeStringToFile(new File(dir, name + ".fmt"),
+                        "OBJECT = COLUMN\r\n  NAME = " + name
+                                + "\r\nEND_OBJECT = COLUMN\r\n",
+                        "US-ASCII");
+                set.append(set.length() == 0 ? "" : ", ").append(
+                        "\"" + name + ".fmt\"");
+            }
+            final File labelFile = new File(dir, "set.lbl");
+            FileUtils.writeStringToFile(labelFile, "PDS_VERSION_ID = PDS3\r\n"
+                    + "^STRUCTURE = {" + set + "}\r\n"
+                    + "^STRUCTURE = \"missing.fmt\"\r\nEND\r\n",
+                    "US-ASCII");
+
+            final StandardPathResolver resolver = new StandardPathResolver();
+            resolver.setIncludeExecutor(executor);
+            final Label parallel = new DefaultLabelParser(resolver)
+                    .parseLabel(labelFile);
+            final Label sequential = PARSER.parseLabel(labelFile);
+            assertEquals(names.length, parallel.getObjects("COLUMN").size());
+            assertEquals(columnNames(sequential), columnNames(parallel));
+            for (int i = 0; i < names.length; i++) {
+                assertEquals(names[i], columnNames(parallel).get(i));
+            }
+            assertEquals(sequential.getProblems().size(), parallel
+                    .getProblems().size());
+        } finally {
+            executor.shutdownNow();
+            FileUtils.deleteQuietly(dir);
+        }
+    }
+
+    private static List<String> columnNames(final Label label) {
+        final List<String> names = new ArrayList<String>();
+        for (final ObjectStatement column : label.getObjects("COLUMN")) {
+            names.add(column.getAttribute("NAME").getValue().toString());
+        }
+        return names;
+    }
 }
@@ -0,0 +1,113 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.tools.label;
+
+import gov.nasa.pds.tools.LabelParserException;
+import gov.nasa.pds.tools.label.parser.DefaultLabelParser;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Compares reading a label back with {@link LabelCodec} against parsing the
+ * ODL text again. Not run as part of the test suite, run the main method
+ * directly. Optional arguments are the synthetic label size in MB and the
+ * number of timed passes.
+ * 
+ * @version $Revision$
+ * 
+ */
+@SuppressWarnings("nls")
+public class LabelCodecBenchmark {
+
+  public static void main(String[] args) throws IOException, LabelParserException {
+    final int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+    final int passes = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+    final Path path = Files.createTempFile("benchmark", ".lbl");
+    try {
+      Files.write(path, createLabel(megabytes * 1024 * 1024));
+      final DefaultLabelParser parser = new DefaultLabelParser(new StandardPathResolver());
+      final Label label = parser.parseLabel(path.toFile());
+      final ByteArrayOutputStream out = new ByteArrayOutputStream();
+      LabelCodec.encode(label, out);
+      final byte[] encoded = out.toByteArray();
+      System.out.println("Label of " + Files.size(path) + " bytes, encoded in "
+          + encoded.length + " bytes");
+
+      long parseNanos = Long.MAX_VALUE;
+      long encodeNanos = Long.MAX_VALUE;
+      long decodeNanos = Long.MAX_VALUE;
+      for (int i = 0; i < passes; i++) {
+        long start = System.nanoTime();
+        parser.parseLabel(path.toFile());
+        parseNanos = Math.min(parseNanos, System.nanoTime() - start);
+        start = System.nanoTime();
+        LabelCodec.encode(label, new ByteArrayOutputStream(encoded.length));
+        encodeNanos = Math.min(encodeNanos, System.nanoTime() - start);
+        start = System.nanoTime();
+        LabelCodec.decode(new ByteArrayInputStream(encoded));
+        decodeNanos = Math.min(decodeNanos, System.nanoTime() - start);
+      }
+      System.out.println("parse:  " + parseNanos / 1000000 + " ms");
+      System.out.println("encode: " + encodeNanos / 1000000 + " ms");
+      System.out.println("decode: " + decodeNanos / 1000000 + " ms");
+    } finally {
+      Files.delete(path);
+    }
+  }
+
+  private static byte[] createLabel(final int size) throws IOException {
+    final StringBuilder sb = new StringBuilder(size + 4096);
+    sb.append("PDS_VERSION_ID = PDS3\r\n");
+    sb.append("RECORD_TYPE = FIXED_LENGTH\r\n");
+    sb.append("^TABLE = (\"TABLE.DAT\", 2)\r\n");
+    int i = 0;
+    while (sb.length() < size) {
+      sb.append("/* column ").append(i).append(" */\r\n");
+      sb.append("OBJECT = COLUMN\r\n");
+      sb.append("  NAME = \"COLUMN_").append(i).append("\"\r\n");
+      sb.append("  DATA_TYPE = ASCII_REAL\r\n");
+      sb.append("  START_BYTE = ").append(i * 8 + 1).append("\r\n");
+      sb.append("  BYTES = 8\r\n");
+      sb.append("  VALID_RANGE = (-1.5E3, 2.25)\r\n");
+      sb.append("  START_TIME = 2001-01-01T12:00:00.000Z\r\n");
+      sb.append("  UNIT = 'KM/S'\r\n");
+      sb.append("  SCALING_FACTOR = 0.5 <KM>\r\n");
+      sb.append("END_OBJECT = COLUMN\r\n");
+      i++;
+    }
+    sb.append("END\r\n");
+    return sb.toString().getBytes("US-ASCII");
+  }
+}
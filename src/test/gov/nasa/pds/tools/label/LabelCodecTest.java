@@ -0,0 +1,214 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.tools.label;
+
+import gov.nasa.pds.tools.BaseTestCase;
+import gov.nasa.pds.tools.LabelParserException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * @version $Revision$
+ * 
+ */
+@SuppressWarnings("nls")
+public class LabelCodecTest extends BaseTestCase {
+
+    public void testRoundTrip() throws IOException {
+        for (final File file : LABEL_DIR.listFiles()) {
+            if (!file.isFile()) {
+                continue;
+            }
+            final Label label;
+            try {
+                label = PARSER.parseLabel(file);
+            } catch (LabelParserException e) {
+                continue;
+            }
+            assertEquals(file.getName(), describe(label),
+                    describe(decode(encode(label))));
+        }
+    }
+
+    public void testValueTypes() throws LabelParserException, IOException {
+        final File testFile = File.createTempFile("codec", ".lbl");
+        testFile.deleteOnExit();
+        Files.write(testFile.toPath(), ("PDS_VERSION_ID = PDS3\r\n"
+                + "SCALE = 0.5 <KM> /* scaled */\r\n"
+                + "MASK = 16#FF00#\r\n" + "NAME = \"TEXT\"\r\n"
+                + "UNIT = 'KM/S'\r\n" + "TYPE = REAL\r\n"
+                + "START_TIME = 2001-01-01T12:00:00.000Z\r\n"
+                + "RANGE = ((1, 2), (3, 4))\r\n" + "FLAGS = {A, B}\r\n" + "END\r\n")
+                .getBytes("US-ASCII"));
+        final Label parsed = PARSER.parseLabel(testFile);
+        final Label label = decode(encode(parsed));
+
+        final Numeric scale = (Numeric) label.getAttribute("SCALE").getValue();
+        assertEquals("0.5", scale.getValue());
+        assertEquals("KM", scale.getUnits());
+        assertEquals(((Numeric) parsed.getAttribute("MASK").getValue())
+                .getRadix(), ((Numeric) label.getAttribute("MASK").getValue())
+                .getRadix());
+        assertEquals("TEXT", ((TextString) label.getAttribute("NAME")
+                .getValue()).getValue());
+        assertEquals("KM/S", ((Symbol) label.getAttribute("UNIT").getValue())
+                .getValue());
+        assertEquals(ValueType.SINGLE_QUOTED, ((Symbol) label.getAttribute(
+                "UNIT").getValue()).getValueType());
+        assertTrue(label.getAttribute("TYPE").getValue() instanceof Symbol);
+        final DateTime time = (DateTime) label.getAttribute("START_TIME")
+                .getValue();
+        assertNotNull(time.getDate());
+        final Sequence range = (Sequence) label.getAttribute("RANGE")
+                .getValue();
+        assertEquals(2, range.size());
+        assertTrue(range.get(1) instanceof Sequence);
+        assertEquals(2, ((Set) label.getAttribute("FLAGS").getValue()).size());
+        assertEquals("/* scaled */", label.getAttribute("SCALE").getComment()
+                .getText());
+    }
+
+    public void testRepeatedStringsWrittenOnce() throws IOException {
+        final Label label = new Label(new File("repeated.lbl"));
+        for (int i = 0; i < 1000; i++) {
+            label.addStatement(new AttributeStatement(label, i + 1,
+                    "DESCRIPTION", new TextString(
+                            "A description long enough to notice twice")));
+        }
+        final byte[] encoded = encode(label);
+        final String text = new String(encoded, "ISO-8859-1");
+        assertEquals(text.indexOf("DESCRIPTION"), text
+                .lastIndexOf("DESCRIPTION"));
+        assertEquals(text.indexOf("long enough"), text
+                .lastIndexOf("long enough"));
+        assertEquals(1000, decode(encoded).getStatements().size());
+    }
+
+    public void testRejectsOtherVersion() throws IOException {
+        final byte[] encoded = encode(new Label(new File("empty.lbl")));
+        encoded[7]++;
+        try {
+            decode(encoded);
+            fail("Expected the version to be rejected");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("version"));
+        }
+    }
+
+    private byte[] encode(final Label label) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        LabelCodec.encode(label, out);
+        return out.toByteArray();
+    }
+
+    private Label decode(final byte[] encoded) throws IOException {
+        return LabelCodec.decode(new ByteArrayInputStream(encoded));
+    }
+
+    private String describe(final Label label) {
+        final StringBuilder sb = new StringBuilder();
+        sb.append(label.isValid()).append(' ').append(
+                label.hasEndStatement()).append('\n');
+        if (label.hasAttachedContent()) {
+            sb.append(label.getAttachedStartByte()).append('\n');
+        }
+        for (final LabelParserException problem : label.getProblems()) {
+            sb.append(problem.getKey()).append(' ').append(problem.getType())
+                    .append(' ').append(problem.getLineNumber()).append(' ')
+                    .append(problem.getColumn()).append(' ').append(
+                            problem.getSourceFile()).append('\n');
+        }
+        for (final Label.LineLength length : label.getLineLengths()) {
+            sb.append(length.getLine()).append(':').append(length.getLength())
+                    .append(' ');
+        }
+        describe(label.getStatements(), 0, sb);
+        return sb.toString();
+    }
+
+    // includes are followed to a fixed depth since they may be circular
+    private void describe(final List<Statement> statements, final int depth,
+            final StringBuilder sb) {
+        for (final Statement statement : statements) {
+            sb.append('\n').append(statement.getClass().getSimpleName())
+                    .append(' ').append(statement.getLineNumber()).append(' ')
+                    .append(statement.getSourceFile()).append(' ').append(
+                            statement);
+            if (statement.getComment() != null) {
+                sb.append(' ').append(statement.getComment().getText());
+            }
+            if (statement instanceof AttributeStatement) {
+                describe(((AttributeStatement) statement).getValue(), sb);
+            } else if (statement instanceof PointerStatement) {
+                describe(((PointerStatement) statement).getValue(), sb);
+            }
+            if (statement instanceof IncludePointer && depth < 4) {
+                describe(((IncludePointer) statement).getStatements(),
+                        depth + 1, sb);
+            } else if (statement instanceof ObjectStatement) {
+                describe(((ObjectStatement) statement).getStatements(), depth,
+                        sb);
+            } else if (statement instanceof GroupStatement) {
+                describe(((GroupStatement) statement).getStatements(), depth,
+                        sb);
+            }
+        }
+    }
+
+    private void describe(final Value value, final StringBuilder sb) {
+        if (value == null) {
+            return;
+        }
+        sb.append(' ').append(value.getClass().getSimpleName());
+        if (value instanceof Scalar) {
+            sb.append(':').append(((Scalar) value).getValueType());
+        }
+        if (value instanceof Numeric) {
+            sb.append(':').append(((Numeric) value).getUnits()).append(':')
+                    .append(((Numeric) value).getRadix());
+        } else if (value instanceof DateTime) {
+            sb.append(':').append(((DateTime) value).getDate());
+        } else if (value instanceof Sequence) {
+            for (final Value element : (Sequence) value) {
+                describe(element, sb);
+            }
+        } else if (value instanceof Set) {
+            for (final Value element : (Set) value) {
+                describe(element, sb);
+            }
+        }
+    }
+}
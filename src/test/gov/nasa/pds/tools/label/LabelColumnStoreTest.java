@@ -0,0 +1,184 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// • Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// • Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// • Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.tools.label;
+
+import gov.nasa.pds.tools.BaseTestCase;
+import gov.nasa.pds.tools.LabelParserException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * @version $Revision$
+ * 
+ */
+@SuppressWarnings("nls")
+public class LabelColumnStoreTest extends BaseTestCase {
+
+    private File[] files;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        this.files = new File[] { createLabel("CAM", 512, "X"),
+                createLabel("CAM", 1024, "Y"), createLabel("SPEC", 16, "Z") };
+    }
+
+    private File createLabel(final String instrument, final int lines,
+            final String column) throws IOException {
+        final File file = File.createTempFile("columns", ".lbl");
+        file.deleteOnExit();
+        Files.write(file.toPath(), ("PDS_VERSION_ID = PDS3\r\n"
+                + "INSTRUMENT_ID = \"" + instrument + "\"\r\n"
+                + "^IMAGE = \"IMAGE.IMG\"\r\n" + "OBJECT = IMAGE\r\n"
+                + "  LINES = " + lines + "\r\n"
+                + "  SAMPLE_TYPE = MSB_INTEGER\r\n" + "END_OBJECT = IMAGE\r\n"
+                + "OBJECT = TABLE\r\n" + "  OBJECT = COLUMN\r\n"
+                + "    NAME = TIME\r\n" + "  END_OBJECT = COLUMN\r\n"
+                + "  OBJECT = COLUMN\r\n" + "    NAME = " + column + "\r\n"
+                + "  END_OBJECT = COLUMN\r\n" + "END_OBJECT = TABLE\r\n"
+                + "END\r\n").getBytes("US-ASCII"));
+        return file;
+    }
+
+    public void testColumns() throws LabelParserException, IOException {
+        final LabelColumnStore store = new LabelColumnStore();
+        for (final File file : this.files) {
+            store.add(PARSER.parseLabel(file));
+        }
+        assertEquals(3, store.getRowCount());
+        assertEquals(this.files[1].toString(), store.getSource(1));
+        assertEquals(Arrays.asList("PDS_VERSION_ID", "INSTRUMENT_ID",
+                "^IMAGE", "IMAGE.LINES", "IMAGE.SAMPLE_TYPE",
+                "TABLE.COLUMN.NAME"), store.getKeywords());
+
+        final LabelColumnStore.Column lines = store.getColumn("IMAGE.LINES");
+        assertEquals(3, lines.size());
+        assertTrue(lines.isNumber(0));
+        assertEquals(1024.0, lines.getNumber(1), 0);
+        assertEquals("1024", lines.getString(1));
+        assertEquals(16.0, lines.min(), 0);
+        assertEquals(1024.0, lines.max(), 0);
+        assertTrue(Arrays.equals(new int[] { 0, 1 }, lines.rowsBetween(500,
+                2000)));
+
+        final LabelColumnStore.Column names = store
+                .getColumn("TABLE.COLUMN.NAME");
+        assertEquals(6, names.size());
+        assertFalse(names.isNumber(0));
+        assertTrue(Double.isNaN(names.getNumber(0)));
+        final Map<String, Integer> counts = names.countByValue();
+        assertEquals("TIME", counts.keySet().iterator().next());
+        assertEquals(Integer.valueOf(3), counts.get("TIME"));
+        assertEquals(Integer.valueOf(1), counts.get("Y"));
+        assertTrue(Arrays.equals(new int[] { 0, 1, 2 }, names
+                .rowsEqualTo("TIME")));
+        assertTrue(Arrays.equals(new int[] { 2 }, names.rowsEqualTo("Z")));
+        assertEquals(0, names.rowsEqualTo("MISSING").length);
+
+        // repeated values are held once
+        assertEquals(1, store.getColumn("IMAGE.SAMPLE_TYPE").countByValue()
+                .size());
+        assertNull(store.getColumn("IMAGE.BANDS"));
+    }
+
+    public void testSummarize() throws LabelParserException, IOException {
+        final LabelColumnStore store = new LabelColumnStore();
+        for (final File file : this.files) {
+            store.add(PARSER.parseLabel(file));
+        }
+        final Map<String, LabelColumnStore.Summary> summaries = store
+                .summarize("INSTRUMENT_ID", "IMAGE.LINES");
+        assertEquals(Arrays.asList("CAM", "SPEC"), Arrays.asList(summaries
+                .keySet().toArray()));
+        final LabelColumnStore.Summary cam = summaries.get("CAM");
+        assertEquals(2, cam.getCount());
+        assertEquals(512.0, cam.getMin(), 0);
+        assertEquals(1024.0, cam.getMax(), 0);
+        assertEquals(768.0, cam.getMean(), 0);
+        assertEquals(1, summaries.get("SPEC").getCount());
+        assertTrue(store.summarize("INSTRUMENT_ID", "IMAGE.BANDS").isEmpty());
+    }
+
+    public void testEventsMatchLabels() throws LabelParserException,
+            IOException {
+        final LabelColumnStore fromLabels = new LabelColumnStore();
+        final LabelColumnStore fromEvents = new LabelColumnStore();
+        for (final File file : this.files) {
+            fromLabels.add(PARSER.parseLabel(file));
+            fromEvents.add(file.toPath(), PARSER);
+        }
+        assertEquals(fromLabels.getKeywords(), fromEvents.getKeywords());
+        for (final String keyword : fromLabels.getKeywords()) {
+            final LabelColumnStore.Column expected = fromLabels
+                    .getColumn(keyword);
+            final LabelColumnStore.Column actual = fromEvents
+                    .getColumn(keyword);
+            assertEquals(keyword, expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(keyword, expected.getRow(i), actual.getRow(i));
+                assertEquals(keyword, expected.getString(i), actual
+                        .getString(i));
+            }
+        }
+    }
+
+    public void testMissingSequenceElement() throws LabelParserException,
+            IOException {
+        // the malformed date is left as a null element of the sequence
+        final File file = File.createTempFile("columns", ".lbl");
+        file.deleteOnExit();
+        Files.write(file.toPath(), ("PDS_VERSION_ID = PDS3\r\n"
+                + "INSTRUMENT_ID = \"CAM\"\r\n"
+                + "MRO:LOOKUP_CONVERSION_TABLE = ((0, 1008), (1009, 1025), "
+                + "(1026, 2009-01-01T00:00:0099))\r\n"
+                + "START_TIMES = (2009-01-01T00:00:00, "
+                + "2009-01-01T00:00:0099)\r\n"
+                + "END\r\n").getBytes("US-ASCII"));
+
+        final LabelColumnStore fromLabels = new LabelColumnStore();
+        assertEquals(0, fromLabels.add(PARSER.parseLabel(file)));
+        fromLabels.add(PARSER.parseLabel(this.files[0]));
+        final LabelColumnStore fromEvents = new LabelColumnStore();
+        assertEquals(0, fromEvents.add(file.toPath(), PARSER));
+        fromEvents.add(this.files[0].toPath(), PARSER);
+        for (final LabelColumnStore store : Arrays.asList(fromLabels,
+                fromEvents)) {
+            assertEquals(2, store.getRowCount());
+            assertEquals(2, store.getColumn("INSTRUMENT_ID").size());
+            assertNull(store.getColumn("MRO:LOOKUP_CONVERSION_TABLE"));
+            assertNull(store.getColumn("START_TIMES"));
+        }
+    }
+}
@@ -0,0 +1,124 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// • Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// • Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// • Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.tools.label;
+
+import gov.nasa.pds.tools.LabelParserException;
+import gov.nasa.pds.tools.label.parser.DefaultLabelParser;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures the heap retained by parsed labels. Every label in the test data
+ * is parsed a number of times and the results held while the heap is
+ * measured. Not run as part of the test suite, run the main method directly.
+ * Optional arguments are the directory of labels and the number of copies of
+ * each label to hold.
+ * 
+ * @version $Revision$
+ * 
+ */
+@SuppressWarnings("nls")
+public class LabelFootprintBenchmark {
+
+  public static void main(String[] args) throws IOException {
+    final File dir = new File(args.length > 0 ? args[0] : "src/test-data");
+    final int copies = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+    final List<File> files = new ArrayList<File>();
+    findLabels(dir, files);
+    final DefaultLabelParser parser = new DefaultLabelParser(false, true,
+        null);
+
+    final List<Label> labels = new ArrayList<Label>();
+    final long before = usedHeap();
+    long statements = 0;
+    for (int i = 0; i < copies; i++) {
+      for (final File file : files) {
+        try {
+          final Label label = parser.parseLabel(file);
+          labels.add(label);
+          statements += count(label.getStatements());
+        } catch (LabelParserException e) {
+          // not a label, skip
+        }
+      }
+    }
+    final long retained = usedHeap() - before;
+    System.out.println(labels.size() + " labels, " + statements
+        + " statements");
+    System.out.println("retained: " + retained / 1024 + " KB");
+    System.out.println("per label: " + retained / labels.size() + " bytes");
+    System.out.println("per statement: " + retained / statements + " bytes");
+  }
+
+  private static long count(final List<? extends Statement> statements) {
+    long count = statements.size();
+    for (final Statement statement : statements) {
+      if (statement instanceof ObjectStatement) {
+        count += count(((ObjectStatement) statement).getStatements());
+      } else if (statement instanceof GroupStatement) {
+        count += count(((GroupStatement) statement).getStatements());
+      }
+    }
+    return count;
+  }
+
+  private static void findLabels(final File dir, final List<File> files) {
+    final File[] children = dir.listFiles();
+    if (children == null) {
+      return;
+    }
+    for (final File child : children) {
+      if (child.isDirectory()) {
+        findLabels(child, files);
+      } else if (child.getName().toLowerCase().endsWith(".lbl")) {
+        files.add(child);
+      }
+    }
+  }
+
+  private static long usedHeap() {
+    final Runtime runtime = Runtime.getRuntime();
+    long used = Long.MAX_VALUE;
+    for (int i = 0; i < 5; i++) {
+      System.gc();
+      try {
+        Thread.sleep(100);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+    }
+    return used;
+  }
+}
@@ -0,0 +1,162 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.tools.label;
+
+import gov.nasa.pds.tools.BaseTestCase;
+import gov.nasa.pds.tools.LabelParserException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @version $Revision$
+ * 
+ */
+@SuppressWarnings("nls")
+public class LabelQueryTest extends BaseTestCase {
+
+    private Label label;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        final File testFile = File.createTempFile("query", ".lbl");
+        testFile.deleteOnExit();
+        Files.write(testFile.toPath(), ("PDS_VERSION_ID = PDS3\r\n"
+                + "^IMAGE = (\"IMAGE.IMG\", 3)\r\n"
+                + "^TABLE = \"TABLE.TAB\"\r\n"
+                + "OBJECT = IMAGE\r\n" + "  LINE_SAMPLES = 512\r\n"
+                + "END_OBJECT = IMAGE\r\n"
+                + "OBJECT = TABLE\r\n" + "  OBJECT = COLUMN\r\n"
+                + "    NAME = X\r\n" + "    START_BYTE = 1\r\n"
+                + "  END_OBJECT = COLUMN\r\n" + "  OBJECT = COLUMN\r\n"
+                + "    NAME = \"Y\"\r\n" + "    START_BYTE = 9\r\n"
+                + "  END_OBJECT = COLUMN\r\n" + "END_OBJECT = TABLE\r\n"
+                + "OBJECT = TABLE\r\n" + "  OBJECT = COLUMN\r\n"
+                + "    NAME = X\r\n" + "    START_BYTE = 17\r\n"
+                + "  END_OBJECT = COLUMN\r\n" + "END_OBJECT = TABLE\r\n"
+                + "GROUP = PARAMETERS\r\n" + "  GAIN = 2\r\n"
+                + "END_GROUP = PARAMETERS\r\n" + "END\r\n")
+                .getBytes("US-ASCII"));
+        this.label = PARSER.parseLabel(testFile);
+    }
+
+    public void testAttributes() {
+        assertEquals(Arrays.asList("512"), values("IMAGE.LINE_SAMPLES"));
+        assertEquals(Arrays.asList("PDS3"), values("PDS_VERSION_ID"));
+        assertEquals(Arrays.asList("2"), values("PARAMETERS.GAIN"));
+        assertEquals(Arrays.asList("1", "9", "17"),
+                values("TABLE.COLUMN.START_BYTE"));
+        assertTrue(values("IMAGE.MISSING").isEmpty());
+        assertTrue(values("MISSING.LINE_SAMPLES").isEmpty());
+    }
+
+    public void testPredicates() {
+        assertEquals(Arrays.asList("1", "17"),
+                values("TABLE[*].COLUMN[NAME='X'].START_BYTE"));
+        assertEquals(Arrays.asList("9"),
+                values("TABLE.COLUMN[NAME=\"Y\"].START_BYTE"));
+        assertEquals(Arrays.asList("17"),
+                values("TABLE[1].COLUMN[NAME = X].START_BYTE"));
+        assertEquals(Arrays.asList("9"),
+                values("TABLE[0].COLUMN[1].START_BYTE"));
+        assertTrue(values("TABLE[2].COLUMN.START_BYTE").isEmpty());
+    }
+
+    public void testPointersAndObjects() {
+        final List<Statement> pointers = LabelQuery.compile("^IMAGE")
+                .evaluate(this.label);
+        assertEquals(1, pointers.size());
+        assertTrue(pointers.get(0) instanceof PointerStatement);
+
+        final List<Statement> tables = LabelQuery.compile("TABLE").evaluate(
+                this.label);
+        assertEquals(2, tables.size());
+        assertTrue(tables.get(0) instanceof ObjectStatement);
+
+        // relative to an object
+        assertEquals(2, LabelQuery.compile("COLUMN.NAME").evaluate(
+                (ObjectStatement) tables.get(0)).size());
+    }
+
+    public void testDocumentOrder() throws LabelParserException,
+            IOException {
+        final File testFile = File.createTempFile("order", ".lbl");
+        testFile.deleteOnExit();
+        Files.write(testFile.toPath(), ("PDS_VERSION_ID = PDS3\r\n"
+                + "GROUP = PART\r\n" + "  NAME = A\r\n"
+                + "END_GROUP = PART\r\n" + "OBJECT = PART\r\n"
+                + "  NAME = B\r\n" + "END_OBJECT = PART\r\n"
+                + "GROUP = PART\r\n" + "  NAME = C\r\n"
+                + "END_GROUP = PART\r\n" + "END\r\n")
+                .getBytes("US-ASCII"));
+        this.label = PARSER.parseLabel(testFile);
+        // objects and groups of the same name are interleaved as written
+        assertEquals(Arrays.asList("A", "B", "C"), values("PART.NAME"));
+        assertEquals(Arrays.asList("B"), values("PART[1].NAME"));
+    }
+
+    public void testEvaluateAll() throws LabelParserException, IOException {
+        final Label other = PARSER.parseLabel(new File(LABEL_DIR, "valid.lbl"));
+        final List<List<Statement>> results = LabelQuery.compile(
+                "PDS_VERSION_ID").evaluateAll(Arrays.asList(this.label, other));
+        assertEquals(2, results.size());
+        assertEquals(1, results.get(0).size());
+        assertEquals(other.getAttribute("PDS_VERSION_ID"), results.get(1)
+                .get(0));
+    }
+
+    public void testMalformed() {
+        for (final String query : new String[] { "", "TABLE.", "^IMAGE.NAME",
+                "TABLE[NAME='X'", "TABLE[NAME='X]", "TABLE..NAME",
+                "TABLE NAME" }) {
+            try {
+                LabelQuery.compile(query);
+                fail("Expected " + query + " to be rejected");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    private List<String> values(final String query) {
+        final List<String> values = new ArrayList<String>();
+        for (final Value value : LabelQuery.values(LabelQuery.compile(query)
+                .evaluate(this.label))) {
+            values.add(value.toString());
+        }
+        return values;
+    }
+}
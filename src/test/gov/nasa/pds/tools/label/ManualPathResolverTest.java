@@ -0,0 +1,200 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// • Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// • Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// • Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.tools.label;
+
+import gov.nasa.pds.tools.BaseTestCase;
+import gov.nasa.pds.tools.LabelParserException;
+import gov.nasa.pds.tools.constants.Constants.ProblemType;
+import gov.nasa.pds.tools.label.parser.DefaultLabelParser;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * @version $Revision$
+ * 
+ */
+@SuppressWarnings("nls")
+public class ManualPathResolverTest extends BaseTestCase {
+
+    private static final String LABEL = "PDS_VERSION_ID = PDS3\r\n"
+            + "^STRUCTURE = \"column.fmt\"\r\nEND\r\n";
+
+    private final Map<String, String> files = new ConcurrentHashMap<String, String>();
+
+    // requests received per method and path
+    private final ConcurrentMap<String, AtomicInteger> requests = new ConcurrentHashMap<String, AtomicInteger>();
+
+    private HttpServer server;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        this.files.put("/first.lbl", LABEL);
+        this.files.put("/second.lbl", LABEL);
+        this.files.put("/COLUMN.FMT", "OBJECT = COLUMN\r\n  NAME = FIRST\r\n"
+                + "END_OBJECT = COLUMN\r\n");
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress
+                .getLoopbackAddress(), 0), 0);
+        this.server.createContext("/", new HttpHandler() {
+            public void handle(final HttpExchange exchange) throws IOException {
+                final String path = exchange.getRequestURI().getPath();
+                final String key = exchange.getRequestMethod() + " " + path;
+                final AtomicInteger count = ManualPathResolverTest.this.requests
+                        .putIfAbsent(key, new AtomicInteger(1));
+                if (count != null) {
+                    count.incrementAndGet();
+                }
+                final String contents = ManualPathResolverTest.this.files
+                        .get(path);
+                if (contents == null) {
+                    exchange.sendResponseHeaders(404, -1);
+                } else if ("HEAD".equals(exchange.getRequestMethod())) {
+                    exchange.sendResponseHeaders(200, -1);
+                } else {
+                    final byte[] bytes = contents.getBytes("US-ASCII");
+                    exchange.sendResponseHeaders(200, bytes.length);
+                    final OutputStream out = exchange.getResponseBody();
+                    out.write(bytes);
+                    out.close();
+                }
+                exchange.close();
+            }
+        });
+        this.server.start();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        this.server.stop(0);
+        super.tearDown();
+    }
+
+    private URL url(final String path) throws IOException {
+        return new URL("http", "localhost", this.server.getAddress()
+                .getPort(), path);
+    }
+
+    private int requests(final String request) {
+        final AtomicInteger count = this.requests.get(request);
+        return count == null ? 0 : count.get();
+    }
+
+    public void testProbesEachPathOnce() throws LabelParserException,
+            IOException, URISyntaxException {
+        final ManualPathResolver resolver = new ManualPathResolver();
+        resolver.setBaseURI(ManualPathResolver.getBaseURI(url("/first.lbl")
+                .toURI()));
+        final DefaultLabelParser parser = new DefaultLabelParser(resolver);
+
+        for (final String name : new String[] { "/first.lbl", "/second.lbl" }) {
+            final Label label = parser.parseLabel(url(name));
+            assertEquals(1, label.getObjects("COLUMN").size());
+            // each label is still told the name had the wrong case
+            assertHasProblem(label, ProblemType.POTENTIAL_POINTER_PROBLEM);
+        }
+
+        // probed without reading, once for both labels
+        assertEquals(1, requests("HEAD /column.fmt"));
+        assertEquals(0, requests("GET /column.fmt"));
+        // read to parse each include
+        assertEquals(2, requests("GET /COLUMN.FMT"));
+
+        resolver.clearResolvedPaths();
+        this.files.put("/column.fmt", this.files.get("/COLUMN.FMT"));
+        final Label label = parser.parseLabel(url("/first.lbl"));
+        assertDoesntHaveProblem(label, ProblemType.POTENTIAL_POINTER_PROBLEM);
+        // probed again and found as named
+        assertEquals(1, requests("GET /column.fmt"));
+    }
+
+    public void testMissingReported() throws LabelParserException,
+            IOException, URISyntaxException {
+        this.files.remove("/COLUMN.FMT");
+        final ManualPathResolver resolver = new ManualPathResolver();
+        resolver.setBaseURI(ManualPathResolver.getBaseURI(url("/first.lbl")
+                .toURI()));
+        final DefaultLabelParser parser = new DefaultLabelParser(resolver);
+        for (final String name : new String[] { "/first.lbl", "/second.lbl" }) {
+            assertHasProblem(parser.parseLabel(url(name)),
+                    ProblemType.MISSING_RESOURCE);
+        }
+        assertEquals(1, requests("HEAD /column.fmt"));
+        assertEquals(1, requests("HEAD /COLUMN.FMT"));
+    }
+
+    public void testMissProbedAgainAfterExpiry() throws LabelParserException,
+            IOException, URISyntaxException {
+        final String contents = this.files.remove("/COLUMN.FMT");
+        final ManualPathResolver resolver = new ManualPathResolver();
+        resolver.setBaseURI(ManualPathResolver.getBaseURI(url("/first.lbl")
+                .toURI()));
+        resolver.setMissTtl(0);
+        final DefaultLabelParser parser = new DefaultLabelParser(resolver);
+        assertHasProblem(parser.parseLabel(url("/first.lbl")),
+                ProblemType.MISSING_RESOURCE);
+
+        // created after the miss, found without clearing the resolver
+        this.files.put("/column.fmt", contents);
+        final Label label = parser.parseLabel(url("/second.lbl"));
+        assertDoesntHaveProblem(label, ProblemType.MISSING_RESOURCE);
+        assertEquals(1, label.getObjects("COLUMN").size());
+    }
+
+    public void testResolvedPathsBounded() throws LabelParserException,
+            IOException, URISyntaxException {
+        final ManualPathResolver resolver = new ManualPathResolver();
+        resolver.setMaxResolvedPaths(1);
+        final DefaultLabelParser parser = new DefaultLabelParser(resolver);
+        this.files.put("/other/first.lbl", LABEL);
+        this.files.put("/other/COLUMN.FMT", this.files.get("/COLUMN.FMT"));
+        parser.parseLabel(url("/first.lbl"));
+        parser.parseLabel(url("/other/first.lbl"));
+        assertEquals(1, resolver.getResolvedPathCount());
+
+        // the first directory was forgotten so is probed again
+        parser.parseLabel(url("/first.lbl"));
+        assertEquals(2, requests("HEAD /column.fmt"));
+        assertEquals(1, resolver.getResolvedPathCount());
+    }
+}
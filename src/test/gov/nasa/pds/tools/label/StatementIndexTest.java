@@ -0,0 +1,111 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.tools.label;
+
+import gov.nasa.pds.tools.BaseTestCase;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @version $Revision$
+ * 
+ */
+@SuppressWarnings("nls")
+public class StatementIndexTest extends BaseTestCase {
+
+    public void testGroupedOrder() {
+        final Label label = new Label(new File("index.lbl"));
+        final AttributeStatement version = new AttributeStatement(label, 1,
+                "PDS_VERSION_ID", new Symbol("PDS3"));
+        final ObjectStatement table1 = new ObjectStatement(label, 2, "TABLE");
+        final CommentStatement comment = new CommentStatement(label, 3,
+                "column");
+        final ObjectStatement image = new ObjectStatement(label, 4, "IMAGE");
+        final ObjectStatement table2 = new ObjectStatement(label, 5, "TABLE");
+        final GroupStatement group = new GroupStatement(label, 6, "PARAMETERS");
+        final AttributeStatement version2 = new AttributeStatement(label, 7,
+                "PDS_VERSION_ID", new Symbol("PDS3"));
+
+        label.addStatement(version);
+        label.addStatement(table1);
+        // the object list is appended to while statements are in order
+        assertEquals(Arrays.asList(table1), label.getObjects());
+        label.addStatement(comment);
+        label.addStatement(image);
+        label.addStatement(table2);
+        label.addStatement(group);
+        label.addStatement(version2);
+
+        // statements are grouped under the first use of their identifier
+        assertEquals(Arrays.asList(table1, table2, image), label.getObjects());
+        assertEquals(Arrays.asList(version, version2), label.getAttributes());
+        assertEquals(Arrays.asList(group), label.getGroups());
+        assertTrue(label.getPointers().isEmpty());
+        assertEquals(Arrays.<Statement> asList(version, version2, table1,
+                table2, comment, image, group), label.getStatements());
+    }
+
+    public void testObjectStatements() {
+        final Label label = new Label(new File("index.lbl"));
+        final ObjectStatement table = new ObjectStatement(label, 1, "TABLE");
+        final ObjectStatement column1 = new ObjectStatement(label, 3, "COLUMN");
+        final PointerStatement pointer = PointerStatementFactory.newInstance(
+                label, 2, "^STRUCTURE", new TextString("TABLE.FMT"));
+        final ObjectStatement column2 = new ObjectStatement(label, 4, "COLUMN");
+        final AttributeStatement name = new AttributeStatement(label, 5,
+                "NAME", new Symbol("T"));
+        table.addStatement(column1);
+        table.addStatement(pointer);
+        table.addStatement(column2);
+        table.addStatement(name);
+
+        assertEquals(Arrays.asList(column1, column2), table.getObjects());
+        assertEquals(Arrays.asList(pointer), table.getPointers());
+        assertEquals(Arrays.asList(name), table.getAttributes());
+        assertTrue(table.getGroups().isEmpty());
+        assertEquals(4, table.getStatements().size());
+    }
+
+    public void testReadOnly() {
+        final Label label = new Label(new File("index.lbl"));
+        final List<ObjectStatement> objects = label.getObjects();
+        try {
+            objects.add(new ObjectStatement(label, 1, "TABLE"));
+            fail("Expected the list to be read only");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        label.addStatement(new ObjectStatement(label, 1, "TABLE"));
+        assertEquals(1, label.getObjects().size());
+    }
+}
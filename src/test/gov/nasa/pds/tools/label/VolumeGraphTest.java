@@ -0,0 +1,139 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// • Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// • Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// • Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.tools.label;
+
+import gov.nasa.pds.tools.BaseTestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * @version $Revision$
+ * 
+ */
+@SuppressWarnings("nls")
+public class VolumeGraphTest extends BaseTestCase {
+
+    private static File label(final String name) {
+        return new File(LABEL_DIR, name).getAbsoluteFile();
+    }
+
+    public void testCycles() {
+        final VolumeGraph graph = VolumeGraph.build(Arrays.asList(
+                label("circular1.lbl"), label("selfpointer.lbl"),
+                label("parent.lbl")), RESOLVER);
+
+        assertEquals(2, graph.getCycles().size());
+        assertEquals(Arrays.asList(label("circular1.lbl"),
+                label("circular2.lbl")), graph.getCycles().get(0));
+        assertEquals(Arrays.asList(label("selfpointer.lbl")), graph
+                .getCycles().get(1));
+
+        // included files come first
+        final List<File> order = graph.getTopologicalOrder();
+        assertEquals(graph.getFiles().size(), order.size());
+        assertTrue(order.indexOf(label("child.lbl")) < order.indexOf(
+                label("parent.lbl")));
+        assertTrue(order.indexOf(label("valid.lbl")) < order.indexOf(
+                label("circular1.lbl")));
+
+        // circular1 includes valid.lbl twice
+        assertEquals(3, graph.getEdges(label("circular1.lbl")).size());
+        assertEquals(VolumeGraph.EdgeType.FRAGMENT, graph.getEdges(
+                label("parent.lbl")).get(0).getType());
+        assertEquals(2, graph.getReferrers(label("valid.lbl")).size());
+        assertEquals(0, graph.getMissing().size());
+    }
+
+    public void testVolume() throws IOException {
+        final File root = Files.createTempDirectory("volume").toFile();
+        try {
+            final File labelDir = new File(root, "LABEL");
+            final File dataDir = new File(root, "DATA");
+            final File catalogDir = new File(root, "CATALOG");
+            labelDir.mkdir();
+            dataDir.mkdir();
+            catalogDir.mkdir();
+            FileUtils.writeStringToFile(new File(labelDir, "COLUMNS.FMT"),
+                    "^STRUCTURE = \"COLUMN.FMT\"\r\n", "US-ASCII");
+            FileUtils.writeStringToFile(new File(labelDir, "COLUMN.FMT"),
+                    "OBJECT = COLUMN\r\n  NAME = A\r\nEND_OBJECT = COLUMN\r\n",
+                    "US-ASCII");
+            FileUtils.writeStringToFile(new File(catalogDir, "MISSION.CAT"),
+                    "PDS_VERSION_ID = PDS3\r\nOBJECT = MISSION\r\n"
+                            + "END_OBJECT = MISSION\r\nEND\r\n", "US-ASCII");
+            FileUtils.writeStringToFile(new File(dataDir, "TABLE.TAB"), "1\r\n",
+                    "US-ASCII");
+            FileUtils.writeStringToFile(new File(dataDir, "TABLE.LBL"),
+                    "PDS_VERSION_ID = PDS3\r\n^TABLE = \"TABLE.TAB\"\r\n"
+                            + "^IMAGE = \"IMAGE.IMG\"\r\n"
+                            + "OBJECT = TABLE\r\n"
+                            + "  ^STRUCTURE = \"COLUMNS.FMT\"\r\n"
+                            + "END_OBJECT = TABLE\r\n"
+                            + "^CATALOG = \"MISSION.CAT\"\r\nEND\r\n",
+                    "US-ASCII");
+
+            final VolumeGraph graph = VolumeGraph.build(root);
+            final File table = new File(dataDir, "TABLE.LBL");
+            final List<VolumeGraph.Edge> edges = graph.getEdges(table);
+            assertEquals(4, edges.size());
+            assertEquals(VolumeGraph.EdgeType.DATA, edges.get(0).getType());
+            assertEquals(VolumeGraph.EdgeType.FRAGMENT, edges.get(2)
+                    .getType());
+            assertEquals(new File(labelDir, "COLUMNS.FMT"), edges.get(2)
+                    .getTo());
+            assertEquals(VolumeGraph.EdgeType.CATALOG, edges.get(3)
+                    .getType());
+            assertEquals(new File(catalogDir, "MISSION.CAT"), edges.get(3)
+                    .getTo());
+            assertEquals(0, graph.getCycles().size());
+            assertEquals(Arrays.asList(new File(dataDir, "IMAGE.IMG")), graph
+                    .getMissing());
+
+            // nested fragments are followed and know who depends on them
+            assertEquals(Arrays.asList(new File(labelDir, "COLUMNS.FMT"),
+                    table), Arrays.asList(graph.getDependents(
+                    new File(labelDir, "COLUMN.FMT")).toArray()));
+            final List<File> order = graph.getTopologicalOrder();
+            assertTrue(order.indexOf(new File(labelDir, "COLUMN.FMT")) < order
+                    .indexOf(new File(labelDir, "COLUMNS.FMT")));
+            assertTrue(order.indexOf(new File(labelDir, "COLUMNS.FMT")) < order
+                    .indexOf(table));
+        } finally {
+            FileUtils.deleteQuietly(root);
+        }
+    }
+}
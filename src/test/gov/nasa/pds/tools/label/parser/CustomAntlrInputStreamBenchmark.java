@@ -0,0 +1,237 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// • Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// • Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// • Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.tools.label.parser;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Throughput comparison between the block scanning {@link CustomAntlrInputStream}
+ * and the per byte implementation it replaced. Not run as part of the test
+ * suite, run the main method directly. Optional arguments are the synthetic
+ * label size in MB and the number of timed passes.
+ * 
+ * @version $Revision$
+ * 
+ */
+@SuppressWarnings("nls")
+public class CustomAntlrInputStreamBenchmark {
+
+  public static void main(String[] args) throws IOException {
+    final int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+    final int passes = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+    final byte[] label = createLabel(megabytes * 1024 * 1024);
+
+    // warm up both paths and make sure they agree
+    final Result legacy = run(label, true);
+    final Result block = run(label, false);
+    if (!legacy.equals(block)) {
+      throw new IllegalStateException("Results differ: " + legacy + " vs " + block);
+    }
+    System.out.println("Label of " + label.length + " bytes, " + legacy);
+
+    long legacyNanos = Long.MAX_VALUE;
+    long blockNanos = Long.MAX_VALUE;
+    for (int i = 0; i < passes; i++) {
+      long start = System.nanoTime();
+      run(label, true);
+      legacyNanos = Math.min(legacyNanos, System.nanoTime() - start);
+      start = System.nanoTime();
+      run(label, false);
+      blockNanos = Math.min(blockNanos, System.nanoTime() - start);
+    }
+    System.out.println("per byte: " + throughput(label.length, legacyNanos) + " MB/s");
+    System.out.println("block:    " + throughput(label.length, blockNanos) + " MB/s");
+  }
+
+  private static String throughput(final long bytes, final long nanos) {
+    return String.format("%.1f", bytes / (1024.0 * 1024.0) / (nanos / 1e9));
+  }
+
+  private static Result run(final byte[] label, final boolean legacy) throws IOException {
+    final BufferedInputStream bis = new BufferedInputStream(new ByteArrayInputStream(label));
+    final byte[] buf = new byte[8192];
+    long total = 0;
+    int count;
+    if (legacy) {
+      final LegacyInputStream is = new LegacyInputStream(bis);
+      while ((count = is.read(buf, 0, buf.length)) != -1) {
+        total += count;
+      }
+      return new Result(total, is.attachedContentStartByte, is.hasBlankFill);
+    }
+    final CustomAntlrInputStream is = new CustomAntlrInputStream(bis);
+    while ((count = is.read(buf, 0, buf.length)) != -1) {
+      total += count;
+    }
+    return new Result(total, is.getAttachedContentStartByte(), is.hasBlankFill());
+  }
+
+  // label text with quoted and commented sections, blank fill after END and
+  // then some binary content
+  private static byte[] createLabel(final int size) throws IOException {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream(size + 4096);
+    out.write("PDS_VERSION_ID = PDS3\r\n".getBytes("US-ASCII"));
+    int i = 0;
+    while (out.size() < size) {
+      final String block = "OBJECT = COLUMN\r\n" + "  NAME = 'COLUMN_" + i + "'\r\n"
+          + "  START_BYTE = " + i + " /* the END of a column is not END */\r\n"
+          + "  DESCRIPTION = \"Text describing the column. It mentions\r\n"
+          + "    END and ends here, and there's an apostrophe.\"\r\n" + "END_OBJECT = COLUMN\r\n";
+      out.write(block.getBytes("US-ASCII"));
+      i++;
+    }
+    out.write("END\r\n".getBytes("US-ASCII"));
+    for (int j = 0; j < 80; j++) {
+      out.write(' ');
+    }
+    for (int j = 0; j < 1024; j++) {
+      out.write(j);
+    }
+    return out.toByteArray();
+  }
+
+  private static class Result {
+    private final long bytes;
+    private final Integer attachedStart;
+    private final boolean blankFill;
+
+    Result(final long bytes, final Integer attachedStart, final boolean blankFill) {
+      this.bytes = bytes;
+      this.attachedStart = attachedStart;
+      this.blankFill = blankFill;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      final Result that = (Result) o;
+      return this.bytes == that.bytes && this.blankFill == that.blankFill
+          && (this.attachedStart == null ? that.attachedStart == null
+              : this.attachedStart.equals(that.attachedStart));
+    }
+
+    @Override
+    public int hashCode() {
+      return (int) this.bytes;
+    }
+
+    @Override
+    public String toString() {
+      return this.bytes + " label bytes, attached start " + this.attachedStart + ", blank fill "
+          + this.blankFill;
+    }
+  }
+
+  // the per byte implementation previously used by CustomAntlrInputStream
+  private static class LegacyInputStream extends FilterInputStream {
+
+    enum State {
+      NORMAL, IN_SINGLE_QUOTES, IN_DOUBLE_QUOTES, IN_COMMENTS, FOUND_END,
+    }
+
+    private byte[] history = {' ', ' ', ' ', ' ', ' '};
+    private int pos = 0;
+    private int endOfLabel = -1;
+    Integer attachedContentStartByte = null;
+    boolean hasBlankFill = false;
+    private State state = State.NORMAL;
+
+    LegacyInputStream(InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public synchronized int read(byte b[], int off, int len) throws IOException {
+      int count = 0;
+      while (count < len) {
+        int r = read();
+        if (r < 0) {
+          break;
+        }
+        b[count + off] = (byte) r;
+        count++;
+      }
+      if (count == 0) {
+        return -1;
+      }
+      return count;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = this.in.read();
+      ++this.pos;
+      if (this.endOfLabel != -1 && this.pos >= this.endOfLabel) {
+        return -1;
+      }
+      if (this.state == State.IN_SINGLE_QUOTES && b == '\'') {
+        this.state = State.NORMAL;
+      } else if (this.state == State.IN_DOUBLE_QUOTES && b == '"') {
+        this.state = State.NORMAL;
+      } else if (this.state == State.IN_COMMENTS && b == '/' && this.history[0] == '*') {
+        this.state = State.NORMAL;
+      } else if (this.state == State.NORMAL && b == '\'') {
+        this.state = State.IN_SINGLE_QUOTES;
+      } else if (this.state == State.NORMAL && b == '"') {
+        this.state = State.IN_DOUBLE_QUOTES;
+      } else if (this.state == State.NORMAL && b == '*' && this.history[0] == '/') {
+        this.state = State.IN_COMMENTS;
+      } else if (this.state == State.NORMAL && b != -1) {
+        if (Character.isWhitespace(b)) {
+          if (Character.isWhitespace(this.history[3]) && this.history[2] == 'E'
+              && this.history[1] == 'N' && this.history[0] == 'D') {
+            this.state = State.FOUND_END;
+          }
+        }
+      } else if (this.state == State.FOUND_END) {
+        if (!Character.isWhitespace(b)) {
+          this.endOfLabel = this.pos;
+          if (b != -1) {
+            this.attachedContentStartByte = this.pos;
+          }
+        } else if (b == 32) {
+          this.hasBlankFill = true;
+        }
+      } else if (b == -1) {
+        this.endOfLabel = this.pos - 1;
+      }
+      this.history[3] = this.history[2];
+      this.history[2] = this.history[1];
+      this.history[1] = this.history[0];
+      this.history[0] = (byte) b;
+      return b;
+    }
+  }
+}
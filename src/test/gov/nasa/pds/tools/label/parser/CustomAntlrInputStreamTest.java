@@ -37,9 +37,11 @@ import gov.nasa.pds.tools.label.Label;
 import gov.nasa.pds.tools.label.StandardPathResolver;
 
 import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.util.Arrays;
 
 @SuppressWarnings("nls")
 public class CustomAntlrInputStreamTest extends BaseTestCase {
@@ -116,4 +118,44 @@ public class CustomAntlrInputStreamTest extends BaseTestCase {
         assertEquals(0, label.getProblems().size());
 
     }
+
+    // block reads must surface the same bytes and find the same end of label
+    // as reading one byte at a time, whatever the block size
+    public void testBlockReadsMatchByteReads() throws Exception {
+        for (final File testFile : this.sampleDir.listFiles()) {
+            if (!testFile.isFile()) {
+                continue;
+            }
+            final CustomAntlrInputStream expected = open(testFile);
+            final ByteArrayOutputStream expectedBytes = new ByteArrayOutputStream();
+            int b;
+            while ((b = expected.read()) != -1) {
+                expectedBytes.write(b);
+            }
+            expected.close();
+
+            for (final int size : new int[] { 1, 2, 3, 5, 7, 64, 8192 }) {
+                final CustomAntlrInputStream is = open(testFile);
+                final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                final byte[] buf = new byte[size];
+                int count;
+                while ((count = is.read(buf, 0, size)) != -1) {
+                    bytes.write(buf, 0, count);
+                }
+                is.close();
+
+                final String context = testFile.getName() + " @" + size;
+                assertTrue(context, Arrays.equals(expectedBytes.toByteArray(),
+                        bytes.toByteArray()));
+                assertEquals(context, expected.getAttachedContentStartByte(),
+                        is.getAttachedContentStartByte());
+                assertEquals(context, expected.hasBlankFill(), is.hasBlankFill());
+            }
+        }
+    }
+
+    private CustomAntlrInputStream open(final File file) throws IOException {
+        return new CustomAntlrInputStream(new BufferedInputStream(
+                new FileInputStream(file)));
+    }
 }
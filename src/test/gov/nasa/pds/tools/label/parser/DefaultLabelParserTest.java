@@ -32,11 +32,34 @@ package gov.nasa.pds.tools.label.parser;
 
 import gov.nasa.pds.tools.BaseTestCase;
 import gov.nasa.pds.tools.LabelParserException;
+import gov.nasa.pds.tools.constants.Constants.ProblemType;
+import gov.nasa.pds.tools.label.AttributeStatement;
+import gov.nasa.pds.tools.label.CommentStatement;
+import gov.nasa.pds.tools.label.GroupStatement;
 import gov.nasa.pds.tools.label.Label;
+import gov.nasa.pds.tools.label.LabelSource;
+import gov.nasa.pds.tools.label.ObjectStatement;
+import gov.nasa.pds.tools.label.PointerStatement;
+import gov.nasa.pds.tools.label.Statement;
 import gov.nasa.pds.tools.label.StandardPathResolver;
+import gov.nasa.pds.tools.label.Value;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.antlr.runtime.Token;
 
 /**
  * @author pramirez
@@ -59,6 +82,22 @@ public class DefaultLabelParserTest extends BaseTestCase {
 
     }
 
+    public void testStatementsShareSource() throws LabelParserException,
+            IOException {
+        final File testFile = new File(LABEL_DIR, "ITEMS.LBL");
+        final Label label = PARSER.parseLabel(testFile);
+        final LabelSource source = label.getSource();
+        assertSame(label, source.getLabel());
+        assertEquals(testFile, source.getFile());
+        assertNull(source.getURI());
+        assertEquals(testFile.toString(), source.getSourceString());
+        for (final Statement statement : label.getStatements()) {
+            assertSame(source, statement.getSource());
+            assertSame(label, statement.getLabel());
+            assertEquals(testFile, statement.getSourceFile());
+        }
+    }
+
     public void testSFDU() throws LabelParserException, IOException {
         final File sampleDir = new File(TEST_DIR, "labels");
 
@@ -87,4 +126,311 @@ public class DefaultLabelParserTest extends BaseTestCase {
         }
     }
 
+    public void testMissingPath() throws IOException {
+        final File testFile = new File(LABEL_DIR, "MISSING.LBL");
+        try {
+            PARSER.parseLabel(testFile.toPath());
+            fail("missing file should have thrown exception");
+        } catch (LabelParserException e) {
+            assertEquals("parser.error.missingFile", e.getKey());
+        }
+    }
+
+    public void testPathMatchesFile() throws IOException {
+        for (final File file : LABEL_DIR.listFiles()) {
+            if (file.isDirectory()) {
+                continue;
+            }
+            assertEquals(file.getName(), describe(file, false), describe(file,
+                    true));
+        }
+    }
+
+    public void testReusedContextMatchesFreshThread() throws Exception {
+        for (final File file : LABEL_DIR.listFiles()) {
+            if (file.isDirectory()) {
+                continue;
+            }
+            // a new thread starts with its own parse context
+            final String[] fresh = new String[1];
+            final Thread thread = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        fresh[0] = describe(file, false);
+                    } catch (IOException e) {
+                        fresh[0] = e.toString();
+                    }
+                }
+            };
+            thread.start();
+            thread.join();
+            assertEquals(file.getName(), fresh[0], describe(file, false));
+        }
+    }
+
+    public void testParseAll() throws Exception {
+        final List<Path> paths = new ArrayList<Path>();
+        for (final File file : LABEL_DIR.listFiles()) {
+            if (file.isFile()) {
+                paths.add(file.toPath());
+            }
+        }
+        paths.add(new File(LABEL_DIR, "MISSING.LBL").toPath());
+        final DefaultLabelParser parser = new DefaultLabelParser(RESOLVER);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<CompletableFuture<Label>> results = parser.parseAll(
+                    paths, executor);
+            assertEquals(paths.size(), results.size());
+            for (int i = 0; i < paths.size(); i++) {
+                final String name = paths.get(i).getFileName().toString();
+                String expected;
+                try {
+                    expected = describe(parser.parseLabel(paths.get(i)));
+                } catch (LabelParserException e) {
+                    expected = e.getKey();
+                }
+                try {
+                    assertEquals(name, expected, describe(results.get(i)
+                            .get()));
+                } catch (ExecutionException e) {
+                    assertTrue(name,
+                            e.getCause() instanceof LabelParserException);
+                    assertEquals(name, expected, ((LabelParserException) e
+                            .getCause()).getKey());
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private String describe(final File file, final boolean mapped)
+            throws IOException {
+        final Label label;
+        try {
+            label = mapped ? PARSER.parseLabel(file.toPath(), true) : PARSER
+                    .parseLabel(file, true);
+        } catch (LabelParserException e) {
+            return e.getKey();
+        }
+        return describe(label);
+    }
+
+    private String describe(final Label label) {
+        final StringBuilder sb = new StringBuilder();
+        if (label.hasAttachedContent()) {
+            sb.append(label.getAttachedStartByte()).append('\n');
+        }
+        for (final LabelParserException problem : label.getProblems()) {
+            sb.append(problem.getKey()).append(' ').append(
+                    problem.getLineNumber()).append(' ').append(
+                    problem.getColumn()).append('\n');
+        }
+        for (final Label.LineLength length : label.getLineLengths()) {
+            sb.append(length.getLine()).append(':').append(length.getLength())
+                    .append(' ');
+        }
+        describe(label.getStatements(), sb);
+        return sb.toString();
+    }
+
+    private void describe(final List<Statement> statements,
+            final StringBuilder sb) {
+        for (final Statement statement : statements) {
+            sb.append('\n').append(statement.getClass().getSimpleName())
+                    .append(' ').append(statement.getLineNumber()).append(' ')
+                    .append(statement);
+            if (statement instanceof ObjectStatement) {
+                describe(((ObjectStatement) statement).getStatements(), sb);
+            } else if (statement instanceof GroupStatement) {
+                describe(((GroupStatement) statement).getStatements(), sb);
+            }
+        }
+    }
+
+    public void testEventsMatchTree() throws IOException {
+        final DefaultLabelParser parser = new DefaultLabelParser(false, true,
+                RESOLVER);
+        for (final File file : LABEL_DIR.listFiles()) {
+            if (file.isDirectory()) {
+                continue;
+            }
+            final List<String> expected = new ArrayList<String>();
+            try {
+                final Label label = parser.parseLabel(file);
+                for (final LabelParserException problem : label.getProblems()) {
+                    expected.add(problem.getKey() + " "
+                            + problem.getLineNumber() + " "
+                            + problem.getColumn());
+                }
+                flatten(label.getStatements(), expected);
+            } catch (LabelParserException e) {
+                expected.add(e.getKey());
+            }
+
+            final List<String> actual = new ArrayList<String>();
+            try {
+                parser.parseLabel(file, new RecordingHandler(actual));
+            } catch (LabelParserException e) {
+                actual.add(e.getKey());
+            }
+            Collections.sort(expected);
+            Collections.sort(actual);
+            assertEquals(file.getName(), expected, actual);
+        }
+    }
+
+    public void testEventsWithoutProblems() throws LabelParserException,
+            IOException {
+        final File testFile = new File(LABEL_DIR, "SFDULabel.lbl");
+        final List<String> events = new ArrayList<String>();
+        PARSER.parseLabel(testFile, new RecordingHandler(events));
+        assertFalse(events.isEmpty());
+        for (final String event : events) {
+            assertTrue(event, event.startsWith("A ") || event.startsWith("P ")
+                    || event.startsWith("O ") || event.startsWith("G ")
+                    || event.startsWith("C "));
+        }
+    }
+
+    public void testParseKeywords() throws LabelParserException,
+            IOException {
+        final File testFile = new File(LABEL_DIR, "attachedBlankBinary.img");
+        final Label label = PARSER.parseLabel(testFile);
+        final ObjectStatement image = label.getObjects("IMAGE").get(0);
+
+        final Map<String, Value> values = PARSER.parseKeywords(testFile,
+                Arrays.asList("IMAGE.LINES", "PRODUCT_ID",
+                        "THUMBNAIL_REQUEST_PARMS.LINES", "^IMAGE",
+                        "NOT_IN_LABEL"));
+        assertEquals(Arrays.asList("^IMAGE", "PRODUCT_ID",
+                "THUMBNAIL_REQUEST_PARMS.LINES", "IMAGE.LINES"),
+                new ArrayList<String>(values.keySet()));
+        assertEquals(label.getAttribute("PRODUCT_ID").getValue().toString(),
+                values.get("PRODUCT_ID").toString());
+        assertEquals(label.getPointers().get(0).getValue().toString(),
+                values.get("^IMAGE").toString());
+        assertEquals("64", values.get("THUMBNAIL_REQUEST_PARMS.LINES")
+                .toString());
+        assertEquals(image.getAttribute("LINES").getValue().toString(),
+                values.get("IMAGE.LINES").toString());
+    }
+
+    public void testParseKeywordsStopsEarly() throws LabelParserException,
+            IOException {
+        final File testFile = File.createTempFile("keywords", ".lbl");
+        testFile.deleteOnExit();
+        // the unterminated object would be a problem in a full parse
+        Files.write(testFile.toPath(), ("PDS_VERSION_ID = PDS3\r\n"
+                + "PRODUCT_ID = FIRST\r\n" + "OBJECT = TABLE\r\n"
+                + "  PRODUCT_ID = SECOND\r\n").getBytes("US-ASCII"));
+        final Map<String, Value> values = PARSER.parseKeywords(testFile,
+                Arrays.asList("PRODUCT_ID"));
+        assertEquals(1, values.size());
+        assertEquals("FIRST", values.get("PRODUCT_ID").toString());
+        assertTrue(PARSER.parseKeywords(testFile,
+                Collections.<String> emptyList()).isEmpty());
+    }
+
+    public void testPathTooLargeToBuffer() throws LabelParserException,
+            IOException {
+        final File testFile = File.createTempFile("large", ".lbl");
+        try {
+            Files.write(testFile.toPath(), ("PDS_VERSION_ID = PDS3\r\n"
+                    + "PRODUCT_ID = LARGE\r\nEND\r\n").getBytes("US-ASCII"));
+            // sparse so the attached data takes no space
+            final RandomAccessFile file = new RandomAccessFile(testFile, "rw");
+            try {
+                file.setLength(Integer.MAX_VALUE + 1024L);
+            } finally {
+                file.close();
+            }
+            final Label label = PARSER.parseLabel(testFile.toPath());
+            assertEquals("LARGE", label.getAttribute("PRODUCT_ID").getValue()
+                    .toString());
+            assertEquals(0, label.getProblems().size());
+            assertEquals("LARGE", PARSER.parseKeywords(testFile.toPath(),
+                    Arrays.asList("PRODUCT_ID")).get("PRODUCT_ID").toString());
+            final List<String> events = new ArrayList<String>();
+            PARSER.parseLabel(testFile.toPath(), new RecordingHandler(events));
+            assertEquals(Arrays.asList("A 1 PDS_VERSION_ID PDS3",
+                    "A 2 PRODUCT_ID LARGE"), events);
+        } finally {
+            testFile.delete();
+        }
+    }
+
+    private void flatten(final List<Statement> statements,
+            final List<String> out) {
+        for (final Statement statement : statements) {
+            final int line = statement.getLineNumber();
+            if (statement instanceof ObjectStatement) {
+                out.add("O " + line + " " + statement.getIdentifier());
+                flatten(((ObjectStatement) statement).getStatements(), out);
+            } else if (statement instanceof GroupStatement) {
+                out.add("G " + line + " " + statement.getIdentifier());
+                flatten(((GroupStatement) statement).getStatements(), out);
+            } else if (statement instanceof PointerStatement) {
+                out.add("P " + line + " " + statement.getIdentifier() + " "
+                        + ((PointerStatement) statement).getValue());
+            } else if (statement instanceof AttributeStatement) {
+                out.add("A " + line + " " + statement.getIdentifier() + " "
+                        + ((AttributeStatement) statement).getValue());
+            } else if (statement instanceof CommentStatement) {
+                out.add("C " + line + " "
+                        + ((CommentStatement) statement).getText());
+            }
+        }
+    }
+
+    private static class RecordingHandler implements LabelEventHandler {
+
+        private final List<String> events;
+
+        RecordingHandler(final List<String> events) {
+            this.events = events;
+        }
+
+        public void startObject(final int line, final String identifier,
+                final Token comment) {
+            this.events.add("O " + line + " " + identifier);
+        }
+
+        public void endObject(final String identifier, final Token comment) {
+            // nothing to record, nesting is implied by start events
+        }
+
+        public void startGroup(final int line, final String identifier,
+                final Token comment) {
+            this.events.add("G " + line + " " + identifier);
+        }
+
+        public void endGroup(final String identifier, final Token comment) {
+            // nothing to record, nesting is implied by start events
+        }
+
+        public void attribute(final int line, final String identifier,
+                final Value value, final Token comment) {
+            this.events.add("A " + line + " " + identifier + " " + value);
+        }
+
+        public void pointer(final int line, final String identifier,
+                final Value value, final Token comment) {
+            this.events.add("P " + line + " " + identifier + " " + value);
+        }
+
+        public void comment(final Token comment) {
+            this.events.add("C " + comment.getLine() + " "
+                    + comment.getText());
+        }
+
+        public void problem(final Integer line, final Integer column,
+                final String key, final ProblemType type,
+                final Object... arguments) {
+            this.events.add(key + " " + line + " " + column);
+        }
+    }
+
 }
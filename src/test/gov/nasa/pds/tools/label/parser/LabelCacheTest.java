@@ -0,0 +1,223 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.tools.label.parser;
+
+import gov.nasa.pds.tools.BaseTestCase;
+import gov.nasa.pds.tools.LabelParserException;
+import gov.nasa.pds.tools.label.GroupStatement;
+import gov.nasa.pds.tools.label.IncludePointer;
+import gov.nasa.pds.tools.label.Label;
+import gov.nasa.pds.tools.label.ObjectStatement;
+import gov.nasa.pds.tools.label.Statement;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * @version $Revision$
+ * 
+ */
+@SuppressWarnings("nls")
+public class LabelCacheTest extends BaseTestCase {
+
+    private File dir;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        this.dir = Files.createTempDirectory("labelcache").toFile();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        FileUtils.deleteQuietly(this.dir);
+        super.tearDown();
+    }
+
+    public void testServesUnchangedLabels() throws LabelParserException,
+            IOException {
+        final LabelCache cache = new LabelCache(PARSER, new File(this.dir,
+                "cache"), Long.MAX_VALUE);
+        final List<File> files = new ArrayList<File>();
+        for (final File file : LABEL_DIR.listFiles()) {
+            if (!file.isFile() || !file.getName().endsWith(".lbl")) {
+                continue;
+            }
+            try {
+                cache.parseLabel(file.toPath());
+                files.add(file);
+            } catch (LabelParserException e) {
+                // not a label, nothing is stored
+            }
+        }
+        assertEquals(0, cache.getHits());
+        assertEquals(files.size(), cache.getSize() > 0 ? new File(this.dir,
+                "cache").list().length : 0);
+
+        // a new cache over the same directory picks up the stored entries
+        final LabelCache reopened = new LabelCache(PARSER, new File(this.dir,
+                "cache"), Long.MAX_VALUE);
+        assertEquals(cache.getSize(), reopened.getSize());
+        for (final File file : files) {
+            assertEquals(file.getName(), describe(PARSER.parseLabel(file
+                    .getAbsoluteFile().toPath())), describe(reopened
+                    .parseLabel(file.toPath())));
+        }
+        assertEquals(files.size(), reopened.getHits());
+        assertEquals(0, reopened.getMisses());
+    }
+
+    public void testChangedIncludeInvalidates() throws LabelParserException,
+            IOException {
+        final File label = new File(this.dir, "parent.lbl");
+        final File fragment = new File(this.dir, "child.fmt");
+        FileUtils.writeStringToFile(label, "PDS_VERSION_ID = PDS3\r\n"
+                + "^STRUCTURE = \"child.fmt\"\r\nEND\r\n", "US-ASCII");
+        FileUtils.writeStringToFile(fragment, "OBJECT = COLUMN\r\n"
+                + "  NAME = FIRST\r\nEND_OBJECT = COLUMN\r\n", "US-ASCII");
+        final LabelCache cache = new LabelCache(PARSER, new File(this.dir,
+                "cache"), Long.MAX_VALUE);
+
+        assertTrue(describe(cache.parseLabel(label.toPath())).contains(
+                "FIRST"));
+        assertTrue(describe(cache.parseLabel(label.toPath())).contains(
+                "FIRST"));
+        assertEquals(1, cache.getHits());
+
+        FileUtils.writeStringToFile(fragment, "OBJECT = COLUMN\r\n"
+                + "  NAME = SECOND\r\nEND_OBJECT = COLUMN\r\n", "US-ASCII");
+        fragment.setLastModified(fragment.lastModified() + 2000);
+        assertTrue(describe(cache.parseLabel(label.toPath())).contains(
+                "SECOND"));
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+    }
+
+    public void testEditDuringParseIsNotStored()
+            throws LabelParserException, IOException {
+        final File label = new File(this.dir, "edited.lbl");
+        FileUtils.writeStringToFile(label, "PDS_VERSION_ID = PDS3\r\n"
+                + "NAME = FIRST\r\nEND\r\n", "US-ASCII");
+        // edits the label once it has been read but before it is stored
+        final DefaultLabelParser parser = new DefaultLabelParser(RESOLVER) {
+            private boolean edited;
+
+            @Override
+            public Label parseLabel(final Path path)
+                    throws LabelParserException, IOException {
+                final Label parsed = super.parseLabel(path);
+                if (!this.edited) {
+                    this.edited = true;
+                    FileUtils.writeStringToFile(label,
+                            "PDS_VERSION_ID = PDS3\r\n"
+                                    + "NAME = SECOND\r\nEND\r\n",
+                            "US-ASCII");
+                    label.setLastModified(label.lastModified() + 2000);
+                }
+                return parsed;
+            }
+        };
+        final LabelCache cache = new LabelCache(parser, new File(this.dir,
+                "cache"), Long.MAX_VALUE);
+
+        assertTrue(describe(cache.parseLabel(label.toPath())).contains(
+                "FIRST"));
+        assertTrue(describe(cache.parseLabel(label.toPath())).contains(
+                "SECOND"));
+        assertEquals(0, cache.getHits());
+        assertEquals(2, cache.getMisses());
+    }
+
+    public void testEvictsOverBudget() throws LabelParserException,
+            IOException {
+        final File cacheDir = new File(this.dir, "cache");
+        final File first = new File(LABEL_DIR, "ITEMS.LBL");
+        final File second = new File(LABEL_DIR, "valid.lbl");
+        final LabelCache sizing = new LabelCache(PARSER, new File(this.dir,
+                "sizing"), Long.MAX_VALUE);
+        sizing.parseLabel(first.toPath());
+        final long budget = sizing.getSize() + 1;
+
+        final LabelCache cache = new LabelCache(PARSER, cacheDir, budget);
+        cache.parseLabel(first.toPath());
+        cache.parseLabel(second.toPath());
+        assertTrue(cache.getSize() <= budget);
+        assertEquals(1, cacheDir.list().length);
+        // the older entry made way for the newer one
+        cache.parseLabel(first.toPath());
+        assertEquals(0, cache.getHits());
+        assertEquals(3, cache.getMisses());
+    }
+
+    private String describe(final Label label) {
+        final StringBuilder sb = new StringBuilder();
+        if (label.hasAttachedContent()) {
+            sb.append(label.getAttachedStartByte()).append('\n');
+        }
+        for (final LabelParserException problem : label.getProblems()) {
+            sb.append(problem.getKey()).append(' ').append(
+                    problem.getLineNumber()).append(' ').append(
+                    problem.getColumn()).append('\n');
+        }
+        for (final Label.LineLength length : label.getLineLengths()) {
+            sb.append(length.getLine()).append(':').append(length.getLength())
+                    .append(' ');
+        }
+        describe(label.getStatements(), 0, sb);
+        return sb.toString();
+    }
+
+    // includes are followed to a fixed depth since they may be circular
+    private void describe(final List<Statement> statements, final int depth,
+            final StringBuilder sb) {
+        for (final Statement statement : statements) {
+            sb.append('\n').append(statement.getClass().getSimpleName())
+                    .append(' ').append(statement.getLineNumber()).append(' ')
+                    .append(statement);
+            if (statement instanceof IncludePointer && depth < 4) {
+                describe(((IncludePointer) statement).getStatements(),
+                        depth + 1, sb);
+            } else if (statement instanceof ObjectStatement) {
+                describe(((ObjectStatement) statement).getStatements(), depth,
+                        sb);
+            } else if (statement instanceof GroupStatement) {
+                describe(((GroupStatement) statement).getStatements(), depth,
+                        sb);
+            }
+        }
+    }
+}
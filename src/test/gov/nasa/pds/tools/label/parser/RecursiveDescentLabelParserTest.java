@@ -0,0 +1,150 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.tools.label.parser;
+
+import gov.nasa.pds.tools.BaseTestCase;
+import gov.nasa.pds.tools.LabelParserException;
+import gov.nasa.pds.tools.label.GroupStatement;
+import gov.nasa.pds.tools.label.Label;
+import gov.nasa.pds.tools.label.ObjectStatement;
+import gov.nasa.pds.tools.label.StandardPathResolver;
+import gov.nasa.pds.tools.label.Statement;
+import gov.nasa.pds.tools.label.antlr.ODLLexer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.antlr.runtime.ANTLRFileStream;
+import org.antlr.runtime.CharStream;
+import org.antlr.runtime.Token;
+import org.antlr.runtime.TokenSource;
+
+/**
+ * Conformance of {@link RecursiveDescentLabelParser} with the ANTLR based
+ * {@link DefaultLabelParser} over the test label corpus.
+ * 
+ * @version $Revision$
+ * 
+ */
+@SuppressWarnings("nls")
+public class RecursiveDescentLabelParserTest extends BaseTestCase {
+
+    public void testMatchesDefaultParser() throws IOException {
+        final DefaultLabelParser parser = new RecursiveDescentLabelParser(
+                new StandardPathResolver());
+        for (final File file : LABEL_DIR.listFiles()) {
+            if (file.isDirectory()) {
+                continue;
+            }
+            assertEquals(file.getName(), describe(PARSER, file, false),
+                    describe(parser, file, false));
+            assertEquals(file.getName(), describe(PARSER, file, true),
+                    describe(parser, file, true));
+        }
+    }
+
+    public void testTokensMatchLexer() throws IOException {
+        for (final File file : LABEL_DIR.listFiles()) {
+            if (file.isDirectory()) {
+                continue;
+            }
+            final Label expected = new Label(file);
+            final ODLLexer lexer = new ODLLexer(new ANTLRFileStream(file
+                    .getPath(), "US-ASCII"));
+            lexer.setLabel(expected);
+            final Label actual = new Label(file);
+            final CharStream input = new ANTLRFileStream(file.getPath(),
+                    "US-ASCII");
+            final ODLTokenizer tokenizer = new ODLTokenizer(input, actual);
+            assertEquals(file.getName(), tokens(lexer), tokens(tokenizer));
+            assertEquals(file.getName(), expected.getProblems().size(),
+                    actual.getProblems().size());
+            assertEquals(file.getName(), expected.getLineLengths().size(),
+                    actual.getLineLengths().size());
+        }
+    }
+
+    private String tokens(final TokenSource source) {
+        final StringBuilder sb = new StringBuilder();
+        Token token;
+        while ((token = source.nextToken()).getType() != Token.EOF) {
+            if (token.getType() == ODLLexer.WS) {
+                continue;
+            }
+            sb.append(token.getType()).append(' ').append(token.getLine())
+                    .append(':').append(token.getCharPositionInLine())
+                    .append(' ').append(token.getText()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private String describe(final DefaultLabelParser parser, final File file,
+            final boolean mapped) throws IOException {
+        final Label label;
+        try {
+            label = mapped ? parser.parseLabel(file.toPath(), true) : parser
+                    .parseLabel(file, true);
+        } catch (LabelParserException e) {
+            return e.getKey();
+        }
+        final StringBuilder sb = new StringBuilder();
+        if (label.hasAttachedContent()) {
+            sb.append(label.getAttachedStartByte()).append('\n');
+        }
+        for (final LabelParserException problem : label.getProblems()) {
+            sb.append(problem.getKey()).append(' ').append(
+                    problem.getLineNumber()).append(' ').append(
+                    problem.getColumn()).append(' ').append(
+                    problem.getType()).append('\n');
+        }
+        for (final Label.LineLength length : label.getLineLengths()) {
+            sb.append(length.getLine()).append(':').append(length.getLength())
+                    .append(' ');
+        }
+        describe(label.getStatements(), sb);
+        return sb.toString();
+    }
+
+    private void describe(final List<Statement> statements,
+            final StringBuilder sb) {
+        for (final Statement statement : statements) {
+            sb.append('\n').append(statement.getClass().getSimpleName())
+                    .append(' ').append(statement.getLineNumber()).append(' ')
+                    .append(statement);
+            if (statement instanceof ObjectStatement) {
+                describe(((ObjectStatement) statement).getStatements(), sb);
+            } else if (statement instanceof GroupStatement) {
+                describe(((GroupStatement) statement).getStatements(), sb);
+            }
+        }
+    }
+}
@@ -0,0 +1,185 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// • Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// • Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// • Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.tools.label.validate;
+
+import gov.nasa.pds.tools.BaseTestCase;
+import gov.nasa.pds.tools.LabelParserException;
+import gov.nasa.pds.tools.Problem;
+import gov.nasa.pds.tools.constants.Constants.ProblemType;
+import gov.nasa.pds.tools.label.Label;
+import gov.nasa.pds.tools.label.PointerStatement;
+import gov.nasa.pds.tools.label.StandardPathResolver;
+import gov.nasa.pds.tools.label.parser.DefaultLabelParser;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * @version $Revision$
+ * 
+ */
+@SuppressWarnings("nls")
+public class PointerTargetValidatorTest extends BaseTestCase {
+
+    private File dir;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        this.dir = Files.createTempDirectory("pointertarget").toFile();
+        FileUtils.writeStringToFile(new File(this.dir, "DATA.TAB"),
+                "0123456789", "US-ASCII");
+        FileUtils.writeStringToFile(new File(this.dir, "ONE.LBL"),
+                "PDS_VERSION_ID = PDS3\r\n" + "RECORD_BYTES = 5\r\n"
+                        + "^TABLE = (\"DATA.TAB\", 2)\r\n"
+                        + "^HEADER = (\"DATA.TAB\", 11 <BYTES>)\r\n"
+                        + "^IMAGE = \"MISSING.IMG\"\r\n" + "END\r\n",
+                "US-ASCII");
+        FileUtils.writeStringToFile(new File(this.dir, "TWO.LBL"),
+                "PDS_VERSION_ID = PDS3\r\n" + "RECORD_BYTES = 5\r\n"
+                        + "^TABLE = (\"DATA.TAB\", 2)\r\n" + "END\r\n",
+                "US-ASCII");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        FileUtils.deleteQuietly(this.dir);
+        super.tearDown();
+    }
+
+    private PointerTargetValidator createValidator()
+            throws LabelParserException, IOException {
+        final StandardPathResolver resolver = new StandardPathResolver();
+        final DefaultLabelParser parser = new DefaultLabelParser(false, false,
+                resolver);
+        final PointerTargetValidator validator = new PointerTargetValidator(
+                resolver);
+        validator.add(parser.parseLabel(new File(this.dir, "ONE.LBL")));
+        validator.add(parser.parseLabel(new File(this.dir, "TWO.LBL")));
+        return validator;
+    }
+
+    public void testProblems() throws LabelParserException, IOException {
+        final PointerTargetValidator validator = createValidator();
+        // DATA.TAB is named three times but is only one target
+        assertEquals(2, validator.getTargetCount());
+
+        final List<Problem> problems = validator.validate();
+        assertEquals(2, problems.size());
+        // in the order the pointers were added, not the order of the targets
+        final Problem pastEnd = problems.get(0);
+        assertEquals(ProblemType.POINTER_PAST_END, pastEnd.getType());
+        assertEquals("parser.error.startPastEnd", pastEnd.getKey());
+        assertEquals(Integer.valueOf(4), pastEnd.getLineNumber());
+        assertEquals(new File(this.dir, "ONE.LBL"), pastEnd.getSourceFile());
+        assertEquals(11L, pastEnd.getArguments()[1]);
+        assertEquals(10L, pastEnd.getArguments()[2]);
+        final Problem missing = problems.get(1);
+        assertEquals(ProblemType.MISSING_RESOURCE, missing.getType());
+        assertEquals("MISSING.IMG", missing.getArguments()[0]);
+        assertEquals(Integer.valueOf(5), missing.getLineNumber());
+    }
+
+    public void testExecutorMatchesSequential() throws LabelParserException,
+            IOException {
+        final List<Problem> sequential = createValidator().validate();
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final List<Problem> parallel = createValidator()
+                    .validate(executor);
+            assertEquals(sequential.size(), parallel.size());
+            for (int i = 0; i < sequential.size(); i++) {
+                assertEquals(sequential.get(i).getType(), parallel.get(i)
+                        .getType());
+                assertEquals(sequential.get(i).getLineNumber(), parallel.get(
+                        i).getLineNumber());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    public void testNonNumericRecordBytes() throws LabelParserException,
+            IOException {
+        final File labelFile = new File(this.dir, "STREAM.LBL");
+        FileUtils.writeStringToFile(labelFile, "PDS_VERSION_ID = PDS3\r\n"
+                + "RECORD_TYPE = STREAM\r\n" + "RECORD_BYTES = \"N/A\"\r\n"
+                + "^TABLE = (\"DATA.TAB\", 2)\r\n"
+                + "^HEADER = (\"DATA.TAB\", 20 <BYTES>)\r\n"
+                + "^IMAGE = (\"DATA.TAB\", \"N/A\")\r\n" + "END\r\n",
+                "US-ASCII");
+        final StandardPathResolver resolver = new StandardPathResolver();
+        final Label label = new DefaultLabelParser(false, false, resolver)
+                .parseLabel(labelFile);
+        final PointerTargetValidator validator = new PointerTargetValidator(
+                resolver);
+        validator.add(label);
+
+        // records of unknown size can't be checked but byte offsets can
+        final List<Problem> problems = validator.validate();
+        assertEquals(1, problems.size());
+        assertEquals(ProblemType.POINTER_PAST_END, problems.get(0).getType());
+        assertEquals(Integer.valueOf(5), problems.get(0).getLineNumber());
+    }
+
+    public void testUnreadableNotMissing() throws LabelParserException,
+            IOException {
+        // a path through a regular file fails with ENOTDIR, not ENOENT
+        final File notADirectory = new File(new File(this.dir, "DATA.TAB"),
+                "DATA.TAB");
+        final StandardPathResolver resolver = new StandardPathResolver() {
+            @Override
+            public List<File> resolveFiles(final PointerStatement pointer) {
+                return Collections.singletonList(notADirectory);
+            }
+        };
+        final Label label = new DefaultLabelParser(false, false, resolver)
+                .parseLabel(new File(this.dir, "TWO.LBL"));
+        final PointerTargetValidator validator = new PointerTargetValidator(
+                resolver);
+        validator.add(label);
+
+        final List<Problem> problems = validator.validate();
+        assertEquals(1, problems.size());
+        assertEquals(ProblemType.UNREADABLE_RESOURCE, problems.get(0)
+                .getType());
+        assertEquals("parser.error.unreadableRefFile", problems.get(0)
+                .getKey());
+        assertEquals(Integer.valueOf(3), problems.get(0).getLineNumber());
+    }
+}
@@ -30,6 +30,7 @@
 
 package gov.nasa.pds.tools.util;
 
+import gov.nasa.arc.pds.tools.util.LocaleUtils;
 import gov.nasa.pds.tools.BaseTestCase;
 import gov.nasa.pds.tools.LabelParserException;
 import gov.nasa.pds.tools.constants.Constants.ProblemType;
@@ -37,6 +38,10 @@ import gov.nasa.pds.tools.label.Label;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.ListResourceBundle;
+import java.util.ResourceBundle;
 
 import org.junit.Ignore;
 
@@ -58,4 +63,54 @@ public class MessageUtilsTest extends BaseTestCase {
 //                "\"ALPHA\" only accepts a type of \"ALPHABET\" and value \"777\" was interpreted as a \"Numeric\".",
 //                MessageUtils.getProblemMessage(lpe));
     }
+
+    public void testOverrideFallsBackToDefault() {
+        final String expected = MessageUtils.getText(
+                "parser.error.missingEndStatement");
+        try {
+            MessageUtils.setOverride(new ListResourceBundle() {
+                @Override
+                protected Object[][] getContents() {
+                    return new Object[][] { { "parser.error.lineTooLong",
+                            "Line is {0} long" } };
+                }
+            });
+            assertEquals("Line is 90 long", MessageUtils.getText(
+                    "parser.error.lineTooLong", "90"));
+            assertFalse(expected.equals("parser.error.missingEndStatement"));
+            assertEquals(expected, MessageUtils
+                    .getText("parser.error.missingEndStatement"));
+        } finally {
+            MessageUtils.setOverride(new ListResourceBundle() {
+                @Override
+                protected Object[][] getContents() {
+                    return new Object[0][];
+                }
+            });
+        }
+    }
+
+    public void testMissingKeysLookedUpOnce() {
+        final int[] lookups = new int[1];
+        final LocaleUtils utils = new LocaleUtils(new ResourceBundle() {
+            @Override
+            protected Object handleGetObject(final String key) {
+                lookups[0]++;
+                return "found".equals(key) ? "{0} of {1}" : null;
+            }
+
+            @Override
+            public Enumeration<String> getKeys() {
+                return Collections.enumeration(Collections.singleton("found"));
+            }
+        });
+        assertFalse(utils.hasText("missing"));
+        assertEquals("missing", utils.getText("missing"));
+        assertEquals(1, lookups[0]);
+
+        assertTrue(utils.hasText("found"));
+        assertEquals("1 of 2", utils.getText("found", "1", "2"));
+        assertEquals("3 of 4", utils.getText("found", "3", "4"));
+        assertEquals(2, lookups[0]);
+    }
 }
@@ -0,0 +1,106 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// • Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// • Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// • Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.tools.util;
+
+import gov.nasa.arc.pds.tools.util.TaskUtils;
+import gov.nasa.pds.tools.BaseTestCase;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * @version $Revision$
+ * 
+ */
+@SuppressWarnings("nls")
+public class TaskUtilsTest extends BaseTestCase {
+
+    private static FutureTask<String> task(final String result) {
+        return new FutureTask<String>(new Callable<String>() {
+            public String call() {
+                return result + Thread.currentThread().getName();
+            }
+        });
+    }
+
+    public void testCallerRuns() throws ExecutionException {
+        final String caller = Thread.currentThread().getName();
+        final FutureTask<String> noExecutor = task("a");
+        assertFalse(TaskUtils.execute(null, noExecutor));
+        assertEquals("a" + caller, TaskUtils.runAndAwait(noExecutor));
+
+        final FutureTask<String> rejected = task("b");
+        assertFalse(TaskUtils.execute(new Executor() {
+            public void execute(final Runnable command) {
+                throw new RejectedExecutionException();
+            }
+        }, rejected));
+        assertEquals("b" + caller, TaskUtils.runAndAwait(rejected));
+
+        // accepted but never started, so still run by the caller
+        final FutureTask<String> queued = task("c");
+        assertTrue(TaskUtils.execute(new Executor() {
+            public void execute(final Runnable command) {
+                // left in the queue
+            }
+        }, queued));
+        assertEquals("c" + caller, TaskUtils.runAndAwait(queued));
+    }
+
+    public void testExceptions() {
+        try {
+            TaskUtils.runAndAwait(new FutureTask<Void>(new Callable<Void>() {
+                public Void call() throws IOException {
+                    throw new IOException("checked");
+                }
+            }));
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+        try {
+            TaskUtils.runAndAwait(new FutureTask<Void>(new Callable<Void>() {
+                public Void call() {
+                    throw new IllegalArgumentException("unchecked");
+                }
+            }));
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("unchecked", e.getMessage());
+        } catch (ExecutionException e) {
+            fail();
+        }
+    }
+}
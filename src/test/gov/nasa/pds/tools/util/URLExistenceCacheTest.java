@@ -0,0 +1,183 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// • Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// • Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// • Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.tools.util;
+
+import gov.nasa.arc.pds.tools.util.URLExistenceCache;
+import gov.nasa.arc.pds.tools.util.URLUtils;
+import gov.nasa.pds.tools.BaseTestCase;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * @version $Revision$
+ * 
+ */
+@SuppressWarnings("nls")
+public class URLExistenceCacheTest extends BaseTestCase {
+
+    private HttpServer server;
+
+    private ExecutorService serverThreads;
+
+    // requests received per path
+    private final ConcurrentMap<String, AtomicInteger> requests = new ConcurrentHashMap<String, AtomicInteger>();
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress
+                .getLoopbackAddress(), 0), 0);
+        this.server.createContext("/", new HttpHandler() {
+            public void handle(final HttpExchange exchange) throws IOException {
+                final String path = exchange.getRequestURI().getPath();
+                AtomicInteger count = URLExistenceCacheTest.this.requests
+                        .putIfAbsent(path, new AtomicInteger(1));
+                if (count != null) {
+                    count.incrementAndGet();
+                }
+                if (path.startsWith("/found")) {
+                    exchange.sendResponseHeaders(200, -1);
+                } else if (path.startsWith("/moved")) {
+                    exchange.getResponseHeaders().add("Location", "/found");
+                    exchange.sendResponseHeaders(301, -1);
+                } else {
+                    exchange.sendResponseHeaders(404, -1);
+                }
+                exchange.close();
+            }
+        });
+        this.serverThreads = Executors.newFixedThreadPool(4);
+        this.server.setExecutor(this.serverThreads);
+        this.server.start();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        URLUtils.setExistenceCache(null);
+        this.server.stop(0);
+        this.serverThreads.shutdownNow();
+        super.tearDown();
+    }
+
+    private URL url(final String path) throws IOException {
+        return new URL("http", "localhost", this.server.getAddress()
+                .getPort(), path);
+    }
+
+    private int requests(final String path) {
+        final AtomicInteger count = this.requests.get(path);
+        return count == null ? 0 : count.get();
+    }
+
+    public void testRemembersAnswers() throws IOException {
+        final URLExistenceCache cache = new URLExistenceCache();
+        for (int i = 0; i < 3; i++) {
+            assertTrue(cache.exists(url("/found.lbl")));
+            assertFalse(cache.exists(url("/missing.lbl")));
+            // redirects are not followed
+            assertFalse(cache.exists(url("/moved.lbl")));
+        }
+        assertEquals(1, requests("/found.lbl"));
+        assertEquals(1, requests("/missing.lbl"));
+        assertEquals(1, requests("/moved.lbl"));
+        assertEquals(6, cache.getHits());
+        assertEquals(3, cache.getMisses());
+
+        cache.invalidate(url("/found.lbl"));
+        assertTrue(cache.exists(url("/found.lbl")));
+        assertEquals(2, requests("/found.lbl"));
+    }
+
+    public void testMissingExpiresSooner() throws IOException {
+        final URLExistenceCache cache = new URLExistenceCache(60000, 0, 100);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(cache.exists(url("/found.lbl")));
+            assertFalse(cache.exists(url("/missing.lbl")));
+        }
+        assertEquals(1, requests("/found.lbl"));
+        assertEquals(3, requests("/missing.lbl"));
+    }
+
+    public void testExistsAll() throws IOException {
+        final URLExistenceCache cache = new URLExistenceCache();
+        final List<URL> urls = new ArrayList<URL>();
+        for (int i = 0; i < 20; i++) {
+            urls.add(url((i % 2 == 0 ? "/found" : "/missing") + i + ".lbl"));
+        }
+        urls.add(url("/found0.lbl"));
+        final Map<String, Boolean> results = cache.existsAll(urls);
+        assertEquals(20, results.size());
+        int i = 0;
+        for (final Map.Entry<String, Boolean> entry : results.entrySet()) {
+            assertEquals(urls.get(i).toExternalForm(), entry.getKey());
+            assertEquals(Boolean.valueOf(i % 2 == 0), entry.getValue());
+            assertEquals(1, requests(urls.get(i).getPath()));
+            i++;
+        }
+
+        // known answers aren't checked again
+        assertEquals(results, cache.existsAll(urls));
+        for (final URL url : urls) {
+            assertEquals(1, requests(url.getPath()));
+        }
+    }
+
+    public void testUtilsUseCache() throws IOException {
+        // without a cache each check is a request
+        assertTrue(URLUtils.exists(url("/found.lbl")));
+        assertFalse(URLUtils.exists(url("/moved.lbl")));
+        assertTrue(URLUtils.exists(url("/found.lbl")));
+        assertEquals(2, requests("/found.lbl"));
+        // other connections still follow redirects
+        assertTrue(HttpURLConnection.getFollowRedirects());
+
+        URLUtils.setExistenceCache(new URLExistenceCache());
+        assertTrue(URLUtils.exists(url("/found.lbl")));
+        assertTrue(URLUtils.exists(url("/found.lbl")));
+        assertEquals(3, requests("/found.lbl"));
+    }
+}